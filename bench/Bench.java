@@ -0,0 +1,195 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A small, dependency-free micro-benchmark harness.
+ * <p>
+ * JMH refuses benchmark classes in the default package, which is where every
+ * class of this project lives, so the benchmarks use this harness instead. It
+ * follows the same scheme: each benchmark is warmed up for a number of timed
+ * iterations and then measured for a number of timed iterations, and the mean
+ * time per operation is reported together with its standard deviation. The
+ * bytes allocated per operation are read from the thread allocation counter,
+ * which is what the {@code gc.alloc.rate.norm} column of the JMH GC profiler
+ * reports.
+ * <p>
+ * Results are stored into {@link #sink} or {@link #dsink} so the JIT cannot discard them. Every
+ * benchmark pays the same call through {@link Op}, so timings are comparable
+ * with each other but include a few nanoseconds of harness overhead.
+ * <p>
+ * The harness is configured with system properties:
+ * <ul>
+ *   <li>{@code bench.warmup} - number of warmup iterations (default 3)</li>
+ *   <li>{@code bench.iterations} - number of measured iterations (default 5)</li>
+ *   <li>{@code bench.time} - length of one iteration in milliseconds (default 200)</li>
+ * </ul>
+ */
+public final class Bench {
+
+    /** A benchmarked operation. */
+    @FunctionalInterface
+    public interface Op {
+
+        /**
+         * Runs the operation once.
+         *
+         * @param i the invocation counter, used to pick operands
+         * @return the result of the operation
+         */
+        Object run(int i);
+    }
+
+    /** A benchmarked operation with a primitive result, which is consumed without boxing. */
+    @FunctionalInterface
+    public interface DoubleOp {
+
+        /**
+         * Runs the operation once.
+         *
+         * @param i the invocation counter, used to pick operands
+         * @return the result of the operation
+         */
+        double run(int i);
+    }
+
+    /** Receives every result so the JIT cannot eliminate the benchmarked code. */
+    public static Object sink;
+
+    /** Receives every primitive result so the JIT cannot eliminate the benchmarked code. */
+    public static double dsink;
+
+    final private static com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    final private static int WARMUP = Integer.getInteger("bench.warmup", 3);
+    final private static int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    final private static long TIME_NANOS = Long.getLong("bench.time", 200) * 1_000_000;
+
+    /** The most operations per timing check; batches start at one so slow benchmarks do not overrun. */
+    final private static int BATCH = 64;
+
+    final private String title;
+    final private Pattern filter;
+
+    /**
+     * Constructs a harness that runs the benchmarks whose names match the given filter.
+     *
+     * @param title the title printed above the results
+     * @param args the command line; the first argument, if present, is a regular
+     *             expression that benchmark names must contain
+     */
+    public Bench(String title, String[] args) {
+        this.title = title;
+        this.filter = Pattern.compile(args.length > 0 ? args[0] : "");
+    }
+
+    /**
+     * Runs one benchmark and prints its result, unless its name does not match the filter.
+     *
+     * @param name the name of the benchmark
+     * @param op the operation to measure
+     */
+    public void run(String name, Op op) {
+        if (filter.matcher(name).find())
+            measure(name, 0, op, null);
+    }
+
+    /**
+     * Runs one benchmark that processes a batch of elements per operation and
+     * prints its result followed by the throughput in millions of elements per
+     * second, unless its name does not match the filter.
+     *
+     * @param name the name of the benchmark
+     * @param elements the number of elements processed by one operation
+     * @param op the operation to measure
+     */
+    public void run(String name, long elements, Op op) {
+        if (filter.matcher(name).find())
+            measure(name, elements, op, null);
+    }
+
+    /**
+     * Runs one benchmark with a primitive result and prints its result, unless its
+     * name does not match the filter.
+     *
+     * @param name the name of the benchmark
+     * @param op the operation to measure
+     */
+    public void runDouble(String name, DoubleOp op) {
+        if (filter.matcher(name).find())
+            measure(name, 0, null, op);
+    }
+
+    //HELPER METHOD
+    private static void measure(String name, long elements, Op op, DoubleOp dop) {
+        for (int w = 0; w < WARMUP; w++)
+            iteration(op, dop);
+
+        double[] nanos = new double[ITERATIONS];
+        long totalOps = 0, totalBytes = 0;
+
+        for (int m = 0; m < ITERATIONS; m++) {
+            long[] r = iteration(op, dop);
+            nanos[m] = (double) r[1] / r[0];
+            totalOps += r[0];
+            totalBytes += r[2];
+        }
+
+        double mean = 0;
+        for (double d : nanos)
+            mean += d;
+        mean /= nanos.length;
+
+        double var = 0;
+        for (double d : nanos)
+            var += (d - mean) * (d - mean);
+        double err = nanos.length > 1 ? Math.sqrt(var / (nanos.length - 1)) : 0;
+
+        String line = String.format(Locale.ROOT, "%-44s %12.2f +- %9.2f %12.1f",
+                name, mean, err, (double) totalBytes / totalOps);
+        if (elements > 0)
+            line += String.format(Locale.ROOT, " %10.2f M elem/s", elements * 1e3 / mean);
+        System.out.println(line);
+    }
+
+    //HELPER METHOD
+    private static long[] iteration(Op op, DoubleOp dop) {
+        long tid = Thread.currentThread().getId();
+        long ops = 0;
+        long bytes0 = THREADS.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        long deadline = start + TIME_NANOS;
+        long now;
+
+        int batch = 1;
+
+        do {
+            if (op != null) {
+                for (int k = 0; k < batch; k++)
+                    sink = op.run((int) ops + k);
+            }
+            else {
+                for (int k = 0; k < batch; k++)
+                    dsink = dop.run((int) ops + k);
+            }
+            ops += batch;
+            batch = Math.min(2*batch, BATCH);
+        } while ((now = System.nanoTime()) < deadline);
+
+        long bytes = THREADS.getThreadAllocatedBytes(tid) - bytes0;
+        return new long[] {ops, now - start, bytes};
+    }
+
+    /**
+     * Prints the header of the result table. Call this before the first {@link #run}.
+     */
+    public void header() {
+        System.out.println("# " + title);
+        System.out.println("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + ", " + Runtime.getRuntime().availableProcessors() + " cpus"
+                + ", warmup " + WARMUP + " x " + TIME_NANOS / 1_000_000 + " ms"
+                + ", measure " + ITERATIONS + " x " + TIME_NANOS / 1_000_000 + " ms");
+        System.out.println(String.format(Locale.ROOT, "%-44s %12s    %9s %12s", "Benchmark", "ns/op", "error", "B/op"));
+    }
+}
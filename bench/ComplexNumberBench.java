@@ -0,0 +1,143 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of the operations of {@link ComplexNumber}, {@link Rectangular} and {@link Polar}.
+ * <p>
+ * Binary operations are measured for each {@link Mix} of operand representations.
+ * Operands are drawn from fixed, randomly generated tables so that every run
+ * measures the same inputs.
+ * <p>
+ * Usage: {@code java -cp out ComplexNumberBench [name-regex]}
+ */
+public class ComplexNumberBench {
+
+    /** The number of operands in each table; a power of two so indices can be masked. */
+    final static int SIZE = 1024;
+
+    final static int MASK = SIZE - 1;
+
+    /** The combinations of operand representations a binary operation is measured with. */
+    enum Mix {
+        POLAR, RECT, MIXED;
+
+        /** The first operands. */
+        final ComplexNumber[] a = new ComplexNumber[SIZE];
+
+        /** The second operands. */
+        final ComplexNumber[] b = new ComplexNumber[SIZE];
+
+        Mix() {
+            Random rnd = new Random(42);
+            for (int i = 0; i < SIZE; i++) {
+                Rectangular x = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+                Rectangular y = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+
+                a[i] = name().equals("RECT") ? x : x.toComplexPolar();
+                b[i] = name().equals("POLAR") ? y.toComplexPolar() : y;
+            }
+        }
+
+        /** Returns the name used in benchmark names, e.g. {@code polar}. */
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexNumber", args);
+        bench.header();
+
+        for (Mix mix : Mix.values()) {
+            ComplexNumber[] a = mix.a, b = mix.b;
+            String p = "." + mix.label();
+
+            bench.run("add" + p, i -> ComplexNumber.add(a[i & MASK], b[i & MASK]));
+            bench.run("subtract" + p, i -> ComplexNumber.subtract(a[i & MASK], b[i & MASK]));
+            bench.run("multiply" + p, i -> ComplexNumber.multiply(a[i & MASK], b[i & MASK]));
+            bench.run("divide" + p, i -> ComplexNumber.divide(a[i & MASK], b[i & MASK]));
+            bench.run("power" + p, i -> ComplexNumber.power(a[i & MASK], b[i & MASK]));
+        }
+
+        for (Mix mix : new Mix[] {Mix.POLAR, Mix.RECT}) {
+            ComplexNumber[] a = mix.a;
+            String p = "." + mix.label();
+
+            bench.run("powerInt2" + p, i -> ComplexNumber.power(a[i & MASK], 2));
+            bench.run("powerInt10" + p, i -> ComplexNumber.power(a[i & MASK], 10));
+            bench.run("powerIntMinus3" + p, i -> ComplexNumber.power(a[i & MASK], -3));
+            bench.run("powerDouble2" + p, i -> ComplexNumber.power(a[i & MASK], 2.0));
+            bench.run("powerDouble10" + p, i -> ComplexNumber.power(a[i & MASK], 10.0));
+            bench.run("square" + p, i -> ComplexNumber.square(a[i & MASK]));
+            bench.run("cube" + p, i -> ComplexNumber.cube(a[i & MASK]));
+            bench.run("sqrtByPower" + p, i -> ComplexNumber.power(a[i & MASK], 0.5));
+            bench.run("sqrt" + p, i -> ComplexNumber.sqrt(a[i & MASK]));
+            bench.run("sin" + p, i -> ComplexNumber.sin(a[i & MASK]));
+            bench.run("cos" + p, i -> ComplexNumber.cos(a[i & MASK]));
+            bench.run("tan" + p, i -> ComplexNumber.tan(a[i & MASK]));
+            bench.run("log" + p, i -> ComplexNumber.log(a[i & MASK]));
+            bench.run("exp" + p, i -> ComplexNumber.exp(a[i & MASK]));
+            bench.run("sinh" + p, i -> ComplexNumber.sinh(a[i & MASK]));
+            bench.run("cosh" + p, i -> ComplexNumber.cosh(a[i & MASK]));
+            bench.run("tanh" + p, i -> ComplexNumber.tanh(a[i & MASK]));
+            bench.run("asin" + p, i -> ComplexNumber.asin(a[i & MASK]));
+            bench.run("acos" + p, i -> ComplexNumber.acos(a[i & MASK]));
+            bench.run("atan" + p, i -> ComplexNumber.atan(a[i & MASK]));
+        }
+
+        ComplexNumber[] polar = Mix.POLAR.a, rect = Mix.RECT.a;
+
+        // chains that stay in one form until the result is read
+        bench.runDouble("addChain16.polar", i -> {
+            ComplexNumber s = polar[i & MASK];
+            for (int k = 1; k < 16; k++)
+                s = ComplexNumber.add(s, polar[(i + k) & MASK]);
+            return s.modulus();
+        });
+        bench.runDouble("divideThenAdd.polar", i -> {
+            ComplexNumber q = ComplexNumber.divide(ComplexNumber.add(polar[i & MASK], polar[(i + 1) & MASK]), polar[(i + 2) & MASK]);
+            return q.real();
+        });
+        bench.runDouble("rectToPolarToReal", i -> rect[i & MASK].toComplexPolar().real());
+
+        bench.run("polarToRect", i -> polar[i & MASK].toComplexRect());
+        bench.run("rectToPolar", i -> rect[i & MASK].toComplexPolar());
+        bench.runDouble("polarReal", i -> polar[i & MASK].real());
+        bench.runDouble("rectModulus", i -> rect[i & MASK].modulus());
+        bench.runDouble("rectPhase", i -> rect[i & MASK].phase());
+
+        // lookups with equal but distinct keys, half of them polar and half rectangular
+        Map<ComplexNumber, Integer> map = new HashMap<>();
+        ComplexNumber[] keys = new ComplexNumber[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            ComplexNumber z = i % 2 == 0 ? polar[i] : rect[i];
+            map.put(z, i);
+            keys[i] = z instanceof Polar p0 ? new Polar(p0.modulus(), p0.phase()) : new Rectangular(z.real(), z.imag());
+        }
+        bench.run("hashMapGet.mixed", i -> map.get(keys[i & MASK]));
+        bench.runDouble("hashCode.polar", i -> polar[i & MASK].hashCode());
+        bench.runDouble("hashCode.rect", i -> rect[i & MASK].hashCode());
+
+        bench.run("nthRootsOfUnity.16", i -> ComplexNumber.nthRootsOfUnity(16));
+        bench.run("nthRootsOfUnity.1024", i -> ComplexNumber.nthRootsOfUnity(1024));
+        bench.run("rootsOfUnityTable.1024", i -> RootsOfUnity.of(1024));
+        bench.run("rootsOfUnityTable.uncached.1024", i -> {
+            RootsOfUnity.clearCache();
+            return RootsOfUnity.of(1024);
+        });
+
+        // fixed-arity overloads against the boxing varargs path they replace
+        bench.run("addFixed.rect", i -> ComplexNumber.add(rect[i & MASK], rect[(i + 1) & MASK]));
+        bench.run("addVarargs.rect", i -> ComplexNumber.add((Object) rect[i & MASK], rect[(i + 1) & MASK]));
+        bench.run("addScalarFixed.polar", i -> ComplexNumber.add(polar[i & MASK], 1.5));
+        bench.run("addScalarVarargs.polar", i -> ComplexNumber.add((Object) polar[i & MASK], 1.5));
+        bench.run("multiplyScalarFixed.rect", i -> ComplexNumber.multiply(rect[i & MASK], 1.5));
+        bench.run("multiplyScalarVarargs.rect", i -> ComplexNumber.multiply((Object) rect[i & MASK], 1.5));
+        bench.run("multiplyScalarFixed.polar", i -> ComplexNumber.multiply(polar[i & MASK], 1.5));
+        bench.run("multiplyScalarVarargs.polar", i -> ComplexNumber.multiply((Object) polar[i & MASK], 1.5));
+
+        System.out.println("# conversions: polarToRect " + ComplexNumber.polarToRectConversions()
+                + ", rectToPolar " + ComplexNumber.rectToPolarConversions());
+    }
+}
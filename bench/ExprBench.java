@@ -0,0 +1,74 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexExpr}: formulas written as chains of
+ * {@link ComplexNumber} calls against the same formulas compiled to a
+ * {@link ComplexProgram}, evaluated point by point and over a whole array.
+ * <p>
+ * Usage: {@code java -cp out ExprBench [name-regex]}
+ */
+public class ExprBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexExpr", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        int points = 1024;
+        ComplexArray z = new ComplexArray(points), dst = new ComplexArray(points);
+        for (int i = 0; i < points; i++)
+            z.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+        Rectangular[] zs = z.toRectangularArray();
+
+        // a rational function with a repeated subexpression: (z² + 1) / (z² - 1) + (z² + 1)²
+        ComplexExpr x = ComplexExpr.z();
+        ComplexExpr q = x.multiply(x).add(1);
+        ComplexProgram rational = q.divide(x.multiply(x).subtract(1)).add(q.multiply(q)).compile();
+
+        bench.run("rational.objects", i -> {
+            ComplexNumber[] out = new ComplexNumber[points];
+            for (int j = 0; j < points; j++) {
+                ComplexNumber w = zs[j];
+                ComplexNumber a = ComplexNumber.add(ComplexNumber.multiply(w, w), 1);
+                ComplexNumber b = ComplexNumber.subtract(ComplexNumber.multiply(w, w), 1);
+                out[j] = ComplexNumber.add(ComplexNumber.divide(a, b), ComplexNumber.multiply(a, a));
+            }
+            return out;
+        });
+        bench.run("rational.scalar", i -> {
+            double[] w = new double[2];
+            for (int j = 0; j < points; j++) {
+                rational.evaluate(z.real(j), z.imag(j), w);
+                dst.set(j, w[0], w[1]);
+            }
+            return dst;
+        });
+        bench.run("rational.array", i -> {
+            rational.evaluate(z, dst);
+            return dst;
+        });
+
+        // a transcendental formula: sin(z) * e^(-z²/2) + log(1 + z²)
+        ComplexExpr z2 = x.power(2);
+        ComplexProgram wave = x.sin().multiply(z2.divide(-2).exp()).add(z2.add(1).log()).compile();
+
+        bench.run("wave.objects", i -> {
+            ComplexNumber[] out = new ComplexNumber[points];
+            for (int j = 0; j < points; j++) {
+                ComplexNumber w = zs[j];
+                ComplexNumber sq = ComplexNumber.square(w);
+                out[j] = ComplexNumber.add(
+                        ComplexNumber.multiply(ComplexNumber.sin(w), ComplexNumber.exp(ComplexNumber.divide(sq, -2))),
+                        ComplexNumber.log(ComplexNumber.add(sq, 1)));
+            }
+            return out;
+        });
+        bench.run("wave.array", i -> {
+            wave.evaluate(z, dst);
+            return dst;
+        });
+
+        bench.run("compile", i -> q.divide(x.multiply(x).subtract(1)).add(q.multiply(q)).compile());
+    }
+}
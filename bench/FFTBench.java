@@ -0,0 +1,66 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link FFT} for the radix-2, mixed-radix and Bluestein paths,
+ * of real-input transforms, and of a direct O(n²) DFT built on
+ * {@link ComplexNumber#multiply(ComplexNumber, ComplexNumber)} and
+ * {@link ComplexNumber#nthRootsOfUnity(int)} for comparison.
+ * <p>
+ * Usage: {@code java -cp out FFTBench [name-regex]}
+ */
+public class FFTBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("FFT", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        for (int n : new int[] {1024, 1000, 1009, 1 << 16, 1 << 20}) {
+            FFT fft = new FFT(n);
+            double[] re = new double[n], im = new double[n];
+            for (int i = 0; i < n; i++) {
+                re[i] = rnd.nextGaussian();
+                im[i] = rnd.nextGaussian();
+            }
+
+            bench.run("forward." + n, i -> {
+                fft.forward(re, im);
+                return re;
+            });
+            bench.run("forwardInverse." + n, i -> {
+                fft.forward(re, im);
+                fft.inverse(re, im);
+                return re;
+            });
+
+            if (n % 2 == 0) {
+                ComplexArray out = new ComplexArray(n/2 + 1);
+                bench.run("realForward." + n, i -> {
+                    fft.realForward(re, out);
+                    return out;
+                });
+            }
+        }
+
+        bench.run("plan.1024", i -> new FFT(1024));
+        bench.run("plan.1009", i -> new FFT(1009));
+
+        int n = 1024;
+        ComplexNumber[] x = new ComplexNumber[n];
+        for (int i = 0; i < n; i++)
+            x[i] = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+
+        bench.run("naiveDft." + n, i -> {
+            Rectangular[] w = ComplexNumber.nthRootsOfUnity(n);
+            ComplexNumber[] out = new ComplexNumber[n];
+            for (int k = 0; k < n; k++) {
+                ComplexNumber sum = new Rectangular(0, 0);
+                for (int j = 0; j < n; j++)
+                    sum = ComplexNumber.add(sum, ComplexNumber.multiply(x[j], w[(int) ((long) (n - j) * k % n)]));
+                out[k] = sum;
+            }
+            return out;
+        });
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.Random;
+
+/**
+ * Checks the error bounds documented in {@link FastComplexMath} against the
+ * exact functions of {@link Math} and {@link ComplexNumber}.
+ * <p>
+ * Each real function is compared over uniformly distributed arguments in the
+ * ranges where it approximates, over exponents spread across the whole double
+ * range, and over special values, which must give identical results. The
+ * complex operations are compared over Gaussian operands. The report lists
+ * the largest error found and the documented bound; the program exits with
+ * status 1 if any bound is exceeded.
+ * <p>
+ * Usage: {@code java -cp out FastMathAccuracy [samples]}
+ */
+public class FastMathAccuracy {
+
+    final static double[] SPECIAL = {0.0, -0.0, 1.0, -1.0, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+            Math.PI, -Math.PI, Math.PI / 2, -Math.PI / 2, 708, -708, 709, -745, 0x1p20, -0x1p20, 0x1p21, 1e300};
+
+    static boolean failed;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        Random rnd = new Random(42);
+
+        System.out.printf("%-28s %14s %14s%n", "function", "max error", "bound");
+
+        double sin = 0, cos = 0, sinWide = 0, cosWide = 0;
+        for (int i = 0; i < samples; i++) {
+            double x = (2 * rnd.nextDouble() - 1) * 8;
+            sin = Math.max(sin, Math.abs(FastComplexMath.sin(x) - Math.sin(x)));
+            cos = Math.max(cos, Math.abs(FastComplexMath.cos(x) - Math.cos(x)));
+            x = (2 * rnd.nextDouble() - 1) * 0x1p20;
+            sinWide = Math.max(sinWide, Math.abs(FastComplexMath.sin(x) - Math.sin(x)));
+            cosWide = Math.max(cosWide, Math.abs(FastComplexMath.cos(x) - Math.cos(x)));
+        }
+        report("sin abs, |x| <= 8", sin, 1e-11);
+        report("cos abs, |x| <= 8", cos, 1e-11);
+        report("sin abs, |x| <= 2^20", sinWide, 1e-11);
+        report("cos abs, |x| <= 2^20", cosWide, 1e-11);
+
+        double atan2 = 0;
+        for (int i = 0; i < samples; i++) {
+            double y = rnd.nextGaussian() * Math.pow(10, 4 * rnd.nextGaussian());
+            double x = rnd.nextGaussian() * Math.pow(10, 4 * rnd.nextGaussian());
+            atan2 = Math.max(atan2, Math.abs(FastComplexMath.atan2(y, x) - Math.atan2(y, x)));
+        }
+        report("atan2 abs", atan2, 1e-11);
+
+        double log = 0, logNearOne = 0, exp = 0, expWide = 0;
+        for (int i = 0; i < samples; i++) {
+            double x = Math.scalb(1 + rnd.nextDouble(), rnd.nextInt(2046) - 1022);
+            log = Math.max(log, relative(FastComplexMath.log(x), Math.log(x)));
+            x = 1 + (2 * rnd.nextDouble() - 1) * Math.pow(10, -8 * rnd.nextDouble());
+            logNearOne = Math.max(logNearOne, relative(FastComplexMath.log(x), Math.log(x)));
+            x = (2 * rnd.nextDouble() - 1) * 20;
+            exp = Math.max(exp, relative(FastComplexMath.exp(x), Math.exp(x)));
+            x = (2 * rnd.nextDouble() - 1) * 708;
+            expWide = Math.max(expWide, relative(FastComplexMath.exp(x), Math.exp(x)));
+        }
+        report("log rel, all normals", log, 1e-11);
+        report("log rel, near 1", logNearOne, 1e-11);
+        report("exp rel, |x| <= 20", exp, 1e-14);
+        report("exp rel, |x| <= 708", expWide, 1e-14);
+
+        int mismatches = 0;
+        for (double x : SPECIAL) {
+            if (Math.abs(x) > 0x1p20 || x != x || x == 0)
+                mismatches += same(FastComplexMath.sin(x), Math.sin(x)) + same(FastComplexMath.cos(x), Math.cos(x));
+            if (!(x >= Double.MIN_NORMAL && x < Double.POSITIVE_INFINITY))
+                mismatches += same(FastComplexMath.log(x), Math.log(x));
+            if (!(Math.abs(x) <= 708))
+                mismatches += same(FastComplexMath.exp(x), Math.exp(x));
+            for (double y : SPECIAL)
+                if (x != x || y != y || Double.isInfinite(x) || Double.isInfinite(y) || (x == 0 && y == 0))
+                    mismatches += same(FastComplexMath.atan2(y, x), Math.atan2(y, x));
+        }
+        report("special value mismatches", mismatches, 0);
+
+        int n = samples / 8;
+        double phase = 0, toRect = 0, cexp = 0, clog = 0, power = 0, realPower = 0;
+        for (int i = 0; i < n; i++) {
+            Rectangular z = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+            Rectangular w = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+            Polar p = new Polar(Math.abs(rnd.nextGaussian()), 4 * rnd.nextGaussian());
+            double b = 4 * rnd.nextGaussian();
+
+            phase = Math.max(phase, Math.abs(FastComplexMath.phase(z) - z.phase()));
+            toRect = Math.max(toRect, distance(FastComplexMath.toRect(p), p) / Math.max(1, p.modulus()));
+            cexp = Math.max(cexp, distance(FastComplexMath.exp(z), ComplexNumber.exp(z)) / ComplexNumber.exp(z).modulus());
+            clog = Math.max(clog, distance(FastComplexMath.log(z), ComplexNumber.log(z)) / Math.max(1, ComplexNumber.log(z).modulus()));
+            ComplexNumber exact = ComplexNumber.power(z, w);
+            power = Math.max(power, distance(FastComplexMath.power(z, w), exact) / exact.modulus() / Math.max(1, w.modulus() * Math.max(1, Math.abs(Math.log(z.modulus())))));
+            exact = ComplexNumber.power(z, b);
+            realPower = Math.max(realPower, distance(FastComplexMath.power(z, b), exact) / exact.modulus() / Math.max(1, Math.abs(b) * Math.max(1, Math.abs(Math.log(z.modulus())))));
+        }
+        report("phase abs", phase, 1e-11);
+        report("toRect abs / max(1,|z|)", toRect, 1e-11);
+        report("exp rel", cexp, 1e-11);
+        report("log abs / max(1,|log z|)", clog, 1e-11);
+        report("power rel / cond", power, 1e-10);
+        report("power(double) rel / cond", realPower, 1e-10);
+
+        if (failed) {
+            System.out.println("FAILED: a documented bound was exceeded");
+            System.exit(1);
+        }
+    }
+
+    //HELPER METHOD
+    private static void report(String name, double error, double bound) {
+        boolean ok = error <= bound;
+        failed |= !ok;
+        System.out.printf("%-28s %14.3e %14.0e%s%n", name, error, bound, ok ? "" : "  EXCEEDED");
+    }
+
+    //HELPER METHOD
+    private static double relative(double a, double b) {
+        return Math.abs(a - b) / Math.abs(b);
+    }
+
+    //HELPER METHOD
+    private static int same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b) ? 0 : 1;
+    }
+
+    //HELPER METHOD
+    private static double distance(ComplexNumber a, ComplexNumber b) {
+        return Math.hypot(a.real() - b.real(), a.imag() - b.imag());
+    }
+}
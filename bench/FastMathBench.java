@@ -0,0 +1,151 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link FastComplexMath} against the exact paths: the real
+ * functions over 1024 arguments in the ranges of typical use, and the complex
+ * operations whose cost they dominate, the phase, the conversion of a
+ * {@link Polar} to rectangular form, the exponential, the logarithm and
+ * powers, over 1024 Gaussian operands. The last column is the throughput.
+ * <p>
+ * Usage: {@code java -cp out FastMathBench [name-regex]}
+ */
+public class FastMathBench {
+
+    final static int N = 1024;
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("FastComplexMath", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+        double[] angle = new double[N], positive = new double[N], small = new double[N], x = new double[N], y = new double[N];
+        Rectangular[] z = new Rectangular[N], w = new Rectangular[N];
+        Polar[] p = new Polar[N];
+        for (int i = 0; i < N; i++) {
+            angle[i] = (2 * rnd.nextDouble() - 1) * 100;
+            positive[i] = Math.exp(20 * rnd.nextGaussian());
+            small[i] = (2 * rnd.nextDouble() - 1) * 20;
+            x[i] = rnd.nextGaussian();
+            y[i] = rnd.nextGaussian();
+            z[i] = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+            w[i] = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+            p[i] = new Polar(Math.abs(rnd.nextGaussian()), 4 * rnd.nextGaussian());
+        }
+
+        bench.runDouble("sin.exact", i -> sum(angle, Math::sin));
+        bench.runDouble("sin.fast", i -> sum(angle, FastComplexMath::sin));
+        bench.runDouble("cos.exact", i -> sum(angle, Math::cos));
+        bench.runDouble("cos.fast", i -> sum(angle, FastComplexMath::cos));
+        bench.runDouble("atan2.exact", i -> {
+            double s = 0;
+            for (int j = 0; j < N; j++)
+                s += Math.atan2(y[j], x[j]);
+            return s;
+        });
+        bench.runDouble("atan2.fast", i -> {
+            double s = 0;
+            for (int j = 0; j < N; j++)
+                s += FastComplexMath.atan2(y[j], x[j]);
+            return s;
+        });
+        bench.runDouble("log.exact", i -> sum(positive, Math::log));
+        bench.runDouble("log.fast", i -> sum(positive, FastComplexMath::log));
+        bench.runDouble("exp.exact", i -> sum(small, Math::exp));
+        bench.runDouble("exp.fast", i -> sum(small, FastComplexMath::exp));
+
+        bench.runDouble("phase.exact", i -> {
+            double s = 0;
+            for (Rectangular c : z)
+                s += c.phase();
+            return s;
+        });
+        bench.runDouble("phase.fast", i -> {
+            double s = 0;
+            for (Rectangular c : z)
+                s += FastComplexMath.phase(c);
+            return s;
+        });
+
+        // fresh Polars each time, since a Polar caches its rectangular parts
+        ComplexNumber[] out = new ComplexNumber[N];
+        bench.run("polar.toRect.exact", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = new Polar(p[j].modulus(), p[j].phase()).toComplexRect();
+            return out;
+        });
+        bench.run("polar.toRect.fast", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = FastComplexMath.toRect(new Polar(p[j].modulus(), p[j].phase()));
+            return out;
+        });
+
+        bench.run("exp.complex.exact", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = ComplexNumber.exp(z[j]);
+            return out;
+        });
+        bench.run("exp.complex.fast", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = FastComplexMath.exp(z[j]);
+            return out;
+        });
+        bench.run("log.complex.exact", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = ComplexNumber.log(z[j]);
+            return out;
+        });
+        bench.run("log.complex.fast", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = FastComplexMath.log(z[j]);
+            return out;
+        });
+        bench.run("power.complex.exact", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = ComplexNumber.power(z[j], w[j]);
+            return out;
+        });
+        bench.run("power.complex.fast", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = FastComplexMath.power(z[j], w[j]);
+            return out;
+        });
+        bench.run("power.double.exact", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = ComplexNumber.power(z[j], 2.5);
+            return out;
+        });
+        bench.run("power.double.fast", N, i -> {
+            for (int j = 0; j < N; j++)
+                out[j] = FastComplexMath.power(z[j], 2.5);
+            return out;
+        });
+
+        ComplexArray a = new ComplexArray(N), dst = new ComplexArray(N);
+        for (int j = 0; j < N; j++)
+            a.set(j, x[j], y[j]);
+        bench.run("map.exp.exact", N, i -> {
+            ComplexArray.map(a, ComplexFunction.EXP, dst);
+            return dst;
+        });
+        bench.run("map.exp.fast", N, i -> {
+            ComplexArray.map(a, FastComplexMath.EXP, dst);
+            return dst;
+        });
+        bench.run("map.log.exact", N, i -> {
+            ComplexArray.map(a, ComplexFunction.LOG, dst);
+            return dst;
+        });
+        bench.run("map.log.fast", N, i -> {
+            ComplexArray.map(a, FastComplexMath.LOG, dst);
+            return dst;
+        });
+    }
+
+    //HELPER METHOD
+    private static double sum(double[] a, java.util.function.DoubleUnaryOperator f) {
+        double s = 0;
+        for (double v : a)
+            s += f.applyAsDouble(v);
+        return s;
+    }
+}
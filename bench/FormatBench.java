@@ -0,0 +1,108 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexFormat} and the CSV classes: parsing 1024 values
+ * with the in-place parser against splitting them with {@link String#split} and
+ * {@link Double#parseDouble}, for values with 6 decimals and with the full 17
+ * digits of {@link Double#toString(double)}; formatting them into a reused
+ * buffer against {@link Rectangular#toString()}; and writing and reading 2^16
+ * rows of two columns in memory.
+ * <p>
+ * Usage: {@code java -cp out FormatBench [name-regex]}
+ */
+public class FormatBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexFormat", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        int n = 1024;
+        String[] full = new String[n], rounded = new String[n];
+        Rectangular[] zs = new Rectangular[n];
+        for (int i = 0; i < n; i++) {
+            zs[i] = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+            full[i] = zs[i].toString();
+            rounded[i] = new Rectangular(Math.rint(zs[i].real() * 1e6) / 1e6, Math.rint(zs[i].imag() * 1e6) / 1e6).toString();
+        }
+
+        double[] w = new double[2];
+        for (String[] texts : new String[][] {rounded, full}) {
+            String kind = texts == rounded ? "short" : "full";
+            bench.runDouble("parse." + kind + ".format", i -> {
+                double s = 0;
+                for (String t : texts) {
+                    ComplexFormat.parse(t, 0, t.length(), w);
+                    s += w[0] + w[1];
+                }
+                return s;
+            });
+            bench.runDouble("parse." + kind + ".split", i -> {
+                double s = 0;
+                for (String t : texts)
+                    s += naive(t);
+                return s;
+            });
+        }
+
+        StringBuilder sb = new StringBuilder(64 * n);
+        bench.run("format.append", i -> {
+            sb.setLength(0);
+            for (Rectangular z : zs)
+                ComplexFormat.appendRect(sb, z.real(), z.imag()).append('\n');
+            return sb;
+        });
+        bench.run("format.toString", i -> {
+            StringBuilder out = new StringBuilder(64 * n);
+            for (Rectangular z : zs)
+                out.append(z.toString()).append('\n');
+            return out;
+        });
+
+        int rows = 1 << 16;
+        ComplexArray x = new ComplexArray(rows), y = new ComplexArray(rows);
+        for (int i = 0; i < rows; i++) {
+            x.set(i, Math.rint(rnd.nextGaussian() * 1e6) / 1e6, Math.rint(rnd.nextGaussian() * 1e6) / 1e6);
+            y.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+        }
+        StringWriter csv = new StringWriter(rows * 96);
+        write(csv, x, y);
+        String text = csv.toString();
+        ComplexArray cx = new ComplexArray(rows), cy = new ComplexArray(rows);
+
+        bench.run("csv.write", i -> {
+            StringWriter out = new StringWriter(text.length());
+            write(out, x, y);
+            return out;
+        });
+        bench.run("csv.read", i -> {
+            try (ComplexCsvReader in = new ComplexCsvReader(new StringReader(text))) {
+                return in.read(cx, cy);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    //HELPER METHOD
+    private static void write(StringWriter out, ComplexArray x, ComplexArray y) {
+        try (ComplexCsvWriter w = new ComplexCsvWriter(out)) {
+            w.write(x, y);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Parses {@code a+bi} the usual way, with a regular expression and substrings. */
+    private static double naive(String t) {
+        String[] parts = t.substring(0, t.length() - 1).split("(?<=[0-9])(?=[+-])");
+        return Double.parseDouble(parts[0]) + Double.parseDouble(parts[1].startsWith("+") ? parts[1].substring(1) : parts[1]);
+    }
+}
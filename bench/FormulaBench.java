@@ -0,0 +1,85 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexFormula}: formulas parsed from text and compiled
+ * to bytecode against the same formulas written as {@link ComplexNumber} calls and
+ * interpreted by a {@link ComplexProgram}, together with the cost of compiling a
+ * formula and of finding it in the cache.
+ * <p>
+ * Usage: {@code java -cp out FormulaBench [name-regex]}
+ */
+public class FormulaBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexFormula", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        int points = 1024;
+        ComplexArray z = new ComplexArray(points), dst = new ComplexArray(points);
+        for (int i = 0; i < points; i++)
+            z.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+        Rectangular[] zs = z.toRectangularArray();
+        Rectangular i1 = new Rectangular(0, 1);
+
+        String rational = "(z*z + 1)/(z*z - 1) + (z*z + 1)^2";
+        ComplexFormula f = ComplexFormula.compile(rational);
+        ComplexProgram p = ComplexExpr.parse(rational).compile();
+
+        bench.run("rational.objects", i -> {
+            ComplexNumber[] out = new ComplexNumber[points];
+            for (int j = 0; j < points; j++) {
+                ComplexNumber w = zs[j];
+                ComplexNumber a = ComplexNumber.add(ComplexNumber.multiply(w, w), 1);
+                ComplexNumber b = ComplexNumber.subtract(ComplexNumber.multiply(w, w), 1);
+                out[j] = ComplexNumber.add(ComplexNumber.divide(a, b), ComplexNumber.multiply(a, a));
+            }
+            return out;
+        });
+        bench.run("rational.program", i -> {
+            p.evaluate(z, dst);
+            return dst;
+        });
+        bench.run("rational.formula", i -> {
+            f.evaluate(z, dst);
+            return dst;
+        });
+
+        String trig = "sin(z)^2 + i*log(z)";
+        ComplexFormula g = ComplexFormula.compile(trig);
+        ComplexProgram q = ComplexExpr.parse(trig).compile();
+
+        bench.run("trig.objects", i -> {
+            ComplexNumber[] out = new ComplexNumber[points];
+            for (int j = 0; j < points; j++)
+                out[j] = ComplexNumber.add(ComplexNumber.square(ComplexNumber.sin(zs[j])),
+                        ComplexNumber.multiply(i1, ComplexNumber.log(zs[j])));
+            return out;
+        });
+        bench.run("trig.program", i -> {
+            q.evaluate(z, dst);
+            return dst;
+        });
+        bench.run("trig.formula", i -> {
+            g.evaluate(z, dst);
+            return dst;
+        });
+
+        int grid = 1 << 18;
+        ComplexArray big = new ComplexArray(grid), bigDst = new ComplexArray(grid);
+        for (int i = 0; i < grid; i++)
+            big.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+        bench.run("trig.formula.grid", i -> {
+            g.evaluate(big, bigDst);
+            return bigDst;
+        });
+        bench.run("trig.formula.gridParallel", i -> {
+            ParallelComplex.DEFAULT.map(big, g, bigDst);
+            return bigDst;
+        });
+
+        bench.run("compile.cached", i -> ComplexFormula.compile(trig));
+        bench.run("compile.new", i -> ComplexFormula.compile(ComplexExpr.parse(trig)));
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexIO}: writing and reading an array of 2^20 values in
+ * the binary format in both layouts, against writing the same values as the
+ * text of {@link Rectangular#toString()}, and summing a file through a
+ * {@link MappedComplexArray} against summing it on the heap.
+ * <p>
+ * Usage: {@code java -cp out IOBench [name-regex]}
+ */
+public class IOBench {
+
+    public static void main(String[] args) throws IOException {
+        Bench bench = new Bench("ComplexIO", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        int n = 1 << 20;
+        ComplexArray a = new ComplexArray(n);
+        for (int i = 0; i < n; i++)
+            a.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+
+        Path split = Files.createTempFile("bench", ".cplx"), interleaved = Files.createTempFile("bench", ".cplx");
+        Path text = Files.createTempFile("bench", ".txt");
+        try {
+            bench.run("write.split", i -> {
+                write(a, split, ComplexIO.Layout.SPLIT);
+                return split;
+            });
+            bench.run("write.interleaved", i -> {
+                write(a, interleaved, ComplexIO.Layout.INTERLEAVED);
+                return interleaved;
+            });
+            bench.run("write.text", i -> {
+                StringBuilder sb = new StringBuilder();
+                for (int j = 0; j < n; j++)
+                    sb.append(a.get(j)).append('\n');
+                try {
+                    return Files.writeString(text, sb);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            bench.run("read.split", i -> read(split));
+            bench.run("read.interleaved", i -> read(interleaved));
+
+            ComplexArray block = new ComplexArray(4096);
+            for (Path p : new Path[] {split, interleaved}) {
+                MappedComplexArray m = ComplexIO.map(p);
+                bench.runDouble("sum.mapped." + m.layout().name().toLowerCase(), i -> {
+                    double s = 0;
+                    for (long from = 0; from < m.length(); from += block.length()) {
+                        int len = (int) Math.min(block.length(), m.length() - from);
+                        m.copyTo(from, block, 0, len);
+                        double[] re = block.realParts();
+                        for (int j = 0; j < len; j++)
+                            s += re[j];
+                    }
+                    return s;
+                });
+            }
+            bench.runDouble("sum.heap", i -> {
+                double s = 0;
+                for (double v : a.realParts())
+                    s += v;
+                return s;
+            });
+        }
+        finally {
+            Files.deleteIfExists(split);
+            Files.deleteIfExists(interleaved);
+            Files.deleteIfExists(text);
+        }
+    }
+
+    //HELPER METHOD
+    private static void write(ComplexArray a, Path file, ComplexIO.Layout layout) {
+        try {
+            ComplexIO.write(a, file, layout);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //HELPER METHOD
+    private static ComplexArray read(Path file) {
+        try {
+            return ComplexIO.read(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexMatrix} and {@link ComplexLU}, with a triple loop
+ * over {@code ComplexNumber[][]} built on
+ * {@link ComplexNumber#multiply(ComplexNumber, ComplexNumber)} for comparison.
+ * <p>
+ * Usage: {@code java -cp out MatrixBench [name-regex]}
+ */
+public class MatrixBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexMatrix", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        for (int n : new int[] {16, 64, 256}) {
+            ComplexMatrix a = random(n, rnd), b = random(n, rnd), c = new ComplexMatrix(n, n);
+            ComplexArray x = new ComplexArray(n), y = new ComplexArray(n);
+            for (int i = 0; i < n; i++)
+                x.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+
+            bench.run("multiply." + n, i -> {
+                ComplexMatrix.multiply(a, b, c);
+                return c;
+            });
+            bench.run("multiplyParallel." + n, i -> {
+                ParallelComplex.DEFAULT.multiply(a, b, c);
+                return c;
+            });
+            bench.run("multiplyVector." + n, i -> {
+                ComplexMatrix.multiply(a, x, y);
+                return y;
+            });
+            bench.run("conjugateTranspose." + n, i -> a.conjugateTranspose());
+            bench.run("lu." + n, i -> a.lu());
+            bench.run("solve." + n, i -> a.solve(x));
+            bench.run("determinant." + n, i -> a.determinant());
+
+            if (n <= 64) {
+                ComplexNumber[][] ao = a.toArray(), bo = b.toArray();
+                bench.run("multiply.objects." + n, i -> {
+                    ComplexNumber[][] co = new ComplexNumber[n][n];
+                    for (int r = 0; r < n; r++) {
+                        for (int s = 0; s < n; s++) {
+                            ComplexNumber sum = new Rectangular(0, 0);
+                            for (int k = 0; k < n; k++)
+                                sum = ComplexNumber.add(sum, ComplexNumber.multiply(ao[r][k], bo[k][s]));
+                            co[r][s] = sum;
+                        }
+                    }
+                    return co;
+                });
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private static ComplexMatrix random(int n, Random rnd) {
+        ComplexMatrix m = new ComplexMatrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m.set(i, j, rnd.nextGaussian(), rnd.nextGaussian());
+
+        return m;
+    }
+}
@@ -0,0 +1,109 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+/**
+ * Checks {@link Rectangular#modulus()}, {@link Rectangular#phase()},
+ * {@link ComplexNumber#abs2()} and {@link ComplexNumber#modulusAndPhase()}
+ * across the whole double range.
+ * <p>
+ * The modulus is compared with {@code √(x² + y²)} computed exactly with
+ * {@link BigDecimal}, in units of the last place of the result, for operands
+ * whose exponents are spread from the subnormals to the largest doubles, where
+ * the squares themselves overflow or underflow. The phase is compared bit for
+ * bit with {@link StrictMath#atan2(double, double)}, the arctangent it
+ * translates, including zeros, infinities and {@code NaN}. The program exits
+ * with status 1 if any check fails.
+ * <p>
+ * Usage: {@code java -cp out ModulusAccuracy [samples]}
+ */
+public class ModulusAccuracy {
+
+    final static MathContext MC = new MathContext(40);
+
+    final static double[] SPECIAL = {0.0, -0.0, 1.0, -1.0, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+            1e-300, 1e300, 3.0, -0.5};
+
+    static boolean failed;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random rnd = new Random(42);
+
+        System.out.printf("%-36s %14s %14s%n", "check", "result", "bound");
+
+        double maxUlp = 0, meanUlp = 0;
+        int overflowed = 0;
+        for (int i = 0; i < samples; i++) {
+            double x = rnd.nextGaussian() * Math.scalb(1.0, rnd.nextInt(2100) - 1075);
+            double y = i % 2 == 0 ? x * rnd.nextGaussian() : rnd.nextGaussian() * Math.scalb(1.0, rnd.nextInt(2100) - 1075);
+            if (Double.isInfinite(x) || Double.isInfinite(y))
+                continue;
+            BigDecimal bx = new BigDecimal(x), by = new BigDecimal(y);
+            BigDecimal exact = bx.multiply(bx).add(by.multiply(by)).sqrt(MC);
+            double ref = exact.doubleValue();
+            double r = new Rectangular(x, y).modulus();
+
+            if (Double.isInfinite(ref)) {
+                overflowed += Double.isInfinite(r) ? 0 : 1;
+                continue;
+            }
+            if (ref == 0) {
+                overflowed += r == 0 ? 0 : 1;
+                continue;
+            }
+            overflowed += Double.isInfinite(r) || r == 0 ? 1 : 0;
+            double ulps = new BigDecimal(r).subtract(exact).abs().divide(new BigDecimal(Math.ulp(ref)), MC).doubleValue();
+            maxUlp = Math.max(maxUlp, ulps);
+            meanUlp += ulps / samples;
+        }
+        report("modulus max ulps", maxUlp, 1.2);
+        report("modulus mean ulps", meanUlp, 0.5);
+        report("modulus overflow/underflow", overflowed, 0);
+
+        int phaseMismatches = 0;
+        for (int i = 0; i < samples * 10; i++) {
+            double x = rnd.nextGaussian() * Math.pow(10, rnd.nextInt(40) - 20);
+            double y = i % 4 == 0 ? Double.longBitsToDouble(rnd.nextLong()) : rnd.nextGaussian() * Math.pow(10, rnd.nextInt(40) - 20);
+            phaseMismatches += same(ComplexMath.atan2(y, x), StrictMath.atan2(y, x));
+            phaseMismatches += same(ComplexMath.atan(y), StrictMath.atan(y));
+        }
+        for (double x : SPECIAL)
+            for (double y : SPECIAL)
+                phaseMismatches += same(ComplexMath.atan2(y, x), StrictMath.atan2(y, x));
+        report("atan2, atan bit mismatches", phaseMismatches, 0);
+
+        int conventions = 0;
+        for (double x : SPECIAL)
+            for (double y : SPECIAL) {
+                Rectangular z = new Rectangular(x, y);
+                double expected = x == 0 && y == 0 ? 0 : StrictMath.atan2(y + 0.0, x);
+                conventions += same(z.phase(), expected);
+                double[] w = z.modulusAndPhase();
+                conventions += same(w[0], z.modulus()) + same(w[1], z.phase());
+                conventions += same(z.abs2(), x*x + y*y);
+                conventions += same(z.toComplexPolar().modulus(), z.modulus());
+                if (Double.isInfinite(x) || Double.isInfinite(y))
+                    conventions += z.modulus() == Double.POSITIVE_INFINITY ? 0 : 1;
+            }
+        report("phase, abs2, modulusAndPhase errors", conventions, 0);
+
+        if (failed) {
+            System.out.println("FAILED: a check exceeded its bound");
+            System.exit(1);
+        }
+    }
+
+    //HELPER METHOD
+    private static void report(String name, double result, double bound) {
+        boolean ok = result <= bound;
+        failed |= !ok;
+        System.out.printf("%-36s %14.4f %14.4f%s%n", name, result, bound, ok ? "" : "  EXCEEDED");
+    }
+
+    //HELPER METHOD
+    private static int same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b) ? 0 : 1;
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/**
+ * Benchmarks of {@link ComplexOscillator} against the ways a stream of
+ * phasors {@code e^(ikθ)} is written without it: a {@link Polar} per sample
+ * read back with {@code real()} and {@code imag()}, {@code cos} and {@code sin}
+ * per sample, exact and {@link FastComplexMath} ones, and repeated
+ * multiplication by {@code e^(iθ)}, which drifts. Each fills two arrays of
+ * 4096 samples at 0.1 radians per sample; the mixing benchmarks multiply a
+ * signal by the phasors in place. The last column is the throughput in samples.
+ * <p>
+ * Usage: {@code java -cp out OscillatorBench [name-regex]}
+ */
+public class OscillatorBench {
+
+    final static int N = 4096;
+
+    final static double THETA = 0.1;
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexOscillator", args);
+        bench.header();
+
+        double[] re = new double[N], im = new double[N];
+        ComplexOscillator osc = new ComplexOscillator(THETA);
+
+        bench.run("polar.objects", N, i -> {
+            for (int k = 0; k < N; k++) {
+                Polar p = new Polar(1, k * THETA);
+                re[k] = p.real();
+                im[k] = p.imag();
+            }
+            return re;
+        });
+        bench.run("cos.sin", N, i -> {
+            for (int k = 0; k < N; k++) {
+                re[k] = Math.cos(k * THETA);
+                im[k] = Math.sin(k * THETA);
+            }
+            return re;
+        });
+        bench.run("cos.sin.fast", N, i -> {
+            for (int k = 0; k < N; k++) {
+                re[k] = FastComplexMath.cos(k * THETA);
+                im[k] = FastComplexMath.sin(k * THETA);
+            }
+            return re;
+        });
+        bench.run("recursion", N, i -> {
+            double wr = Math.cos(THETA), wi = Math.sin(THETA), zr = 1, zi = 0;
+            for (int k = 0; k < N; k++) {
+                re[k] = zr;
+                im[k] = zi;
+                double x = zr;
+                zr = x*wr - zi*wi;
+                zi = x*wi + zi*wr;
+            }
+            return re;
+        });
+        bench.run("oscillator.fill", N, i -> {
+            osc.fill(re, im);
+            return re;
+        });
+        bench.run("oscillator.next", N, i -> {
+            for (int k = 0; k < N; k++) {
+                Rectangular z = osc.next();
+                re[k] = z.real();
+                im[k] = z.imag();
+            }
+            return re;
+        });
+
+        double[] xr = new double[N], xi = new double[N];
+        Arrays.fill(xr, 1);
+        bench.run("mix.cos.sin", N, i -> {
+            for (int k = 0; k < N; k++) {
+                double c = Math.cos(k * THETA), s = Math.sin(k * THETA), x = xr[k], y = xi[k];
+                xr[k] = x*c - y*s;
+                xi[k] = x*s + y*c;
+            }
+            return xr;
+        });
+        bench.run("mix.oscillator", N, i -> {
+            osc.mix(xr, xi, 0, N);
+            return xr;
+        });
+    }
+}
@@ -0,0 +1,171 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that {@link ComplexOscillator} does not drift: its values are compared
+ * with {@code new Polar(1, φ)} for the exact phase {@code φ} over {@code 10^9}
+ * steps, with the frequency changed halfway.
+ * <p>
+ * The exact phase {@code φ0 + kθ} is computed with {@link BigDecimal} and
+ * reduced to [-π, π] before it is given to {@link Polar}, since {@code k*θ}
+ * in double arithmetic is itself off by up to an ulp of the product. The
+ * first sample of every block of {@value #BLOCK} and one more at random are
+ * checked, and all samples of the first block and of the block after the
+ * frequency change. For comparison the same checkpoints are taken from
+ * {@code new Polar(1, φ0 + k*θ)} and from repeated multiplication by
+ * {@code e^(iθ)} without renormalization. Filling in chunks of random length,
+ * mixing and {@link ComplexOscillator#next()} are checked to give the same
+ * values bit for bit as filling in whole blocks. The program exits with
+ * status 1 if any check fails.
+ * <p>
+ * Usage: {@code java -cp out OscillatorDrift [steps]}
+ */
+public class OscillatorDrift {
+
+    final static MathContext MC = new MathContext(60);
+
+    final static BigDecimal TWO_PI = new BigDecimal(
+            "6.283185307179586476925286766559005768394338798750211641949889184615632812572417997256069650684");
+
+    final static int BLOCK = 1 << 16;
+
+    final static double PHI = 0.3, THETA1 = 0.1, THETA2 = -2.5;
+
+    final static double BOUND = 2e-14;
+
+    static long change;
+
+    static boolean failed;
+
+    public static void main(String[] args) {
+        long steps = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000_000L;
+        change = steps / 2 / BLOCK * BLOCK;
+        Random rnd = new Random(42);
+
+        ComplexOscillator osc = new ComplexOscillator(THETA1, PHI);
+        double[] re = new double[BLOCK], im = new double[BLOCK];
+        double wr = new Polar(1, THETA1).real(), wi = new Polar(1, THETA1).imag();
+        double zr = new Polar(1, PHI).real(), zi = new Polar(1, PHI).imag();
+
+        double oscErr = 0, polarErr = 0, recErr = 0;
+        long checked = 0;
+        for (long k = 0; k < steps; k += BLOCK) {
+            if (k == change) {
+                osc.setFrequency(THETA2);
+                wr = new Polar(1, THETA2).real();
+                wi = new Polar(1, THETA2).imag();
+            }
+            osc.fill(re, im);
+
+            boolean full = k == 0 || k == change;
+            for (int i = 0; i < BLOCK; i++) {
+                if (full || i == 0 || i == (int) (k % 9973) * 6) {
+                    Polar ref = exact(k + i);
+                    oscErr = Math.max(oscErr, Math.hypot(re[i] - ref.real(), im[i] - ref.imag()));
+                    recErr = Math.max(recErr, Math.hypot(zr - ref.real(), zi - ref.imag()));
+                    Polar naive = k + i < change ? new Polar(1, PHI + (k + i) * THETA1)
+                            : new Polar(1, PHI + change * THETA1 + (k + i - change) * THETA2);
+                    polarErr = Math.max(polarErr, Math.hypot(naive.real() - ref.real(), naive.imag() - ref.imag()));
+                    checked++;
+                }
+                double x = zr;
+                zr = x*wr - zi*wi;
+                zi = x*wi + zi*wr;
+            }
+        }
+
+        System.out.printf("# %d steps, frequency %.1f then %.1f rad/sample from step %d, %d checkpoints%n",
+                steps, THETA1, THETA2, change, checked);
+        System.out.printf("%-36s %14s %14s%n", "check", "result", "bound");
+        check("oscillator max error", oscErr, BOUND);
+        report("Polar(1, phi + k*theta) max error", polarErr);
+        report("multiplication by e^(i theta)", recErr);
+        check("chunked fill and next() mismatches", chunks(rnd), 0);
+        check("mix mismatches", mix(rnd), 0);
+        check("phase() error", Math.abs(phaseAfter(1_000_003) - exact(1_000_003).phase()), 1e-15);
+
+        if (failed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    /** Returns e^(iφ) for the exact phase of step k. */
+    static Polar exact(long k) {
+        BigDecimal phi = new BigDecimal(PHI);
+        if (k < change)
+            phi = phi.add(new BigDecimal(THETA1).multiply(BigDecimal.valueOf(k)));
+        else
+            phi = phi.add(new BigDecimal(THETA1).multiply(BigDecimal.valueOf(change)))
+                    .add(new BigDecimal(THETA2).multiply(BigDecimal.valueOf(k - change)));
+        BigDecimal r = phi.remainder(TWO_PI, MC);
+        if (r.compareTo(TWO_PI.divide(BigDecimal.valueOf(2))) > 0)
+            r = r.subtract(TWO_PI);
+        else if (r.compareTo(TWO_PI.divide(BigDecimal.valueOf(-2))) < 0)
+            r = r.add(TWO_PI);
+        return new Polar(1, r.doubleValue());
+    }
+
+    /** Counts the values that differ when the same stream is produced in pieces of random length. */
+    static long chunks(Random rnd) {
+        int n = 1 << 20;
+        double[] re = new double[n], im = new double[n], cr = new double[n], ci = new double[n];
+        ComplexOscillator whole = new ComplexOscillator(THETA1, PHI), pieces = new ComplexOscillator(THETA1, PHI);
+        whole.fill(re, im);
+        for (int i = 0; i < n; ) {
+            if (rnd.nextInt(8) == 0) {
+                Rectangular z = pieces.next();
+                cr[i] = z.real();
+                ci[i++] = z.imag();
+                continue;
+            }
+            int to = Math.min(n, i + 1 + rnd.nextInt(37));
+            pieces.fill(cr, ci, i, to);
+            i = to;
+        }
+        long bad = 0;
+        for (int i = 0; i < n; i++)
+            bad += re[i] == cr[i] && im[i] == ci[i] ? 0 : 1;
+        return bad;
+    }
+
+    /** Counts the samples where mixing a stream of ones differs from filling. */
+    static long mix(Random rnd) {
+        int n = 100_000;
+        double[] re = new double[n], im = new double[n], mr = new double[n], mi = new double[n];
+        new ComplexOscillator(THETA2, PHI).fill(re, im);
+        Arrays.fill(mr, 1);
+        ComplexOscillator osc = new ComplexOscillator(THETA2, PHI);
+        for (int i = 0; i < n; ) {
+            int to = Math.min(n, i + 1 + rnd.nextInt(100));
+            osc.mix(mr, mi, i, to);
+            i = to;
+        }
+        long bad = 0;
+        for (int i = 0; i < n; i++)
+            bad += re[i] == mr[i] && im[i] == mi[i] ? 0 : 1;
+        return bad;
+    }
+
+    /** Returns the phase reported after k steps at the first frequency. */
+    static double phaseAfter(int k) {
+        ComplexOscillator osc = new ComplexOscillator(THETA1, PHI);
+        double[] re = new double[k], im = new double[k];
+        osc.fill(re, im);
+        return osc.phase();
+    }
+
+    //HELPER METHOD
+    static void check(String name, double value, double bound) {
+        boolean ok = value <= bound;
+        failed |= !ok;
+        System.out.printf("%-36s %14.3e %14.3e%s%n", name, value, bound, ok ? "" : "  FAILED");
+    }
+
+    //HELPER METHOD
+    static void report(String name, double value) {
+        System.out.printf("%-36s %14.3e %14s%n", name, value, "-");
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexPipeline} on a typical receiver chain: a gain,
+ * a mixer shifting the signal down by 3/64 cycles per sample, a 32-tap
+ * low-pass filter, decimation by 4 and a make-up gain, over 2^20 samples from
+ * an in-memory {@link ComplexSource}.
+ * <p>
+ * The chain is run one {@link ComplexNumber} at a time, as filters built on
+ * the object API do, and through pipelines with several block sizes, with the
+ * stages fused and with fusion defeated by wrapping each stage. Before timing,
+ * the pipeline output is checked against the object version and the program
+ * exits with status 1 if they differ by more than rounding, or if the block
+ * pool allocates more blocks than the sink requests ahead. The last column is
+ * the throughput in input samples.
+ * <p>
+ * Usage: {@code java -cp out PipelineBench [name-regex]}
+ */
+public class PipelineBench {
+
+    final static int N = 1 << 20;
+
+    final static int DECIMATION = 4;
+
+    final static int WINDOW = 8;
+
+    public static void main(String[] args) throws Exception {
+        Random rnd = new Random(42);
+        ComplexArray input = new ComplexArray(N);
+        for (int i = 0; i < N; i++)
+            input.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+        double[] taps = lowPass(32, 0.5 / DECIMATION);
+
+        ComplexArray expected = objects(input, taps);
+        ComplexArray dst = new ComplexArray(N / DECIMATION);
+        ComplexBlock.Pool pool = new ComplexBlock.Pool(4096, 2 * WINDOW);
+        run(ComplexPipeline.of(stages(taps)), input, pool, dst);
+        double err = 0;
+        for (int i = 0; i < dst.length(); i++)
+            err = Math.max(err, Math.hypot(dst.real(i) - expected.real(i), dst.imag(i) - expected.imag(i)));
+        System.out.printf("# max difference from the object chain %.3e, blocks allocated %d, fused stages %d of %d%n",
+                err, pool.allocated(), ComplexPipeline.of(stages(taps)).stages().size(), stages(taps).length);
+        if (!(err < 1e-12) || pool.allocated() > WINDOW + 1) {
+            System.out.println("FAILED: pipeline output or block allocation is wrong");
+            System.exit(1);
+        }
+
+        Bench bench = new Bench("ComplexPipeline", args);
+        bench.header();
+
+        bench.run("objects", N, i -> objects(input, taps));
+        for (int size : new int[] {256, 4096, 65536}) {
+            ComplexBlock.Pool p = new ComplexBlock.Pool(size, 2 * WINDOW);
+            bench.run("pipeline." + size, N, i -> run(ComplexPipeline.of(stages(taps)), input, p, dst));
+            bench.run("pipeline.unfused." + size, N, i -> {
+                ComplexStage[] s = stages(taps);
+                for (int j = 0; j < s.length; j++)
+                    s[j] = opaque(s[j]);
+                return run(ComplexPipeline.of(s), input, p, dst);
+            });
+        }
+    }
+
+    //HELPER METHOD
+    private static ComplexStage[] stages(double[] taps) {
+        return new ComplexStage[] {
+                ComplexStage.gain(0.5),
+                ComplexStage.mix(-3, 64),
+                ComplexStage.fir(taps),
+                ComplexStage.decimate(DECIMATION),
+                ComplexStage.gain(2)};
+    }
+
+    //HELPER METHOD
+    private static ComplexStage opaque(ComplexStage s) {
+        return new ComplexStage() {
+            @Override
+            public void process(ComplexBlock block) {
+                s.process(block);
+            }
+        };
+    }
+
+    //HELPER METHOD
+    private static ComplexArray run(ComplexPipeline p, ComplexArray input, ComplexBlock.Pool pool, ComplexArray dst) {
+        ComplexSink sink = new ComplexSink(WINDOW) {
+            private int pos;
+
+            @Override
+            protected void accept(ComplexBlock b) {
+                b.copyTo(dst, pos);
+                pos += b.length();
+            }
+        };
+        p.subscribe(sink);
+        ComplexSource.of(input, pool).subscribe(p);
+        try {
+            sink.await();
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return dst;
+    }
+
+    /** The chain written with the object API, one sample at a time. */
+    private static ComplexArray objects(ComplexArray input, double[] taps) {
+        Rectangular[] osc = ComplexNumber.nthRootsOfUnity(64);
+        ComplexNumber[] history = new ComplexNumber[taps.length];
+        for (int j = 0; j < taps.length; j++)
+            history[j] = new Rectangular(0, 0);
+        ComplexArray out = new ComplexArray(N / DECIMATION);
+
+        for (int t = 0, h = 0; t < N; t++) {
+            ComplexNumber z = ComplexNumber.multiply(input.get(t), 0.5);
+            z = ComplexNumber.multiply(z, osc[Math.floorMod(-3 * t, 64)]);
+            history[h] = z;
+
+            if (t % DECIMATION == 0) {
+                ComplexNumber y = new Rectangular(0, 0);
+                for (int j = 0; j < taps.length; j++)
+                    y = ComplexNumber.add(y, ComplexNumber.multiply(history[Math.floorMod(h - j, taps.length)], taps[j]));
+                out.set(t / DECIMATION, ComplexNumber.multiply(y, 2));
+            }
+            h = (h + 1) % taps.length;
+        }
+        return out;
+    }
+
+    /** A Hamming-windowed sinc low-pass filter with unit gain at zero frequency. */
+    private static double[] lowPass(int n, double cutoff) {
+        double[] h = new double[n];
+        double sum = 0;
+        for (int j = 0; j < n; j++) {
+            double x = j - (n - 1) / 2.0;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            h[j] = sinc * (0.54 - 0.46 * Math.cos(2 * Math.PI * j / (n - 1)));
+            sum += h[j];
+        }
+        for (int j = 0; j < n; j++)
+            h[j] /= sum;
+        return h;
+    }
+}
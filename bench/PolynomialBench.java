@@ -0,0 +1,64 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link ComplexPolynomial}: Horner evaluation over a batch of
+ * points against a sum of {@link ComplexNumber#power(ComplexNumber, int)} terms,
+ * direct and FFT products, and root finding.
+ * <p>
+ * Usage: {@code java -cp out PolynomialBench [name-regex]}
+ */
+public class PolynomialBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexPolynomial", args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        int points = 1024;
+        ComplexArray z = new ComplexArray(points), dst = new ComplexArray(points);
+        for (int i = 0; i < points; i++)
+            z.set(i, rnd.nextGaussian(), rnd.nextGaussian());
+
+        for (int n : new int[] {16, 64, 256, 1024}) {
+            ComplexPolynomial p = random(n, rnd), q = random(n, rnd);
+
+            bench.run("evaluateBatch." + n, i -> {
+                p.evaluate(z, dst);
+                return dst;
+            });
+            if (n <= 64) {
+                Rectangular[] a = new Rectangular[n + 1];
+                for (int k = 0; k <= n; k++)
+                    a[k] = p.coefficient(k);
+                Rectangular[] zs = z.toRectangularArray();
+
+                bench.run("evaluatePowers." + n, i -> {
+                    ComplexNumber[] out = new ComplexNumber[points];
+                    for (int j = 0; j < points; j++) {
+                        ComplexNumber s = a[0];
+                        for (int k = 1; k <= n; k++)
+                            s = ComplexNumber.add(s, ComplexNumber.multiply(a[k], ComplexNumber.power(zs[j], k)));
+                        out[j] = s;
+                    }
+                    return out;
+                });
+            }
+            bench.run("multiply." + n, i -> p.multiply(q));
+            if (n <= 256) {
+                bench.run("roots." + n, i -> p.roots());
+                bench.run("rootsParallel." + n, i -> p.roots(ParallelComplex.DEFAULT));
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private static ComplexPolynomial random(int n, Random rnd) {
+        double[] re = new double[n + 1], im = new double[n + 1];
+        for (int k = 0; k <= n; k++) {
+            re[k] = rnd.nextGaussian();
+            im[k] = rnd.nextGaussian();
+        }
+        return new ComplexPolynomial(re, im);
+    }
+}
@@ -0,0 +1,110 @@
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+/**
+ * Compares the accuracy of {@link ComplexNumber#power(ComplexNumber, int)},
+ * {@link ComplexNumber#square(ComplexNumber)}, {@link ComplexNumber#cube(ComplexNumber)}
+ * and {@link ComplexNumber#sqrt(ComplexNumber)} with the general real-exponent
+ * path {@link ComplexNumber#power(ComplexNumber, double)}.
+ * <p>
+ * The reference for integer powers is computed exactly with {@link BigDecimal};
+ * the reference for square roots is checked by squaring it exactly. Errors are
+ * reported as {@code |w - ref| / |ref|} in units of {@code 2^-53}, the maximum
+ * and the mean over random operands. Integer powers whose intermediate
+ * products overflow or underflow are checked against their limits, and the
+ * program exits with status 1 if one is wrong.
+ * <p>
+ * Usage: {@code java -cp out PowerAccuracy}
+ */
+public class PowerAccuracy {
+
+    final static int SAMPLES = 20000;
+
+    final static MathContext MC = new MathContext(60);
+
+    final static double EPS = Math.ulp(1.0) / 2;
+
+    public static void main(String[] args) {
+        Random rnd = new Random(42);
+        Rectangular[] z = new Rectangular[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++)
+            z[i] = new Rectangular(rnd.nextGaussian(), rnd.nextGaussian());
+
+        System.out.printf("%-22s %14s %14s %14s %14s%n", "relative error / eps", "int max", "int mean", "double max", "double mean");
+        for (int n : new int[] {2, 3, 5, 10, 25, -1, -3}) {
+            double[] fast = new double[2], slow = new double[2];
+            for (Rectangular x : z) {
+                BigDecimal[] ref = exactPower(x, n);
+                ComplexNumber w = n == 2 ? ComplexNumber.square(x) : n == 3 ? ComplexNumber.cube(x) : ComplexNumber.power(x, n);
+                track(fast, error(w, ref));
+                track(slow, error(ComplexNumber.power(x, (double) n), ref));
+            }
+            System.out.printf("%-22s %14.2f %14.2f %14.2f %14.2f%n", "z^" + n, fast[0], fast[1] / SAMPLES, slow[0], slow[1] / SAMPLES);
+        }
+
+        double[] fast = new double[2], slow = new double[2];
+        for (Rectangular x : z) {
+            track(fast, sqrtError(ComplexNumber.sqrt(x), x));
+            track(slow, sqrtError(ComplexNumber.power(x, 0.5), x));
+        }
+        System.out.printf("%-22s %14.2f %14.2f %14.2f %14.2f%n", "sqrt(z)", fast[0], fast[1] / SAMPLES, slow[0], slow[1] / SAMPLES);
+
+        // integer powers whose intermediate products overflow or underflow
+        boolean ok = limit("2^1100", ComplexNumber.power(new Rectangular(2, 0), 1100), Double.POSITIVE_INFINITY, 0)
+                & limit("2^-1100", ComplexNumber.power(new Rectangular(2, 0), -1100), 0, 0)
+                & limit("2^MIN_VALUE", ComplexNumber.power(new Rectangular(2, 0), Integer.MIN_VALUE), 0, 0)
+                & limit("(1e10)^-31", ComplexNumber.power(new Rectangular(1e10, 0), -31), 1e-310, 0)
+                & limit("0^-3", ComplexNumber.power(new Rectangular(0, 0), -3), Double.POSITIVE_INFINITY, 0);
+        if (!ok) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+    //HELPER METHOD
+    private static boolean limit(String name, ComplexNumber w, double re, double im) {
+        boolean ok = w.real() == re && w.imag() == im;
+        System.out.printf("%-22s %30s%s%n", name, w, ok ? "" : "  FAILED, expected " + re + "+" + im + "i");
+        return ok;
+    }
+
+    //HELPER METHOD
+    private static void track(double[] acc, double e) {
+        acc[0] = Math.max(acc[0], e);
+        acc[1] += e;
+    }
+
+    //HELPER METHOD
+    private static BigDecimal[] exactPower(Rectangular z, int n) {
+        BigDecimal x = new BigDecimal(z.real()), y = new BigDecimal(z.imag());
+        BigDecimal pr = BigDecimal.ONE, pi = BigDecimal.ZERO;
+        for (int k = 0; k < Math.abs(n); k++) {
+            BigDecimal t = pr.multiply(x).subtract(pi.multiply(y));
+            pi = pr.multiply(y).add(pi.multiply(x));
+            pr = t;
+        }
+        if (n >= 0)
+            return new BigDecimal[] {pr, pi};
+
+        BigDecimal d = pr.multiply(pr).add(pi.multiply(pi));
+        return new BigDecimal[] {pr.divide(d, MC), pi.negate().divide(d, MC)};
+    }
+
+    //HELPER METHOD
+    private static double error(ComplexNumber w, BigDecimal[] ref) {
+        BigDecimal dr = new BigDecimal(w.real()).subtract(ref[0]);
+        BigDecimal di = new BigDecimal(w.imag()).subtract(ref[1]);
+        double abs = Math.hypot(ref[0].doubleValue(), ref[1].doubleValue());
+        return Math.hypot(dr.doubleValue(), di.doubleValue()) / abs / EPS;
+    }
+
+    /** The error of a square root {@code w} of {@code z}, from the residual {@code w² - z} relative to {@code 2|w|²}. */
+    private static double sqrtError(ComplexNumber w, Rectangular z) {
+        BigDecimal wr = new BigDecimal(w.real()), wi = new BigDecimal(w.imag());
+        BigDecimal dr = wr.multiply(wr).subtract(wi.multiply(wi)).subtract(new BigDecimal(z.real()));
+        BigDecimal di = wr.multiply(wi).multiply(BigDecimal.valueOf(2)).subtract(new BigDecimal(z.imag()));
+        double abs = 2 * (w.real()*w.real() + w.imag()*w.imag());
+        return Math.hypot(dr.doubleValue(), di.doubleValue()) / abs / EPS;
+    }
+}
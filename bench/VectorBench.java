@@ -0,0 +1,72 @@
+import java.util.Random;
+
+/**
+ * Benchmarks of the bulk kernels of {@link ComplexArray}, comparing the scalar
+ * loops of {@link ComplexKernels#SCALAR} with {@link ComplexKernels#DEFAULT},
+ * and the per-object {@link ComplexNumber#multiply(ComplexNumber, ComplexNumber)}
+ * loop they replace.
+ * <p>
+ * The default kernels are the SIMD ones only when {@code src-vector} is compiled
+ * in and the incubator module is enabled:
+ * <pre>
+ *     javac --add-modules jdk.incubator.vector -cp out -d out src-vector/*.java
+ *     java --add-modules jdk.incubator.vector -cp out VectorBench [name-regex]
+ * </pre>
+ * Otherwise both columns measure the scalar loops.
+ */
+public class VectorBench {
+
+    public static void main(String[] args) {
+        Bench bench = new Bench("ComplexKernels, default = " + ComplexKernels.DEFAULT.name(), args);
+        bench.header();
+
+        Random rnd = new Random(42);
+
+        for (int n : new int[] {1024, 1 << 16}) {
+            double[] ar = new double[n], ai = new double[n], br = new double[n], bi = new double[n];
+            double[] dr = new double[n], di = new double[n], d = new double[n];
+            for (int i = 0; i < n; i++) {
+                ar[i] = rnd.nextGaussian();
+                ai[i] = rnd.nextGaussian();
+                br[i] = rnd.nextGaussian();
+                bi[i] = rnd.nextGaussian();
+            }
+
+            for (ComplexKernels k : new ComplexKernels[] {ComplexKernels.SCALAR, ComplexKernels.DEFAULT}) {
+                String p = "." + (k == ComplexKernels.SCALAR ? "scalar" : "default") + "." + n;
+
+                bench.run("multiply" + p, i -> {
+                    k.multiply(ar, ai, br, bi, dr, di, 0, n);
+                    return dr;
+                });
+                bench.run("multiplyAdd" + p, i -> {
+                    k.multiplyAdd(ar, ai, br, bi, dr, di, 0, n);
+                    return dr;
+                });
+                bench.run("conjugateMultiply" + p, i -> {
+                    k.conjugateMultiply(ar, ai, br, bi, dr, di, 0, n);
+                    return dr;
+                });
+                bench.run("modulusSquared" + p, i -> {
+                    k.modulusSquared(ar, ai, d, 0, n);
+                    return d;
+                });
+                bench.run("scale" + p, i -> {
+                    k.scale(ar, ai, 1.5, dr, di, 0, n);
+                    return dr;
+                });
+            }
+
+            ComplexNumber[] a = new ComplexNumber[n], b = new ComplexNumber[n], c = new ComplexNumber[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = new Rectangular(ar[i], ai[i]);
+                b[i] = new Rectangular(br[i], bi[i]);
+            }
+            bench.run("multiply.objects." + n, i -> {
+                for (int j = 0; j < n; j++)
+                    c[j] = ComplexNumber.multiply(a[j], b[j]);
+                return c;
+            });
+        }
+    }
+}
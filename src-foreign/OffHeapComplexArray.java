@@ -0,0 +1,590 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+/**
+ * A complex array stored outside the Java heap, in a {@link MemorySegment} of
+ * the incubating Foreign Memory API.
+ * <p>
+ * A {@link ComplexNumber} takes about 32 bytes of heap for 16 bytes of data, and a
+ * {@link ComplexArray} is limited to {@code 2^31} elements; this array holds its
+ * elements as raw doubles in native memory or in a mapped file, with {@code long}
+ * indices, and is invisible to the garbage collector. Its memory belongs to a
+ * {@link ResourceScope}: closing the scope releases the memory or unmaps the file
+ * at once, and every later access throws {@link IllegalStateException}. A
+ * confined scope limits access to the thread that opened it; use a shared scope
+ * to hand the array to other threads.
+ * <pre>
+ *     try (ResourceScope scope = ResourceScope.newConfinedScope()) {
+ *         OffHeapComplexArray a = OffHeapComplexArray.map(file, FileChannel.MapMode.READ_ONLY, scope);
+ *         Rectangular s = a.slice(0, a.length() / 2).sum();
+ *     }
+ * </pre>
+ * The values are little-endian doubles laid out as in the files of
+ * {@link ComplexIO}, split or interleaved, so a file written by
+ * {@link ComplexIO#write(ComplexArray, Path)} can be mapped without copying and
+ * a file created by {@link #create(Path, long, ResourceScope)} can be read back
+ * by {@link ComplexIO#read(Path)}. {@link #slice(long, long)} is a view of a
+ * range of elements that shares the memory. The bulk operations are those of
+ * {@link ComplexArray}, with the same formulas, and the destination may alias
+ * an input.
+ * <p>
+ * Compile this class with {@code javac --add-modules jdk.incubator.foreign} and
+ * run with the same option; the rest of the library does not depend on it.
+ */
+public final class OffHeapComplexArray {
+
+    final private static ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** Whether a little-endian segment can be copied to and from a {@code double[]} as raw bytes. */
+    final private static boolean RAW = ByteOrder.nativeOrder() == ORDER;
+
+    /** The memory holding the elements, possibly shared with other views. */
+    final private MemorySegment segment;
+
+    /** The byte offsets of the first real part and the first imaginary part, and the distance between elements. */
+    final private long re, im, stride;
+
+    final private long length;
+
+    //HELPER METHOD
+    private OffHeapComplexArray(MemorySegment segment, long re, long im, long stride, long length) {
+        this.segment = segment;
+        this.re = re;
+        this.im = im;
+        this.stride = stride;
+        this.length = length;
+    }
+
+    /**
+     * Allocates an array of native memory with every element set to zero, in
+     * the split layout.
+     *
+     * @param length the number of elements
+     * @param scope the scope that owns the memory
+     * @return the new array
+     * @throws IllegalArgumentException if {@code length} is negative or too large,
+     *                                  or {@code scope} is {@code null}
+     */
+    public static OffHeapComplexArray allocate(long length, ResourceScope scope) throws IllegalArgumentException {
+        check(length, scope);
+
+        MemorySegment s = MemorySegment.allocateNative(16*length, 8, scope);
+        return new OffHeapComplexArray(s, 0, 8*length, 8, length);
+    }
+
+    /**
+     * Allocates an array of native memory holding a copy of a heap array.
+     *
+     * @param a the array to copy
+     * @param scope the scope that owns the memory
+     * @return the new array
+     * @throws IllegalArgumentException if an argument is {@code null}
+     */
+    public static OffHeapComplexArray copyOf(ComplexArray a, ResourceScope scope) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        OffHeapComplexArray c = allocate(a.length(), scope);
+        c.copyFrom(a, 0, 0, a.length());
+        return c;
+    }
+
+    /**
+     * Maps the values of a file in the format of {@link ComplexIO}, in either layout.
+     *
+     * @param file the file to map
+     * @param mode {@link FileChannel.MapMode#READ_ONLY}, or
+     *             {@link FileChannel.MapMode#READ_WRITE} to write through to the file
+     * @param scope the scope that owns the mapping
+     * @return a view of the values of the file
+     * @throws IllegalArgumentException if an argument is {@code null}
+     * @throws IOException if the file cannot be read, is not in this format, is
+     *                     shorter than its header says, or stores polar values
+     */
+    public static OffHeapComplexArray map(Path file, FileChannel.MapMode mode, ResourceScope scope)
+            throws IllegalArgumentException, IOException {
+        if (file == null || mode == null || scope == null)
+            throw new IllegalArgumentException("Input arguments must not be null.");
+
+        ComplexIO.Header h;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            h = ComplexIO.Header.read(ch);
+            if (ch.size() < ComplexIO.HEADER + 16*h.length)
+                throw new IOException("Complex array file is shorter than its header says.");
+        }
+        if (h.polar)
+            throw new IOException("Polar complex array files cannot be mapped for arithmetic; read them with ComplexIO.map.");
+
+        MemorySegment s = MemorySegment.mapFile(file, ComplexIO.HEADER, 16*h.length, mode, scope);
+        return h.layout == ComplexIO.Layout.SPLIT
+                ? new OffHeapComplexArray(s, 0, 8*h.length, 8, h.length)
+                : new OffHeapComplexArray(s, 0, 8, 16, h.length);
+    }
+
+    /**
+     * Creates a file in the format of {@link ComplexIO}, in the split layout, with
+     * every element set to zero, and maps it for reading and writing. The file is
+     * replaced if it exists.
+     *
+     * @param file the file to create
+     * @param length the number of elements
+     * @param scope the scope that owns the mapping
+     * @return a view of the values of the file
+     * @throws IllegalArgumentException if an argument is {@code null} or {@code length}
+     *                                  is negative or too large
+     * @throws IOException if the file cannot be created
+     */
+    public static OffHeapComplexArray create(Path file, long length, ResourceScope scope)
+            throws IllegalArgumentException, IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Input path must not be null.");
+        check(length, scope);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(ComplexIO.HEADER).order(ORDER);
+            new ComplexIO.Header(ComplexIO.Layout.SPLIT, false, length).put(header);
+            ch.write(header.flip(), 0);
+            // the values are a hole of zeros up to the new end of the file
+            if (length > 0)
+                ch.write(ByteBuffer.allocate(1), ComplexIO.HEADER + 16*length - 1);
+        }
+        return map(file, FileChannel.MapMode.READ_WRITE, scope);
+    }
+
+    //HELPER METHOD
+    private static void check(long length, ResourceScope scope) {
+        if (scope == null)
+            throw new IllegalArgumentException("Input scope must not be null.");
+        if (length < 0 || length > (Long.MAX_VALUE - ComplexIO.HEADER) / 16)
+            throw new IllegalArgumentException("Length must be between 0 and " + (Long.MAX_VALUE - ComplexIO.HEADER) / 16 + ".");
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the length of this array
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the scope that owns the memory of this array.
+     *
+     * @return the scope
+     */
+    public ResourceScope scope() {
+        return segment.scope();
+    }
+
+    /**
+     * Returns whether the elements can only be read.
+     *
+     * @return {@code true} for a read-only mapping
+     */
+    public boolean isReadOnly() {
+        return segment.isReadOnly();
+    }
+
+    /**
+     * Returns a view of a range of the elements, sharing their memory.
+     *
+     * @param from the index of the first element of the view
+     * @param to the index after the last element of the view
+     * @return the view
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public OffHeapComplexArray slice(long from, long to) throws IndexOutOfBoundsException {
+        if (from < 0 || to > length || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length + ".");
+
+        return new OffHeapComplexArray(segment, re + from*stride, im + from*stride, stride, to - from);
+    }
+
+    //HELPER METHOD
+    private void check(long i) {
+        if (i < 0 || i >= length)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + length + ".");
+    }
+
+    /**
+     * Returns the real part of an element.
+     *
+     * @param i the index of the element
+     * @return the real part
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public double real(long i) throws IndexOutOfBoundsException {
+        check(i);
+        return MemoryAccess.getDoubleAtOffset(segment, re + i*stride, ORDER);
+    }
+
+    /**
+     * Returns the imaginary part of an element.
+     *
+     * @param i the index of the element
+     * @return the imaginary part
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public double imag(long i) throws IndexOutOfBoundsException {
+        check(i);
+        return MemoryAccess.getDoubleAtOffset(segment, im + i*stride, ORDER);
+    }
+
+    /**
+     * Returns an element as a complex number.
+     *
+     * @param i the index of the element
+     * @return the element as a {@link Rectangular}
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public Rectangular get(long i) throws IndexOutOfBoundsException {
+        return new Rectangular(real(i), imag(i));
+    }
+
+    /**
+     * Sets an element.
+     *
+     * @param i the index of the element
+     * @param real the real part
+     * @param imag the imaginary part
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     * @throws UnsupportedOperationException if this array is read-only
+     */
+    public void set(long i, double real, double imag) throws IndexOutOfBoundsException {
+        check(i);
+        put(i, real, imag);
+    }
+
+    /**
+     * Copies a range of elements into a heap array.
+     *
+     * @param from the index of the first element to copy
+     * @param dst the destination array
+     * @param offset the index in {@code dst} of the first copied element
+     * @param count the number of elements to copy
+     * @throws IllegalArgumentException if {@code dst} is {@code null}
+     * @throws IndexOutOfBoundsException if a range is out of bounds
+     */
+    public void copyTo(long from, ComplexArray dst, int offset, int count)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (dst == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+        checkRange(from, dst, offset, count);
+
+        double[] dr = dst.realParts(), di = dst.imagParts();
+        if (RAW && stride == 8) {
+            MemorySegment.ofArray(dr).asSlice(8L*offset, 8L*count).copyFrom(segment.asSlice(re + 8*from, 8L*count));
+            MemorySegment.ofArray(di).asSlice(8L*offset, 8L*count).copyFrom(segment.asSlice(im + 8*from, 8L*count));
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            dr[offset + k] = a(from + k);
+            di[offset + k] = b(from + k);
+        }
+    }
+
+    /**
+     * Copies a range of a heap array into this array.
+     *
+     * @param src the source array
+     * @param offset the index in {@code src} of the first element to copy
+     * @param to the index in this array of the first copied element
+     * @param count the number of elements to copy
+     * @throws IllegalArgumentException if {@code src} is {@code null}
+     * @throws IndexOutOfBoundsException if a range is out of bounds
+     * @throws UnsupportedOperationException if this array is read-only
+     */
+    public void copyFrom(ComplexArray src, int offset, long to, int count)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (src == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+        checkRange(to, src, offset, count);
+
+        double[] sr = src.realParts(), si = src.imagParts();
+        if (RAW && stride == 8) {
+            segment.asSlice(re + 8*to, 8L*count).copyFrom(MemorySegment.ofArray(sr).asSlice(8L*offset, 8L*count));
+            segment.asSlice(im + 8*to, 8L*count).copyFrom(MemorySegment.ofArray(si).asSlice(8L*offset, 8L*count));
+            return;
+        }
+        for (int k = 0; k < count; k++)
+            put(to + k, sr[offset + k], si[offset + k]);
+    }
+
+    //HELPER METHOD
+    private void checkRange(long from, ComplexArray a, int offset, int count) {
+        if (count < 0 || from < 0 || from > length - count || offset < 0 || offset > a.length() - count)
+            throw new IndexOutOfBoundsException("Range out of bounds.");
+    }
+
+    //HELPER METHOD
+    private double a(long i) {
+        return MemoryAccess.getDoubleAtOffset(segment, re + i*stride, ORDER);
+    }
+
+    //HELPER METHOD
+    private double b(long i) {
+        return MemoryAccess.getDoubleAtOffset(segment, im + i*stride, ORDER);
+    }
+
+    //HELPER METHOD
+    private void put(long i, double real, double imag) {
+        MemoryAccess.setDoubleAtOffset(segment, re + i*stride, ORDER, real);
+        MemoryAccess.setDoubleAtOffset(segment, im + i*stride, ORDER, imag);
+    }
+
+    //HELPER METHOD
+    private static void checkLengths(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst) {
+        if (a == null || b == null || dst == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (a.length != b.length || a.length != dst.length)
+            throw new IllegalArgumentException("All arrays must have the same length.");
+    }
+
+    /**
+     * Adds two arrays element-wise, {@code dst[i] = a[i] + b[i]}.
+     *
+     * @param a the left-hand operand
+     * @param b the right-hand operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void add(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        for (long i = 0; i < dst.length; i++)
+            dst.put(i, a.a(i) + b.a(i), a.b(i) + b.b(i));
+    }
+
+    /**
+     * Subtracts two arrays element-wise, {@code dst[i] = a[i] - b[i]}.
+     *
+     * @param a the left-hand operand
+     * @param b the right-hand operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void subtract(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        for (long i = 0; i < dst.length; i++)
+            dst.put(i, a.a(i) - b.a(i), a.b(i) - b.b(i));
+    }
+
+    /**
+     * Multiplies two arrays element-wise, {@code dst[i] = a[i] * b[i]}.
+     *
+     * @param a the left-hand operand
+     * @param b the right-hand operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void multiply(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        for (long i = 0; i < dst.length; i++) {
+            double ar = a.a(i), ai = a.b(i), br = b.a(i), bi = b.b(i);
+            dst.put(i, ar*br - ai*bi, ar*bi + ai*br);
+        }
+    }
+
+    /**
+     * Multiplies two arrays element-wise and adds the products to an accumulator,
+     * {@code acc[i] += a[i] * b[i]}.
+     *
+     * @param a the left-hand operand
+     * @param b the right-hand operand
+     * @param acc the accumulator
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void multiplyAdd(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray acc)
+            throws IllegalArgumentException {
+        checkLengths(a, b, acc);
+
+        for (long i = 0; i < acc.length; i++) {
+            double ar = a.a(i), ai = a.b(i), br = b.a(i), bi = b.b(i);
+            acc.put(i, acc.a(i) + (ar*br - ai*bi), acc.b(i) + (ar*bi + ai*br));
+        }
+    }
+
+    /**
+     * Multiplies the conjugate of one array by another element-wise,
+     * {@code dst[i] = conj(a[i]) * b[i]}.
+     *
+     * @param a the operand that is conjugated
+     * @param b the other operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void conjugateMultiply(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        for (long i = 0; i < dst.length; i++) {
+            double ar = a.a(i), ai = a.b(i), br = b.a(i), bi = b.b(i);
+            dst.put(i, ar*br + ai*bi, ar*bi - ai*br);
+        }
+    }
+
+    /**
+     * Multiplies every element by a real factor, {@code dst[i] = s * a[i]}.
+     *
+     * @param a the array to scale
+     * @param s the factor
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void scale(OffHeapComplexArray a, double s, OffHeapComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+
+        for (long i = 0; i < dst.length; i++)
+            dst.put(i, s * a.a(i), s * a.b(i));
+    }
+
+    /**
+     * Divides two arrays element-wise, {@code dst[i] = a[i] / b[i]}, with Smith's
+     * algorithm as in {@link ComplexArray#divide(ComplexArray, ComplexArray, ComplexArray)}.
+     *
+     * @param a the dividend
+     * @param b the divisor
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void divide(OffHeapComplexArray a, OffHeapComplexArray b, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        double[] w = new double[2];
+        for (long i = 0; i < dst.length; i++) {
+            ComplexMath.divide(a.a(i), a.b(i), b.a(i), b.b(i), w);
+            dst.put(i, w[0], w[1]);
+        }
+    }
+
+    /**
+     * Conjugates every element, {@code dst[i] = conj(a[i])}.
+     *
+     * @param a the array to conjugate
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static void conjugate(OffHeapComplexArray a, OffHeapComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+
+        for (long i = 0; i < dst.length; i++)
+            dst.put(i, a.a(i), -a.b(i));
+    }
+
+    /**
+     * Applies a function to every element, {@code dst[i] = f(a[i])}.
+     *
+     * @param a the argument array
+     * @param f the function
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if an argument is {@code null} or the lengths differ
+     */
+    public static void map(OffHeapComplexArray a, ComplexFunction f, OffHeapComplexArray dst)
+            throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+        if (f == null)
+            throw new IllegalArgumentException("Input function must not be null.");
+
+        double[] w = new double[2];
+        for (long i = 0; i < dst.length; i++) {
+            f.apply(a.a(i), a.b(i), w);
+            dst.put(i, w[0], w[1]);
+        }
+    }
+
+    /**
+     * Returns the sum of the elements.
+     *
+     * @return the sum as a {@link Rectangular}, zero if the array is empty
+     */
+    public Rectangular sum() {
+        double sr = 0, si = 0;
+        for (long i = 0; i < length; i++) {
+            sr += a(i);
+            si += b(i);
+        }
+        return new Rectangular(sr, si);
+    }
+
+    /**
+     * Returns the product of the elements.
+     *
+     * @return the product as a {@link Rectangular}, one if the array is empty
+     */
+    public Rectangular product() {
+        ComplexAccumulator p = new ComplexAccumulator(1, 0);
+        for (long i = 0; i < length; i++)
+            p.mulInPlace(a(i), b(i));
+        return p.toRectangular();
+    }
+
+    /**
+     * Returns the inner product {@code Σ conj(a[i]) * b[i]} of two arrays.
+     *
+     * @param a the operand that is conjugated
+     * @param b the other operand
+     * @return the inner product as a {@link Rectangular}, zero if the arrays are empty
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public static Rectangular dot(OffHeapComplexArray a, OffHeapComplexArray b) throws IllegalArgumentException {
+        checkLengths(a, b, b);
+
+        double sr = 0, si = 0;
+        for (long i = 0; i < a.length; i++) {
+            double ar = a.a(i), ai = a.b(i), br = b.a(i), bi = b.b(i);
+            sr += ar*br + ai*bi;
+            si += ar*bi - ai*br;
+        }
+        return new Rectangular(sr, si);
+    }
+
+    /**
+     * Returns the index of the element with the largest modulus, compared as
+     * computed by {@link ComplexMath#hypot(double, double)}, which does not
+     * overflow where {@code re² + im²} would; ties go to the lowest index.
+     *
+     * @return the index of the element with the largest modulus, or -1 if the array is empty
+     */
+    public long maxModulusIndex() {
+        if (length == 0)
+            return -1;
+
+        long best = 0;
+        double max = ComplexMath.hypot(a(0), b(0));
+        for (long i = 1; i < length; i++) {
+            double m = ComplexMath.hypot(a(i), b(i));
+            if (m > max) {
+                max = m;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a short description of this array: its length and layout.
+     *
+     * @return a {@link String} describing this array
+     */
+    @Override
+    public String toString() {
+        return "OffHeapComplexArray[length=" + length + ", " + (stride == 8 ? "split" : "interleaved")
+                + (isReadOnly() ? ", read-only" : "") + "]";
+    }
+}
@@ -0,0 +1,96 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD implementation of {@link ComplexKernels}, built on the incubating
+ * Vector API.
+ * <p>
+ * Each loop processes {@code SPECIES.length()} elements per iteration with the
+ * preferred vector width of the platform (four doubles with AVX2, eight with
+ * AVX-512) and hands the remaining tail to the scalar loop. The split layout of
+ * {@link ComplexArray} means real and imaginary parts load straight into
+ * separate vectors, without any shuffles.
+ * <p>
+ * This class is loaded reflectively by {@link ComplexKernels#DEFAULT}, so the
+ * rest of the library compiles and runs without {@code jdk.incubator.vector}.
+ * Compile it with {@code javac --add-modules jdk.incubator.vector}.
+ */
+final class VectorKernels extends ComplexKernels {
+
+    final private static VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    String name() {
+        return "vector(" + SPECIES.vectorBitSize() + " bits)";
+    }
+
+    @Override
+    void multiply(double[] ar, double[] ai, double[] br, double[] bi,
+                  double[] dr, double[] di, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector xr = DoubleVector.fromArray(SPECIES, ar, i);
+            DoubleVector xi = DoubleVector.fromArray(SPECIES, ai, i);
+            DoubleVector yr = DoubleVector.fromArray(SPECIES, br, i);
+            DoubleVector yi = DoubleVector.fromArray(SPECIES, bi, i);
+
+            xr.mul(yr).sub(xi.mul(yi)).intoArray(dr, i);
+            xr.mul(yi).add(xi.mul(yr)).intoArray(di, i);
+        }
+        SCALAR.multiply(ar, ai, br, bi, dr, di, i, to);
+    }
+
+    @Override
+    void multiplyAdd(double[] ar, double[] ai, double[] br, double[] bi,
+                     double[] dr, double[] di, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector xr = DoubleVector.fromArray(SPECIES, ar, i);
+            DoubleVector xi = DoubleVector.fromArray(SPECIES, ai, i);
+            DoubleVector yr = DoubleVector.fromArray(SPECIES, br, i);
+            DoubleVector yi = DoubleVector.fromArray(SPECIES, bi, i);
+
+            DoubleVector.fromArray(SPECIES, dr, i).add(xr.mul(yr).sub(xi.mul(yi))).intoArray(dr, i);
+            DoubleVector.fromArray(SPECIES, di, i).add(xr.mul(yi).add(xi.mul(yr))).intoArray(di, i);
+        }
+        SCALAR.multiplyAdd(ar, ai, br, bi, dr, di, i, to);
+    }
+
+    @Override
+    void conjugateMultiply(double[] ar, double[] ai, double[] br, double[] bi,
+                           double[] dr, double[] di, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector xr = DoubleVector.fromArray(SPECIES, ar, i);
+            DoubleVector xi = DoubleVector.fromArray(SPECIES, ai, i);
+            DoubleVector yr = DoubleVector.fromArray(SPECIES, br, i);
+            DoubleVector yi = DoubleVector.fromArray(SPECIES, bi, i);
+
+            xr.mul(yr).add(xi.mul(yi)).intoArray(dr, i);
+            xi.mul(yr).sub(xr.mul(yi)).intoArray(di, i);
+        }
+        SCALAR.conjugateMultiply(ar, ai, br, bi, dr, di, i, to);
+    }
+
+    @Override
+    void modulusSquared(double[] ar, double[] ai, double[] d, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector xr = DoubleVector.fromArray(SPECIES, ar, i);
+            DoubleVector xi = DoubleVector.fromArray(SPECIES, ai, i);
+
+            xr.mul(xr).add(xi.mul(xi)).intoArray(d, i);
+        }
+        SCALAR.modulusSquared(ar, ai, d, i, to);
+    }
+
+    @Override
+    void scale(double[] ar, double[] ai, double s, double[] dr, double[] di, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, ar, i).mul(s).intoArray(dr, i);
+            DoubleVector.fromArray(SPECIES, ai, i).mul(s).intoArray(di, i);
+        }
+        SCALAR.scale(ar, ai, s, dr, di, i, to);
+    }
+}
@@ -0,0 +1,389 @@
+/**
+ * The elementary functions of {@link ComplexNumber} evaluated over whole arrays.
+ * <p>
+ * Each constant is a {@link ComplexFunction}, and the constants of that interface
+ * are these, so {@link ComplexArray#map(ComplexArray, ComplexFunction, ComplexArray)}
+ * and {@link ParallelComplex#map(ComplexArray, ComplexFunction, ComplexArray)} run
+ * the loops of this class. The loops read and write primitive buffers, which may
+ * be the same as the inputs, and call the kernels of {@link ComplexMath}
+ * directly, so every result is bitwise the one of the scalar function and no
+ * object is created per element:
+ * <pre>
+ *     BatchFunction.SIN.apply(re, im, outRe, outIm);
+ *     ParallelComplex.DEFAULT.map(new ComplexArray(re, im), BatchFunction.SIN, new ComplexArray(outRe, outIm));
+ * </pre>
+ * The functions that separate into a factor of the real part and a factor of the
+ * imaginary part, {@code exp}, {@code sin}, {@code cos}, {@code tan} and the
+ * hyperbolic ones, keep the factors of the previous element and only recompute
+ * the one whose coordinate changed. On a grid of points, as used to render a
+ * conformal map, consecutive points share their real or imaginary part, so half
+ * of the calls to {@code exp}, {@code sin}, {@code cos} and {@code expm1} are
+ * saved. Coordinates are compared bitwise, so {@code -0.0} and {@code NaN}
+ * are handled exactly.
+ */
+public enum BatchFunction implements ComplexFunction {
+
+    /** The complex exponential, see {@link ComplexNumber#exp(ComplexNumber)}. */
+    EXP {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.exp(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            long px = ~bits(re[from]), py = ~bits(im[from]);
+            double e = 0, c = 0, s = 0;
+            for (int i = from; i < to; i++) {
+                double x = re[i], y = im[i];
+                if (bits(x) != px) {
+                    px = bits(x);
+                    e = Math.exp(x);
+                }
+                if (bits(y) != py) {
+                    py = bits(y);
+                    c = Math.cos(y);
+                    s = Math.sin(y);
+                }
+                dr[i] = e * c;
+                di[i] = y == 0 ? y : e * s;
+            }
+        }
+    },
+
+    /** The principal natural logarithm, see {@link ComplexNumber#log(ComplexNumber)}. */
+    LOG {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.log(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            double[] w = new double[2];
+            for (int i = from; i < to; i++) {
+                ComplexMath.log(re[i], im[i], w);
+                dr[i] = w[0];
+                di[i] = w[1];
+            }
+        }
+    },
+
+    /** The principal square root, see {@link ComplexNumber#sqrt(ComplexNumber)}. */
+    SQRT {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.sqrt(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            double[] w = new double[2];
+            for (int i = from; i < to; i++) {
+                ComplexMath.sqrt(re[i], im[i], w);
+                dr[i] = w[0];
+                di[i] = w[1];
+            }
+        }
+    },
+
+    /** The sine, see {@link ComplexNumber#sin(ComplexNumber)}. */
+    SIN {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.sin(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            trig(re, im, dr, di, from, to, false);
+        }
+    },
+
+    /** The cosine, see {@link ComplexNumber#cos(ComplexNumber)}. */
+    COS {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.cos(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            trig(re, im, dr, di, from, to, true);
+        }
+    },
+
+    /** The tangent, see {@link ComplexNumber#tan(ComplexNumber)}. */
+    TAN {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.tan(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            // tan z = -i tanh(iz): the real part of iz is -y, and the result parts swap
+            hyperbolicTangent(im, re, di, dr, from, to, true);
+        }
+    },
+
+    /** The arcsine, see {@link ComplexNumber#asin(ComplexNumber)}. */
+    ASIN {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.asin(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            double[] w = new double[2];
+            for (int i = from; i < to; i++) {
+                ComplexMath.asin(re[i], im[i], w);
+                dr[i] = w[0];
+                di[i] = w[1];
+            }
+        }
+    },
+
+    /** The arccosine, see {@link ComplexNumber#acos(ComplexNumber)}. */
+    ACOS {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.acos(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            double[] w = new double[2];
+            for (int i = from; i < to; i++) {
+                ComplexMath.acos(re[i], im[i], w);
+                dr[i] = w[0];
+                di[i] = w[1];
+            }
+        }
+    },
+
+    /** The arctangent, see {@link ComplexNumber#atan(ComplexNumber)}. */
+    ATAN {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.atan(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            double[] w = new double[2];
+            for (int i = from; i < to; i++) {
+                ComplexMath.atan(re[i], im[i], w);
+                dr[i] = w[0];
+                di[i] = w[1];
+            }
+        }
+    },
+
+    /** The hyperbolic sine, see {@link ComplexNumber#sinh(ComplexNumber)}. */
+    SINH {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.sinh(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            hyperbolic(re, im, dr, di, from, to, false);
+        }
+    },
+
+    /** The hyperbolic cosine, see {@link ComplexNumber#cosh(ComplexNumber)}. */
+    COSH {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.cosh(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            hyperbolic(re, im, dr, di, from, to, true);
+        }
+    },
+
+    /** The hyperbolic tangent, see {@link ComplexNumber#tanh(ComplexNumber)}. */
+    TANH {
+        @Override
+        public void apply(double re, double im, double[] out) {
+            ComplexMath.tanh(re, im, out);
+        }
+
+        @Override
+        void range(double[] re, double[] im, double[] dr, double[] di, int from, int to) {
+            hyperbolicTangent(re, im, dr, di, from, to, false);
+        }
+    };
+
+    /**
+     * Evaluates the function at every element of a range, writing the real and
+     * imaginary parts of the results into {@code dr} and {@code di}. The
+     * destination arrays may be the input arrays.
+     */
+    abstract void range(double[] re, double[] im, double[] dr, double[] di, int from, int to);
+
+    /**
+     * Evaluates the function at every element of two arrays of parts.
+     *
+     * @param re the real parts of the arguments
+     * @param im the imaginary parts of the arguments
+     * @param outRe the destination of the real parts of the results, may be {@code re}
+     * @param outIm the destination of the imaginary parts of the results, may be {@code im}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public void apply(double[] re, double[] im, double[] outRe, double[] outIm) throws IllegalArgumentException {
+        if (re == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+
+        apply(re, im, outRe, outIm, 0, re.length);
+    }
+
+    /**
+     * Evaluates the function at a range of elements of two arrays of parts. The
+     * elements of the destination outside the range are left unchanged.
+     *
+     * @param re the real parts of the arguments
+     * @param im the imaginary parts of the arguments
+     * @param outRe the destination of the real parts of the results, may be {@code re}
+     * @param outIm the destination of the imaginary parts of the results, may be {@code im}
+     * @param from the index of the first element
+     * @param to the index after the last element
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public void apply(double[] re, double[] im, double[] outRe, double[] outIm, int from, int to)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (re == null || im == null || outRe == null || outIm == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (im.length != re.length || outRe.length != re.length || outIm.length != re.length)
+            throw new IllegalArgumentException("All arrays must have the same length.");
+        if (from < 0 || to > re.length || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + re.length + ".");
+
+        if (from < to)
+            range(re, im, outRe, outIm, from, to);
+    }
+
+    /**
+     * Evaluates the function at every element of an array.
+     *
+     * @param a the arguments
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public void apply(ComplexArray a, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, a, dst);
+
+        if (a.length() > 0)
+            range(a.realParts(), a.imagParts(), dst.realParts(), dst.imagParts(), 0, a.length());
+    }
+
+    //HELPER METHOD
+    private static long bits(double v) {
+        return Double.doubleToRawLongBits(v);
+    }
+
+    /** The loop of {@link #SIN} and {@link #COS}, see {@link ComplexMath#sin} and {@link ComplexMath#cos}. */
+    private static void trig(double[] re, double[] im, double[] dr, double[] di, int from, int to, boolean cos) {
+        double[] w = new double[2];
+        long px = ~bits(re[from]), py = ~bits(im[from]);
+        double sx = 0, cx = 0, ch = 0, sh = 0;
+        for (int i = from; i < to; i++) {
+            double x = re[i], y = im[i];
+            if (bits(x) != px) {
+                px = bits(x);
+                sx = Math.sin(x);
+                cx = Math.cos(x);
+            }
+            if (bits(y) != py) {
+                py = bits(y);
+                ComplexMath.coshSinh(y, w);
+                ch = w[0];
+                sh = w[1];
+            }
+            if (cos) {
+                dr[i] = cx * ch;
+                di[i] = y == 0 ? 0 : -sx * sh;
+            }
+            else {
+                dr[i] = sx * ch;
+                di[i] = y == 0 ? y : cx * sh;
+            }
+        }
+    }
+
+    /** The loop of {@link #SINH} and {@link #COSH}, see {@link ComplexMath#sinh} and {@link ComplexMath#cosh}. */
+    private static void hyperbolic(double[] re, double[] im, double[] dr, double[] di, int from, int to, boolean cosh) {
+        double[] w = new double[2];
+        long px = ~bits(re[from]), py = ~bits(im[from]);
+        double ch = 0, sh = 0, cy = 0, sy = 0;
+        for (int i = from; i < to; i++) {
+            double x = re[i], y = im[i];
+            if (bits(x) != px) {
+                px = bits(x);
+                ComplexMath.coshSinh(x, w);
+                ch = w[0];
+                sh = w[1];
+            }
+            if (bits(y) != py) {
+                py = bits(y);
+                cy = Math.cos(y);
+                sy = Math.sin(y);
+            }
+            if (cosh) {
+                dr[i] = ch * cy;
+                di[i] = y == 0 ? 0 : sh * sy;
+            }
+            else {
+                dr[i] = sh * cy;
+                di[i] = y == 0 ? y : ch * sy;
+            }
+        }
+    }
+
+    /**
+     * The loop of {@link #TANH}, see {@link ComplexMath#tanh}, and of {@link #TAN}
+     * when {@code tan} is set: the arguments are then read as {@code (-x, y)}
+     * and the real part of the result negated, which gives {@code tanh(iz)} with
+     * the parts of {@code tan z} in the swapped destination arrays.
+     */
+    private static void hyperbolicTangent(double[] re, double[] im, double[] dr, double[] di, int from, int to,
+                                          boolean tan) {
+        double[] w = new double[2];
+        long px = ~bits(re[from]), py = ~bits(im[from]);
+        double s = 0, rho = 0, t = 0, beta = 0;
+        for (int i = from; i < to; i++) {
+            double x = tan ? -re[i] : re[i], y = im[i];
+
+            double r0, r1;
+            if (Math.abs(x) > 22) {
+                ComplexMath.tanh(x, y, w);
+                r0 = w[0];
+                r1 = w[1];
+            }
+            else {
+                if (bits(x) != px) {
+                    px = bits(x);
+                    s = Math.sinh(x);
+                    rho = Math.sqrt(1 + s*s);
+                }
+                if (bits(y) != py) {
+                    py = bits(y);
+                    t = Math.tan(y);
+                    beta = 1 + t*t;
+                }
+                double d = 1 + beta*s*s;
+                r0 = beta*rho*s / d;
+                r1 = t / d;
+            }
+
+            dr[i] = tan ? -r0 : r0;
+            di[i] = r1;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * A mutable complex number for accumulating results in arithmetic loops.
+ * <p>
+ * Unlike {@link Rectangular} and {@link Polar}, an accumulator is updated in
+ * place, so sums, products and dot products can be computed without creating
+ * a new object per step. An immutable copy of the current value is only made
+ * when {@link #toRectangular()} or {@link #toPolar()} is called.
+ * <p>
+ * Accumulators are not thread-safe.
+ */
+public final class ComplexAccumulator {
+
+    /** The real part of the accumulated value. */
+    public double re;
+
+    /** The imaginary part of the accumulated value. */
+    public double im;
+
+    /**
+     * Constructs an accumulator with the value zero.
+     */
+    public ComplexAccumulator() {
+    }
+
+    /**
+     * Constructs an accumulator with the given real and imaginary parts.
+     *
+     * @param re the initial real part
+     * @param im the initial imaginary part
+     */
+    public ComplexAccumulator(double re, double im) {
+        this.re = re;
+        this.im = im;
+    }
+
+    /**
+     * Sets the accumulated value to the given real and imaginary parts.
+     *
+     * @param re the new real part
+     * @param im the new imaginary part
+     * @return this accumulator
+     */
+    public ComplexAccumulator set(double re, double im) {
+        this.re = re;
+        this.im = im;
+        return this;
+    }
+
+    /**
+     * Sets the accumulated value to the value of a complex number.
+     *
+     * @param z the new value
+     * @return this accumulator
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public ComplexAccumulator set(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        return set(z.real(), z.imag());
+    }
+
+    /**
+     * Adds a complex value, given by its real and imaginary parts, to this accumulator.
+     *
+     * @param re the real part to add
+     * @param im the imaginary part to add
+     * @return this accumulator
+     */
+    public ComplexAccumulator addInPlace(double re, double im) {
+        this.re += re;
+        this.im += im;
+        return this;
+    }
+
+    /**
+     * Adds a complex number to this accumulator.
+     *
+     * @param z the complex number to add
+     * @return this accumulator
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public ComplexAccumulator addInPlace(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        return addInPlace(z.real(), z.imag());
+    }
+
+    /**
+     * Multiplies this accumulator by a complex value, given by its real and imaginary parts.
+     *
+     * @param re the real part of the factor
+     * @param im the imaginary part of the factor
+     * @return this accumulator
+     */
+    public ComplexAccumulator mulInPlace(double re, double im) {
+        double r = this.re*re - this.im*im;
+        this.im = this.re*im + this.im*re;
+        this.re = r;
+        return this;
+    }
+
+    /**
+     * Multiplies this accumulator by a real number.
+     *
+     * @param d the real factor
+     * @return this accumulator
+     */
+    public ComplexAccumulator mulInPlace(double d) {
+        this.re *= d;
+        this.im *= d;
+        return this;
+    }
+
+    /**
+     * Multiplies this accumulator by a complex number.
+     *
+     * @param z the factor
+     * @return this accumulator
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public ComplexAccumulator mulInPlace(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        return mulInPlace(z.real(), z.imag());
+    }
+
+    /**
+     * Adds the product of two complex values to this accumulator.
+     * <pre>
+     *     this += (ar + ai i) * (br + bi i)
+     * </pre>
+     * This is the building block of dot products and polynomial evaluation.
+     *
+     * @param ar the real part of the first factor
+     * @param ai the imaginary part of the first factor
+     * @param br the real part of the second factor
+     * @param bi the imaginary part of the second factor
+     * @return this accumulator
+     */
+    public ComplexAccumulator mulAdd(double ar, double ai, double br, double bi) {
+        this.re += ar*br - ai*bi;
+        this.im += ar*bi + ai*br;
+        return this;
+    }
+
+    /**
+     * Adds the product of two complex numbers to this accumulator.
+     *
+     * @param a the first factor
+     * @param b the second factor
+     * @return this accumulator
+     * @throws IllegalArgumentException if either {@code a} or {@code b} is {@code null}
+     */
+    public ComplexAccumulator mulAdd(ComplexNumber a, ComplexNumber b) throws IllegalArgumentException {
+        if (a == null || b == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        return mulAdd(a.real(), a.imag(), b.real(), b.imag());
+    }
+
+    /**
+     * Divides this accumulator by a complex value, given by its real and imaginary parts.
+     * <p>
+     * The quotient is computed with Smith's algorithm, which scales by the larger
+     * component of the divisor to avoid intermediate overflow.
+     *
+     * @param re the real part of the divisor
+     * @param im the imaginary part of the divisor
+     * @return this accumulator
+     */
+    public ComplexAccumulator divInPlace(double re, double im) {
+        double[] w = new double[2];
+        ComplexMath.divide(this.re, this.im, re, im, w);
+        this.re = w[0];
+        this.im = w[1];
+        return this;
+    }
+
+    /**
+     * Divides this accumulator by a complex number.
+     *
+     * @param z the divisor
+     * @return this accumulator
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public ComplexAccumulator divInPlace(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        return divInPlace(z.real(), z.imag());
+    }
+
+    /**
+     * Returns a snapshot of the accumulated value in rectangular format.
+     *
+     * @return a new {@link Rectangular} with the current value
+     */
+    public Rectangular toRectangular() {
+        return new Rectangular(re, im);
+    }
+
+    /**
+     * Returns a snapshot of the accumulated value in polar format.
+     *
+     * @return a new {@link Polar} with the current value
+     */
+    public Polar toPolar() {
+        return toRectangular().toComplexPolar();
+    }
+
+    /**
+     * Returns a string representation of the accumulated value in the format
+     * of {@link Rectangular#toString()}.
+     *
+     * @return a {@link String} representing the accumulated value
+     */
+    @Override
+    public String toString() {
+        return toRectangular().toString();
+    }
+}
@@ -0,0 +1,495 @@
+/**
+ * A fixed-length array of complex numbers stored in structure-of-arrays form.
+ * <p>
+ * The real and imaginary parts are kept in two separate primitive
+ * {@code double[]} arrays, so bulk arithmetic runs over plain doubles without
+ * creating a {@link Rectangular} or {@link Polar} object per element. All bulk
+ * kernels are static, write their result into a caller-supplied destination,
+ * and may be called with the destination aliasing one of the inputs.
+ */
+public final class ComplexArray {
+
+    /** The real parts of the elements. */
+    final private double[] re;
+
+    /** The imaginary parts of the elements. */
+    final private double[] im;
+
+    /**
+     * Constructs a complex array of the given length with every element set to zero.
+     *
+     * @param length the number of elements
+     * @throws IllegalArgumentException if {@code length} is negative
+     */
+    public ComplexArray(int length) throws IllegalArgumentException {
+        if (length < 0)
+            throw new IllegalArgumentException("Length must not be negative.");
+
+        this.re = new double[length];
+        this.im = new double[length];
+    }
+
+    /**
+     * Constructs a complex array that wraps the given real and imaginary arrays.
+     * <p>
+     * The arrays are not copied, so changes made through this complex array are
+     * visible in {@code re} and {@code im} and vice versa.
+     *
+     * @param re the real parts
+     * @param im the imaginary parts
+     * @throws IllegalArgumentException if either array is {@code null} or their lengths differ
+     */
+    public ComplexArray(double[] re, double[] im) throws IllegalArgumentException {
+        if (re == null || im == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (re.length != im.length)
+            throw new IllegalArgumentException("Real and imaginary arrays must have the same length.");
+
+        this.re = re;
+        this.im = im;
+    }
+
+    /**
+     * Creates a complex array holding the values of the given complex numbers.
+     * <p>
+     * Each element is read once through {@link ComplexNumber#real()} and
+     * {@link ComplexNumber#imag()}, regardless of its representation.
+     *
+     * @param values the complex numbers to copy
+     * @return a new {@link ComplexArray} with the same values
+     * @throws IllegalArgumentException if {@code values} or any of its elements is {@code null}
+     */
+    public static ComplexArray of(ComplexNumber... values) throws IllegalArgumentException {
+        if (values == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        ComplexArray arr = new ComplexArray(values.length);
+        for (int i = 0; i < values.length; i++)
+            arr.set(i, values[i]);
+
+        return arr;
+    }
+
+    /**
+     * Returns the number of elements in this array.
+     *
+     * @return the length of the array
+     */
+    public int length() {
+        return re.length;
+    }
+
+    /**
+     * Returns the backing array of real parts. Writes to it are visible in this array.
+     *
+     * @return the real parts
+     */
+    public double[] realParts() {
+        return re;
+    }
+
+    /**
+     * Returns the backing array of imaginary parts. Writes to it are visible in this array.
+     *
+     * @return the imaginary parts
+     */
+    public double[] imagParts() {
+        return im;
+    }
+
+    /**
+     * Returns the real part of the element at the given index.
+     *
+     * @param i the index of the element
+     * @return the real part as a {@code double}
+     */
+    public double real(int i) {
+        return re[i];
+    }
+
+    /**
+     * Returns the imaginary part of the element at the given index.
+     *
+     * @param i the index of the element
+     * @return the imaginary part as a {@code double}
+     */
+    public double imag(int i) {
+        return im[i];
+    }
+
+    /**
+     * Returns the element at the given index as a {@link Rectangular}.
+     *
+     * @param i the index of the element
+     * @return a new {@link Rectangular} with the element's value
+     */
+    public Rectangular get(int i) {
+        return new Rectangular(re[i], im[i]);
+    }
+
+    /**
+     * Returns the element at the given index as a {@link Polar}.
+     *
+     * @param i the index of the element
+     * @return a new {@link Polar} with the element's value
+     */
+    public Polar getPolar(int i) {
+        return get(i).toComplexPolar();
+    }
+
+    /**
+     * Sets the element at the given index to the given real and imaginary parts.
+     *
+     * @param i the index of the element
+     * @param real the real part
+     * @param imag the imaginary part
+     */
+    public void set(int i, double real, double imag) {
+        re[i] = real;
+        im[i] = imag;
+    }
+
+    /**
+     * Sets the element at the given index to the value of a complex number.
+     *
+     * @param i the index of the element
+     * @param z the complex number to store
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public void set(int i, ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        re[i] = z.real();
+        im[i] = z.imag();
+    }
+
+    /**
+     * Copies the elements of this array into a new array of {@link Rectangular} numbers.
+     *
+     * @return the elements as {@link Rectangular} numbers
+     */
+    public Rectangular[] toRectangularArray() {
+        Rectangular[] out = new Rectangular[re.length];
+        for (int i = 0; i < out.length; i++)
+            out[i] = new Rectangular(re[i], im[i]);
+
+        return out;
+    }
+
+    /**
+     * Copies the elements of this array into a new array of {@link Polar} numbers.
+     *
+     * @return the elements as {@link Polar} numbers
+     */
+    public Polar[] toPolarArray() {
+        Polar[] out = new Polar[re.length];
+        for (int i = 0; i < out.length; i++)
+            out[i] = getPolar(i);
+
+        return out;
+    }
+
+    //HELPER METHOD
+    static void checkLengths(ComplexArray a, ComplexArray b, ComplexArray dst) {
+        if (a == null || b == null || dst == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (a.length() != b.length() || a.length() != dst.length())
+            throw new IllegalArgumentException("All arrays must have the same length.");
+    }
+
+    //HELPER METHOD
+    private static void checkLengths(ComplexArray a, double[] dst) {
+        if (a == null || dst == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (a.length() != dst.length)
+            throw new IllegalArgumentException("All arrays must have the same length.");
+    }
+
+    /**
+     * Adds two complex arrays element by element.
+     * <pre>
+     *     dst[i] = a[i] + b[i]
+     * </pre>
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void add(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        addRange(a, b, dst, 0, dst.length());
+    }
+
+    //HELPER METHOD
+    static void addRange(ComplexArray a, ComplexArray b, ComplexArray dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst.re[i] = a.re[i] + b.re[i];
+            dst.im[i] = a.im[i] + b.im[i];
+        }
+    }
+
+    /**
+     * Subtracts two complex arrays element by element.
+     * <pre>
+     *     dst[i] = a[i] - b[i]
+     * </pre>
+     *
+     * @param a the minuends
+     * @param b the subtrahends
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void subtract(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        subtractRange(a, b, dst, 0, dst.length());
+    }
+
+    //HELPER METHOD
+    static void subtractRange(ComplexArray a, ComplexArray b, ComplexArray dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst.re[i] = a.re[i] - b.re[i];
+            dst.im[i] = a.im[i] - b.im[i];
+        }
+    }
+
+    /**
+     * Multiplies two complex arrays element by element.
+     * <pre>
+     *     dst[i] = a[i] * b[i]
+     * </pre>
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void multiply(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        multiplyRange(a, b, dst, 0, dst.length());
+    }
+
+    //HELPER METHOD
+    static void multiplyRange(ComplexArray a, ComplexArray b, ComplexArray dst, int from, int to) {
+        ComplexKernels.DEFAULT.multiply(a.re, a.im, b.re, b.im, dst.re, dst.im, from, to);
+    }
+
+    /**
+     * Multiplies two complex arrays element by element and adds the products to an accumulator.
+     * <pre>
+     *     acc[i] = acc[i] + a[i] * b[i]
+     * </pre>
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @param acc the accumulator
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void multiplyAdd(ComplexArray a, ComplexArray b, ComplexArray acc) throws IllegalArgumentException {
+        checkLengths(a, b, acc);
+
+        ComplexKernels.DEFAULT.multiplyAdd(a.re, a.im, b.re, b.im, acc.re, acc.im, 0, acc.length());
+    }
+
+    /**
+     * Multiplies each element of one array by the conjugate of the matching element of another.
+     * <pre>
+     *     dst[i] = a[i] * conj(b[i])
+     * </pre>
+     *
+     * @param a the first operand
+     * @param b the operand that is conjugated
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void conjugateMultiply(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        ComplexKernels.DEFAULT.conjugateMultiply(a.re, a.im, b.re, b.im, dst.re, dst.im, 0, dst.length());
+    }
+
+    /**
+     * Multiplies every element by a real number.
+     * <pre>
+     *     dst[i] = s * a[i]
+     * </pre>
+     *
+     * @param a the input array
+     * @param s the real factor
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public static void scale(ComplexArray a, double s, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+
+        ComplexKernels.DEFAULT.scale(a.re, a.im, s, dst.re, dst.im, 0, dst.length());
+    }
+
+    /**
+     * Divides two complex arrays element by element.
+     * <p>
+     * Each quotient is computed in rectangular form with Smith's algorithm, which
+     * scales by the larger component of the divisor to avoid intermediate overflow:
+     * <pre>
+     *     dst[i] = a[i] / b[i]
+     * </pre>
+     *
+     * @param a the dividends
+     * @param b the divisors
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     */
+    public static void divide(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, b, dst);
+
+        divideRange(a, b, dst, 0, dst.length());
+    }
+
+    //HELPER METHOD
+    static void divideRange(ComplexArray a, ComplexArray b, ComplexArray dst, int from, int to) {
+        double[] w = new double[2];
+        for (int i = from; i < to; i++) {
+            ComplexMath.divide(a.re[i], a.im[i], b.re[i], b.im[i], w);
+            dst.re[i] = w[0];
+            dst.im[i] = w[1];
+        }
+    }
+
+    /**
+     * Computes the conjugate of every element.
+     * <pre>
+     *     dst[i] = conj(a[i])
+     * </pre>
+     *
+     * @param a the input array
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public static void conjugate(ComplexArray a, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+
+        for (int i = 0; i < dst.re.length; i++) {
+            dst.re[i] = a.re[i];
+            dst.im[i] = -a.im[i];
+        }
+    }
+
+    /**
+     * Computes the modulus of every element.
+     * <pre>
+     *     dst[i] = |a[i]|
+     * </pre>
+     *
+     * @param a the input array
+     * @param dst the destination for the moduli
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public static void modulus(ComplexArray a, double[] dst) throws IllegalArgumentException {
+        checkLengths(a, dst);
+
+        for (int i = 0; i < dst.length; i++)
+            dst[i] = ComplexMath.hypot(a.re[i], a.im[i]);
+    }
+
+    /**
+     * Computes the squared modulus of every element, which avoids the square root
+     * when only relative magnitudes or powers are needed.
+     * <pre>
+     *     dst[i] = real(a[i])² + imag(a[i])²
+     * </pre>
+     *
+     * @param a the input array
+     * @param dst the destination for the squared moduli
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public static void modulusSquared(ComplexArray a, double[] dst) throws IllegalArgumentException {
+        checkLengths(a, dst);
+
+        ComplexKernels.DEFAULT.modulusSquared(a.re, a.im, dst, 0, dst.length);
+    }
+
+    /**
+     * Computes the phase of every element.
+     * <pre>
+     *     dst[i] = atan2(imag(a[i]), real(a[i]))
+     * </pre>
+     * with the conventions of {@link Rectangular#phase()}, so that the results
+     * are identical to it: a zero imaginary part is treated as {@code +0} and a
+     * zero has phase 0.
+     *
+     * @param a the input array
+     * @param dst the destination for the phases, each in range [-π, π]
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public static void phase(ComplexArray a, double[] dst) throws IllegalArgumentException {
+        checkLengths(a, dst);
+
+        for (int i = 0; i < dst.length; i++) {
+            double x = a.re[i], y = a.im[i];
+            dst[i] = x == 0 && y == 0 ? 0 : ComplexMath.arg(x, y);
+        }
+    }
+
+    /**
+     * Applies a function to every element.
+     * <pre>
+     *     dst[i] = f(a[i])
+     * </pre>
+     * The elementary functions of {@link ComplexNumber} are available as the
+     * constants of {@link ComplexFunction}, e.g. {@code map(a, ComplexFunction.SIN, dst)}.
+     *
+     * @param a the input array
+     * @param f the function to apply
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if any argument is {@code null} or the lengths differ
+     */
+    public static void map(ComplexArray a, ComplexFunction f, ComplexArray dst) throws IllegalArgumentException {
+        checkLengths(a, a, dst);
+        if (f == null)
+            throw new IllegalArgumentException("Input function must not be null.");
+
+        mapRange(a, f, dst, 0, dst.length());
+    }
+
+    //HELPER METHOD
+    static void mapRange(ComplexArray a, ComplexFunction f, ComplexArray dst, int from, int to) {
+        // a compiled formula runs its own loop, which the JIT compiles for that formula alone
+        if (f instanceof ComplexFormula formula) {
+            formula.evaluateRange(a, dst, from, to);
+            return;
+        }
+        if (f instanceof BatchFunction batch) {
+            if (from < to)
+                batch.range(a.re, a.im, dst.re, dst.im, from, to);
+            return;
+        }
+
+        double[] w = new double[2];
+        for (int i = from; i < to; i++) {
+            f.apply(a.re[i], a.im[i], w);
+            dst.re[i] = w[0];
+            dst.im[i] = w[1];
+        }
+    }
+
+    /**
+     * Returns a string representation of this array, listing its elements in
+     * the format of {@link Rectangular#toString()}.
+     *
+     * @return a {@link String} representing this complex array
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < re.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(get(i));
+        }
+        return sb.append("]").toString();
+    }
+}
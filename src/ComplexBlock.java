@@ -0,0 +1,262 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A block of complex samples in two primitive arrays, the unit of work of a
+ * {@link ComplexPipeline}.
+ * <p>
+ * A block has a fixed capacity and a length, the number of valid samples at
+ * the start of its arrays, which stages such as decimation reduce in place.
+ * Blocks are usually taken from a {@link Pool} by a {@link ComplexSource},
+ * passed down the pipeline, and given back by the {@link ComplexSink} with
+ * {@link #release()}, so a running stream creates no garbage:
+ * <pre>
+ *     ComplexBlock.Pool pool = new ComplexBlock.Pool(4096, 16);
+ *     ComplexBlock b = pool.acquire();
+ *     ...
+ *     b.release();
+ * </pre>
+ * A block is owned by one thread at a time; it is handed over by the
+ * {@link java.util.concurrent.Flow} signals, which establish the ordering.
+ */
+public final class ComplexBlock {
+
+    /** The real parts of the samples. */
+    final double[] re;
+
+    /** The imaginary parts of the samples. */
+    final double[] im;
+
+    /** The pool this block returns to, or {@code null}. */
+    final private Pool pool;
+
+    /** The number of valid samples. */
+    private int length;
+
+    /** Whether the block is idle in its pool. */
+    private boolean pooled;
+
+    /**
+     * Constructs a block that belongs to no pool, with a length of zero.
+     *
+     * @param capacity the number of samples the block can hold
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public ComplexBlock(int capacity) throws IllegalArgumentException {
+        this(capacity, null);
+    }
+
+    //HELPER METHOD
+    private ComplexBlock(int capacity, Pool pool) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Block capacity must be positive.");
+
+        this.re = new double[capacity];
+        this.im = new double[capacity];
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the number of samples this block can hold.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return re.length;
+    }
+
+    /**
+     * Returns the number of valid samples.
+     *
+     * @return the length
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Sets the number of valid samples.
+     *
+     * @param length the new length
+     * @throws IllegalArgumentException if {@code length} is negative or exceeds the capacity
+     */
+    public void setLength(int length) throws IllegalArgumentException {
+        if (length < 0 || length > re.length)
+            throw new IllegalArgumentException("Block length must be between 0 and the capacity.");
+
+        this.length = length;
+    }
+
+    /**
+     * Returns the backing array of real parts, of the capacity of the block.
+     * Writes to it are visible in this block.
+     *
+     * @return the real parts
+     */
+    public double[] realParts() {
+        return re;
+    }
+
+    /**
+     * Returns the backing array of imaginary parts, of the capacity of the block.
+     * Writes to it are visible in this block.
+     *
+     * @return the imaginary parts
+     */
+    public double[] imagParts() {
+        return im;
+    }
+
+    /**
+     * Returns the real part of a sample.
+     *
+     * @param i the index of the sample
+     * @return the real part
+     */
+    public double real(int i) {
+        return re[i];
+    }
+
+    /**
+     * Returns the imaginary part of a sample.
+     *
+     * @param i the index of the sample
+     * @return the imaginary part
+     */
+    public double imag(int i) {
+        return im[i];
+    }
+
+    /**
+     * Sets a sample.
+     *
+     * @param i the index of the sample
+     * @param real the real part
+     * @param imag the imaginary part
+     */
+    public void set(int i, double real, double imag) {
+        re[i] = real;
+        im[i] = imag;
+    }
+
+    /**
+     * Copies the valid samples into a complex array.
+     *
+     * @param dst the destination
+     * @param offset the index in {@code dst} of the first sample
+     * @throws IllegalArgumentException if {@code dst} is {@code null} or too short
+     */
+    public void copyTo(ComplexArray dst, int offset) throws IllegalArgumentException {
+        if (dst == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (offset < 0 || offset > dst.length() - length)
+            throw new IllegalArgumentException("Destination is too short.");
+
+        System.arraycopy(re, 0, dst.realParts(), offset, length);
+        System.arraycopy(im, 0, dst.imagParts(), offset, length);
+    }
+
+    /**
+     * Gives this block back to the pool it was acquired from, for reuse by a
+     * later {@link Pool#acquire()}. The block must not be used afterwards. A
+     * block that belongs to no pool is left to the garbage collector.
+     *
+     * @throws IllegalStateException if the block is already in its pool
+     */
+    public void release() throws IllegalStateException {
+        if (pool == null)
+            return;
+        if (pooled)
+            throw new IllegalStateException("Block has already been released.");
+
+        pooled = true;
+        pool.offer(this);
+    }
+
+    /**
+     * A pool of blocks of one capacity, safe for use by several threads.
+     * <p>
+     * {@link #acquire()} reuses an idle block if there is one and allocates a
+     * new block otherwise; released blocks are kept up to a limit and left to
+     * the garbage collector beyond it.
+     */
+    public static final class Pool {
+
+        final private int blockSize;
+        final private int maxIdle;
+        final private ConcurrentLinkedQueue<ComplexBlock> idle = new ConcurrentLinkedQueue<>();
+        final private AtomicInteger idleCount = new AtomicInteger();
+        final private AtomicLong allocated = new AtomicLong();
+
+        /**
+         * Constructs an empty pool.
+         *
+         * @param blockSize the capacity of the blocks
+         * @param maxIdle the largest number of idle blocks kept for reuse
+         * @throws IllegalArgumentException if {@code blockSize} is not positive or {@code maxIdle} is negative
+         */
+        public Pool(int blockSize, int maxIdle) throws IllegalArgumentException {
+            if (blockSize <= 0)
+                throw new IllegalArgumentException("Block capacity must be positive.");
+            if (maxIdle < 0)
+                throw new IllegalArgumentException("Number of idle blocks must not be negative.");
+
+            this.blockSize = blockSize;
+            this.maxIdle = maxIdle;
+        }
+
+        /**
+         * Returns an idle block, or a new one if none is idle, with a length of zero.
+         *
+         * @return a block of the capacity of this pool
+         */
+        public ComplexBlock acquire() {
+            ComplexBlock b = idle.poll();
+            if (b == null) {
+                allocated.incrementAndGet();
+                return new ComplexBlock(blockSize, this);
+            }
+            idleCount.decrementAndGet();
+            b.pooled = false;
+            b.length = 0;
+            return b;
+        }
+
+        //HELPER METHOD
+        private void offer(ComplexBlock b) {
+            if (idleCount.incrementAndGet() <= maxIdle)
+                idle.offer(b);
+            else
+                idleCount.decrementAndGet();
+        }
+
+        /**
+         * Returns the capacity of the blocks of this pool.
+         *
+         * @return the block capacity
+         */
+        public int blockSize() {
+            return blockSize;
+        }
+
+        /**
+         * Returns the number of blocks this pool has allocated, which stays
+         * constant once a stream runs in steady state.
+         *
+         * @return the number of blocks allocated
+         */
+        public long allocated() {
+            return allocated.get();
+        }
+
+        /**
+         * Returns the number of idle blocks.
+         *
+         * @return the number of blocks available for reuse
+         */
+        public int idle() {
+            return idleCount.get();
+        }
+    }
+}
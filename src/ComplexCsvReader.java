@@ -0,0 +1,380 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads columns of complex numbers from delimited text, one row at a time.
+ * <p>
+ * Each field holds one complex number in any of the forms of
+ * {@link ComplexFormat}, optionally enclosed in double quotes. Rows end with
+ * {@code \n} or {@code \r\n}, blank rows are skipped, and every row must have
+ * as many fields as the first one, or as the header if there is one. The file
+ * is read through a buffer of {@value #BUFFER} characters and each field is
+ * parsed in place, so reading a row creates no objects:
+ * <pre>
+ *     try (ComplexCsvReader in = new ComplexCsvReader(reader, ',', true)) {
+ *         while (in.next())
+ *             process(in.real(0), in.imag(0), in.real(1), in.imag(1));
+ *     }
+ * </pre>
+ * {@link #read(ComplexArray...)} fills whole columns at once. A reader is not
+ * safe for use by several threads.
+ */
+public final class ComplexCsvReader implements Closeable {
+
+    /** The initial size of the character buffer; it grows to hold the longest row. */
+    final static int BUFFER = 1 << 14;
+
+    final private Reader in;
+    final private char delimiter;
+    final private ComplexFormat.Parser parser = new ComplexFormat.Parser();
+
+    private char[] buf = new char[BUFFER];
+    private CharBuffer text = CharBuffer.wrap(buf);
+    private int pos, limit;
+    private boolean eof;
+    private long line;
+    private boolean current;
+
+    private String[] names;
+    private int columns = -1;
+
+    /** The parsed fields of the current row: real parts or moduli, imaginary parts or phases, and forms. */
+    private double[] a = new double[0], b = new double[0];
+    private boolean[] polar = new boolean[0];
+    final private double[] w = new double[2];
+
+    /**
+     * Constructs a reader of comma-separated values without a header row.
+     *
+     * @param in the text to read
+     * @throws IllegalArgumentException if {@code in} is {@code null}
+     */
+    public ComplexCsvReader(Reader in) throws IllegalArgumentException {
+        this(in, ',', false);
+    }
+
+    /**
+     * Constructs a reader of delimited values.
+     *
+     * @param in the text to read
+     * @param delimiter the character between fields, such as {@code ','},
+     *                  {@code ';'} or {@code '\t'}
+     * @param header whether the first row holds the names of the columns
+     * @throws IllegalArgumentException if {@code in} is {@code null} or the
+     *                                  delimiter can be part of a complex number
+     */
+    public ComplexCsvReader(Reader in, char delimiter, boolean header) throws IllegalArgumentException {
+        if (in == null)
+            throw new IllegalArgumentException("Input reader must not be null.");
+        checkDelimiter(delimiter);
+
+        this.in = in;
+        this.delimiter = delimiter;
+        if (header)
+            this.names = new String[0];
+    }
+
+    /** Checks that a delimiter cannot be mistaken for part of a field. */
+    static void checkDelimiter(char delimiter) throws IllegalArgumentException {
+        if (Character.isLetterOrDigit(delimiter) || "+-.()^*∠\"\r\n ".indexOf(delimiter) >= 0)
+            throw new IllegalArgumentException("Delimiter '" + delimiter + "' can be part of a complex number.");
+    }
+
+    /**
+     * Returns the names of the columns, reading the header row if it has not
+     * been read yet.
+     *
+     * @return a copy of the names, or {@code null} if the reader has no header
+     * @throws IOException if the text cannot be read or has no header row
+     */
+    public String[] header() throws IOException {
+        if (names == null)
+            return null;
+        if (columns < 0)
+            readHeader();
+        return names.clone();
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return {@code true} if there is a next row, {@code false} at the end of the text
+     * @throws IOException if the text cannot be read, or the row has a wrong
+     *                     number of fields or a field that is not a complex number
+     */
+    public boolean next() throws IOException {
+        if (names != null && columns < 0)
+            readHeader();
+
+        int end;
+        do {
+            end = nextLine();
+            if (end < 0)
+                return current = false;
+        } while (blank(pos, end));
+
+        current = false;
+        int n = 0, from = pos;
+        for (int i = pos; i <= end; i++) {
+            if (i < end && buf[i] != delimiter)
+                continue;
+            if (columns >= 0 && n >= columns)
+                throw new IOException("Row at line " + line + " has more than " + columns + " fields.");
+            if (n == a.length)
+                grow(n + 1);
+            field(from, i, n++);
+            from = i + 1;
+        }
+        if (columns < 0)
+            columns = n;
+        else if (n < columns)
+            throw new IOException("Row at line " + line + " has " + n + " fields instead of " + columns + ".");
+
+        pos = end;
+        return current = true;
+    }
+
+    /**
+     * Returns the number of fields in every row.
+     *
+     * @return the number of columns, or -1 if no row has been read yet
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of the line of the current row, counting from 1.
+     *
+     * @return the line number, or 0 if no row has been read yet
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Returns the real part of a field of the current row.
+     *
+     * @param column the index of the field
+     * @return the real part, computed from the modulus and phase if the field is in polar form
+     * @throws IndexOutOfBoundsException if there is no such field
+     */
+    public double real(int column) {
+        check(column);
+        return polar[column] ? rect(column)[0] : a[column];
+    }
+
+    /**
+     * Returns the imaginary part of a field of the current row.
+     *
+     * @param column the index of the field
+     * @return the imaginary part, computed from the modulus and phase if the field is in polar form
+     * @throws IndexOutOfBoundsException if there is no such field
+     */
+    public double imag(int column) {
+        check(column);
+        return polar[column] ? rect(column)[1] : b[column];
+    }
+
+    /**
+     * Returns a field of the current row as a complex number.
+     *
+     * @param column the index of the field
+     * @return a {@link Polar} if the field is in polar form, a {@link Rectangular} otherwise
+     * @throws IndexOutOfBoundsException if there is no such field
+     */
+    public ComplexNumber get(int column) {
+        check(column);
+        return polar[column] ? new Polar(a[column], b[column]) : new Rectangular(a[column], b[column]);
+    }
+
+    /**
+     * Reads rows into columns, starting at index 0, until the shortest column is
+     * full or the text ends. Polar fields are converted to rectangular form.
+     *
+     * @param columns the destination columns, one for each field of a row
+     * @return the number of rows read
+     * @throws IllegalArgumentException if {@code columns} is {@code null} or holds a {@code null}
+     * @throws IOException if the text cannot be read, or a row is malformed or
+     *                     does not have as many fields as there are columns
+     */
+    public int read(ComplexArray... columns) throws IllegalArgumentException, IOException {
+        if (columns == null)
+            throw new IllegalArgumentException("Input columns must not be null.");
+
+        int rows = Integer.MAX_VALUE;
+        for (ComplexArray c : columns) {
+            if (c == null)
+                throw new IllegalArgumentException("Input columns must not be null.");
+            rows = Math.min(rows, c.length());
+        }
+
+        int r = 0;
+        while (r < rows && next()) {
+            if (this.columns != columns.length)
+                throw new IOException("Rows have " + this.columns + " fields, but " + columns.length + " columns were given.");
+            for (int c = 0; c < columns.length; c++) {
+                columns[c].realParts()[r] = real(c);
+                columns[c].imagParts()[r] = imag(c);
+            }
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if the underlying reader cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    //HELPER METHOD
+    private void readHeader() throws IOException {
+        int end;
+        do {
+            end = nextLine();
+            if (end < 0)
+                throw new IOException("Missing header row.");
+        } while (blank(pos, end));
+
+        String[] n = new String[8];
+        int count = 0, from = pos;
+        for (int i = pos; i <= end; i++) {
+            if (i < end && buf[i] != delimiter)
+                continue;
+            int s = from, e = i;
+            while (s < e && Character.isWhitespace(buf[s]))
+                s++;
+            while (e > s && Character.isWhitespace(buf[e - 1]))
+                e--;
+            if (e - s >= 2 && buf[s] == '"' && buf[e - 1] == '"') {
+                s++;
+                e--;
+            }
+            if (count == n.length)
+                n = Arrays.copyOf(n, 2*count);
+            n[count++] = new String(buf, s, e - s);
+            from = i + 1;
+        }
+
+        names = Arrays.copyOf(n, count);
+        columns = count;
+        grow(count);
+        pos = end;
+    }
+
+    //HELPER METHOD
+    private void field(int from, int to, int column) throws IOException {
+        while (from < to && Character.isWhitespace(buf[from]))
+            from++;
+        while (to > from && Character.isWhitespace(buf[to - 1]))
+            to--;
+        if (to - from >= 2 && buf[from] == '"' && buf[to - 1] == '"') {
+            from++;
+            to--;
+        }
+
+        try {
+            parser.parse(text, from, to);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Invalid field " + (column + 1) + " at line " + line + ": " + e.getMessage(), e);
+        }
+        a[column] = parser.a;
+        b[column] = parser.b;
+        polar[column] = parser.polar;
+    }
+
+    /**
+     * Makes the next line available in the buffer from {@link #pos}.
+     *
+     * @return the index after its last character, without the line terminator,
+     *         or -1 at the end of the text
+     */
+    private int nextLine() throws IOException {
+        // step over the terminator of the previous line
+        if (pos < limit && buf[pos] == '\r')
+            pos++;
+        if (pos < limit && buf[pos] == '\n')
+            pos++;
+
+        int scan = pos;
+        while (true) {
+            for (; scan < limit; scan++)
+                if (buf[scan] == '\n' || buf[scan] == '\r') {
+                    line++;
+                    if (buf[scan] == '\r' && scan + 1 == limit && !eof) {
+                        // keep the '\r' of a "\r\n" split by the buffer boundary with its '\n'
+                        scan -= pos;
+                        fill();
+                        scan += pos;
+                    }
+                    return scan;
+                }
+            if (eof) {
+                if (pos == limit)
+                    return -1;
+                line++;
+                return limit;
+            }
+            scan -= pos;
+            fill();
+            scan += pos;
+        }
+    }
+
+    /** Moves the unread characters to the start of the buffer, growing it if full, and reads more. */
+    private void fill() throws IOException {
+        int kept = limit - pos;
+        if (kept == buf.length) {
+            buf = Arrays.copyOf(buf, 2*buf.length);
+            text = CharBuffer.wrap(buf);
+        }
+        else
+            System.arraycopy(buf, pos, buf, 0, kept);
+        pos = 0;
+        limit = kept;
+
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0)
+            eof = true;
+        else
+            limit += n;
+    }
+
+    //HELPER METHOD
+    private boolean blank(int from, int to) {
+        for (int i = from; i < to; i++)
+            if (!Character.isWhitespace(buf[i]))
+                return false;
+        pos = to;
+        return true;
+    }
+
+    //HELPER METHOD
+    private void grow(int n) {
+        int size = Math.max(n, 2*a.length);
+        a = Arrays.copyOf(a, size);
+        b = Arrays.copyOf(b, size);
+        polar = Arrays.copyOf(polar, size);
+    }
+
+    //HELPER METHOD
+    private double[] rect(int column) {
+        Polar.components(a[column], b[column], w);
+        return w;
+    }
+
+    //HELPER METHOD
+    private void check(int column) {
+        if (column < 0 || column >= columns || !current)
+            throw new IndexOutOfBoundsException("Column " + column + " out of bounds for " + Math.max(columns, 0) + " columns.");
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes columns of complex numbers as delimited text, one field at a time.
+ * <p>
+ * Fields are written in the formats of {@link ComplexFormat}, which
+ * {@link ComplexCsvReader} reads back exactly, and rows end with {@code \n}. The
+ * text is formatted into a reused {@link StringBuilder} and handed to the
+ * underlying writer in blocks of about {@value #BUFFER} characters, so writing a
+ * row creates no objects:
+ * <pre>
+ *     try (ComplexCsvWriter out = new ComplexCsvWriter(writer)) {
+ *         out.header("input", "output");
+ *         for (int i = 0; i < n; i++) {
+ *             out.write(re[i], im[i]);
+ *             out.write(fre[i], fim[i]);
+ *             out.endRow();
+ *         }
+ *     }
+ * </pre>
+ * A writer is not safe for use by several threads.
+ */
+public final class ComplexCsvWriter implements Closeable, Flushable {
+
+    /** The number of characters collected before they are passed on. */
+    final static int BUFFER = 1 << 14;
+
+    final private Writer out;
+    final private char delimiter;
+    final private StringBuilder sb = new StringBuilder(BUFFER + 128);
+    final private char[] chars = new char[BUFFER + 128];
+
+    /** Whether the current row has a field already. */
+    private boolean inRow;
+
+    /**
+     * Constructs a writer of comma-separated values.
+     *
+     * @param out the destination
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public ComplexCsvWriter(Writer out) throws IllegalArgumentException {
+        this(out, ',');
+    }
+
+    /**
+     * Constructs a writer of delimited values.
+     *
+     * @param out the destination
+     * @param delimiter the character between fields, such as {@code ','},
+     *                  {@code ';'} or {@code '\t'}
+     * @throws IllegalArgumentException if {@code out} is {@code null} or the
+     *                                  delimiter can be part of a complex number
+     */
+    public ComplexCsvWriter(Writer out, char delimiter) throws IllegalArgumentException {
+        if (out == null)
+            throw new IllegalArgumentException("Output writer must not be null.");
+        ComplexCsvReader.checkDelimiter(delimiter);
+
+        this.out = out;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Writes a row of column names.
+     *
+     * @param names the names, which must not contain the delimiter or a line break
+     * @throws IllegalArgumentException if {@code names} is {@code null}, holds a
+     *                                  {@code null}, or a name contains the delimiter or a line break
+     * @throws IOException if the destination cannot be written
+     */
+    public void header(String... names) throws IllegalArgumentException, IOException {
+        if (names == null)
+            throw new IllegalArgumentException("Input names must not be null.");
+
+        for (String name : names) {
+            if (name == null)
+                throw new IllegalArgumentException("Input names must not be null.");
+            if (name.indexOf(delimiter) >= 0 || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0)
+                throw new IllegalArgumentException("Name \"" + name + "\" contains the delimiter or a line break.");
+            separate();
+            sb.append(name);
+        }
+        endRow();
+    }
+
+    /**
+     * Writes a field in rectangular form.
+     *
+     * @param real the real part
+     * @param imag the imaginary part
+     * @throws IOException if the destination cannot be written
+     */
+    public void write(double real, double imag) throws IOException {
+        separate();
+        ComplexFormat.appendRect(sb, real, imag);
+        drain(false);
+    }
+
+    /**
+     * Writes a field in polar form.
+     *
+     * @param r the modulus
+     * @param theta the phase in radians
+     * @throws IOException if the destination cannot be written
+     */
+    public void writePolar(double r, double theta) throws IOException {
+        separate();
+        ComplexFormat.appendPolar(sb, r, theta);
+        drain(false);
+    }
+
+    /**
+     * Writes a field in the form of a complex number: polar for a {@link Polar},
+     * rectangular otherwise.
+     *
+     * @param z the complex number
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     * @throws IOException if the destination cannot be written
+     */
+    public void write(ComplexNumber z) throws IllegalArgumentException, IOException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        separate();
+        ComplexFormat.append(sb, z);
+        drain(false);
+    }
+
+    /**
+     * Ends the current row.
+     *
+     * @throws IOException if the destination cannot be written
+     */
+    public void endRow() throws IOException {
+        sb.append('\n');
+        inRow = false;
+        drain(false);
+    }
+
+    /**
+     * Writes columns as rows, one field per column, until the shortest column ends.
+     *
+     * @param columns the columns to write
+     * @throws IllegalArgumentException if {@code columns} is {@code null} or holds a {@code null}
+     * @throws IOException if the destination cannot be written
+     */
+    public void write(ComplexArray... columns) throws IllegalArgumentException, IOException {
+        if (columns == null)
+            throw new IllegalArgumentException("Input columns must not be null.");
+
+        int rows = Integer.MAX_VALUE;
+        for (ComplexArray c : columns) {
+            if (c == null)
+                throw new IllegalArgumentException("Input columns must not be null.");
+            rows = Math.min(rows, c.length());
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (ComplexArray c : columns)
+                write(c.realParts()[r], c.imagParts()[r]);
+            endRow();
+        }
+    }
+
+    /**
+     * Passes the buffered text to the destination and flushes it.
+     *
+     * @throws IOException if the destination cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        drain(true);
+        out.flush();
+    }
+
+    /**
+     * Passes the buffered text to the destination and closes it.
+     *
+     * @throws IOException if the destination cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(true);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    //HELPER METHOD
+    private void separate() {
+        if (inRow)
+            sb.append(delimiter);
+        inRow = true;
+    }
+
+    //HELPER METHOD
+    private void drain(boolean all) throws IOException {
+        int n = sb.length();
+        if (n == 0 || (!all && n < BUFFER))
+            return;
+
+        for (int from = 0; from < n; from += chars.length) {
+            int len = Math.min(chars.length, n - from);
+            sb.getChars(from, from + len, chars, 0);
+            out.write(chars, 0, len);
+        }
+        sb.setLength(0);
+    }
+}
@@ -0,0 +1,629 @@
+/**
+ * A lazy formula in one complex variable {@code z}, recorded as an immutable
+ * expression tree.
+ * <p>
+ * Expressions are built from {@link #z()} and constants with methods such as
+ * {@link #add(ComplexExpr)} or {@link #sin()}; nothing is computed while
+ * building except the simplifications below. {@link #compile()} turns the tree
+ * into a {@link ComplexProgram}, which evaluates the whole formula on primitive
+ * doubles, for one point or for every element of a {@link ComplexArray}, without
+ * creating a {@link ComplexNumber} for any intermediate result:
+ * <pre>
+ *     ComplexExpr z = ComplexExpr.z();
+ *     ComplexProgram p = z.multiply(z).add(z.sin()).divide(z.add(1)).compile();
+ *     p.evaluate(points, values);
+ * </pre>
+ * Each operation is simplified as it is recorded: operations on constants are
+ * folded, and identities such as {@code x + 0}, {@code x * 1}, {@code x * 0},
+ * {@code x - x}, {@code x / x}, {@code x * x = x²}, {@code (xᵐ)ⁿ = xᵐⁿ},
+ * {@code -(-x)} and {@code e^(log x)} are applied. These identities assume finite
+ * operands; for example {@code z * 0} is {@code 0} even where {@code z} is
+ * infinite. Operands of commutative operations are put in a canonical order, and
+ * expressions are compared structurally by {@link #equals(Object)}, so that
+ * {@link #compile()} evaluates every distinct subexpression once however many
+ * times it occurs.
+ * <p>
+ * The functions use the same formulas and branch cuts as the methods of
+ * {@link ComplexNumber} with the same names.
+ */
+public final class ComplexExpr {
+
+    /** The operations an expression node can record. */
+    enum Op {
+        CONST, VAR, NEG, ADD, SUB, MUL, DIV, POWI, POW,
+        EXP, LOG, SQRT, SIN, COS, TAN, ASIN, ACOS, ATAN, SINH, COSH, TANH;
+
+        /** Returns whether the result does not depend on the order of the operands. */
+        boolean commutative() {
+            return this == ADD || this == MUL;
+        }
+    }
+
+    final private static ComplexExpr Z = new ComplexExpr(Op.VAR, null, null, 0, 0, 0);
+    final private static ComplexExpr ZERO = constant(0, 0);
+    final private static ComplexExpr ONE = constant(1, 0);
+
+    final private Op op;
+
+    /** The operands, or {@code null} where the operation has fewer. */
+    final private ComplexExpr left, right;
+
+    /** The value of a constant. */
+    final private double re, im;
+
+    /** The exponent of {@link Op#POWI}. */
+    final private int n;
+
+    /** The structural hash code, computed once. */
+    final private int hash;
+
+    //HELPER METHOD
+    private ComplexExpr(Op op, ComplexExpr left, ComplexExpr right, double re, double im, int n) {
+        this.op = op;
+        this.left = left;
+        this.right = right;
+        this.re = re;
+        this.im = im;
+        this.n = n;
+
+        int h = op.hashCode();
+        h = 31*h + (left == null ? 0 : left.hash);
+        h = 31*h + (right == null ? 0 : right.hash);
+        h = 31*h + Double.hashCode(re);
+        h = 31*h + Double.hashCode(im);
+        this.hash = 31*h + n;
+    }
+
+    /**
+     * Returns the variable {@code z}.
+     *
+     * @return the expression {@code z}
+     */
+    public static ComplexExpr z() {
+        return Z;
+    }
+
+    /**
+     * Returns a constant expression.
+     *
+     * @param re the real part of the constant
+     * @param im the imaginary part of the constant
+     * @return the constant {@code re + im*i}
+     */
+    public static ComplexExpr constant(double re, double im) {
+        return new ComplexExpr(Op.CONST, null, null, re, im, 0);
+    }
+
+    /**
+     * Returns a constant expression with the value of a complex number.
+     *
+     * @param c the value of the constant
+     * @return the constant {@code c}
+     * @throws IllegalArgumentException if {@code c} is {@code null}
+     */
+    public static ComplexExpr constant(ComplexNumber c) throws IllegalArgumentException {
+        if (c == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        return constant(c.real(), c.imag());
+    }
+
+    /**
+     * Parses a formula in the variable {@code z}, such as {@code "sin(z)^2 + i*log(z)"}.
+     * <p>
+     * Formulas use {@code + - * / ^} with the usual precedence, parentheses, real
+     * numbers with an optional {@code i} suffix for imaginary ones, the constants
+     * {@code i}, {@code pi} and {@code e}, {@code pow(a, b)}, and the functions
+     * {@code exp log sqrt sin cos tan asin acos atan sinh cosh tanh}.
+     *
+     * @param source the formula
+     * @return the expression, simplified as if it were built with the methods of this class
+     * @throws IllegalArgumentException if {@code source} is {@code null} or not a valid formula
+     */
+    public static ComplexExpr parse(String source) throws IllegalArgumentException {
+        return ComplexExprParser.parse(source);
+    }
+
+    /**
+     * Returns the sum of this expression and another one.
+     *
+     * @param b the expression to add
+     * @return the expression {@code this + b}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public ComplexExpr add(ComplexExpr b) throws IllegalArgumentException {
+        return binary(Op.ADD, this, b);
+    }
+
+    /**
+     * Returns the sum of this expression and a real number.
+     *
+     * @param b the real number to add
+     * @return the expression {@code this + b}
+     */
+    public ComplexExpr add(double b) {
+        return add(constant(b, 0));
+    }
+
+    /**
+     * Returns the difference of this expression and another one.
+     *
+     * @param b the expression to subtract
+     * @return the expression {@code this - b}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public ComplexExpr subtract(ComplexExpr b) throws IllegalArgumentException {
+        return binary(Op.SUB, this, b);
+    }
+
+    /**
+     * Returns the difference of this expression and a real number.
+     *
+     * @param b the real number to subtract
+     * @return the expression {@code this - b}
+     */
+    public ComplexExpr subtract(double b) {
+        return subtract(constant(b, 0));
+    }
+
+    /**
+     * Returns the product of this expression and another one.
+     *
+     * @param b the expression to multiply by
+     * @return the expression {@code this * b}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public ComplexExpr multiply(ComplexExpr b) throws IllegalArgumentException {
+        return binary(Op.MUL, this, b);
+    }
+
+    /**
+     * Returns the product of this expression and a real number.
+     *
+     * @param b the real factor
+     * @return the expression {@code this * b}
+     */
+    public ComplexExpr multiply(double b) {
+        return multiply(constant(b, 0));
+    }
+
+    /**
+     * Returns the quotient of this expression and another one.
+     *
+     * @param b the divisor
+     * @return the expression {@code this / b}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public ComplexExpr divide(ComplexExpr b) throws IllegalArgumentException {
+        return binary(Op.DIV, this, b);
+    }
+
+    /**
+     * Returns the quotient of this expression and a real number.
+     *
+     * @param b the real divisor
+     * @return the expression {@code this / b}
+     */
+    public ComplexExpr divide(double b) {
+        return divide(constant(b, 0));
+    }
+
+    /**
+     * Returns the negation of this expression.
+     *
+     * @return the expression {@code -this}
+     */
+    public ComplexExpr negate() {
+        return unary(Op.NEG, this);
+    }
+
+    /**
+     * Returns this expression raised to an integer power, evaluated by binary
+     * exponentiation as in {@link ComplexNumber#power(ComplexNumber, int)}.
+     *
+     * @param n the exponent
+     * @return the expression {@code thisⁿ}
+     */
+    public ComplexExpr power(int n) {
+        if (n == 0)
+            return ONE;
+        if (n == 1)
+            return this;
+        if (op == Op.CONST)
+            return fold(Op.POWI, this, null, n);
+        if (op == Op.POWI && (long) this.n * n == this.n * n)
+            return left.power(this.n * n);
+
+        return new ComplexExpr(Op.POWI, this, null, 0, 0, n);
+    }
+
+    /**
+     * Returns the principal value of this expression raised to a complex power.
+     * A constant integer exponent is recorded as {@link #power(int)}, and {@code e^b} as {@code exp(b)}.
+     *
+     * @param b the exponent
+     * @return the expression {@code this^b}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public ComplexExpr power(ComplexExpr b) throws IllegalArgumentException {
+        if (b == null)
+            throw new IllegalArgumentException("Input expression must not be null.");
+
+        if (b.op == Op.CONST && b.im == 0 && b.re == (int) b.re)
+            return power((int) b.re);
+        if (isConstant(Math.E, 0))
+            return b.exp();
+
+        return binary(Op.POW, this, b);
+    }
+
+    /**
+     * Returns the complex exponential of this expression.
+     *
+     * @return the expression {@code e^this}
+     */
+    public ComplexExpr exp() {
+        if (op == Op.LOG)
+            return left;
+
+        return unary(Op.EXP, this);
+    }
+
+    /**
+     * Returns the principal natural logarithm of this expression.
+     *
+     * @return the expression {@code log(this)}
+     */
+    public ComplexExpr log() {
+        return unary(Op.LOG, this);
+    }
+
+    /**
+     * Returns the principal square root of this expression.
+     *
+     * @return the expression {@code √this}
+     */
+    public ComplexExpr sqrt() {
+        return unary(Op.SQRT, this);
+    }
+
+    /**
+     * Returns the sine of this expression.
+     *
+     * @return the expression {@code sin(this)}
+     */
+    public ComplexExpr sin() {
+        return unary(Op.SIN, this);
+    }
+
+    /**
+     * Returns the cosine of this expression.
+     *
+     * @return the expression {@code cos(this)}
+     */
+    public ComplexExpr cos() {
+        return unary(Op.COS, this);
+    }
+
+    /**
+     * Returns the tangent of this expression.
+     *
+     * @return the expression {@code tan(this)}
+     */
+    public ComplexExpr tan() {
+        return unary(Op.TAN, this);
+    }
+
+    /**
+     * Returns the principal arcsine of this expression.
+     *
+     * @return the expression {@code asin(this)}
+     */
+    public ComplexExpr asin() {
+        return unary(Op.ASIN, this);
+    }
+
+    /**
+     * Returns the principal arccosine of this expression.
+     *
+     * @return the expression {@code acos(this)}
+     */
+    public ComplexExpr acos() {
+        return unary(Op.ACOS, this);
+    }
+
+    /**
+     * Returns the principal arctangent of this expression.
+     *
+     * @return the expression {@code atan(this)}
+     */
+    public ComplexExpr atan() {
+        return unary(Op.ATAN, this);
+    }
+
+    /**
+     * Returns the hyperbolic sine of this expression.
+     *
+     * @return the expression {@code sinh(this)}
+     */
+    public ComplexExpr sinh() {
+        return unary(Op.SINH, this);
+    }
+
+    /**
+     * Returns the hyperbolic cosine of this expression.
+     *
+     * @return the expression {@code cosh(this)}
+     */
+    public ComplexExpr cosh() {
+        return unary(Op.COSH, this);
+    }
+
+    /**
+     * Returns the hyperbolic tangent of this expression.
+     *
+     * @return the expression {@code tanh(this)}
+     */
+    public ComplexExpr tanh() {
+        return unary(Op.TANH, this);
+    }
+
+    //HELPER METHOD
+    private static ComplexExpr unary(Op op, ComplexExpr a) {
+        if (a.op == Op.CONST)
+            return fold(op, a, null, 0);
+        if (op == Op.NEG && a.op == Op.NEG)
+            return a.left;
+
+        return new ComplexExpr(op, a, null, 0, 0, 0);
+    }
+
+    //HELPER METHOD
+    private static ComplexExpr binary(Op op, ComplexExpr a, ComplexExpr b) {
+        if (b == null)
+            throw new IllegalArgumentException("Input expression must not be null.");
+
+        if (a.op == Op.CONST && b.op == Op.CONST)
+            return fold(op, a, b, 0);
+
+        switch (op) {
+            case ADD:
+                if (a.isConstant(0, 0)) return b;
+                if (b.isConstant(0, 0)) return a;
+                if (b.op == Op.NEG) return binary(Op.SUB, a, b.left);
+                if (a.op == Op.NEG) return binary(Op.SUB, b, a.left);
+                break;
+            case SUB:
+                if (b.isConstant(0, 0)) return a;
+                if (a.isConstant(0, 0)) return b.negate();
+                if (a.equals(b)) return ZERO;
+                if (b.op == Op.NEG) return binary(Op.ADD, a, b.left);
+                break;
+            case MUL:
+                if (a.isConstant(0, 0) || b.isConstant(0, 0)) return ZERO;
+                if (a.isConstant(1, 0)) return b;
+                if (b.isConstant(1, 0)) return a;
+                if (a.isConstant(-1, 0)) return b.negate();
+                if (b.isConstant(-1, 0)) return a.negate();
+                if (a.equals(b)) return a.power(2);
+                break;
+            case DIV:
+                if (b.isConstant(1, 0)) return a;
+                if (a.equals(b)) return ONE;
+                break;
+            default:
+                break;
+        }
+
+        // canonical operand order, so that a*b and b*a are one subexpression
+        if (op.commutative() && order(a, b) > 0)
+            return new ComplexExpr(op, b, a, 0, 0, 0);
+
+        return new ComplexExpr(op, a, b, 0, 0, 0);
+    }
+
+    //HELPER METHOD
+    private static int order(ComplexExpr a, ComplexExpr b) {
+        if (a.op != b.op)
+            return a.op.compareTo(b.op);
+        return Integer.compare(a.hash, b.hash);
+    }
+
+    //HELPER METHOD
+    private static ComplexExpr fold(Op op, ComplexExpr a, ComplexExpr b, int n) {
+        double[] out = new double[2];
+        apply(op, a.re, a.im, b == null ? 0 : b.re, b == null ? 0 : b.im, n, out);
+        return constant(out[0], out[1]);
+    }
+
+    /**
+     * Computes one operation on primitive operands; shared by constant folding and
+     * by {@link ComplexProgram}, so both give the same results.
+     */
+    static void apply(Op op, double ar, double ai, double br, double bi, int n, double[] out) {
+        switch (op) {
+            case NEG:
+                out[0] = -ar;
+                out[1] = -ai;
+                break;
+            case ADD:
+                out[0] = ar + br;
+                out[1] = ai + bi;
+                break;
+            case SUB:
+                out[0] = ar - br;
+                out[1] = ai - bi;
+                break;
+            case MUL:
+                out[0] = ar*br - ai*bi;
+                out[1] = ar*bi + ai*br;
+                break;
+            case DIV:
+                ComplexMath.divide(ar, ai, br, bi, out);
+                break;
+            case POWI:
+                ComplexMath.pow(ar, ai, n, out);
+                break;
+            case POW:
+                ComplexMath.pow(ar, ai, br, bi, out);
+                break;
+            case EXP:
+                ComplexMath.exp(ar, ai, out);
+                break;
+            case LOG:
+                ComplexMath.log(ar, ai, out);
+                break;
+            case SQRT:
+                ComplexMath.sqrt(ar, ai, out);
+                break;
+            case SIN:
+                ComplexMath.sin(ar, ai, out);
+                break;
+            case COS:
+                ComplexMath.cos(ar, ai, out);
+                break;
+            case TAN:
+                ComplexMath.tan(ar, ai, out);
+                break;
+            case ASIN:
+                ComplexMath.asin(ar, ai, out);
+                break;
+            case ACOS:
+                ComplexMath.acos(ar, ai, out);
+                break;
+            case ATAN:
+                ComplexMath.atan(ar, ai, out);
+                break;
+            case SINH:
+                ComplexMath.sinh(ar, ai, out);
+                break;
+            case COSH:
+                ComplexMath.cosh(ar, ai, out);
+                break;
+            case TANH:
+                ComplexMath.tanh(ar, ai, out);
+                break;
+            default:
+                throw new IllegalStateException("Not an operation: " + op);
+        }
+    }
+
+    //HELPER METHOD
+    private boolean isConstant(double re, double im) {
+        return op == Op.CONST && this.re == re && this.im == im;
+    }
+
+    Op op() {
+        return op;
+    }
+
+    ComplexExpr left() {
+        return left;
+    }
+
+    ComplexExpr right() {
+        return right;
+    }
+
+    double constantReal() {
+        return re;
+    }
+
+    double constantImag() {
+        return im;
+    }
+
+    int exponent() {
+        return n;
+    }
+
+    /**
+     * Compiles this expression into a program that evaluates it in one pass,
+     * computing every distinct subexpression once.
+     *
+     * @return a new {@link ComplexProgram} for this expression
+     */
+    public ComplexProgram compile() {
+        return new ComplexProgram(this);
+    }
+
+    /**
+     * Evaluates this expression at a point. This compiles the expression on every
+     * call; keep the result of {@link #compile()} to evaluate it repeatedly.
+     *
+     * @param z the value of the variable
+     * @return the value of the expression as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public Rectangular evaluate(ComplexNumber z) throws IllegalArgumentException {
+        return compile().evaluate(z);
+    }
+
+    /**
+     * Compares this expression to another object structurally.
+     * <p>
+     * Two expressions are equal if they record the same operations on equal
+     * operands, with constants compared bitwise as by {@link Double#equals(Object)}.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if {@code other} is an equal expression
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof ComplexExpr e) || e.hash != hash || e.op != op || e.n != n)
+            return false;
+
+        return Double.doubleToLongBits(re) == Double.doubleToLongBits(e.re)
+                && Double.doubleToLongBits(im) == Double.doubleToLongBits(e.im)
+                && (left == null ? e.left == null : left.equals(e.left))
+                && (right == null ? e.right == null : right.equals(e.right));
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the structural hash code of this expression
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns this expression in infix notation, e.g. {@code ((z^2 + sin(z)) / (1.0 + z))}.
+     *
+     * @return a {@link String} representing this expression
+     */
+    @Override
+    public String toString() {
+        switch (op) {
+            case CONST:
+                return im == 0 ? Double.toString(re) : "(" + new Rectangular(re, im) + ")";
+            case VAR:
+                return "z";
+            case NEG:
+                return "-" + left;
+            case ADD:
+                return "(" + left + " + " + right + ")";
+            case SUB:
+                return "(" + left + " - " + right + ")";
+            case MUL:
+                return "(" + left + " * " + right + ")";
+            case DIV:
+                return "(" + left + " / " + right + ")";
+            case POWI:
+                return left + "^" + n;
+            case POW:
+                return left + "^(" + right + ")";
+            default:
+                return op.name().toLowerCase() + "(" + left + ")";
+        }
+    }
+
+    /** Returns the number of nodes of this tree, counting shared subexpressions every time. */
+    int treeSize() {
+        return 1 + (left == null ? 0 : left.treeSize()) + (right == null ? 0 : right.treeSize());
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * A recursive descent parser of complex formulas in one variable {@code z},
+ * producing a {@link ComplexExpr}; see {@link ComplexExpr#parse(String)}.
+ * <p>
+ * The grammar, from lowest to highest precedence:
+ * <pre>
+ *     sum     = product { ("+" | "-") product }
+ *     product = unary { ("*" | "/") unary }
+ *     unary   = ("+" | "-") unary | power
+ *     power   = primary [ "^" unary ]
+ *     primary = number [ "i" ] | "z" | "i" | "pi" | "e"
+ *             | function "(" sum ")" | "pow" "(" sum "," sum ")" | "(" sum ")"
+ * </pre>
+ * so {@code -z^2} is {@code -(z^2)} and {@code a^b^c} is {@code a^(b^c)}.
+ */
+final class ComplexExprParser {
+
+    final private String source;
+    private int pos;
+
+    //HELPER METHOD
+    private ComplexExprParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Parses a formula.
+     *
+     * @param source the formula
+     * @return the expression
+     * @throws IllegalArgumentException if {@code source} is {@code null} or not a valid formula
+     */
+    static ComplexExpr parse(String source) throws IllegalArgumentException {
+        if (source == null)
+            throw new IllegalArgumentException("Input formula must not be null.");
+
+        ComplexExprParser p = new ComplexExprParser(source);
+        ComplexExpr e = p.sum();
+        p.skipSpaces();
+        if (p.pos < source.length())
+            throw p.error("Unexpected '" + source.charAt(p.pos) + "'");
+
+        return e;
+    }
+
+    //HELPER METHOD
+    private ComplexExpr sum() {
+        ComplexExpr e = product();
+        while (true) {
+            if (accept('+'))
+                e = e.add(product());
+            else if (accept('-'))
+                e = e.subtract(product());
+            else
+                return e;
+        }
+    }
+
+    //HELPER METHOD
+    private ComplexExpr product() {
+        ComplexExpr e = unary();
+        while (true) {
+            if (accept('*'))
+                e = e.multiply(unary());
+            else if (accept('/'))
+                e = e.divide(unary());
+            else
+                return e;
+        }
+    }
+
+    //HELPER METHOD
+    private ComplexExpr unary() {
+        if (accept('-'))
+            return unary().negate();
+        if (accept('+'))
+            return unary();
+
+        return power();
+    }
+
+    //HELPER METHOD
+    private ComplexExpr power() {
+        ComplexExpr base = primary();
+        if (accept('^'))
+            return base.power(unary());
+
+        return base;
+    }
+
+    //HELPER METHOD
+    private ComplexExpr primary() {
+        skipSpaces();
+        if (pos == source.length())
+            throw error("Unexpected end of formula");
+
+        char c = source.charAt(pos);
+        if (accept('(')) {
+            ComplexExpr e = sum();
+            expect(')');
+            return e;
+        }
+        if (isDigit(c) || c == '.')
+            return number();
+        if (Character.isLetter(c))
+            return name();
+
+        throw error("Unexpected '" + c + "'");
+    }
+
+    //HELPER METHOD
+    private ComplexExpr number() {
+        int start = pos;
+        while (pos < source.length() && isDigit(source.charAt(pos)))
+            pos++;
+        if (pos < source.length() && source.charAt(pos) == '.')
+            pos++;
+        while (pos < source.length() && isDigit(source.charAt(pos)))
+            pos++;
+
+        // an exponent needs digits, so that "2e" is not read as a malformed number
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            int e = pos + 1;
+            if (e < source.length() && (source.charAt(e) == '+' || source.charAt(e) == '-'))
+                e++;
+            if (e < source.length() && isDigit(source.charAt(e))) {
+                pos = e;
+                while (pos < source.length() && isDigit(source.charAt(pos)))
+                    pos++;
+            }
+        }
+
+        double v;
+        try {
+            v = Double.parseDouble(source.substring(start, pos));
+        }
+        catch (NumberFormatException ex) {
+            pos = start;
+            throw error("Malformed number");
+        }
+
+        if (pos < source.length() && source.charAt(pos) == 'i'
+                && (pos + 1 == source.length() || !Character.isLetterOrDigit(source.charAt(pos + 1)))) {
+            pos++;
+            return ComplexExpr.constant(0, v);
+        }
+        return ComplexExpr.constant(v, 0);
+    }
+
+    //HELPER METHOD
+    private ComplexExpr name() {
+        int start = pos;
+        while (pos < source.length() && Character.isLetterOrDigit(source.charAt(pos)))
+            pos++;
+        String name = source.substring(start, pos);
+
+        switch (name) {
+            case "z":
+                return ComplexExpr.z();
+            case "i":
+                return ComplexExpr.constant(0, 1);
+            case "pi":
+                return ComplexExpr.constant(Math.PI, 0);
+            case "e":
+                return ComplexExpr.constant(Math.E, 0);
+            case "pow":
+                expect('(');
+                ComplexExpr base = sum();
+                expect(',');
+                ComplexExpr exponent = sum();
+                expect(')');
+                return base.power(exponent);
+            default:
+                break;
+        }
+
+        expect('(');
+        ComplexExpr a = sum();
+        expect(')');
+
+        switch (name) {
+            case "exp":
+                return a.exp();
+            case "log":
+                return a.log();
+            case "sqrt":
+                return a.sqrt();
+            case "sin":
+                return a.sin();
+            case "cos":
+                return a.cos();
+            case "tan":
+                return a.tan();
+            case "asin":
+                return a.asin();
+            case "acos":
+                return a.acos();
+            case "atan":
+                return a.atan();
+            case "sinh":
+                return a.sinh();
+            case "cosh":
+                return a.cosh();
+            case "tanh":
+                return a.tanh();
+            default:
+                pos = start;
+                throw error("Unknown function '" + name + "'");
+        }
+    }
+
+    //HELPER METHOD
+    private boolean accept(char c) {
+        skipSpaces();
+        if (pos < source.length() && source.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    //HELPER METHOD
+    private void expect(char c) {
+        if (!accept(c))
+            throw error("Expected '" + c + "'");
+    }
+
+    //HELPER METHOD
+    private void skipSpaces() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos)))
+            pos++;
+    }
+
+    //HELPER METHOD
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    //HELPER METHOD
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " in \"" + source + "\".");
+    }
+}
@@ -0,0 +1,447 @@
+import java.io.IOException;
+
+/**
+ * Parses and formats complex numbers as text.
+ * <p>
+ * The formats are the ones of {@link Rectangular#toString()} and
+ * {@link Polar#toString()}, {@code a+bi} and {@code re^θi}, which are read back
+ * exactly. The parser also accepts the common variants
+ * <pre>
+ *     3        2.5i      -i       1 - 2i      1+-0.0i     (1 + 2i)
+ *     1+i2     1+2j      1-j      2e^-0.5i    2 e^(i0.5)  2∠0.5
+ * </pre>
+ * with blanks around the terms, {@code j} for {@code i}, the imaginary unit before
+ * or after the coefficient, and {@code NaN} and {@code Infinity} as in
+ * {@link Double#parseDouble(String)}. Phases are in radians.
+ * <p>
+ * Numbers are read in place, without regular expressions or substrings. A
+ * decimal with at most 15 significant digits and a small exponent, which covers
+ * most data written by other tools, is converted with one exact multiplication
+ * or division; longer ones, such as the 17 digits {@link Double#toString(double)}
+ * may print, go through {@link Double#parseDouble(String)}. Both round correctly.
+ * <p>
+ * The {@code append} methods write into a caller's {@link StringBuilder}, which
+ * formats doubles without creating objects, so a buffer reused across values
+ * formats them without garbage.
+ */
+public final class ComplexFormat {
+
+    /** The powers of ten that are exact doubles. */
+    final private static double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** The largest integer below which every long is an exact double. */
+    final private static long EXACT = 1L << 53;
+
+    /** A parser for each thread, so that parsing into primitive parts creates no objects. */
+    final private static ThreadLocal<Parser> PARSER = ThreadLocal.withInitial(Parser::new);
+
+    //HELPER METHOD
+    private ComplexFormat() {
+    }
+
+    /**
+     * Parses a complex number: a {@link Polar} if the text is in one of the polar
+     * forms, a {@link Rectangular} otherwise.
+     *
+     * @param text the text to parse
+     * @return the complex number
+     * @throws IllegalArgumentException if {@code text} is {@code null} or not a complex number
+     */
+    public static ComplexNumber parse(CharSequence text) throws IllegalArgumentException {
+        if (text == null)
+            throw new IllegalArgumentException("Input text must not be null.");
+
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses the complex number in a range of a character sequence, without
+     * copying it; see {@link #parse(CharSequence)}.
+     *
+     * @param text the text to parse
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @return the complex number
+     * @throws IllegalArgumentException if {@code text} is {@code null}, the range is
+     *                                  out of bounds, or it does not hold a complex number
+     */
+    public static ComplexNumber parse(CharSequence text, int from, int to) throws IllegalArgumentException {
+        Parser p = new Parser();
+        p.parse(text, from, to);
+        return p.polar ? new Polar(p.a, p.b) : new Rectangular(p.a, p.b);
+    }
+
+    /**
+     * Parses the complex number in a range of a character sequence into primitive
+     * parts, without creating objects.
+     *
+     * @param text the text to parse
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @param out the destination; receives the real and imaginary parts, or the
+     *            modulus and phase if the text is in polar form
+     * @return {@code true} if the text is in polar form, {@code false} otherwise
+     * @throws IllegalArgumentException if an argument is {@code null}, the range is
+     *                                  out of bounds, or it does not hold a complex number
+     */
+    public static boolean parse(CharSequence text, int from, int to, double[] out) throws IllegalArgumentException {
+        if (out == null || out.length < 2)
+            throw new IllegalArgumentException("Output array must hold at least two values.");
+
+        Parser p = PARSER.get();
+        try {
+            p.parse(text, from, to);
+        }
+        finally {
+            p.s = null;
+        }
+        out[0] = p.a;
+        out[1] = p.b;
+        return p.polar;
+    }
+
+    /**
+     * Appends a complex number in its own form: {@code re^θi} for a {@link Polar},
+     * {@code a+bi} otherwise.
+     *
+     * @param sb the destination
+     * @param z the complex number
+     * @return {@code sb}
+     * @throws IllegalArgumentException if an argument is {@code null}
+     */
+    public static StringBuilder append(StringBuilder sb, ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (z instanceof Polar)
+            return appendPolar(sb, z.modulus(), z.phase());
+        return appendRect(sb, z.real(), z.imag());
+    }
+
+    /**
+     * Appends a complex number to any {@link Appendable}, in the format of
+     * {@link #append(StringBuilder, ComplexNumber)}.
+     *
+     * @param out the destination
+     * @param z the complex number
+     * @return {@code out}
+     * @throws IllegalArgumentException if an argument is {@code null}
+     * @throws IOException if {@code out} cannot be written
+     */
+    public static Appendable append(Appendable out, ComplexNumber z) throws IllegalArgumentException, IOException {
+        if (out == null)
+            throw new IllegalArgumentException("Output must not be null.");
+
+        if (out instanceof StringBuilder sb)
+            return append(sb, z);
+        return out.append(append(new StringBuilder(48), z));
+    }
+
+    /**
+     * Appends a complex number in rectangular form, {@code a+bi} or {@code a-bi}
+     * depending on the sign of the imaginary part, as {@link Rectangular#toString()}.
+     *
+     * @param sb the destination
+     * @param real the real part
+     * @param imag the imaginary part
+     * @return {@code sb}
+     * @throws IllegalArgumentException if {@code sb} is {@code null}
+     */
+    public static StringBuilder appendRect(StringBuilder sb, double real, double imag) throws IllegalArgumentException {
+        if (sb == null)
+            throw new IllegalArgumentException("Output must not be null.");
+
+        sb.append(real);
+        if (imag < 0)
+            sb.append('-').append(-imag);
+        else
+            sb.append('+').append(imag);
+        return sb.append('i');
+    }
+
+    /**
+     * Appends a complex number in polar form, {@code re^θi}, as {@link Polar#toString()}.
+     *
+     * @param sb the destination
+     * @param r the modulus
+     * @param theta the phase in radians
+     * @return {@code sb}
+     * @throws IllegalArgumentException if {@code sb} is {@code null}
+     */
+    public static StringBuilder appendPolar(StringBuilder sb, double r, double theta) throws IllegalArgumentException {
+        if (sb == null)
+            throw new IllegalArgumentException("Output must not be null.");
+
+        return sb.append(r).append("e^").append(theta).append('i');
+    }
+
+    /**
+     * A parser of one complex number, whose result is left in its fields. It is
+     * reused by {@link ComplexCsvReader} for every field of a file.
+     */
+    final static class Parser {
+
+        /** The real part or modulus parsed last. */
+        double a;
+
+        /** The imaginary part or phase parsed last. */
+        double b;
+
+        /** Whether the number parsed last was in polar form. */
+        boolean polar;
+
+        /** The text being parsed; cleared by the callers that keep a parser, so that it does not hold on to it. */
+        CharSequence s;
+
+        private int pos, end, start;
+
+        /** Whether the term parsed last by {@link #term()} is imaginary. */
+        private boolean imaginary;
+
+        /**
+         * Parses the complex number in a range of a character sequence.
+         *
+         * @throws IllegalArgumentException if {@code s} is {@code null}, the range is
+         *                                  out of bounds, or it does not hold a complex number
+         */
+        void parse(CharSequence s, int from, int to) throws IllegalArgumentException {
+            if (s == null)
+                throw new IllegalArgumentException("Input text must not be null.");
+            if (from < 0 || to > s.length() || from > to)
+                throw new IllegalArgumentException("Range [" + from + ", " + to + ") is out of bounds for length "
+                        + s.length() + ".");
+
+            this.s = s;
+            this.start = from;
+            this.pos = from;
+            this.end = to;
+
+            trim();
+            if (pos + 1 < end && s.charAt(pos) == '(' && s.charAt(end - 1) == ')') {
+                pos++;
+                end--;
+                trim();
+            }
+            if (pos == end)
+                throw error("Empty complex number");
+
+            double first = term();
+            boolean firstImaginary = imaginary;
+            skipSpaces();
+
+            if (pos == end) {
+                polar = false;
+                a = firstImaginary ? 0 : first;
+                b = firstImaginary ? first : 0;
+                return;
+            }
+
+            char c = s.charAt(pos);
+            if (!firstImaginary && (c == 'e' || c == '*' || c == '∠')) {
+                polar = true;
+                a = first;
+                b = phase();
+            }
+            else if (!firstImaginary && (c == '+' || c == '-')) {
+                pos++;
+                double second = term();
+                if (!imaginary)
+                    throw error("Expected an imaginary part");
+                polar = false;
+                a = first;
+                b = c == '-' ? -second : second;
+            }
+            else
+                throw error("Unexpected '" + c + "'");
+
+            skipSpaces();
+            if (pos < end)
+                throw error("Unexpected '" + s.charAt(pos) + "'");
+        }
+
+        //HELPER METHOD
+        private double phase() {
+            if (accept('∠')) {
+                double theta = term();
+                if (imaginary)
+                    throw error("Expected a real phase");
+                return theta;
+            }
+
+            accept('*');
+            expect('e');
+            expect('^');
+            boolean paren = accept('(');
+            double theta = term();
+            if (!imaginary)
+                throw error("Expected an imaginary exponent");
+            if (paren)
+                expect(')');
+            return theta;
+        }
+
+        /**
+         * Parses a signed real or imaginary term: a number, a number followed by
+         * {@code i}, {@code i} followed by a number, or {@code i} alone.
+         */
+        private double term() {
+            skipSpaces();
+            boolean negative = false;
+            if (pos < end && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) {
+                negative = s.charAt(pos) == '-';
+                pos++;
+                skipSpaces();
+            }
+            if (pos == end)
+                throw error("Unexpected end of complex number");
+
+            double v;
+            if (isUnit(s.charAt(pos))) {
+                pos++;
+                imaginary = true;
+                skipSpaces();
+                char c = pos < end ? s.charAt(pos) : 0;
+                v = isDigit(c) || c == '.' || c == 'N' || c == 'I' ? number() : 1;
+            }
+            else {
+                v = number();
+                imaginary = pos < end && isUnit(s.charAt(pos));
+                if (imaginary)
+                    pos++;
+            }
+            return negative ? -v : v;
+        }
+
+        /** Parses an unsigned decimal number, {@code NaN} or {@code Infinity}. */
+        private double number() {
+            if (match("NaN"))
+                return Double.NaN;
+            if (match("Infinity"))
+                return Double.POSITIVE_INFINITY;
+
+            int begin = pos;
+            long mantissa = 0;
+            int digits = 0, scale = 0;
+            boolean seen = false;
+
+            for (boolean point = false; pos < end; pos++) {
+                char c = s.charAt(pos);
+                if (isDigit(c)) {
+                    seen = true;
+                    if (mantissa == 0 && c == '0') {
+                        if (point)
+                            scale--;
+                        continue;
+                    }
+                    if (digits < 19) {
+                        mantissa = 10*mantissa + (c - '0');
+                        digits++;
+                        if (point)
+                            scale--;
+                    }
+                    else if (!point) {
+                        digits++;
+                        scale++;
+                    }
+                    else
+                        digits++;
+                }
+                else if (c == '.' && !point)
+                    point = true;
+                else
+                    break;
+            }
+            if (!seen) {
+                pos = begin;
+                throw error("Malformed number");
+            }
+
+            // an exponent needs digits, so that the "e" of "2e^1i" is not read as one
+            if (pos < end && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+                int e = pos + 1;
+                boolean negative = false;
+                if (e < end && (s.charAt(e) == '+' || s.charAt(e) == '-'))
+                    negative = s.charAt(e++) == '-';
+                if (e < end && isDigit(s.charAt(e))) {
+                    int exp = 0;
+                    for (pos = e; pos < end && isDigit(s.charAt(pos)); pos++)
+                        if (exp < 100_000)
+                            exp = 10*exp + (s.charAt(pos) - '0');
+                    scale += negative ? -exp : exp;
+                }
+            }
+
+            if (mantissa == 0)
+                return 0;
+            if (digits <= 15) {
+                if (scale >= 0 && scale <= 22)
+                    return mantissa * POWERS[scale];
+                if (scale < 0 && scale >= -22)
+                    return mantissa / POWERS[-scale];
+                // 123e30 is 123000000e24: the mantissa takes zeros while it stays exact
+                if (scale > 22 && scale <= 22 + 15 && mantissa * POWERS[scale - 22] < EXACT)
+                    return (mantissa * (long) POWERS[scale - 22]) * POWERS[22];
+            }
+            return Double.parseDouble(s.subSequence(begin, pos).toString());
+        }
+
+        //HELPER METHOD
+        private boolean match(String word) {
+            if (end - pos < word.length())
+                return false;
+            for (int k = 0; k < word.length(); k++)
+                if (s.charAt(pos + k) != word.charAt(k))
+                    return false;
+            pos += word.length();
+            return true;
+        }
+
+        //HELPER METHOD
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < end && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        //HELPER METHOD
+        private void expect(char c) {
+            if (!accept(c))
+                throw error("Expected '" + c + "'");
+        }
+
+        //HELPER METHOD
+        private void skipSpaces() {
+            while (pos < end && Character.isWhitespace(s.charAt(pos)))
+                pos++;
+        }
+
+        //HELPER METHOD
+        private void trim() {
+            skipSpaces();
+            while (end > pos && Character.isWhitespace(s.charAt(end - 1)))
+                end--;
+        }
+
+        //HELPER METHOD
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        //HELPER METHOD
+        private static boolean isUnit(char c) {
+            return c == 'i' || c == 'j';
+        }
+
+        //HELPER METHOD
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos - start) + " in \""
+                    + s.subSequence(start, Math.max(end, pos)) + "\".");
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A complex formula in one variable {@code z}, parsed from text and compiled to
+ * JVM bytecode for fast repeated evaluation, e.g. over a grid of points:
+ * <pre>
+ *     ComplexFormula f = ComplexFormula.compile("sin(z)^2 + i*log(z)");
+ *     f.evaluate(grid, values);
+ * </pre>
+ * The text is parsed with {@link ComplexExpr#parse(String)}, so it is simplified
+ * and every repeated subexpression is computed once. The resulting program is
+ * then turned into a hidden class whose methods are straight-line arithmetic on
+ * {@code double} locals, which the JIT compiles like hand-written code. The array
+ * form loops inside the generated class, so each formula gets its own loop.
+ * <p>
+ * Compiled formulas are cached by their source text, so compiling the same
+ * formula again is a map lookup; the cache keeps the {@value #CACHE_SIZE} most
+ * recently used formulas. Formulas are immutable and safe to evaluate from
+ * several threads; as a {@link ComplexFunction} they can be used with
+ * {@link ParallelComplex#map(ComplexArray, ComplexFunction, ComplexArray)}, which
+ * then runs the generated loop on each piece of the array.
+ */
+public final class ComplexFormula implements ComplexFunction {
+
+    /** The number of formulas kept by the cache of {@link #compile(String)}. */
+    final static int CACHE_SIZE = 256;
+
+    final private static Cache CACHE = new Cache();
+
+    final private String source;
+    final private ComplexExpr expression;
+    final private Kernel kernel;
+    final private boolean compiled;
+
+    /** The methods of a generated formula class. */
+    interface Kernel {
+
+        /** Evaluates the formula at {@code x + yi}; {@code out} also receives intermediate results. */
+        void evaluate(double x, double y, double[] out);
+
+        /** Evaluates the formula at the points {@code [from, to)}, with {@code t} as scratch space. */
+        void evaluate(double[] zr, double[] zi, double[] dr, double[] di, int from, int to, double[] t);
+    }
+
+    //HELPER METHOD
+    private ComplexFormula(String source, ComplexExpr expression) {
+        this.source = source;
+        this.expression = expression;
+
+        ComplexProgram program = expression.compile();
+        Kernel k = FormulaCompiler.compile(program);
+        this.compiled = k != null;
+        this.kernel = compiled ? k : new Interpreted(expression);
+    }
+
+    /**
+     * Parses and compiles a formula, or returns the cached result of an earlier
+     * call with the same text.
+     *
+     * @param source the formula, in the syntax of {@link ComplexExpr#parse(String)}
+     * @return the compiled formula
+     * @throws IllegalArgumentException if {@code source} is {@code null} or not a valid formula
+     */
+    public static ComplexFormula compile(String source) throws IllegalArgumentException {
+        if (source == null)
+            throw new IllegalArgumentException("Input formula must not be null.");
+
+        ComplexFormula f;
+        synchronized (CACHE) {
+            f = CACHE.get(source);
+        }
+        if (f != null)
+            return f;
+
+        // compiled outside the lock; if two threads race, the first one cached wins
+        f = new ComplexFormula(source, ComplexExpr.parse(source));
+        synchronized (CACHE) {
+            ComplexFormula cached = CACHE.putIfAbsent(source, f);
+            return cached != null ? cached : f;
+        }
+    }
+
+    /**
+     * Compiles an expression. The result is not cached.
+     *
+     * @param e the expression to compile
+     * @return the compiled formula
+     * @throws IllegalArgumentException if {@code e} is {@code null}
+     */
+    public static ComplexFormula compile(ComplexExpr e) throws IllegalArgumentException {
+        if (e == null)
+            throw new IllegalArgumentException("Input expression must not be null.");
+
+        return new ComplexFormula(e.toString(), e);
+    }
+
+    /**
+     * Removes every formula from the cache of {@link #compile(String)}.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Returns the text this formula was compiled from.
+     *
+     * @return the source text
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Returns the simplified expression of this formula.
+     *
+     * @return the expression
+     */
+    public ComplexExpr expression() {
+        return expression;
+    }
+
+    /**
+     * Returns whether this formula runs as generated bytecode. Formulas too large for
+     * one JVM method are interpreted by a {@link ComplexProgram} instead.
+     *
+     * @return {@code true} if the formula was compiled to bytecode
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Evaluates the formula at a point and stores the result in {@code out}.
+     *
+     * @param re  the real part of the variable
+     * @param im  the imaginary part of the variable
+     * @param out an array of length at least 2 receiving the real and imaginary parts
+     */
+    @Override
+    public void apply(double re, double im, double[] out) {
+        kernel.evaluate(re, im, out);
+    }
+
+    /**
+     * Evaluates the formula at a point.
+     *
+     * @param z the value of the variable
+     * @return the value of the formula as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public Rectangular evaluate(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        double[] w = new double[2];
+        kernel.evaluate(z.real(), z.imag(), w);
+        return new Rectangular(w[0], w[1]);
+    }
+
+    /**
+     * Evaluates the formula at every element of {@code z}, storing the results in
+     * {@code dst}. The arrays may be the same array.
+     *
+     * @param z   the values of the variable
+     * @param dst the destination array, of the same length as {@code z}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public void evaluate(ComplexArray z, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(z, z, dst);
+
+        evaluateRange(z, dst, 0, z.length());
+    }
+
+    /** Evaluates the formula at the elements {@code [from, to)} of {@code z}. */
+    void evaluateRange(ComplexArray z, ComplexArray dst, int from, int to) {
+        kernel.evaluate(z.realParts(), z.imagParts(), dst.realParts(), dst.imagParts(), from, to, new double[2]);
+    }
+
+    /**
+     * Returns the source text of this formula.
+     *
+     * @return the source text
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /** The kernel of a formula too large to compile, evaluated by one program per thread. */
+    final private static class Interpreted implements Kernel {
+        final private ThreadLocal<ComplexProgram> program;
+
+        Interpreted(ComplexExpr e) {
+            this.program = ThreadLocal.withInitial(e::compile);
+        }
+
+        @Override
+        public void evaluate(double x, double y, double[] out) {
+            program.get().evaluate(x, y, out);
+        }
+
+        @Override
+        public void evaluate(double[] zr, double[] zi, double[] dr, double[] di, int from, int to, double[] t) {
+            ComplexProgram p = program.get();
+            for (int i = from; i < to; i++) {
+                p.evaluate(zr[i], zi[i], t);
+                dr[i] = t[0];
+                di[i] = t[1];
+            }
+        }
+    }
+
+    /** The most recently used compiled formulas. */
+    final private static class Cache extends LinkedHashMap<String, ComplexFormula> {
+        final private static long serialVersionUID = 1L;
+
+        Cache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ComplexFormula> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    }
+}
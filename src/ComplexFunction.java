@@ -0,0 +1,59 @@
+/**
+ * A function of one complex variable on primitive parts.
+ * <p>
+ * The argument is passed as its real and imaginary parts, and the result is
+ * written into {@code out[0]} (real part) and {@code out[1]} (imaginary part), so
+ * a function can be applied to every element of a primitive array without
+ * creating objects. The constants of this interface are the elementary
+ * functions of {@link ComplexNumber}, with the same formulas and branch cuts;
+ * they are {@link BatchFunction}s, which have their own loops over arrays.
+ */
+@FunctionalInterface
+public interface ComplexFunction {
+
+    /** The complex exponential, see {@link ComplexNumber#exp(ComplexNumber)}. */
+    ComplexFunction EXP = BatchFunction.EXP;
+
+    /** The principal natural logarithm, see {@link ComplexNumber#log(ComplexNumber)}. */
+    ComplexFunction LOG = BatchFunction.LOG;
+
+    /** The principal square root, see {@link ComplexNumber#sqrt(ComplexNumber)}. */
+    ComplexFunction SQRT = BatchFunction.SQRT;
+
+    /** The sine, see {@link ComplexNumber#sin(ComplexNumber)}. */
+    ComplexFunction SIN = BatchFunction.SIN;
+
+    /** The cosine, see {@link ComplexNumber#cos(ComplexNumber)}. */
+    ComplexFunction COS = BatchFunction.COS;
+
+    /** The tangent, see {@link ComplexNumber#tan(ComplexNumber)}. */
+    ComplexFunction TAN = BatchFunction.TAN;
+
+    /** The arcsine, see {@link ComplexNumber#asin(ComplexNumber)}. */
+    ComplexFunction ASIN = BatchFunction.ASIN;
+
+    /** The arccosine, see {@link ComplexNumber#acos(ComplexNumber)}. */
+    ComplexFunction ACOS = BatchFunction.ACOS;
+
+    /** The arctangent, see {@link ComplexNumber#atan(ComplexNumber)}. */
+    ComplexFunction ATAN = BatchFunction.ATAN;
+
+    /** The hyperbolic sine, see {@link ComplexNumber#sinh(ComplexNumber)}. */
+    ComplexFunction SINH = BatchFunction.SINH;
+
+    /** The hyperbolic cosine, see {@link ComplexNumber#cosh(ComplexNumber)}. */
+    ComplexFunction COSH = BatchFunction.COSH;
+
+    /** The hyperbolic tangent, see {@link ComplexNumber#tanh(ComplexNumber)}. */
+    ComplexFunction TANH = BatchFunction.TANH;
+
+    /**
+     * Evaluates the function at {@code re + im*i}.
+     *
+     * @param re the real part of the argument
+     * @param im the imaginary part of the argument
+     * @param out the destination; the real part of the result is written to
+     *            {@code out[0]} and the imaginary part to {@code out[1]}
+     */
+    void apply(double re, double im, double[] out);
+}
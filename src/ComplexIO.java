@@ -0,0 +1,357 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes complex numbers in a compact binary format.
+ * <p>
+ * A file is a 16-byte header followed by the values as raw little-endian
+ * doubles, so it round-trips every value exactly and can be memory-mapped:
+ * <pre>
+ *     offset  size  field
+ *          0     4  magic "CPLX"
+ *          4     2  format version, currently 1
+ *          6     1  layout: 0 = interleaved (re, im) pairs, 1 = split (all re, then all im)
+ *          7     1  representation: 0 = rectangular (re, im), 1 = polar (r, θ)
+ *          8     8  number of complex values
+ *         16        the values
+ * </pre>
+ * The interleaved layout is the one of {@code complex128} arrays in other tools;
+ * the split layout matches {@link ComplexArray} and is read and written with bulk
+ * copies. Polar files store {@link Polar} numbers without converting them.
+ * <p>
+ * All transfers go through a {@link FileChannel} in buffers of {@value #BUFFER}
+ * bytes. {@link #map(Path)} gives a read-only view of a file of any size
+ * without copying it onto the heap.
+ */
+public final class ComplexIO {
+
+    /** How the real and imaginary parts of the values are arranged in a file. */
+    public enum Layout {
+        /** Each value as a pair {@code (re, im)} or {@code (r, θ)}. */
+        INTERLEAVED,
+        /** All the first components, then all the second components. */
+        SPLIT
+    }
+
+    final static int MAGIC = 'C' | 'P' << 8 | 'L' << 16 | 'X' << 24;
+    final static short VERSION = 1;
+    final static int HEADER = 16;
+
+    /** The size of the transfer buffers. */
+    final static int BUFFER = 1 << 16;
+
+    //HELPER METHOD
+    private ComplexIO() {
+    }
+
+    /**
+     * Writes an array to a file in the split layout, replacing the file if it exists.
+     *
+     * @param a the array to write
+     * @param file the destination file
+     * @throws IllegalArgumentException if an argument is {@code null}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ComplexArray a, Path file) throws IllegalArgumentException, IOException {
+        write(a, file, Layout.SPLIT);
+    }
+
+    /**
+     * Writes an array to a file, replacing the file if it exists.
+     *
+     * @param a the array to write
+     * @param file the destination file
+     * @param layout the layout of the values
+     * @throws IllegalArgumentException if an argument is {@code null}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ComplexArray a, Path file, Layout layout) throws IllegalArgumentException, IOException {
+        if (a == null || file == null || layout == null)
+            throw new IllegalArgumentException("Input arguments must not be null.");
+
+        try (FileChannel ch = create(file)) {
+            write(a, ch, layout);
+            ch.truncate(ch.position());
+        }
+    }
+
+    /**
+     * Writes an array at the current position of a channel.
+     *
+     * @param a the array to write
+     * @param ch the destination channel
+     * @param layout the layout of the values
+     * @throws IllegalArgumentException if an argument is {@code null}
+     * @throws IOException if the channel cannot be written
+     */
+    public static void write(ComplexArray a, FileChannel ch, Layout layout) throws IllegalArgumentException, IOException {
+        if (a == null || ch == null || layout == null)
+            throw new IllegalArgumentException("Input arguments must not be null.");
+
+        writeValues(ch, a.realParts(), a.imagParts(), a.length(), layout, false);
+    }
+
+    /**
+     * Writes complex numbers to a file, replacing the file if it exists. If every
+     * number is a {@link Polar}, the file stores their moduli and phases;
+     * otherwise it stores their real and imaginary parts.
+     *
+     * @param values the numbers to write
+     * @param file the destination file
+     * @param layout the layout of the values
+     * @throws IllegalArgumentException if an argument or a number is {@code null}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ComplexNumber[] values, Path file, Layout layout) throws IllegalArgumentException, IOException {
+        if (values == null || file == null || layout == null)
+            throw new IllegalArgumentException("Input arguments must not be null.");
+
+        boolean polar = true;
+        for (ComplexNumber z : values) {
+            if (z == null)
+                throw new IllegalArgumentException("Input complex numbers must not be null.");
+            polar &= z instanceof Polar;
+        }
+
+        int n = values.length;
+        double[] a = new double[n], b = new double[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = polar ? values[i].modulus() : values[i].real();
+            b[i] = polar ? values[i].phase() : values[i].imag();
+        }
+
+        try (FileChannel ch = create(file)) {
+            writeValues(ch, a, b, n, layout, polar);
+            ch.truncate(ch.position());
+        }
+    }
+
+    /**
+     * Reads a whole file into a new array. Polar files are converted to
+     * rectangular form, with the parts {@link #readNumbers(Path)} gives.
+     *
+     * @param file the file to read
+     * @return the values of the file
+     * @throws IllegalArgumentException if {@code file} is {@code null}
+     * @throws IOException if the file cannot be read, is not in this format, or
+     *                     holds more values than an array can
+     */
+    public static ComplexArray read(Path file) throws IllegalArgumentException, IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Input path must not be null.");
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(ch);
+        }
+    }
+
+    /**
+     * Reads an array from the current position of a channel.
+     *
+     * @param ch the source channel
+     * @return the values read
+     * @throws IllegalArgumentException if {@code ch} is {@code null}
+     * @throws IOException if the channel cannot be read, is not in this format, or
+     *                     holds more values than an array can
+     */
+    public static ComplexArray read(FileChannel ch) throws IllegalArgumentException, IOException {
+        if (ch == null)
+            throw new IllegalArgumentException("Input channel must not be null.");
+
+        Header h = Header.read(ch);
+        ComplexArray a = new ComplexArray(h.heapLength(ch));
+        readValues(ch, a.realParts(), a.imagParts(), h);
+
+        if (h.polar) {
+            double[] re = a.realParts(), im = a.imagParts(), w = new double[2];
+            for (int i = 0; i < re.length; i++) {
+                Polar.components(re[i], im[i], w);
+                re[i] = w[0];
+                im[i] = w[1];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Reads a whole file as complex numbers: {@link Polar} numbers from a polar
+     * file and {@link Rectangular} numbers otherwise.
+     *
+     * @param file the file to read
+     * @return the values of the file
+     * @throws IllegalArgumentException if {@code file} is {@code null}
+     * @throws IOException if the file cannot be read, is not in this format, or
+     *                     holds more values than an array can
+     */
+    public static ComplexNumber[] readNumbers(Path file) throws IllegalArgumentException, IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Input path must not be null.");
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header h = Header.read(ch);
+            int n = h.heapLength(ch);
+            double[] a = new double[n], b = new double[n];
+            readValues(ch, a, b, h);
+
+            ComplexNumber[] values = new ComplexNumber[n];
+            for (int i = 0; i < n; i++)
+                values[i] = h.polar ? new Polar(a[i], b[i]) : new Rectangular(a[i], b[i]);
+            return values;
+        }
+    }
+
+    /**
+     * Maps a file into memory as a read-only array, without copying it onto the
+     * heap. The file may hold more values than a Java array can.
+     *
+     * @param file the file to map
+     * @return a view of the values of the file
+     * @throws IllegalArgumentException if {@code file} is {@code null}
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    public static MappedComplexArray map(Path file) throws IllegalArgumentException, IOException {
+        if (file == null)
+            throw new IllegalArgumentException("Input path must not be null.");
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedComplexArray(ch, Header.read(ch));
+        }
+    }
+
+    //HELPER METHOD
+    private static FileChannel create(Path file) throws IOException {
+        // overwritten and truncated after writing rather than truncated on open: closing a file
+        // truncated to zero makes some file systems (ext4) flush it to disk synchronously
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    //HELPER METHOD
+    private static void writeValues(FileChannel ch, double[] a, double[] b, int n, Layout layout,
+                                    boolean polar) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        new Header(layout, polar, n).put(buf);
+        buf.flip();
+        writeFully(ch, buf);
+
+        int chunk = BUFFER / 16;
+        if (layout == Layout.SPLIT) {
+            for (double[] part : new double[][] {a, b})
+                for (int from = 0; from < n; from += 2*chunk) {
+                    int len = Math.min(2*chunk, n - from);
+                    buf.clear();
+                    buf.asDoubleBuffer().put(part, from, len);
+                    buf.limit(8*len);
+                    writeFully(ch, buf);
+                }
+        }
+        else {
+            for (int from = 0; from < n; from += chunk) {
+                int len = Math.min(chunk, n - from);
+                buf.clear();
+                DoubleBuffer d = buf.asDoubleBuffer();
+                for (int i = from; i < from + len; i++)
+                    d.put(a[i]).put(b[i]);
+                buf.limit(16*len);
+                writeFully(ch, buf);
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private static void readValues(FileChannel ch, double[] a, double[] b, Header h) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        int n = a.length, chunk = BUFFER / 16;
+
+        if (h.layout == Layout.SPLIT) {
+            for (double[] part : new double[][] {a, b})
+                for (int from = 0; from < n; from += 2*chunk) {
+                    int len = Math.min(2*chunk, n - from);
+                    buf.clear().limit(8*len);
+                    readFully(ch, buf);
+                    buf.flip();
+                    buf.asDoubleBuffer().get(part, from, len);
+                }
+        }
+        else {
+            for (int from = 0; from < n; from += chunk) {
+                int len = Math.min(chunk, n - from);
+                buf.clear().limit(16*len);
+                readFully(ch, buf);
+                buf.flip();
+                DoubleBuffer d = buf.asDoubleBuffer();
+                for (int i = from; i < from + len; i++) {
+                    a[i] = d.get();
+                    b[i] = d.get();
+                }
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            ch.write(buf);
+    }
+
+    //HELPER METHOD
+    static void readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            if (ch.read(buf) < 0)
+                throw new IOException("Unexpected end of complex array file.");
+    }
+
+    /** The header of a file. */
+    final static class Header {
+        final Layout layout;
+        final boolean polar;
+        final long length;
+
+        Header(Layout layout, boolean polar, long length) {
+            this.layout = layout;
+            this.polar = polar;
+            this.length = length;
+        }
+
+        /** Reads and checks a header at the current position of a channel. */
+        static Header read(FileChannel ch) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, buf);
+            buf.flip();
+
+            if (buf.getInt() != MAGIC)
+                throw new IOException("Not a complex array file.");
+            short version = buf.getShort();
+            if (version != VERSION)
+                throw new IOException("Unsupported complex array file version " + version + ".");
+            byte layout = buf.get(), representation = buf.get();
+            long length = buf.getLong();
+            if (layout < 0 || layout > 1 || representation < 0 || representation > 1
+                    || length < 0 || length > (Long.MAX_VALUE - HEADER) / 16)
+                throw new IOException("Corrupt complex array file header.");
+
+            return new Header(Layout.values()[layout], representation == 1, length);
+        }
+
+        void put(ByteBuffer buf) {
+            buf.putInt(MAGIC).putShort(VERSION).put((byte) layout.ordinal()).put((byte) (polar ? 1 : 0)).putLong(length);
+        }
+
+        /**
+         * Returns the length as the size of a heap array, after checking that the
+         * channel holds that many values after its position, so that a corrupt
+         * header does not make the reader allocate arrays for values that are not there.
+         */
+        int heapLength(FileChannel ch) throws IOException {
+            if (length > Integer.MAX_VALUE - 8)
+                throw new IOException("File holds " + length + " values, too many for an array; use ComplexIO.map.");
+            if (ch.size() - ch.position() < 16*length)
+                throw new IOException("Complex array file is shorter than its header says.");
+            return (int) length;
+        }
+    }
+}
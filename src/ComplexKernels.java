@@ -0,0 +1,114 @@
+/**
+ * The inner loops of the bulk arithmetic of {@link ComplexArray}, over split
+ * real and imaginary {@code double[]} arrays and the index range {@code [from, to)}.
+ * <p>
+ * {@link #DEFAULT} is the fastest implementation available at run time. When the
+ * classes in {@code src-vector} are on the class path and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, it is the SIMD implementation built
+ * on the Vector API; otherwise, or when the system property {@code complex.vector}
+ * is {@code false}, it is the plain scalar loop {@link #SCALAR}. Both evaluate the
+ * same expressions in the same order without fused multiply-adds, so their
+ * results are identical bit for bit.
+ */
+abstract class ComplexKernels {
+
+    /** The scalar implementation, always available. */
+    final static ComplexKernels SCALAR = new Scalar();
+
+    /** The implementation used by {@link ComplexArray}. */
+    final static ComplexKernels DEFAULT = load();
+
+    /** Returns a short description of this implementation, e.g. {@code scalar}. */
+    abstract String name();
+
+    /** {@code d[i] = a[i] * b[i]} */
+    abstract void multiply(double[] ar, double[] ai, double[] br, double[] bi,
+                           double[] dr, double[] di, int from, int to);
+
+    /** {@code d[i] += a[i] * b[i]} */
+    abstract void multiplyAdd(double[] ar, double[] ai, double[] br, double[] bi,
+                              double[] dr, double[] di, int from, int to);
+
+    /** {@code d[i] = a[i] * conj(b[i])} */
+    abstract void conjugateMultiply(double[] ar, double[] ai, double[] br, double[] bi,
+                                    double[] dr, double[] di, int from, int to);
+
+    /** {@code d[i] = re(a[i])² + im(a[i])²} */
+    abstract void modulusSquared(double[] ar, double[] ai, double[] d, int from, int to);
+
+    /** {@code d[i] = s * a[i]} */
+    abstract void scale(double[] ar, double[] ai, double s, double[] dr, double[] di, int from, int to);
+
+    //HELPER METHOD
+    private static ComplexKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("complex.vector", "true")))
+            return SCALAR;
+
+        try {
+            return (ComplexKernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            // src-vector not compiled in, or jdk.incubator.vector not enabled
+            return SCALAR;
+        }
+    }
+
+    /** The plain loops, which also finish the tail of the vector loops. */
+    final static class Scalar extends ComplexKernels {
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+        @Override
+        void multiply(double[] ar, double[] ai, double[] br, double[] bi,
+                      double[] dr, double[] di, int from, int to) {
+            for (int i = from; i < to; i++) {
+                double xr = ar[i], xi = ai[i];
+                double yr = br[i], yi = bi[i];
+
+                dr[i] = xr*yr - xi*yi;
+                di[i] = xr*yi + xi*yr;
+            }
+        }
+
+        @Override
+        void multiplyAdd(double[] ar, double[] ai, double[] br, double[] bi,
+                         double[] dr, double[] di, int from, int to) {
+            for (int i = from; i < to; i++) {
+                double xr = ar[i], xi = ai[i];
+                double yr = br[i], yi = bi[i];
+
+                dr[i] += xr*yr - xi*yi;
+                di[i] += xr*yi + xi*yr;
+            }
+        }
+
+        @Override
+        void conjugateMultiply(double[] ar, double[] ai, double[] br, double[] bi,
+                               double[] dr, double[] di, int from, int to) {
+            for (int i = from; i < to; i++) {
+                double xr = ar[i], xi = ai[i];
+                double yr = br[i], yi = bi[i];
+
+                dr[i] = xr*yr + xi*yi;
+                di[i] = xi*yr - xr*yi;
+            }
+        }
+
+        @Override
+        void modulusSquared(double[] ar, double[] ai, double[] d, int from, int to) {
+            for (int i = from; i < to; i++)
+                d[i] = ar[i]*ar[i] + ai[i]*ai[i];
+        }
+
+        @Override
+        void scale(double[] ar, double[] ai, double s, double[] dr, double[] di, int from, int to) {
+            for (int i = from; i < to; i++) {
+                dr[i] = s * ar[i];
+                di[i] = s * ai[i];
+            }
+        }
+    }
+}
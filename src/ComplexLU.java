@@ -0,0 +1,261 @@
+/**
+ * The LU decomposition with partial pivoting of a square {@link ComplexMatrix},
+ * {@code P A = L U}, where {@code P} is a row permutation, {@code L} is unit lower
+ * triangular and {@code U} is upper triangular.
+ * <p>
+ * At each step the row whose entry in the pivot column has the largest
+ * {@code |re| + |im|} is swapped into place, which bounds the multipliers of
+ * {@code L} by a small constant without the square root of the modulus. The
+ * factors are stored together in one pair of row-major arrays, and the row
+ * updates run along contiguous rows. Once computed, the decomposition solves any
+ * number of systems with the same matrix in {@code O(n²)} each.
+ */
+public final class ComplexLU {
+
+    final private int n;
+
+    /** The real parts of {@code L} below the diagonal and {@code U} on and above it. */
+    final private double[] re;
+
+    /** The imaginary parts of {@code L} below the diagonal and {@code U} on and above it. */
+    final private double[] im;
+
+    /** Row {@code i} of {@code P A} is row {@code pivot[i]} of {@code A}. */
+    final private int[] pivot;
+
+    /** {@code true} if {@code P} is an even permutation. */
+    final private boolean even;
+
+    /** {@code true} if some pivot is exactly zero. */
+    final private boolean singular;
+
+    /**
+     * Computes the decomposition of a square matrix. The matrix itself is not modified.
+     *
+     * @param a the matrix to decompose
+     * @throws IllegalArgumentException if {@code a} is {@code null} or not square
+     */
+    public ComplexLU(ComplexMatrix a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input matrix must not be null.");
+        if (a.rows() != a.cols())
+            throw new IllegalArgumentException("Matrix must be square.");
+
+        this.n = a.rows();
+        this.re = a.realParts().clone();
+        this.im = a.imagParts().clone();
+        this.pivot = new int[n];
+        for (int i = 0; i < n; i++)
+            pivot[i] = i;
+
+        boolean even = true, singular = false;
+        ComplexAccumulator l = new ComplexAccumulator();
+
+        for (int k = 0; k < n; k++) {
+            int p = k;
+            double max = Math.abs(re[k*n + k]) + Math.abs(im[k*n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double v = Math.abs(re[i*n + k]) + Math.abs(im[i*n + k]);
+                if (v > max) {
+                    max = v;
+                    p = i;
+                }
+            }
+
+            if (p != k) {
+                swapRows(p, k);
+                int t = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = t;
+                even = !even;
+            }
+
+            if (max == 0) {
+                // the column is already eliminated below the diagonal
+                singular = true;
+                continue;
+            }
+
+            double ur = re[k*n + k], ui = im[k*n + k];
+            for (int i = k + 1; i < n; i++) {
+                l.set(re[i*n + k], im[i*n + k]).divInPlace(ur, ui);
+                re[i*n + k] = l.re;
+                im[i*n + k] = l.im;
+
+                for (int j = k + 1, r = i*n + j, s = k*n + j; j < n; j++, r++, s++) {
+                    re[r] -= l.re*re[s] - l.im*im[s];
+                    im[r] -= l.re*im[s] + l.im*re[s];
+                }
+            }
+        }
+
+        this.even = even;
+        this.singular = singular;
+    }
+
+    //HELPER METHOD
+    private void swapRows(int a, int b) {
+        for (int j = 0, r = a*n, s = b*n; j < n; j++, r++, s++) {
+            double t = re[r];
+            re[r] = re[s];
+            re[s] = t;
+
+            t = im[r];
+            im[r] = im[s];
+            im[s] = t;
+        }
+    }
+
+    /**
+     * Returns the number of rows and columns of the decomposed matrix.
+     *
+     * @return the size {@code n}
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns whether the decomposed matrix is singular, i.e. some pivot is exactly zero.
+     *
+     * @return {@code true} if the matrix is singular
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the unit lower triangular factor {@code L}.
+     *
+     * @return a new {@code n x n} matrix holding {@code L}
+     */
+    public ComplexMatrix lower() {
+        ComplexMatrix l = new ComplexMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++)
+                l.set(i, j, re[i*n + j], im[i*n + j]);
+            l.set(i, i, 1, 0);
+        }
+        return l;
+    }
+
+    /**
+     * Returns the upper triangular factor {@code U}.
+     *
+     * @return a new {@code n x n} matrix holding {@code U}
+     */
+    public ComplexMatrix upper() {
+        ComplexMatrix u = new ComplexMatrix(n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i; j < n; j++)
+                u.set(i, j, re[i*n + j], im[i*n + j]);
+
+        return u;
+    }
+
+    /**
+     * Returns the row permutation: row {@code i} of {@code P A} is row {@code pivot()[i]} of {@code A}.
+     *
+     * @return a copy of the permutation
+     */
+    public int[] pivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Returns the determinant of the decomposed matrix, the signed product of the
+     * diagonal of {@code U}.
+     *
+     * @return the determinant as a {@link Rectangular}, zero if the matrix is singular
+     */
+    public Rectangular determinant() {
+        ComplexAccumulator d = new ComplexAccumulator(even ? 1 : -1, 0);
+        for (int k = 0; k < n; k++)
+            d.mulInPlace(re[k*n + k], im[k*n + k]);
+
+        return d.toRectangular();
+    }
+
+    /**
+     * Solves the linear system {@code A x = b}.
+     *
+     * @param b the right-hand side, of length {@code n}
+     * @return a new array holding the solution {@code x}
+     * @throws IllegalArgumentException if {@code b} is {@code null} or its length is not {@code n}
+     * @throws ArithmeticException if the matrix is singular
+     */
+    public ComplexArray solve(ComplexArray b) throws IllegalArgumentException, ArithmeticException {
+        if (b == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+        if (b.length() != n)
+            throw new IllegalArgumentException("Right-hand side must have the size of the matrix.");
+
+        ComplexArray x = new ComplexArray(n);
+        double[] xr = x.realParts(), xi = x.imagParts();
+        for (int i = 0; i < n; i++) {
+            xr[i] = b.real(pivot[i]);
+            xi[i] = b.imag(pivot[i]);
+        }
+        substitute(xr, xi);
+        return x;
+    }
+
+    /**
+     * Solves the linear systems {@code A X = B}, one for each column of {@code B}.
+     *
+     * @param b the right-hand sides, an {@code n x m} matrix
+     * @return a new {@code n x m} matrix holding the solutions {@code X}
+     * @throws IllegalArgumentException if {@code b} is {@code null} or does not have {@code n} rows
+     * @throws ArithmeticException if the matrix is singular
+     */
+    public ComplexMatrix solve(ComplexMatrix b) throws IllegalArgumentException, ArithmeticException {
+        if (b == null)
+            throw new IllegalArgumentException("Input matrix must not be null.");
+        if (b.rows() != n)
+            throw new IllegalArgumentException("Right-hand side must have the size of the matrix.");
+
+        int m = b.cols();
+        ComplexMatrix x = new ComplexMatrix(n, m);
+        double[] xr = new double[n], xi = new double[n];
+        for (int j = 0; j < m; j++) {
+            for (int i = 0; i < n; i++) {
+                xr[i] = b.real(pivot[i], j);
+                xi[i] = b.imag(pivot[i], j);
+            }
+            substitute(xr, xi);
+            for (int i = 0; i < n; i++)
+                x.set(i, j, xr[i], xi[i]);
+        }
+        return x;
+    }
+
+    //HELPER METHOD
+    private void substitute(double[] xr, double[] xi) {
+        if (singular)
+            throw new ArithmeticException("Matrix is singular.");
+
+        // forward substitution with the unit lower triangle
+        for (int i = 1; i < n; i++) {
+            double sr = xr[i], si = xi[i];
+            for (int j = 0, r = i*n; j < i; j++, r++) {
+                sr -= re[r]*xr[j] - im[r]*xi[j];
+                si -= re[r]*xi[j] + im[r]*xr[j];
+            }
+            xr[i] = sr;
+            xi[i] = si;
+        }
+
+        // back substitution with the upper triangle
+        ComplexAccumulator s = new ComplexAccumulator();
+        for (int i = n - 1; i >= 0; i--) {
+            double sr = xr[i], si = xi[i];
+            for (int j = i + 1, r = i*n + j; j < n; j++, r++) {
+                sr -= re[r]*xr[j] - im[r]*xi[j];
+                si -= re[r]*xi[j] + im[r]*xr[j];
+            }
+            s.set(sr, si).divInPlace(re[i*n + i], im[i*n + i]);
+            xr[i] = s.re;
+            xi[i] = s.im;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/**
+ * Primitive kernels for the elementary functions of a complex number.
+ * <p>
+ * Every kernel takes the real and imaginary parts of its argument as doubles and
+ * writes the real and imaginary parts of the result into {@code out[0]} and
+ * {@code out[1]}, so results can be produced without creating objects. The
+ * kernels use direct real-arithmetic formulas instead of composing complex
+ * exponentials and logarithms, which is both faster and more accurate.
+ * <p>
+ * On the branch cuts, a zero imaginary part is treated as {@code +0} whatever its
+ * sign, which matches the phase convention of {@link Rectangular#phase()}.
+ */
+final class ComplexMath {
+
+    private ComplexMath() {
+    }
+
+    /**
+     * Returns the phase of {@code x + yi} in range [-π, π], with a zero
+     * imaginary part treated as {@code +0}.
+     */
+    static double arg(double x, double y) {
+        return atan2(y + 0.0, x);
+    }
+
+    /**
+     * Computes the modulus and the phase of {@code x + yi} into {@code out[0]}
+     * and {@code out[1]}, with the conventions of {@link Rectangular#phase()}:
+     * a zero imaginary part is treated as {@code +0} and a zero has phase 0.
+     */
+    static void polar(double x, double y, double[] out) {
+        double r = hypot(x, y);
+        out[0] = r;
+        out[1] = r == 0 ? 0 : arg(x, y);
+    }
+
+    /**
+     * Returns {@code √(x² + y²)} without overflow or underflow of the squares.
+     * <p>
+     * Arguments whose larger magnitude is beyond {@code 2^±500} are scaled by
+     * a power of two, which is exact, so the only rounding errors are those of
+     * the squares, the sum and the square root, and the result is within 1.2
+     * ulps, against 1 for {@code Math.hypot}. As with
+     * {@link Math#hypot(double, double)}, an infinite argument gives infinity
+     * even if the other is {@code NaN}. This is several times faster than
+     * {@code Math.hypot}, which is not intrinsified.
+     */
+    static double hypot(double x, double y) {
+        double a = Math.abs(x), b = Math.abs(y), m = Math.max(a, b);
+        double r;
+        if (m > 0x1p500) {
+            a *= 0x1p-600;
+            b *= 0x1p-600;
+            r = Math.sqrt(a*a + b*b) * 0x1p600;
+        }
+        else if (m < 0x1p-500) {
+            a *= 0x1p600;
+            b *= 0x1p600;
+            r = Math.sqrt(a*a + b*b) * 0x1p-600;
+        }
+        else
+            r = Math.sqrt(a*a + b*b);
+
+        if (r != r && (a == Double.POSITIVE_INFINITY || b == Double.POSITIVE_INFINITY))
+            return Double.POSITIVE_INFINITY;
+        return r;
+    }
+
+    final private static double[] ATAN_HI = {
+            4.63647609000806093515e-01, 7.85398163397448278999e-01,
+            9.82793723247329054082e-01, 1.57079632679489655800e+00};
+    final private static double[] ATAN_LO = {
+            2.26987774529616870924e-17, 3.06161699786838301793e-17,
+            1.39033110312309984516e-17, 6.12323399573676603587e-17};
+    final private static double AT0 = 3.33333333333329318027e-01, AT1 = -1.99999999998764832476e-01,
+            AT2 = 1.42857142725034663711e-01, AT3 = -1.11111104054623557880e-01,
+            AT4 = 9.09088713343650656196e-02, AT5 = -7.69187620504482999495e-02,
+            AT6 = 6.66107313738753120669e-02, AT7 = -5.83357013379057348645e-02,
+            AT8 = 4.97687799461593236017e-02, AT9 = -3.65315727442169155270e-02,
+            AT10 = 1.62858201153657823623e-02;
+    final private static double PI_O_4 = 7.8539816339744827900e-01, PI_O_2 = 1.5707963267948965580e+00,
+            PI = 3.1415926535897931160e+00, PI_LO = 1.2246467991473531772e-16;
+
+    /**
+     * Returns the arctangent of a real number, a translation of fdlibm's
+     * {@code s_atan.c}, which {@link StrictMath#atan(double)} calls natively;
+     * the results are identical and within one ulp.
+     */
+    static double atan(double v) {
+        int hx = (int) (Double.doubleToRawLongBits(v) >>> 32), ix = hx & 0x7fffffff;
+        if (ix >= 0x44100000) {
+            // |v| ≥ 2^66, or NaN
+            if (v != v)
+                return v;
+            return hx > 0 ? ATAN_HI[3] + ATAN_LO[3] : -ATAN_HI[3] - ATAN_LO[3];
+        }
+
+        int id;
+        double x = v;
+        if (ix < 0x3fdc0000) {
+            // |v| < 0.4375
+            if (ix < 0x3e200000)
+                return v;
+            id = -1;
+        }
+        else {
+            x = Math.abs(x);
+            if (ix < 0x3ff30000) {
+                if (ix < 0x3fe60000) {
+                    // 7/16 ≤ |v| < 11/16
+                    id = 0;
+                    x = (2*x - 1) / (2 + x);
+                }
+                else {
+                    // 11/16 ≤ |v| < 19/16
+                    id = 1;
+                    x = (x - 1) / (x + 1);
+                }
+            }
+            else if (ix < 0x40038000) {
+                // 19/16 ≤ |v| < 39/16
+                id = 2;
+                x = (x - 1.5) / (1 + 1.5*x);
+            }
+            else {
+                id = 3;
+                x = -1 / x;
+            }
+        }
+
+        double z = x*x, w = z*z;
+        double s1 = z * (AT0 + w*(AT2 + w*(AT4 + w*(AT6 + w*(AT8 + w*AT10)))));
+        double s2 = w * (AT1 + w*(AT3 + w*(AT5 + w*(AT7 + w*AT9))));
+        if (id < 0)
+            return x - x*(s1 + s2);
+        z = ATAN_HI[id] - ((x*(s1 + s2) - ATAN_LO[id]) - x);
+        return hx < 0 ? -z : z;
+    }
+
+    /**
+     * Returns the angle of the point {@code (x, y)}, a translation of fdlibm's
+     * {@code e_atan2.c}, which {@link StrictMath#atan2(double, double)} calls
+     * natively; the results are identical, including for zeros, infinities and
+     * {@code NaN}, and within two ulps. Without the native call this is
+     * several times faster.
+     */
+    static double atan2(double y, double x) {
+        if (x != x || y != y)
+            return x + y;
+        if (x == 1)
+            return atan(y);
+
+        long bx = Double.doubleToRawLongBits(x), by = Double.doubleToRawLongBits(y);
+        int hx = (int) (bx >>> 32), hy = (int) (by >>> 32);
+        int ix = hx & 0x7fffffff, iy = hy & 0x7fffffff;
+        // bit 0 is the sign of y, bit 1 the sign of x
+        int m = (hy >>> 31) | ((hx >>> 30) & 2);
+
+        if (y == 0) {
+            switch (m) {
+                case 0: case 1: return y;
+                case 2: return PI;
+                default: return -PI;
+            }
+        }
+        if (x == 0)
+            return hy < 0 ? -PI_O_2 : PI_O_2;
+        if (ix == 0x7ff00000) {
+            if (iy == 0x7ff00000) {
+                switch (m) {
+                    case 0: return PI_O_4;
+                    case 1: return -PI_O_4;
+                    case 2: return 3*PI_O_4;
+                    default: return -3*PI_O_4;
+                }
+            }
+            switch (m) {
+                case 0: return 0.0;
+                case 1: return -0.0;
+                case 2: return PI;
+                default: return -PI;
+            }
+        }
+        if (iy == 0x7ff00000)
+            return hy < 0 ? -PI_O_2 : PI_O_2;
+
+        int k = (iy - ix) >> 20;
+        double z;
+        if (k > 60)
+            z = PI_O_2 + 0.5*PI_LO;
+        else if (hx < 0 && k < -60)
+            z = 0.0;
+        else
+            z = atan(Math.abs(y / x));
+
+        switch (m) {
+            case 0: return z;
+            case 1: return -z;
+            case 2: return PI - (z - PI_LO);
+            default: return (z - PI_LO) - PI;
+        }
+    }
+
+    /**
+     * Returns the inverse hyperbolic sine of a real number, accurate for small
+     * arguments and safe from overflow for large ones.
+     */
+    static double asinh(double v) {
+        double a = Math.abs(v);
+        double r;
+        if (a > 1e150)
+            r = Math.log(a) + Math.log(2);
+        else
+            r = Math.log1p(a + a*a / (1 + Math.sqrt(1 + a*a)));
+        return Math.copySign(r, v);
+    }
+
+    /**
+     * Computes the quotient {@code (x + yi) / (u + vi)} with Smith's algorithm,
+     * which scales by the larger component of the divisor to avoid intermediate overflow.
+     * <p>
+     * A zero divisor would make that {@code 0/0}; as in C99 Annex G, a nonzero
+     * dividend then gives an infinity in its direction, with the same exact zero
+     * components as {@code ∞ ∠ arg(x + yi)} in {@link Polar}, e.g. {@code 1/0 = ∞ + 0i}.
+     * A zero or {@code NaN} dividend gives {@code NaN}.
+     */
+    static void divide(double x, double y, double u, double v, double[] out) {
+        if (Math.abs(u) >= Math.abs(v)) {
+            if (u == 0 && (x != 0 || y != 0) && x == x && y == y) {
+                out[0] = x == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, x);
+                out[1] = y == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, y);
+                return;
+            }
+            double t = v / u;
+            double d = u + v*t;
+            out[0] = (x + y*t) / d;
+            out[1] = (y - x*t) / d;
+        }
+        else {
+            double t = u / v;
+            double d = u*t + v;
+            out[0] = (x*t + y) / d;
+            out[1] = (y*t - x) / d;
+        }
+    }
+
+    /**
+     * Computes {@code zⁿ} by binary exponentiation in rectangular form, of the
+     * reciprocal of {@code z} for a negative {@code n}, so that a result that is
+     * representable does not overflow or underflow on the way. A result that is
+     * not finite is replaced by {@link #powCheck}.
+     */
+    static void pow(double x, double y, int n, double[] out) {
+        if (n == 0) {
+            out[0] = 1;
+            out[1] = 0;
+            return;
+        }
+
+        double u = x, v = y;
+        if (n < 0) {
+            divide(1, 0, x, y, out);
+            u = out[0];
+            v = out[1];
+        }
+
+        // start from the lowest set bit of the exponent, so the result is never multiplied by 1
+        long e = Math.abs((long) n);
+        while ((e & 1) == 0) {
+            double t = (u - v) * (u + v);
+            v = 2*u*v;
+            u = t;
+            e >>= 1;
+        }
+
+        double pr = u, pi = v;
+        while ((e >>= 1) > 0) {
+            double t = (u - v) * (u + v);
+            v = 2*u*v;
+            u = t;
+            if ((e & 1) != 0) {
+                t = pr*u - pi*v;
+                pi = pr*v + pi*u;
+                pr = t;
+            }
+        }
+
+        out[0] = pr;
+        out[1] = pi;
+        powCheck(x, y, n, out);
+    }
+
+    /**
+     * Replaces a power {@code zⁿ} in {@code out}, computed by multiplication,
+     * that is not finite with {@code rⁿ ∠ nθ}, which gives the infinite or
+     * zero result of an overflow without the {@code ∞·0 = NaN} of the
+     * multiplications. The exponent is a double so that generated code can
+     * load it as a constant.
+     */
+    static void powCheck(double x, double y, double n, double[] out) {
+        if (Math.abs(out[0]) < Double.POSITIVE_INFINITY && Math.abs(out[1]) < Double.POSITIVE_INFINITY)
+            return;
+
+        double m = Math.pow(hypot(x, y), n), a = n * arg(x, y);
+        double c = Math.cos(a), s = Math.sin(a);
+        // the exact zeros of Polar.real() and Polar.imag() on the axes
+        out[0] = Math.abs(s) == 1 ? 0 : m*c;
+        out[1] = Math.abs(c) == 1 ? 0 : m*s;
+    }
+
+    /**
+     * Computes the principal value of {@code z^w} with the formula of
+     * {@link ComplexNumber#power(ComplexNumber, ComplexNumber)}
+     * <pre>
+     *     z^w = r^u e^(-vθ) ∠ (v ln r + uθ)
+     * </pre>
+     * where {@code z = r ∠ θ} and {@code w = u + vi}, with {@code 0^w = 0} for
+     * {@code u > 0} and {@code z^0 = 1}.
+     */
+    static void pow(double x, double y, double u, double v, double[] out) {
+        double r = hypot(x, y), theta = arg(x, y);
+        double m, a;
+
+        if (r == 0 && u > 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+        else if (v == 0) {
+            m = Math.pow(r, u);
+            a = u * theta;
+        }
+        else {
+            m = Math.pow(r, u) * Math.exp(-v*theta);
+            a = v * Math.log(r) + u * theta;
+        }
+
+        out[0] = m * Math.cos(a);
+        out[1] = m * Math.sin(a);
+    }
+
+    /**
+     * Computes {@code e^z = e^x (cos y + i sin y)}.
+     */
+    static void exp(double x, double y, double[] out) {
+        double e = Math.exp(x);
+        out[0] = e * Math.cos(y);
+        out[1] = y == 0 ? y : e * Math.sin(y);
+    }
+
+    /**
+     * Computes the principal value {@code log z = ln|z| + i arg z}.
+     */
+    static void log(double x, double y, double[] out) {
+        out[0] = Math.log(hypot(x, y));
+        out[1] = arg(x, y);
+    }
+
+    /**
+     * Computes the principal square root, the one with a non-negative real part.
+     * <pre>
+     *     t = √((|x| + |z|) / 2)
+     *     √z = t + i y/(2t)           if x ≥ 0
+     *     √z = |y|/(2t) ± i t         if x &lt; 0, with the sign of y
+     * </pre>
+     * This form avoids the cancellation of {@code |z| - |x|}. Arguments beyond
+     * {@code 2^1020}, for which {@code |x| + |z|} could overflow, are divided by
+     * 4 and the root multiplied by 2, both exact.
+     */
+    static void sqrt(double x, double y, double[] out) {
+        if (x == 0 && y == 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+
+        double scale = 1;
+        if (Math.max(Math.abs(x), Math.abs(y)) > 0x1p1020) {
+            x *= 0.25;
+            y *= 0.25;
+            scale = 2;
+        }
+
+        double t = Math.sqrt((Math.abs(x) + hypot(x, y)) / 2);
+
+        if (x >= 0) {
+            out[0] = t * scale;
+            out[1] = y / (2*t) * scale;
+        }
+        else {
+            out[0] = Math.abs(y) / (2*t) * scale;
+            out[1] = (y >= 0 ? t : -t) * scale;
+        }
+    }
+
+    /**
+     * Computes {@code cosh v} into {@code out[0]} and {@code sinh v} into
+     * {@code out[1]} from a single {@code expm1}, with {@code e = expm1|v|}
+     * <pre>
+     *     cosh v = (e + 1)/2 + 1/(2(e + 1))      or 1 + e²/(2(e + 1)) for |v| &lt; 1/2
+     *     sinh v = ±(e + e/(e + 1))/2             or ±(2e - e²/(e + 1))/2 for |v| &lt; 1
+     * </pre>
+     * which are the formulas of {@code Math.cosh} and {@code Math.sinh} with the
+     * exponential shared. Beyond the overflow of {@code e} it calls those two.
+     */
+    static void coshSinh(double v, double[] out) {
+        double a = Math.abs(v);
+        if (a > 709) {
+            out[0] = Math.cosh(v);
+            out[1] = Math.sinh(v);
+            return;
+        }
+
+        double e = Math.expm1(a), t = e + 1;
+        out[0] = a < 0.5 ? 1 + e*e/(2*t) : 0.5*t + 0.5/t;
+        out[1] = Math.copySign(a < 1 ? 0.5*(2*e - e*e/t) : 0.5*(e + e/t), v);
+    }
+
+    /**
+     * Computes {@code sin z = sin x cosh y + i cos x sinh y}.
+     */
+    static void sin(double x, double y, double[] out) {
+        coshSinh(y, out);
+        double ch = out[0], sh = out[1];
+        out[0] = Math.sin(x) * ch;
+        out[1] = y == 0 ? y : Math.cos(x) * sh;
+    }
+
+    /**
+     * Computes {@code cos z = cos x cosh y - i sin x sinh y}.
+     */
+    static void cos(double x, double y, double[] out) {
+        coshSinh(y, out);
+        double ch = out[0], sh = out[1];
+        out[0] = Math.cos(x) * ch;
+        out[1] = y == 0 ? 0 : -Math.sin(x) * sh;
+    }
+
+    /**
+     * Computes {@code tan z = -i tanh(iz)}.
+     */
+    static void tan(double x, double y, double[] out) {
+        tanh(-y, x, out);
+        double re = out[1];
+        out[1] = -out[0];
+        out[0] = re;
+    }
+
+    /**
+     * Computes {@code sinh z = sinh x cos y + i cosh x sin y}.
+     */
+    static void sinh(double x, double y, double[] out) {
+        coshSinh(x, out);
+        double ch = out[0], sh = out[1];
+        out[0] = sh * Math.cos(y);
+        out[1] = y == 0 ? y : ch * Math.sin(y);
+    }
+
+    /**
+     * Computes {@code cosh z = cosh x cos y + i sinh x sin y}.
+     */
+    static void cosh(double x, double y, double[] out) {
+        coshSinh(x, out);
+        double ch = out[0], sh = out[1];
+        out[0] = ch * Math.cos(y);
+        out[1] = y == 0 ? 0 : sh * Math.sin(y);
+    }
+
+    /**
+     * Computes {@code tanh z} with Kahan's formula
+     * <pre>
+     *     t = tan y, β = 1 + t², s = sinh x, ρ = √(1 + s²)
+     *     tanh z = (β ρ s + i t) / (1 + β s²)
+     * </pre>
+     * which needs a single call each to {@code tan} and {@code sinh}. For large
+     * {@code |x|} the result is {@code ±1} up to a tiny imaginary part, which is
+     * computed directly to avoid overflow.
+     */
+    static void tanh(double x, double y, double[] out) {
+        if (Math.abs(x) > 22) {
+            out[0] = Math.copySign(1, x);
+            out[1] = 4 * Math.sin(y) * Math.cos(y) * Math.exp(-2*Math.abs(x));
+            return;
+        }
+
+        double t = Math.tan(y);
+        double beta = 1 + t*t;
+        double s = Math.sinh(x);
+        double rho = Math.sqrt(1 + s*s);
+        double d = 1 + beta*s*s;
+
+        out[0] = beta*rho*s / d;
+        out[1] = t / d;
+    }
+
+    /**
+     * Computes the principal arcsine with Kahan's formula
+     * <pre>
+     *     asin z = atan(x / Re(√(1-z) √(1+z))) + i asinh(Im(conj(√(1-z)) √(1+z)))
+     * </pre>
+     * which avoids the cancellation of {@code iz + √(1 - z²)}.
+     */
+    static void asin(double x, double y, double[] out) {
+        sqrt(1 - x, -y, out);
+        double ar = out[0], ai = out[1];
+        sqrt(1 + x, y, out);
+        double br = out[0], bi = out[1];
+
+        out[0] = atan2(x, ar*br - ai*bi);
+        out[1] = asinh(ar*bi - ai*br);
+    }
+
+    /**
+     * Computes the principal arccosine with Kahan's formula
+     * <pre>
+     *     acos z = 2 atan(Re √(1-z) / Re √(1+z)) + i asinh(Im(conj(√(1+z)) √(1-z)))
+     * </pre>
+     */
+    static void acos(double x, double y, double[] out) {
+        sqrt(1 - x, -y, out);
+        double ar = out[0], ai = out[1];
+        sqrt(1 + x, y, out);
+        double br = out[0], bi = out[1];
+
+        out[0] = 2 * atan2(ar, br);
+        out[1] = asinh(br*ai - bi*ar);
+    }
+
+    /**
+     * Computes the principal arctangent
+     * <pre>
+     *     Re atan z = atan2(2x, (1 - x)(1 + x) - y²) / 2
+     *     Im atan z = log1p(4y / (x² + (1 - y)²)) / 4
+     * </pre>
+     * which is the closed form of {@code ln((1 + iz) / (1 - iz)) / 2i}.
+     */
+    static void atan(double x, double y, double[] out) {
+        out[0] = 0.5 * atan2(2*x + 0.0, (1 - x)*(1 + x) - y*y);
+        out[1] = 0.25 * Math.log1p(4*y / (x*x + (1 - y)*(1 - y)));
+    }
+}
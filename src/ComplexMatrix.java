@@ -0,0 +1,426 @@
+import java.util.Arrays;
+
+/**
+ * A dense matrix of complex numbers stored in row-major, structure-of-arrays form.
+ * <p>
+ * The real and imaginary parts are kept in two separate primitive
+ * {@code double[]} arrays of length {@code rows * cols}, with element
+ * {@code (i, j)} at index {@code i * cols + j}. Arithmetic runs over plain
+ * doubles without creating a {@link ComplexNumber} per element.
+ * <p>
+ * Matrix multiplication is blocked so that a tile of the right-hand operand
+ * stays in cache while it is applied to every row of the left-hand operand, and
+ * the innermost loop runs along contiguous rows of both the tile and the result.
+ * {@link ParallelComplex#multiply(ComplexMatrix, ComplexMatrix, ComplexMatrix)}
+ * splits the same computation over several threads by rows and gives identical
+ * results. Linear systems and determinants go through {@link ComplexLU}.
+ */
+public final class ComplexMatrix {
+
+    /** The edge length of the tiles of the right-hand operand in {@link #multiply(ComplexMatrix, ComplexMatrix, ComplexMatrix)}. */
+    final static int BLOCK = 64;
+
+    final private int rows;
+    final private int cols;
+
+    /** The real parts of the elements in row-major order. */
+    final private double[] re;
+
+    /** The imaginary parts of the elements in row-major order. */
+    final private double[] im;
+
+    /**
+     * Constructs a matrix of the given size with every element set to zero.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @throws IllegalArgumentException if either dimension is negative or the matrix is too large
+     */
+    public ComplexMatrix(int rows, int cols) throws IllegalArgumentException {
+        if (rows < 0 || cols < 0)
+            throw new IllegalArgumentException("Dimensions must not be negative.");
+        if ((long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Matrix is too large.");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.re = new double[rows * cols];
+        this.im = new double[rows * cols];
+    }
+
+    /**
+     * Creates a matrix holding the values of a rectangular array of complex numbers.
+     *
+     * @param values the rows of the matrix
+     * @return a new {@link ComplexMatrix} with the same values
+     * @throws IllegalArgumentException if {@code values}, a row or an element is {@code null},
+     *                                  or the rows have different lengths
+     */
+    public static ComplexMatrix of(ComplexNumber[][] values) throws IllegalArgumentException {
+        if (values == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        int cols = values.length == 0 || values[0] == null ? 0 : values[0].length;
+        ComplexMatrix m = new ComplexMatrix(values.length, cols);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null || values[i].length != cols)
+                throw new IllegalArgumentException("All rows must be non-null and have the same length.");
+
+            for (int j = 0; j < cols; j++)
+                m.set(i, j, values[i][j]);
+        }
+        return m;
+    }
+
+    /**
+     * Creates an identity matrix.
+     *
+     * @param n the number of rows and columns
+     * @return a new {@code n x n} identity matrix
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static ComplexMatrix identity(int n) throws IllegalArgumentException {
+        ComplexMatrix m = new ComplexMatrix(n, n);
+        for (int i = 0; i < n; i++)
+            m.re[i*n + i] = 1;
+
+        return m;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Returns the backing array of real parts in row-major order. Writes to it are visible in this matrix.
+     *
+     * @return the real parts
+     */
+    public double[] realParts() {
+        return re;
+    }
+
+    /**
+     * Returns the backing array of imaginary parts in row-major order. Writes to it are visible in this matrix.
+     *
+     * @return the imaginary parts
+     */
+    public double[] imagParts() {
+        return im;
+    }
+
+    /**
+     * Returns the real part of the element at row {@code i} and column {@code j}.
+     *
+     * @param i the row index
+     * @param j the column index
+     * @return the real part as a {@code double}
+     */
+    public double real(int i, int j) {
+        return re[index(i, j)];
+    }
+
+    /**
+     * Returns the imaginary part of the element at row {@code i} and column {@code j}.
+     *
+     * @param i the row index
+     * @param j the column index
+     * @return the imaginary part as a {@code double}
+     */
+    public double imag(int i, int j) {
+        return im[index(i, j)];
+    }
+
+    /**
+     * Returns the element at row {@code i} and column {@code j} as a {@link Rectangular}.
+     *
+     * @param i the row index
+     * @param j the column index
+     * @return a new {@link Rectangular} with the element's value
+     */
+    public Rectangular get(int i, int j) {
+        int k = index(i, j);
+        return new Rectangular(re[k], im[k]);
+    }
+
+    /**
+     * Sets the element at row {@code i} and column {@code j} to the given real and imaginary parts.
+     *
+     * @param i the row index
+     * @param j the column index
+     * @param real the real part
+     * @param imag the imaginary part
+     */
+    public void set(int i, int j, double real, double imag) {
+        int k = index(i, j);
+        re[k] = real;
+        im[k] = imag;
+    }
+
+    /**
+     * Sets the element at row {@code i} and column {@code j} to the value of a complex number.
+     *
+     * @param i the row index
+     * @param j the column index
+     * @param z the complex number to store
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public void set(int i, int j, ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        set(i, j, z.real(), z.imag());
+    }
+
+    /**
+     * Returns a copy of this matrix.
+     *
+     * @return a new {@link ComplexMatrix} with the same size and values
+     */
+    public ComplexMatrix copy() {
+        ComplexMatrix m = new ComplexMatrix(rows, cols);
+        System.arraycopy(re, 0, m.re, 0, re.length);
+        System.arraycopy(im, 0, m.im, 0, im.length);
+        return m;
+    }
+
+    /**
+     * Copies the elements of this matrix into a new array of {@link Rectangular} numbers.
+     *
+     * @return the rows of the matrix as {@link Rectangular} numbers
+     */
+    public Rectangular[][] toArray() {
+        Rectangular[][] out = new Rectangular[rows][cols];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < cols; j++)
+                out[i][j] = get(i, j);
+
+        return out;
+    }
+
+    //HELPER METHOD
+    private int index(int i, int j) {
+        if (i < 0 || i >= rows || j < 0 || j >= cols)
+            throw new IndexOutOfBoundsException("Index (" + i + ", " + j + ") out of bounds for " + rows + "x" + cols + " matrix");
+
+        return i*cols + j;
+    }
+
+    /**
+     * Returns the product of this matrix and another one.
+     *
+     * @param b the right-hand operand
+     * @return a new matrix holding {@code this * b}
+     * @throws IllegalArgumentException if {@code b} is {@code null} or the inner dimensions differ
+     * @see #multiply(ComplexMatrix, ComplexMatrix, ComplexMatrix)
+     */
+    public ComplexMatrix multiply(ComplexMatrix b) throws IllegalArgumentException {
+        if (b == null)
+            throw new IllegalArgumentException("Input matrices must not be null.");
+
+        ComplexMatrix dst = new ComplexMatrix(rows, b.cols);
+        multiply(this, b, dst);
+        return dst;
+    }
+
+    /**
+     * Multiplies two matrices into a destination.
+     * <pre>
+     *     dst[i][j] = Σ a[i][k] * b[k][j]
+     * </pre>
+     *
+     * @param a the left-hand operand, of size {@code m x n}
+     * @param b the right-hand operand, of size {@code n x p}
+     * @param dst the destination, of size {@code m x p}; must not be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any matrix is {@code null}, the sizes do not match,
+     *                                  or {@code dst} is one of the operands
+     */
+    public static void multiply(ComplexMatrix a, ComplexMatrix b, ComplexMatrix dst) throws IllegalArgumentException {
+        checkMultiply(a, b, dst);
+
+        multiplyRows(a, b, dst, 0, a.rows);
+    }
+
+    //HELPER METHOD
+    static void checkMultiply(ComplexMatrix a, ComplexMatrix b, ComplexMatrix dst) {
+        if (a == null || b == null || dst == null)
+            throw new IllegalArgumentException("Input matrices must not be null.");
+        if (a.cols != b.rows || dst.rows != a.rows || dst.cols != b.cols)
+            throw new IllegalArgumentException("Matrix dimensions do not match.");
+        if (dst == a || dst == b)
+            throw new IllegalArgumentException("Destination must not be one of the operands.");
+    }
+
+    //HELPER METHOD
+    static void multiplyRows(ComplexMatrix a, ComplexMatrix b, ComplexMatrix dst, int from, int to) {
+        int n = a.cols, p = b.cols;
+        double[] ar = a.re, ai = a.im, br = b.re, bi = b.im, cr = dst.re, ci = dst.im;
+
+        Arrays.fill(cr, from*p, to*p, 0);
+        Arrays.fill(ci, from*p, to*p, 0);
+
+        for (int k0 = 0; k0 < n; k0 += BLOCK) {
+            int k1 = Math.min(k0 + BLOCK, n);
+            for (int j0 = 0; j0 < p; j0 += BLOCK) {
+                int j1 = Math.min(j0 + BLOCK, p);
+
+                for (int i = from; i < to; i++) {
+                    int c = i*p;
+                    for (int k = k0; k < k1; k++) {
+                        double xr = ar[i*n + k], xi = ai[i*n + k];
+                        int r = k*p;
+                        for (int j = j0; j < j1; j++) {
+                            double yr = br[r + j], yi = bi[r + j];
+                            cr[c + j] += xr*yr - xi*yi;
+                            ci[c + j] += xr*yi + xi*yr;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies a matrix by a vector.
+     * <pre>
+     *     y[i] = Σ a[i][j] * x[j]
+     * </pre>
+     *
+     * @param a the matrix, of size {@code m x n}
+     * @param x the vector, of length {@code n}
+     * @param y the destination, of length {@code m}; must not be {@code x}
+     * @throws IllegalArgumentException if any argument is {@code null}, the sizes do not match,
+     *                                  or {@code y} is {@code x}
+     */
+    public static void multiply(ComplexMatrix a, ComplexArray x, ComplexArray y) throws IllegalArgumentException {
+        if (a == null || x == null || y == null)
+            throw new IllegalArgumentException("Input arguments must not be null.");
+        if (x.length() != a.cols || y.length() != a.rows)
+            throw new IllegalArgumentException("Matrix and vector dimensions do not match.");
+        if (x == y)
+            throw new IllegalArgumentException("Destination must not be the input vector.");
+
+        double[] xr = x.realParts(), xi = x.imagParts();
+        for (int i = 0; i < a.rows; i++) {
+            double sr = 0, si = 0;
+            for (int j = 0, k = i*a.cols; j < a.cols; j++, k++) {
+                sr += a.re[k]*xr[j] - a.im[k]*xi[j];
+                si += a.re[k]*xi[j] + a.im[k]*xr[j];
+            }
+            y.set(i, sr, si);
+        }
+    }
+
+    /**
+     * Returns the transpose of this matrix.
+     *
+     * @return a new {@code cols x rows} matrix with {@code t[j][i] = this[i][j]}
+     */
+    public ComplexMatrix transpose() {
+        return transpose(false);
+    }
+
+    /**
+     * Returns the conjugate (Hermitian) transpose of this matrix.
+     *
+     * @return a new {@code cols x rows} matrix with {@code t[j][i] = conj(this[i][j])}
+     */
+    public ComplexMatrix conjugateTranspose() {
+        return transpose(true);
+    }
+
+    //HELPER METHOD
+    private ComplexMatrix transpose(boolean conjugate) {
+        ComplexMatrix t = new ComplexMatrix(cols, rows);
+        double sign = conjugate ? -1 : 1;
+
+        // tile by tile, so both the rows read and the rows written stay in cache
+        for (int i0 = 0; i0 < rows; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, rows);
+            for (int j0 = 0; j0 < cols; j0 += BLOCK) {
+                int j1 = Math.min(j0 + BLOCK, cols);
+                for (int i = i0; i < i1; i++) {
+                    for (int j = j0; j < j1; j++) {
+                        t.re[j*rows + i] = re[i*cols + j];
+                        t.im[j*rows + i] = sign * im[i*cols + j];
+                    }
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Computes the LU decomposition of this matrix with partial pivoting.
+     *
+     * @return the decomposition
+     * @throws IllegalArgumentException if this matrix is not square
+     * @see ComplexLU
+     */
+    public ComplexLU lu() throws IllegalArgumentException {
+        return new ComplexLU(this);
+    }
+
+    /**
+     * Solves the linear system {@code this * x = b}.
+     * <p>
+     * Each call decomposes the matrix again; to solve several systems with the same
+     * matrix, keep the result of {@link #lu()} and call {@link ComplexLU#solve(ComplexArray)}.
+     *
+     * @param b the right-hand side, of length {@code rows}
+     * @return a new array holding the solution {@code x}
+     * @throws IllegalArgumentException if this matrix is not square, or {@code b} is {@code null}
+     *                                  or has the wrong length
+     * @throws ArithmeticException if this matrix is singular
+     */
+    public ComplexArray solve(ComplexArray b) throws IllegalArgumentException, ArithmeticException {
+        return lu().solve(b);
+    }
+
+    /**
+     * Returns the determinant of this matrix.
+     *
+     * @return the determinant as a {@link Rectangular}
+     * @throws IllegalArgumentException if this matrix is not square
+     */
+    public Rectangular determinant() throws IllegalArgumentException {
+        return lu().determinant();
+    }
+
+    /**
+     * Returns a string representation of this matrix, one row per line, with the
+     * elements in the format of {@link Rectangular#toString()}.
+     *
+     * @return a {@link String} representing this matrix
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0)
+                sb.append(",\n ");
+            sb.append('[');
+            for (int j = 0; j < cols; j++) {
+                if (j > 0)
+                    sb.append(", ");
+                sb.append(get(i, j));
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+}
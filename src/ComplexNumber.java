@@ -1,8 +1,16 @@
 
+import java.util.concurrent.atomic.LongAdder;
+
 public abstract class ComplexNumber {
 
     public static final Polar I = new Polar(1, Math.PI/2);
 
+    /** The number of rectangular forms computed from polar coordinates, see {@link Polar}. */
+    final static LongAdder POLAR_TO_RECT = new LongAdder();
+
+    /** The number of polar forms computed from rectangular parts, see {@link Polar}. */
+    final static LongAdder RECT_TO_POLAR = new LongAdder();
+
     /**
      * Determines the real component of the complex number.
      * @return the real component as a double.
@@ -27,6 +35,21 @@ public abstract class ComplexNumber {
      */
     public abstract double phase();
 
+    /**
+     * Calculates the squared absolute value of the complex number, which needs no
+     * square root and suits comparisons of magnitudes. Unlike {@link #modulus()}
+     * it overflows to infinity for absolute values above about 1e154.
+     * @return the squared absolute value as a double.
+     */
+    public abstract double abs2();
+
+    /**
+     * Calculates the absolute value and the phase angle of the complex number in
+     * one call, as needed to convert it to polar format.
+     * @return a new array holding the absolute value and the phase angle in range [-π, π].
+     */
+    public abstract double[] modulusAndPhase();
+
     /**
      * Returns the conjugate of the complex number.
      * @return the conjugate in the same format as the complex number.
@@ -54,31 +77,64 @@ public abstract class ComplexNumber {
     public abstract Polar toComplexPolar();
 
     /**
-     * Compares this complex number to another object for equality.
+     * Compares the value of this complex number to another one within a tolerance.
      * <p>
-     * Two complex numbers are considered equal if their real and imaginary parts
-     * are equal within a tolerance of {@code 1e-6}.
+     * The two numbers are compared through their real and imaginary parts, so a
+     * {@link Polar} and a {@link Rectangular} representing the same value are
+     * approximately equal even though they are never {@link Object#equals equal}.
      *
-     * @param other the object to compare with
-     * @return {@code true} if {@code other} is a {@link ComplexNumber} and
-     *         its real and imaginary parts are equal to this complex number
-     *         within a tolerance of {@code 1e-6}, {@code false} otherwise
+     * @param other the complex number to compare with
+     * @param tol the largest allowed absolute difference of the real parts and of the imaginary parts
+     * @return {@code true} if the real and imaginary parts of {@code other} differ
+     *         from those of this complex number by at most {@code tol}, {@code false} otherwise
+     * @throws IllegalArgumentException if {@code other} is {@code null} or {@code tol} is negative or NaN
      */
-    @Override
-    public boolean equals(Object other) {
-        if (other instanceof ComplexNumber oth) {
-            return Math.abs(this.real()-oth.real()) < 0.000001 && Math.abs(this.imag()-oth.imag()) < 0.000001;
-        }
-        return false;
+    public boolean approxEquals(ComplexNumber other, double tol) throws IllegalArgumentException {
+        if (other == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+        if (!(tol >= 0))
+            throw new IllegalArgumentException("Tolerance must be a non-negative number.");
+
+        return Math.abs(this.real()-other.real()) <= tol && Math.abs(this.imag()-other.imag()) <= tol;
     }
-    
+
+    /**
+     * Returns the number of times the rectangular form of a {@link Polar} was
+     * computed with {@code cos} and {@code sin}, since start-up or the last
+     * {@link #resetConversionCounts()}.
+     *
+     * @return the number of polar to rectangular conversions
+     */
+    public static long polarToRectConversions() {
+        return POLAR_TO_RECT.sum();
+    }
+
+    /**
+     * Returns the number of times the modulus and phase of a {@link Polar}
+     * produced from rectangular parts were computed, since start-up or the last
+     * {@link #resetConversionCounts()}.
+     *
+     * @return the number of rectangular to polar conversions
+     */
+    public static long rectToPolarConversions() {
+        return RECT_TO_POLAR.sum();
+    }
+
+    /**
+     * Resets both conversion counts to zero.
+     */
+    public static void resetConversionCounts() {
+        POLAR_TO_RECT.reset();
+        RECT_TO_POLAR.reset();
+    }
+
     //HELPER METHOD
     private static ComplexNumber addH(ComplexNumber a, ComplexNumber b) {
         if (a == null || b == null)
             throw new IllegalArgumentException("Input complex numbers must not be null.");
 
         if(a instanceof Polar && b instanceof Polar)
-            return new Rectangular(a.real() + b.real(), a.imag() + b.imag()).toComplexPolar();
+            return Polar.deferred(new Rectangular(a.real() + b.real(), a.imag() + b.imag()));
 
         return new Rectangular(a.real() + b.real(), a.imag() + b.imag());
     }
@@ -103,23 +159,73 @@ public abstract class ComplexNumber {
         ComplexNumber sum = new Polar(0, 0);
 
         for(Object arg : args) {
-            ComplexNumber z;
-
-            if(arg instanceof ComplexNumber z1)
-                z = z1;
+            if(arg instanceof ComplexNumber z)
+                sum = addH(z, sum);
             else if(arg instanceof Double d)
-                z = new Polar(d, 0);
+                sum = add(sum, (double) d);
             else if(arg instanceof Integer i)
-                z = new Polar(i, 0);
+                sum = add(sum, (double) i);
             else
                 throw new IllegalArgumentException("Input arguments need to be either a complex number or a real number");
-
-            sum = addH(z, sum);
         }
 
         return sum;
     }
 
+    /**
+     * Adds two complex numbers and returns the result.
+     * <p>
+     * The sum is represented as a {@link Polar} complex number if both inputs are
+     * instances of {@link Polar}; otherwise, it is returned in {@link Rectangular} form.
+     * Unlike {@link #add(Object...)}, this method does not box its arguments or
+     * allocate a varargs array.
+     *
+     * @param a the first complex number
+     * @param b the second complex number
+     * @return the sum as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if either {@code a} or {@code b} is {@code null}
+     */
+    public static ComplexNumber add(ComplexNumber a, ComplexNumber b) throws IllegalArgumentException {
+        return addH(a, b);
+    }
+
+    /**
+     * Adds a real number to a complex number and returns the result.
+     * <p>
+     * The real number only changes the real part, so no polar conversion of
+     * {@code b} is needed. The result is returned as a {@link Polar} if {@code a}
+     * is an instance of {@link Polar}; otherwise, it is returned in {@link Rectangular} form.
+     *
+     * @param a the complex number
+     * @param b the real number to add
+     * @return the sum as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static ComplexNumber add(ComplexNumber a, double b) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if(a instanceof Polar)
+            return Polar.deferred(new Rectangular(a.real() + b, a.imag()));
+
+        return new Rectangular(a.real() + b, a.imag());
+    }
+
+    /**
+     * Adds a complex number to a real number and returns the result.
+     * <p>
+     * This method is equivalent to {@link #add(ComplexNumber, double)} with the
+     * operands swapped.
+     *
+     * @param a the real number
+     * @param b the complex number to add
+     * @return the sum as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public static ComplexNumber add(double a, ComplexNumber b) throws IllegalArgumentException {
+        return add(b, a);
+    }
+
     /**
      * Subtracts one complex number from another and returns the result.
      * <p>
@@ -142,7 +248,7 @@ public abstract class ComplexNumber {
             throw new IllegalArgumentException("Input complex numbers must not be null.");
 
         if(a instanceof Polar && b instanceof Polar)
-            return new Rectangular(a.real() - b.real(), a.imag() - b.imag()).toComplexPolar();
+            return Polar.deferred(new Rectangular(a.real() - b.real(), a.imag() - b.imag()));
         
         return new Rectangular(a.real() - b.real(), a.imag() - b.imag());
     }
@@ -150,31 +256,38 @@ public abstract class ComplexNumber {
     /**
      * Subtracts a real number from a complex number and returns the result.
      * <p>
-     * This method treats the real number {@code b} as a complex number with
-     * magnitude {@code b} and phase {@code 0}, then calls
-     * {@link #subtract(ComplexNumber, ComplexNumber)} to perform the subtraction.
+     * The real number only changes the real part, so no polar conversion of
+     * {@code b} is needed. The result is returned as a {@link Polar} if {@code a}
+     * is an instance of {@link Polar}; otherwise, it is returned in {@link Rectangular} form.
      *
      * @param a the complex number to subtract from
      * @param b the real number to subtract
      * @return the resulting {@link ComplexNumber} after subtraction
+     * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static ComplexNumber subtract(ComplexNumber a, double b) {
-        return subtract(a, new Polar(b, 0));
+    public static ComplexNumber subtract(ComplexNumber a, double b) throws IllegalArgumentException {
+        return add(a, -b);
     }
 
     /**
      * Subtracts a complex number from a real number and returns the result.
      * <p>
-     * This method treats the real number {@code a} as a complex number with
-     * magnitude {@code a} and phase {@code 0}, then calls
-     * {@link #subtract(ComplexNumber, ComplexNumber)} to perform the subtraction.
+     * The result is returned as a {@link Polar} if {@code b} is an instance of
+     * {@link Polar}; otherwise, it is returned in {@link Rectangular} form.
      *
      * @param a the real number to subtract from
      * @param b the complex number to subtract
      * @return the resulting {@link ComplexNumber} after subtraction
+     * @throws IllegalArgumentException if {@code b} is {@code null}
      */
-    public static ComplexNumber subtract(double a, ComplexNumber b) {
-        return subtract(new Polar(a, 0), b);
+    public static ComplexNumber subtract(double a, ComplexNumber b) throws IllegalArgumentException {
+        if (b == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if(b instanceof Polar)
+            return Polar.deferred(new Rectangular(a - b.real(), -b.imag()));
+
+        return new Rectangular(a - b.real(), -b.imag());
     }
 
     //HELPER METHOD
@@ -182,9 +295,18 @@ public abstract class ComplexNumber {
         if (a == null || b == null)
             throw new IllegalArgumentException("Input complex numbers must not be null.");
         
-        if(a instanceof Polar && b instanceof Polar)
-            return new Polar(a.modulus()*b.modulus(), a.phase()+b.phase());
+        if(a instanceof Polar pa && b instanceof Polar pb) {
+            if (pa.hasPolarForm() && pb.hasPolarForm())
+                return new Polar(a.modulus()*b.modulus(), a.phase()+b.phase());
+
+            return Polar.deferred(multiplyRect(a, b));
+        }
+
+        return multiplyRect(a, b);
+    }
 
+    //HELPER METHOD
+    private static Rectangular multiplyRect(ComplexNumber a, ComplexNumber b) {
         return new Rectangular(a.real()*b.real() - a.imag()*b.imag(),
                                 a.real()*b.imag() + a.imag()*b.real());
     }
@@ -211,35 +333,93 @@ public abstract class ComplexNumber {
         ComplexNumber product = new Polar(1, 0);
 
         for(Object arg : args) {
-            ComplexNumber z;
-
-            if(arg instanceof ComplexNumber z1)
-                z = z1;
+            if(arg instanceof ComplexNumber z)
+                product = multiplyH(z, product);
             else if(arg instanceof Double d)
-                z = new Polar(d, 0);
+                product = multiply(product, (double) d);
             else if(arg instanceof Integer i)
-                z = new Polar(i, 0);
+                product = multiply(product, (double) i);
             else
                 throw new IllegalArgumentException("Input arguments need to be either a complex number or a real number");
-
-            product = multiplyH(z, product);
         }
 
         return product;
     }
 
+    /**
+     * Multiplies two complex numbers and returns the result.
+     * <p>
+     * The product is represented as a {@link Polar} complex number if both inputs are
+     * instances of {@link Polar}; otherwise, it is returned in {@link Rectangular} form.
+     * Unlike {@link #multiply(Object...)}, this method does not box its arguments or
+     * allocate a varargs array.
+     *
+     * @param a the first complex number
+     * @param b the second complex number
+     * @return the product as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if either {@code a} or {@code b} is {@code null}
+     */
+    public static ComplexNumber multiply(ComplexNumber a, ComplexNumber b) throws IllegalArgumentException {
+        return multiplyH(a, b);
+    }
+
+    /**
+     * Multiplies a complex number by a real number and returns the result.
+     * <p>
+     * A {@link Polar} input is scaled by multiplying its radius, which keeps its
+     * phase and needs no trigonometry; any other input is scaled component-wise
+     * and returned in {@link Rectangular} form.
+     *
+     * @param a the complex number
+     * @param b the real factor
+     * @return the product as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static ComplexNumber multiply(ComplexNumber a, double b) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if(a instanceof Polar pa) {
+            if (pa.hasPolarForm())
+                return new Polar(a.modulus()*b, a.phase());
+
+            return Polar.deferred(new Rectangular(a.real()*b, a.imag()*b));
+        }
+
+        return new Rectangular(a.real()*b, a.imag()*b);
+    }
+
+    /**
+     * Multiplies a real number by a complex number and returns the result.
+     * <p>
+     * This method is equivalent to {@link #multiply(ComplexNumber, double)} with
+     * the operands swapped.
+     *
+     * @param a the real factor
+     * @param b the complex number
+     * @return the product as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public static ComplexNumber multiply(double a, ComplexNumber b) throws IllegalArgumentException {
+        return multiply(b, a);
+    }
+
     /**
      * Divides one complex number by another and returns the result.
      * <p>
      * This method computes {@code a / b} for two {@link ComplexNumber} objects.
-     * The division is performed in polar form by dividing the magnitudes and
-     * subtracting the phases:
+     * When the modulus and phase of both operands are known, the division is
+     * performed in polar form by dividing the magnitudes and subtracting the phases:
      * <pre>
      *     r = a.modulus() / b.modulus()
      *     θ = a.phase() - b.phase()
      * </pre>
+     * Otherwise it is performed in rectangular form with Smith's algorithm, which
+     * scales by the larger component of the divisor to avoid intermediate overflow.
+     * Both forms divide a nonzero number by zero to an infinity in the direction
+     * of the dividend, e.g. {@code 1 / 0 = ∞ + 0i}.
      * The result is represented as a {@link Polar} complex number if both inputs
-     * are instances of {@link Polar}; otherwise, it is converted to a
+     * are instances of {@link Polar}; otherwise, it is returned in
      * {@link Rectangular} form.
      *
      * @param a the dividend (the complex number to be divided)
@@ -252,43 +432,81 @@ public abstract class ComplexNumber {
         if (a == null || b == null)
             throw new IllegalArgumentException("Input complex numbers must not be null.");
 
-        Polar soln = new Polar(a.modulus() / b.modulus(), a.phase() - b.phase());
+        if(a instanceof Polar pa && b instanceof Polar pb) {
+            if (pa.hasPolarForm() && pb.hasPolarForm())
+                return new Polar(a.modulus() / b.modulus(), a.phase() - b.phase());
 
-        if(a instanceof Polar && b instanceof Polar)
-            return soln;
+            return Polar.deferred(divideRect(a, b));
+        }
 
-        return soln.toComplexRect();
+        return divideRect(a, b);
+    }
+
+    //HELPER METHOD
+    private static Rectangular divideRect(ComplexNumber a, ComplexNumber b) {
+        double[] w = new double[2];
+        ComplexMath.divide(a.real(), a.imag(), b.real(), b.imag(), w);
+        return new Rectangular(w[0], w[1]);
     }
 
     /**
      * Divides a complex number by a real number and returns the result.
      * <p>
-     * This method treats the real number {@code b} as a complex number with
-     * magnitude {@code b} and phase {@code 0}, then calls
-     * {@link #divide(ComplexNumber, ComplexNumber)} to perform the division.
+     * A {@link Polar} input is divided by scaling its radius, which keeps its
+     * phase and needs no trigonometry; any other input is divided component-wise
+     * and returned in {@link Rectangular} form.
      *
      * @param a the complex number to be divided
      * @param b the real number to divide by
      * @return the resulting {@link ComplexNumber} after division
+     * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static ComplexNumber divide(ComplexNumber a, double b) {
-        return divide(a, new Polar(b, 0));
+    public static ComplexNumber divide(ComplexNumber a, double b) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if(a instanceof Polar pa) {
+            if (pa.hasPolarForm())
+                return new Polar(a.modulus()/b, a.phase());
+
+            return Polar.deferred(new Rectangular(a.real()/b, a.imag()/b));
+        }
+
+        return new Rectangular(a.real()/b, a.imag()/b);
     }
 
     
     /**
      * Divides a real number by a complex number and returns the result.
      * <p>
-     * This method treats the real number {@code a} as a complex number with
-     * magnitude {@code a} and phase {@code 0}, then calls
-     * {@link #divide(ComplexNumber, ComplexNumber)} to perform the division.
+     * For a {@link Polar} divisor the result is {@code (a / r) ∠ -θ}. For any other
+     * divisor it is computed in rectangular form as
+     * <pre>
+     *     a / (x + yi) = a(x - yi) / (x² + y²)
+     * </pre>
+     * with Smith's algorithm, as in {@link #divide(ComplexNumber, ComplexNumber)},
+     * so that {@code x² + y²} does not overflow or underflow, and returned as a
+     * {@link Rectangular}.
      *
      * @param a the real number to be divided
      * @param b the complex number to divide by
      * @return the resulting {@link ComplexNumber} after division
+     * @throws IllegalArgumentException if {@code b} is {@code null}
      */
-    public static ComplexNumber divide(double a, ComplexNumber b) {
-        return divide(new Polar(a, 0), b);
+    public static ComplexNumber divide(double a, ComplexNumber b) throws IllegalArgumentException {
+        if (b == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if(b instanceof Polar pb && pb.hasPolarForm())
+            return new Polar(a/b.modulus(), -b.phase());
+
+        double[] w = new double[2];
+        ComplexMath.divide(a, 0, b.real(), b.imag(), w);
+
+        if(b instanceof Polar)
+            return Polar.deferred(new Rectangular(w[0], w[1]));
+
+        return new Rectangular(w[0], w[1]);
     }
     
     
@@ -301,6 +519,8 @@ public abstract class ComplexNumber {
      *     a^b = rₐ^{b.real()} * e^{-b.imag() * θₐ} ∠ (b.imag() * ln(rₐ) + b.real() * θₐ)
      * </pre>
      * where {@code rₐ} and {@code θₐ} are the modulus and phase of {@code a}, respectively.
+     * A zero base gives {@code 0} for exponents with a positive real part and
+     * {@code 1} for a zero exponent.
      * <p>
      * The result is represented as a {@link Polar} complex number if both inputs are
      * instances of {@link Polar}; otherwise, it is converted to a {@link Rectangular} form.
@@ -315,10 +535,7 @@ public abstract class ComplexNumber {
         if (a == null || b == null)
             throw new IllegalArgumentException("Input complex numbers must not be null.");
 
-        double n1 = Math.pow(a.modulus(), b.real()) * Math.pow(Math.E, -b.imag()*a.phase());
-        double n2 = b.imag() * Math.log(a.modulus()) + b.real() * a.phase();
-        
-        Polar soln = new Polar(n1, n2);
+        Polar soln = powerPolar(a.modulus(), a.phase(), b.real(), b.imag());
 
         if(a instanceof Polar && b instanceof Polar)
             return soln;
@@ -326,104 +543,346 @@ public abstract class ComplexNumber {
         return soln.toComplexRect();
     }
 
+    //HELPER METHOD
+    private static Polar powerPolar(double r, double theta, double br, double bi) {
+        if (r == 0 && br > 0)
+            // 0^b = 0 when Re(b) > 0; the general formula would take 0 * ln(0)
+            return new Polar(0, 0);
+        if (bi == 0)
+            return new Polar(Math.pow(r, br), br * theta);
+
+        double n1 = Math.pow(r, br) * Math.exp(-bi*theta);
+        double n2 = bi * Math.log(r) + br * theta;
+        return new Polar(n1, n2);
+    }
+
     /**
      * Raises a complex number to a real power and returns the result.
      * <p>
-     * This method treats the real number {@code b} as a complex number with
-     * magnitude {@code b} and phase {@code 0}, then calls
-     * {@link #power(ComplexNumber, ComplexNumber)} to perform the computation.
+     * With a real exponent the general formula reduces to
+     * <pre>
+     *     a^b = rₐ^b ∠ (b * θₐ)
+     * </pre>
+     * so no logarithm or exponential of the phase is needed, and {@code 0^b} is
+     * well defined for positive {@code b}.
+     * <p>
+     * The result is represented as a {@link Polar} complex number if {@code a} is an
+     * instance of {@link Polar}; otherwise, it is converted to a {@link Rectangular} form.
      *
      * @param a the base complex number
      * @param b the real-number exponent
      * @return the resulting {@link ComplexNumber} after exponentiation
+     * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static ComplexNumber power(ComplexNumber a, double b) {
-        return power(a, new Polar(b, 0));
+    public static ComplexNumber power(ComplexNumber a, double b) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        Polar soln = new Polar(Math.pow(a.modulus(), b), b * a.phase());
+
+        if(a instanceof Polar)
+            return soln;
+
+        return soln.toComplexRect();
     }
-    
+
+    /**
+     * Raises a complex number to an integer power and returns the result.
+     * <p>
+     * This overload is selected for integer literals such as {@code power(z, 2)}.
+     * A {@link Rectangular} base is raised by binary exponentiation in rectangular
+     * form, which takes about {@code 2 log₂|n|} complex multiplications and no
+     * call to {@code pow}, {@code log} or the trigonometric functions; a negative
+     * exponent starts with one reciprocal computed with Smith's algorithm, so
+     * that tiny results such as {@code power(1e10, -31)} do not underflow on the
+     * way. A result that overflows falls back to {@code rⁿ ∠ nθ}, which gives
+     * {@code ∞ + 0i} rather than {@code NaN} parts. The
+     * result is exact whenever the intermediate products are, e.g.
+     * {@code power(i, 2)} is exactly {@code -1}, and {@code z^0} is {@code 1}
+     * for every {@code z}.
+     * <p>
+     * A {@link Polar} base gives a {@link Polar} result {@code rⁿ ∠ nθ}.
+     *
+     * @param a the base complex number
+     * @param n the integer exponent
+     * @return the resulting {@link ComplexNumber} after exponentiation
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static ComplexNumber power(ComplexNumber a, int n) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (a instanceof Polar)
+            return new Polar(Math.pow(a.modulus(), n), n * a.phase());
+
+        double[] w = parts(a);
+        ComplexMath.pow(w[0], w[1], n, w);
+        return new Rectangular(w[0], w[1]);
+    }
+
+    /**
+     * Computes the square of a complex number.
+     * <pre>
+     *     z² = (x - y)(x + y) + 2xy i
+     * </pre>
+     * The factored real part avoids the cancellation of {@code x² - y²}.
+     *
+     * @param z the complex number to square
+     * @return {@code z²}, as a {@link Polar} if {@code z} is one, otherwise as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber square(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (z instanceof Polar)
+            return new Polar(z.modulus() * z.modulus(), 2 * z.phase());
+
+        double x = z.real(), y = z.imag();
+        return new Rectangular((x - y) * (x + y), 2*x*y);
+    }
+
+    /**
+     * Computes the cube of a complex number.
+     * <pre>
+     *     z³ = x(x² - 3y²) + y(3x² - y²) i
+     * </pre>
+     *
+     * @param z the complex number to cube
+     * @return {@code z³}, as a {@link Polar} if {@code z} is one, otherwise as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber cube(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (z instanceof Polar) {
+            double r = z.modulus();
+            return new Polar(r*r*r, 3 * z.phase());
+        }
+
+        double x = z.real(), y = z.imag();
+        double x2 = x*x, y2 = y*y;
+        return new Rectangular(x * (x2 - 3*y2), y * (3*x2 - y2));
+    }
+
     /**
      * Raises a real number to a complex power and returns the result.
      * <p>
-     * This method treats the real number {@code a} as a complex number with
-     * magnitude {@code a} and phase {@code 0}, then calls
-     * {@link #power(ComplexNumber, ComplexNumber)} to perform the computation.
+     * The base is used directly as a modulus {@code |a|} and a phase of {@code 0}
+     * (or {@code π} when {@code a} is negative) in the formula of
+     * {@link #power(ComplexNumber, ComplexNumber)}, without creating a {@link Polar} for it,
+     * so a zero base gives the same results as there.
+     * <p>
+     * The result is represented as a {@link Polar} complex number if {@code b} is an
+     * instance of {@link Polar}; otherwise, it is converted to a {@link Rectangular} form.
      *
      * @param a the real-number base
      * @param b the complex-number exponent
      * @return the resulting {@link ComplexNumber} after exponentiation
-    */
-    public static ComplexNumber power(double a, ComplexNumber b) {
-        return power(new Polar(a, 0), b);
+     * @throws IllegalArgumentException if {@code b} is {@code null}
+     */
+    public static ComplexNumber power(double a, ComplexNumber b) throws IllegalArgumentException {
+        if (b == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        Polar soln = powerPolar(Math.abs(a), a < 0 ? Math.PI : 0, b.real(), b.imag());
+
+        if(b instanceof Polar)
+            return soln;
+
+        return soln.toComplexRect();
     }
 
     /**
-     * Computes the principal square root of a complex number.
+     * Computes the principal square root of a complex number, the root with a
+     * non-negative real part.
      * <p>
-     * This method returns the square root of the given complex number {@code z}
-     * by raising it to the power of 0.5 using
-     * {@link #power(ComplexNumber, double)}.
+     * The root is computed in closed form,
+     * <pre>
+     *     t = √((|x| + |z|) / 2)
+     *     √z = t + i y/(2t)           if x ≥ 0
+     *     √z = |y|/(2t) ± i t         if x &lt; 0, with the sign of y
+     * </pre>
+     * without the logarithm and exponential of {@code power(z, 0.5)}, so perfect
+     * squares give exact roots, e.g. {@code sqrt(-4)} is exactly {@code 2i}, and
+     * the root of a finite number is finite even where {@code |z|} overflows.
+     * On the negative real axis the root is the one with a positive imaginary part.
+     * A {@link Polar} argument gives {@code √r ∠ θ/2} directly.
      *
      * @param z the complex number whose square root is to be computed
-     * @return the principal square root of {@code z} as a {@link ComplexNumber}
+     * @return the principal square root of {@code z}, as a {@link Polar} if {@code z} is one,
+     *         otherwise as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber sqrt(ComplexNumber z) throws IllegalArgumentException {
+        if (z instanceof Polar)
+            return new Polar(Math.sqrt(z.modulus()), z.phase() / 2);
+
+        double[] w = parts(z);
+        ComplexMath.sqrt(w[0], w[1], w);
+        return like(z, w);
+    }
+
+    //HELPER METHOD
+    private static double[] parts(ComplexNumber z) {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        return new double[] {z.real(), z.imag()};
+    }
+
+    //HELPER METHOD
+    private static ComplexNumber like(ComplexNumber z, double[] w) {
+        Rectangular soln = new Rectangular(w[0], w[1]);
+
+        if(z instanceof Polar)
+            return soln.toComplexPolar();
+
+        return soln;
+    }
+
+    /**
+     * Computes the complex exponential of a complex number.
+     * <p>
+     * For {@code z = x + yi} the exponential is evaluated directly as
+     * <pre>
+     *     e^z = e^x * (cos(y) + i*sin(y))
+     * </pre>
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
+     *
+     * @param z the exponent
+     * @return {@code e} raised to the power {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber sqrt(ComplexNumber z) {
-        return power(z, 0.5);
+    public static ComplexNumber exp(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.exp(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
      * Computes the sine of a complex number.
      * <p>
-     * This method evaluates the sine of the given complex number {@code z} using
-     * the complex exponential definition:
+     * For {@code z = x + yi} the sine is evaluated with real functions only:
      * <pre>
-     *     sin(z) = (e^(i*z) - e^(-i*z)) / (2i)
+     *     sin(z) = sin(x)*cosh(y) + i*cos(x)*sinh(y)
      * </pre>
-     * where {@code i} is the imaginary unit.
+     * which equals {@code (e^(i*z) - e^(-i*z)) / (2i)}.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
      * @param z the complex number whose sine is to be computed
      * @return the sine of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber sin(ComplexNumber z) {
-        ComplexNumber z1 = power(Math.E, multiply(I, z)); //e^iz
-        ComplexNumber z2 = power(Math.E, multiply(-1, I, z)); //e^-iz
-
-        return divide(subtract(z1, z2), multiply(2, I)); //(e^iz - e^-iz) / 2i
+    public static ComplexNumber sin(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.sin(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
      * Computes the cosine of a complex number.
      * <p>
-     * This method evaluates the cosine of the given complex number {@code z} using
-     * the complex exponential definition:
+     * For {@code z = x + yi} the cosine is evaluated with real functions only:
      * <pre>
-     *     cos(z) = (e^(i*z) + e^(-i*z)) / (2)
+     *     cos(z) = cos(x)*cosh(y) - i*sin(x)*sinh(y)
      * </pre>
-     * where {@code i} is the imaginary unit.
+     * which equals {@code (e^(i*z) + e^(-i*z)) / 2}.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
-     * @param z the complex number whose sine is to be computed
+     * @param z the complex number whose cosine is to be computed
      * @return the cosine of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber cos(ComplexNumber z) {
-        ComplexNumber z1 = power(Math.E, multiply(I, z)); //e^iz
-        ComplexNumber z2 = power(Math.E, multiply(-1, I, z)); //e^-iz
-
-        return divide(add(z1, z2), 2); // (e^iz + e^-iz) / 2
+    public static ComplexNumber cos(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.cos(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
      * Computes the tangent of a complex number.
      * <p>
-     * This method evaluates the tangent of the given complex number {@code z} as
-     * the ratio of its sine and cosine:
-     * <pre>
-     *     tan(z) = sin(z) / cos(z)
-     * </pre>
+     * The tangent is evaluated as {@code tan(z) = -i*tanh(i*z)}, see
+     * {@link #tanh(ComplexNumber)}, which needs one real {@code tan} and one
+     * {@code sinh} instead of a complex sine and cosine.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
      * @param z the complex number whose tangent is to be computed
      * @return the tangent of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber tan(ComplexNumber z) {
-        return divide(sin(z), cos(z));
+    public static ComplexNumber tan(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.tan(w[0], w[1], w);
+        return like(z, w);
+    }
+
+    /**
+     * Computes the hyperbolic sine of a complex number.
+     * <p>
+     * For {@code z = x + yi} the hyperbolic sine is evaluated as
+     * <pre>
+     *     sinh(z) = sinh(x)*cos(y) + i*cosh(x)*sin(y)
+     * </pre>
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
+     *
+     * @param z the complex number whose hyperbolic sine is to be computed
+     * @return the hyperbolic sine of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber sinh(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.sinh(w[0], w[1], w);
+        return like(z, w);
+    }
+
+    /**
+     * Computes the hyperbolic cosine of a complex number.
+     * <p>
+     * For {@code z = x + yi} the hyperbolic cosine is evaluated as
+     * <pre>
+     *     cosh(z) = cosh(x)*cos(y) + i*sinh(x)*sin(y)
+     * </pre>
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
+     *
+     * @param z the complex number whose hyperbolic cosine is to be computed
+     * @return the hyperbolic cosine of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber cosh(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.cosh(w[0], w[1], w);
+        return like(z, w);
+    }
+
+    /**
+     * Computes the hyperbolic tangent of a complex number.
+     * <p>
+     * For {@code z = x + yi} the hyperbolic tangent is evaluated with Kahan's formula:
+     * <pre>
+     *     t = tan(y),  β = 1 + t²,  s = sinh(x),  ρ = √(1 + s²)
+     *     tanh(z) = (β*ρ*s + i*t) / (1 + β*s²)
+     * </pre>
+     * which stays accurate, and free of overflow, for large {@code |x|}.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
+     *
+     * @param z the complex number whose hyperbolic tangent is to be computed
+     * @return the hyperbolic tangent of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber tanh(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.tanh(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
@@ -454,68 +913,91 @@ public abstract class ComplexNumber {
     /**
      * Computes the inverse sine (arcsine) of a complex number.
      * <p>
-     * This method evaluates the arcsine of the given complex number {@code z} using
-     * the standard complex formula:
+     * The result is the principal value of {@code asin(z) = -i * ln(i*z + √(1 - z²))},
+     * evaluated with Kahan's formula:
      * <pre>
-     *     asin(z) = -i * ln(i*z + √(1 - z²))
+     *     asin(z) = atan(x / Re(√(1-z)*√(1+z))) + i*asinh(Im(conj(√(1-z))*√(1+z)))
      * </pre>
-     * where {@code i} is the imaginary unit.
+     * which avoids the cancellation in {@code i*z + √(1 - z²)} for large {@code |z|}.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
      * @param z the complex number whose arcsine is to be computed
      * @return the arcsine of {@code z} as a {@link ComplexNumber}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber asin(ComplexNumber z) {
-        ComplexNumber z1 = sqrt(subtract(1, power(z, 2))); // √(1 - z²)
-
-        return multiply(-1, I, log(add(multiply(I, z), z1))); // -i*ln[iz + √(1 - z²)]
+    public static ComplexNumber asin(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.asin(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
      * Computes the inverse cosine (arccosine) of a complex number.
      * <p>
-     * This method evaluates the arccosine of the given complex number {@code z} using
-     * the standard complex formula:
+     * The result is the principal value of {@code acos(z) = -i * ln(z + i * √(1 - z²))},
+     * evaluated with Kahan's formula:
      * <pre>
-     *     acos(z) = -i * ln(z + i * √(1 - z²))
+     *     acos(z) = 2*atan(Re(√(1-z)) / Re(√(1+z))) + i*asinh(Im(conj(√(1+z))*√(1-z)))
      * </pre>
-     * where {@code i} is the imaginary unit.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
      * @param z the complex number whose arccosine is to be computed
      * @return the arccosine of {@code z} as a {@link ComplexNumber}
      * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber acos(ComplexNumber z) {
-        ComplexNumber z1 = sqrt(subtract(1, power(z, 2))); // √(1 - z²)
-
-        return multiply(-1, I, log(add(z, multiply(I, z1)))); // -i∙ln[z + i√(1 - z²)]
+    public static ComplexNumber acos(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.acos(w[0], w[1], w);
+        return like(z, w);
     }
 
     /**
      * Computes the inverse tangent (arctangent) of a complex number.
      * <p>
-     * This method evaluates the arctangent of the given complex number {@code z} using
-     * the standard complex formula:
+     * The result is the principal value of {@code atan(z) = (1 / 2i) * ln((1 + i*z) / (1 - i*z))},
+     * evaluated in closed form for {@code z = x + yi}:
      * <pre>
-     *     atan(z) = (1 / 2i) * ln((1 + i*z) / (1 - i*z))
+     *     Re atan(z) = atan2(2x, (1 - x)(1 + x) - y²) / 2
+     *     Im atan(z) = log1p(4y / (x² + (1 - y)²)) / 4
      * </pre>
-     * where {@code i} is the imaginary unit.
+     * If the input {@code z} is an instance of {@link Polar}, the result is returned
+     * in polar form; otherwise, it is returned in rectangular form.
      *
      * @param z the complex number whose arctangent is to be computed
      * @return the arctangent of {@code z} as a {@link ComplexNumber}
      * @throws IllegalArgumentException if {@code z} is {@code null}
      */
-    public static ComplexNumber atan(ComplexNumber z) {
-        ComplexNumber z1 = add(1, multiply(I, z)); // 1 + iz
-        ComplexNumber z2 = subtract(1, multiply(I, z)); // 1 - iz
-
-        return divide(log(divide(z1, z2)), multiply(I, 2)); // ln[(1+iz)/(1-iz)]/2i
+    public static ComplexNumber atan(ComplexNumber z) throws IllegalArgumentException {
+        double[] w = parts(z);
+        ComplexMath.atan(w[0], w[1], w);
+        return like(z, w);
     }
 
-    public static Rectangular[] nthRootsOfUnity(int n) {
+    /**
+     * Returns the {@code n}-th roots of unity.
+     * <p>
+     * The {@code k}-th element is {@code e^(2πik/n)}, for {@code k = 0, 1, ..., n-1}.
+     * The values are read from a cached {@link RootsOfUnity} table, so repeated
+     * calls with the same {@code n} need no trigonometry; use
+     * {@link RootsOfUnity#of(int)} directly to avoid creating the objects as well.
+     *
+     * @param n the number of roots
+     * @return the {@code n}-th roots of unity in rectangular form, empty if {@code n} is zero
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static Rectangular[] nthRootsOfUnity(int n) throws IllegalArgumentException {
+        if (n < 0)
+            throw new IllegalArgumentException("The number of roots must not be negative.");
+
         Rectangular[] roots = new Rectangular[n];
-        
+        if (n == 0)
+            return roots;
+
+        RootsOfUnity table = RootsOfUnity.of(n);
         for(int i = 0; i < n; i++) {
-            roots[i] = new Polar(1, 2*Math.PI*i/n).toComplexRect();
+            roots[i] = table.get(i);
         }
         return roots;
     }
@@ -0,0 +1,401 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * A generator of the phasors {@code e^(i(φ + kθ))}, {@code k = 0, 1, 2, ...},
+ * the values of {@code new Polar(1, φ + k*θ)}, without a sine and a cosine
+ * per sample and without creating objects.
+ * <p>
+ * Successive values are produced by complex multiplication. Eight values are
+ * advanced at a time, each by {@code e^(8iθ)}, so the multiplications are
+ * independent and run in parallel instead of waiting for each other. Every
+ * {@value #PERIOD} samples the values are renormalized: they are recomputed
+ * with {@code cos} and {@code sin} from the phase, which is kept exactly as an
+ * integer count of {@code 2^-128} turns, as a numerically controlled oscillator
+ * does. The rounding errors of the multiplications therefore never accumulate
+ * over more than one period, and the phase does not drift however long the
+ * oscillator runs. After {@code 10^9} samples the error is below
+ * {@code 1e-14}, where multiplying by {@code e^(iθ)} alone has drifted by about
+ * {@code 3e-8}, and {@code new Polar(1, k*θ)} is off by as much because
+ * {@code k*θ} itself is rounded.
+ * <p>
+ * The frequency and the phase can be changed between two samples; the values
+ * continue from the next sample with the new settings. An oscillator is not
+ * safe for use by several threads.
+ */
+public final class ComplexOscillator {
+
+    /** The number of values advanced together. */
+    final static int LANES = 8;
+
+    /** The number of samples between two renormalizations. */
+    final static int PERIOD = 1024;
+
+    final private static int GROUPS = PERIOD / LANES;
+
+    final private static BigDecimal TWO_PI_DECIMAL = new BigDecimal(
+            "6.283185307179586476925286766559005768394338798750211641949889184615632812572417997256069650684");
+    final private static MathContext MC = new MathContext(60);
+    final private static BigInteger TURN = BigInteger.ONE.shiftLeft(128);
+
+    /** 2π in two parts, the second the rounding error of the first. */
+    final private static double TWO_PI_HI = 6.283185307179586, TWO_PI_LO = 2.4492935982947064e-16;
+
+    /** The frequency in radians per sample, as given. */
+    private double theta;
+
+    /** The phase increment per sample and per period, in 2^-128 turns, as the high and low 64 bits. */
+    private long incHi, incLo, stepHi, stepLo;
+
+    /** The phase of the first sample of the current period, in 2^-128 turns. */
+    private long accHi, accLo;
+
+    /** {@code e^(ijθ)} for each lane {@code j}, and {@code e^(8iθ)}. */
+    final private double[] tr = new double[LANES], ti = new double[LANES];
+    private double wr, wi;
+
+    /** The values of the current group of samples. */
+    final private double[] lr = new double[LANES], li = new double[LANES];
+
+    /** The index of the current group in the period and of the next sample in the group. */
+    private int group, lane;
+
+    /**
+     * Constructs an oscillator with phase 0.
+     *
+     * @param theta the frequency in radians per sample
+     * @throws IllegalArgumentException if {@code theta} is not finite
+     */
+    public ComplexOscillator(double theta) throws IllegalArgumentException {
+        this(theta, 0);
+    }
+
+    /**
+     * Constructs an oscillator whose first value is {@code e^(iφ)}.
+     *
+     * @param theta the frequency in radians per sample
+     * @param phase the phase {@code φ} of the first value in radians
+     * @throws IllegalArgumentException if {@code theta} or {@code phase} is not finite
+     */
+    public ComplexOscillator(double theta, double phase) throws IllegalArgumentException {
+        checkFinite(theta, "frequency");
+        checkFinite(phase, "phase");
+
+        frequency(theta);
+        BigInteger acc = turns(phase);
+        accHi = acc.shiftRight(64).longValue();
+        accLo = acc.longValue();
+        start();
+    }
+
+    //HELPER METHOD
+    private static void checkFinite(double v, String what) {
+        if (!(Math.abs(v) < Double.POSITIVE_INFINITY))
+            throw new IllegalArgumentException("Oscillator " + what + " must be finite.");
+    }
+
+    /**
+     * Returns the frequency.
+     *
+     * @return the frequency in radians per sample
+     */
+    public double frequency() {
+        return theta;
+    }
+
+    /**
+     * Changes the frequency from the next sample on, keeping the phase
+     * continuous: the next value is the one the old frequency would have given.
+     *
+     * @param theta the new frequency in radians per sample
+     * @throws IllegalArgumentException if {@code theta} is not finite
+     */
+    public void setFrequency(double theta) throws IllegalArgumentException {
+        checkFinite(theta, "frequency");
+
+        BigInteger next = nextPhase();
+        frequency(theta);
+        accHi = next.shiftRight(64).longValue();
+        accLo = next.longValue();
+        start();
+    }
+
+    /**
+     * Returns the phase of the next value.
+     *
+     * @return the phase in radians, in [-π, π)
+     */
+    public double phase() {
+        BigInteger next = nextPhase();
+        double[] a = new double[2];
+        angle(next.shiftRight(64).longValue(), next.longValue(), a);
+        return a[0];
+    }
+
+    /**
+     * Sets the phase of the next value; the following values advance from it
+     * at the current frequency.
+     *
+     * @param phase the phase in radians
+     * @throws IllegalArgumentException if {@code phase} is not finite
+     */
+    public void setPhase(double phase) throws IllegalArgumentException {
+        checkFinite(phase, "phase");
+
+        BigInteger acc = turns(phase);
+        accHi = acc.shiftRight(64).longValue();
+        accLo = acc.longValue();
+        start();
+    }
+
+    /**
+     * Returns the next value.
+     *
+     * @return the next phasor
+     */
+    public Rectangular next() {
+        if (lane == LANES)
+            nextGroup();
+        Rectangular z = new Rectangular(lr[lane], li[lane]);
+        lane++;
+        return z;
+    }
+
+    /**
+     * Writes the next {@code re.length} values into two arrays.
+     *
+     * @param re the destination for the real parts
+     * @param im the destination for the imaginary parts
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public void fill(double[] re, double[] im) throws IllegalArgumentException {
+        if (re == null || im == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (re.length != im.length)
+            throw new IllegalArgumentException("All arrays must have the same length.");
+
+        run(re, im, 0, re.length, false);
+    }
+
+    /**
+     * Writes the next values into the range {@code [from, to)} of two arrays.
+     *
+     * @param re the destination for the real parts
+     * @param im the destination for the imaginary parts
+     * @param from the first index written
+     * @param to the index after the last one written
+     * @throws IllegalArgumentException if either array is {@code null} or the range is out of bounds
+     */
+    public void fill(double[] re, double[] im, int from, int to) throws IllegalArgumentException {
+        checkRange(re, im, from, to);
+
+        run(re, im, from, to, false);
+    }
+
+    /**
+     * Writes the next {@code a.length()} values into a complex array.
+     *
+     * @param a the destination
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public void fill(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+
+        run(a.realParts(), a.imagParts(), 0, a.length(), false);
+    }
+
+    /**
+     * Multiplies the samples in the range {@code [from, to)} of two arrays in
+     * place by the next values, which shifts their frequency by {@code θ}.
+     *
+     * @param re the real parts of the samples
+     * @param im the imaginary parts of the samples
+     * @param from the first index
+     * @param to the index after the last one
+     * @throws IllegalArgumentException if either array is {@code null} or the range is out of bounds
+     */
+    public void mix(double[] re, double[] im, int from, int to) throws IllegalArgumentException {
+        checkRange(re, im, from, to);
+
+        run(re, im, from, to, true);
+    }
+
+    //HELPER METHOD
+    private static void checkRange(double[] re, double[] im, int from, int to) {
+        if (re == null || im == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (from < 0 || from > to || to > re.length || to > im.length)
+            throw new IllegalArgumentException("Range must lie within the arrays.");
+    }
+
+    //HELPER METHOD
+    private void run(double[] re, double[] im, int from, int to, boolean multiply) {
+        double[] lr = this.lr, li = this.li;
+        int i = from;
+        while (i < to) {
+            if (lane == LANES && to - i >= LANES && group < GROUPS - 1) {
+                // whole groups up to the end of the period or of the range
+                int groups = Math.min((to - i) / LANES, GROUPS - 1 - group);
+                double c = wr, s = wi;
+                for (int g = 0; g < groups; g++, i += LANES) {
+                    for (int j = 0; j < LANES; j++) {
+                        double x = lr[j], y = li[j], u = x*c - y*s, v = x*s + y*c;
+                        lr[j] = u;
+                        li[j] = v;
+                        if (multiply) {
+                            x = re[i + j];
+                            y = im[i + j];
+                            re[i + j] = x*u - y*v;
+                            im[i + j] = x*v + y*u;
+                        }
+                        else {
+                            re[i + j] = u;
+                            im[i + j] = v;
+                        }
+                    }
+                }
+                group += groups;
+                continue;
+            }
+            if (lane == LANES)
+                nextGroup();
+
+            int n = Math.min(LANES - lane, to - i), l = lane;
+            if (multiply) {
+                for (int j = 0; j < n; j++) {
+                    double x = re[i + j], y = im[i + j], c = lr[l + j], s = li[l + j];
+                    re[i + j] = x*c - y*s;
+                    im[i + j] = x*s + y*c;
+                }
+            }
+            else {
+                for (int j = 0; j < n; j++) {
+                    re[i + j] = lr[l + j];
+                    im[i + j] = li[l + j];
+                }
+            }
+            lane += n;
+            i += n;
+        }
+    }
+
+    /** Advances the lanes to the next group, renormalizing at the end of a period. */
+    private void nextGroup() {
+        lane = 0;
+        if (++group == GROUPS) {
+            long lo = accLo + stepLo;
+            accHi += stepHi + (Long.compareUnsigned(lo, accLo) < 0 ? 1 : 0);
+            accLo = lo;
+            group = 0;
+            anchor();
+            return;
+        }
+
+        double[] lr = this.lr, li = this.li;
+        double c = wr, s = wi;
+        for (int j = 0; j < LANES; j++) {
+            double x = lr[j], y = li[j];
+            lr[j] = x*c - y*s;
+            li[j] = x*s + y*c;
+        }
+    }
+
+    /** Starts a period at the phase in {@link #accHi} and {@link #accLo}. */
+    private void start() {
+        group = 0;
+        lane = 0;
+        anchor();
+    }
+
+    /** Sets the lanes to {@code e^(i(φ + jθ))} for the phase {@code φ} of the period. */
+    private void anchor() {
+        double[] w = new double[2];
+        expi(accHi, accLo, w);
+        double c = w[0], s = w[1];
+        for (int j = 0; j < LANES; j++) {
+            lr[j] = c*tr[j] - s*ti[j];
+            li[j] = c*ti[j] + s*tr[j];
+        }
+    }
+
+    /** Sets the increments and the lane factors for a frequency. */
+    private void frequency(double theta) {
+        this.theta = theta;
+        BigInteger inc = turns(theta);
+        incHi = inc.shiftRight(64).longValue();
+        incLo = inc.longValue();
+        BigInteger step = inc.multiply(BigInteger.valueOf(PERIOD)).mod(TURN);
+        stepHi = step.shiftRight(64).longValue();
+        stepLo = step.longValue();
+
+        double[] w = new double[2];
+        for (int j = 0; j < LANES; j++) {
+            BigInteger t = inc.multiply(BigInteger.valueOf(j)).mod(TURN);
+            expi(t.shiftRight(64).longValue(), t.longValue(), w);
+            tr[j] = w[0];
+            ti[j] = w[1];
+        }
+        BigInteger t = inc.multiply(BigInteger.valueOf(LANES)).mod(TURN);
+        expi(t.shiftRight(64).longValue(), t.longValue(), w);
+        wr = w[0];
+        wi = w[1];
+    }
+
+    /** Returns the phase of the next sample in 2^-128 turns. */
+    private BigInteger nextPhase() {
+        int index = group * LANES + lane;
+        BigInteger inc = unsigned(incHi, incLo);
+        return unsigned(accHi, accLo).add(inc.multiply(BigInteger.valueOf(index))).mod(TURN);
+    }
+
+    //HELPER METHOD
+    private static BigInteger unsigned(long hi, long lo) {
+        BigInteger h = BigInteger.valueOf(hi).shiftLeft(64);
+        BigInteger l = BigInteger.valueOf(lo >>> 1).shiftLeft(1).or(BigInteger.valueOf(lo & 1));
+        return h.add(l).mod(TURN);
+    }
+
+    /** Returns an angle in radians as a number of 2^-128 turns, modulo one turn. */
+    private static BigInteger turns(double angle) {
+        BigDecimal t = new BigDecimal(angle).divide(TWO_PI_DECIMAL, MC);
+        return t.multiply(new BigDecimal(TURN)).setScale(0, RoundingMode.HALF_EVEN).toBigInteger().mod(TURN);
+    }
+
+    /**
+     * Computes the angle of a phase in 2^-128 turns as a sum {@code out[0] + out[1]}
+     * of doubles, in [-π, π), with an error far below one ulp of the first.
+     */
+    private static void angle(long hi, long lo, double[] out) {
+        // the phase in turns is xh + xl, with xh exact and |xl| < 2^-53
+        double xh = (double) (hi >> 11) * 0x1p-53;
+        double xl = ((hi & 2047) + (lo >>> 11) * 0x1p-53) * 0x1p-64;
+
+        // 2π xh exactly as p + e, with Dekker's product
+        double p = TWO_PI_HI * xh;
+        double ah = split(TWO_PI_HI), al = TWO_PI_HI - ah, bh = split(xh), bl = xh - bh;
+        double e = ((ah*bh - p) + ah*bl + al*bh) + al*bl;
+
+        double low = e + TWO_PI_LO*xh + TWO_PI_HI*xl;
+        double a = p + low;
+        out[0] = a;
+        out[1] = low - (a - p);
+    }
+
+    //HELPER METHOD
+    private static double split(double a) {
+        double t = 134217729.0 * a;
+        return t - (t - a);
+    }
+
+    /** Computes {@code e^(iα)} for a phase {@code α} in 2^-128 turns. */
+    private static void expi(long hi, long lo, double[] out) {
+        angle(hi, lo, out);
+        double a = out[0], da = out[1];
+        double c = Math.cos(a), s = Math.sin(a);
+        out[0] = c - da*s;
+        out[1] = s + da*c;
+    }
+}
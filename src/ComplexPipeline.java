@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A chain of {@link ComplexStage}s between a {@link ComplexSource} and a
+ * {@link ComplexSink}, connected with the reactive-streams interfaces of
+ * {@link java.util.concurrent.Flow}:
+ * <pre>
+ *     ComplexPipeline p = ComplexPipeline.of(
+ *             ComplexStage.mix(-1, 8),
+ *             ComplexStage.fir(taps),
+ *             ComplexStage.decimate(4),
+ *             ComplexStage.gain(2));
+ *     ComplexSink.Collector out = ComplexSink.collect(4);
+ *     p.subscribe(out);
+ *     ComplexSource.of(samples, 4096).subscribe(p);
+ *     out.await();
+ * </pre>
+ * Each {@link ComplexBlock} passes through all stages in place, one after the
+ * other while it is in cache, and is then handed to the subscriber; no block
+ * is copied and none is allocated once the pool is warm. Adjacent stages are
+ * fused when the pipeline is built, see {@link ComplexStage}.
+ * <p>
+ * Backpressure is end to end: the pipeline requests from its source exactly
+ * the blocks its subscriber requests, so a slow sink slows the source down
+ * instead of letting blocks queue up. A block that a stage empties, as
+ * decimation can, is released and replaced by a new request upstream.
+ * Stages run on the thread that delivers {@link #onNext}; a
+ * {@link java.util.concurrent.SubmissionPublisher} of blocks can be
+ * subscribed instead of a {@link ComplexSource} to move the work to an executor.
+ * <p>
+ * A pipeline connects one source to one subscriber, once.
+ */
+public final class ComplexPipeline implements Flow.Processor<ComplexBlock, ComplexBlock> {
+
+    final private ComplexStage[] stages;
+
+    /** Demand of the subscriber not yet requested upstream because no source is connected. */
+    final private AtomicLong pending = new AtomicLong();
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super ComplexBlock> downstream;
+    private volatile boolean cancelled;
+
+    /** Whether the source has completed or failed, with {@link #error} set in the latter case; guarded by this. */
+    private boolean done;
+    private Throwable error;
+
+    //HELPER METHOD
+    private ComplexPipeline(ComplexStage[] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Builds a pipeline of the given stages, fusing adjacent ones.
+     *
+     * @param stages the stages, in the order they process a block
+     * @return the pipeline
+     * @throws IllegalArgumentException if {@code stages} or one of them is {@code null}
+     */
+    public static ComplexPipeline of(ComplexStage... stages) throws IllegalArgumentException {
+        if (stages == null)
+            throw new IllegalArgumentException("Input stages must not be null.");
+
+        List<ComplexStage> fused = new ArrayList<>();
+        for (ComplexStage s : stages) {
+            if (s == null)
+                throw new IllegalArgumentException("Input stages must not be null.");
+
+            ComplexStage f = fused.isEmpty() ? null : fused.get(fused.size() - 1).fuse(s);
+            if (f != null)
+                fused.set(fused.size() - 1, f);
+            else
+                fused.add(s);
+        }
+        return new ComplexPipeline(fused.toArray(new ComplexStage[0]));
+    }
+
+    /**
+     * Returns the stages of this pipeline after fusion.
+     *
+     * @return an unmodifiable list of the stages
+     */
+    public List<ComplexStage> stages() {
+        List<ComplexStage> l = new ArrayList<>(stages.length);
+        Collections.addAll(l, stages);
+        return Collections.unmodifiableList(l);
+    }
+
+    /**
+     * Runs a block through all stages, without a source or a sink. This is
+     * what the pipeline does with every block it receives.
+     *
+     * @param block the block, transformed in place
+     * @throws IllegalArgumentException if {@code block} is {@code null}
+     */
+    public void process(ComplexBlock block) throws IllegalArgumentException {
+        if (block == null)
+            throw new IllegalArgumentException("Input block must not be null.");
+
+        for (ComplexStage s : stages) {
+            if (block.length() == 0)
+                return;
+            s.process(block);
+        }
+    }
+
+    /**
+     * Connects the subscriber that receives the processed blocks. Demand it
+     * signals before a source is connected is requested from the source when
+     * it is.
+     *
+     * @param subscriber the subscriber
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     * @throws IllegalStateException if a subscriber is already connected
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ComplexBlock> subscriber) throws IllegalArgumentException, IllegalStateException {
+        if (subscriber == null)
+            throw new IllegalArgumentException("Input subscriber must not be null.");
+
+        boolean terminated;
+        synchronized (this) {
+            if (downstream != null)
+                throw new IllegalStateException("Pipeline already has a subscriber.");
+            downstream = subscriber;
+            terminated = done;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("Requested number of blocks must be positive."));
+                    return;
+                }
+                Flow.Subscription up = upstream;
+                if (up != null) {
+                    up.request(n);
+                    return;
+                }
+                pending.accumulateAndGet(n, ComplexPipeline::addCapped);
+                // the source may have connected meanwhile and missed this demand
+                up = upstream;
+                if (up != null)
+                    requestPending(up);
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Flow.Subscription up = upstream;
+                if (up != null)
+                    up.cancel();
+            }
+        });
+
+        // a source that ended before the subscriber connected
+        if (terminated) {
+            if (error != null)
+                subscriber.onError(error);
+            else
+                subscriber.onComplete();
+        }
+    }
+
+    /**
+     * Connects the source; called by the source when the pipeline subscribes to it.
+     *
+     * @param subscription the subscription of the source
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        requestPending(subscription);
+    }
+
+    //HELPER METHOD
+    private void requestPending(Flow.Subscription up) {
+        long n = pending.getAndSet(0);
+        if (n > 0)
+            up.request(n);
+    }
+
+    //HELPER METHOD
+    private static long addCapped(long a, long b) {
+        long r = a + b;
+        return r < 0 ? Long.MAX_VALUE : r;
+    }
+
+    /**
+     * Processes a block from the source and passes it on, or releases it and
+     * requests another if the stages emptied it.
+     *
+     * @param block the block
+     */
+    @Override
+    public void onNext(ComplexBlock block) {
+        try {
+            process(block);
+        }
+        catch (RuntimeException e) {
+            block.release();
+            upstream.cancel();
+            downstream.onError(e);
+            return;
+        }
+
+        if (block.length() == 0) {
+            block.release();
+            upstream.request(1);
+            return;
+        }
+        downstream.onNext(block);
+    }
+
+    /**
+     * Passes an error of the source on to the subscriber.
+     *
+     * @param throwable the error
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        Flow.Subscriber<? super ComplexBlock> d;
+        synchronized (this) {
+            done = true;
+            error = throwable;
+            d = downstream;
+        }
+        if (d != null)
+            d.onError(throwable);
+    }
+
+    /**
+     * Passes the end of the stream on to the subscriber.
+     */
+    @Override
+    public void onComplete() {
+        Flow.Subscriber<? super ComplexBlock> d;
+        synchronized (this) {
+            done = true;
+            d = downstream;
+        }
+        if (d != null)
+            d.onComplete();
+    }
+}
@@ -0,0 +1,471 @@
+import java.util.Arrays;
+
+/**
+ * An immutable polynomial with complex coefficients,
+ * <pre>
+ *     p(z) = a[0] + a[1] z + a[2] z² + ... + a[n] zⁿ
+ * </pre>
+ * stored as two primitive arrays of real and imaginary parts in ascending order
+ * of powers, without trailing zero coefficients.
+ * <p>
+ * Evaluation uses Horner's scheme, one complex multiply-add per coefficient and
+ * no objects, instead of computing each power separately. Products of
+ * polynomials of high degree are computed with {@link FFT}. The roots are found
+ * all at once with the Aberth-Ehrlich iteration, which can be split over the
+ * cores with a {@link ParallelComplex}.
+ */
+public final class ComplexPolynomial {
+
+    /** The degree of the smaller factor above which {@link #multiply(ComplexPolynomial)} uses the FFT. */
+    final static int FFT_THRESHOLD = 48;
+
+    /** The largest number of Aberth iterations in {@link #roots()}. */
+    final static int MAX_ITERATIONS = 500;
+
+    /** Horner's rule of degree {@code m} computes {@code p(z)} within about {@code m RESIDUAL Σ |a[j]| |z|^j}. */
+    final private static double RESIDUAL = 0x1p-51;
+
+    /** The real parts of the coefficients, lowest power first. */
+    final private double[] re;
+
+    /** The imaginary parts of the coefficients, lowest power first. */
+    final private double[] im;
+
+    /**
+     * Constructs a polynomial from the real and imaginary parts of its
+     * coefficients, lowest power first. The arrays are copied.
+     *
+     * @param re the real parts of the coefficients
+     * @param im the imaginary parts of the coefficients
+     * @throws IllegalArgumentException if either array is {@code null} or their lengths differ
+     */
+    public ComplexPolynomial(double[] re, double[] im) throws IllegalArgumentException {
+        if (re == null || im == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (re.length != im.length)
+            throw new IllegalArgumentException("Real and imaginary arrays must have the same length.");
+
+        int n = re.length;
+        while (n > 1 && re[n - 1] == 0 && im[n - 1] == 0)
+            n--;
+
+        this.re = Arrays.copyOf(re, Math.max(n, 1));
+        this.im = Arrays.copyOf(im, Math.max(n, 1));
+    }
+
+    /**
+     * Creates a polynomial from its coefficients, lowest power first.
+     *
+     * @param coefficients the coefficients {@code a[0], a[1], ..., a[n]}
+     * @return a new {@link ComplexPolynomial}
+     * @throws IllegalArgumentException if {@code coefficients} or any of its elements is {@code null}
+     */
+    public static ComplexPolynomial of(ComplexNumber... coefficients) throws IllegalArgumentException {
+        ComplexArray a = ComplexArray.of(coefficients);
+        return new ComplexPolynomial(a.realParts(), a.imagParts());
+    }
+
+    /**
+     * Creates the monic polynomial with the given roots, {@code (z - r[0]) (z - r[1]) ... }.
+     *
+     * @param roots the roots, repeated according to their multiplicity
+     * @return a new {@link ComplexPolynomial} of degree {@code roots.length()}
+     * @throws IllegalArgumentException if {@code roots} is {@code null}
+     */
+    public static ComplexPolynomial fromRoots(ComplexArray roots) throws IllegalArgumentException {
+        if (roots == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        int n = roots.length();
+        double[] re = new double[n + 1], im = new double[n + 1];
+        re[0] = 1;
+
+        // multiply by (z - r) one root at a time: c[j] = c[j-1] - r c[j]
+        for (int k = 0; k < n; k++) {
+            double rr = roots.real(k), ri = roots.imag(k);
+            for (int j = k + 1; j >= 0; j--) {
+                double pr = j > 0 ? re[j - 1] : 0, pi = j > 0 ? im[j - 1] : 0;
+                double cr = re[j], ci = im[j];
+                re[j] = pr - (rr*cr - ri*ci);
+                im[j] = pi - (rr*ci + ri*cr);
+            }
+        }
+        return new ComplexPolynomial(re, im);
+    }
+
+    /**
+     * Returns the degree of this polynomial, the highest power with a non-zero
+     * coefficient, or 0 for a constant.
+     *
+     * @return the degree
+     */
+    public int degree() {
+        return re.length - 1;
+    }
+
+    /**
+     * Returns the coefficient of {@code z^k}.
+     *
+     * @param k the power
+     * @return the coefficient as a {@link Rectangular}, zero if {@code k} is above the degree
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public Rectangular coefficient(int k) throws IllegalArgumentException {
+        if (k < 0)
+            throw new IllegalArgumentException("Power must not be negative.");
+
+        return k < re.length ? new Rectangular(re[k], im[k]) : new Rectangular(0, 0);
+    }
+
+    /**
+     * Returns a copy of the real parts of the coefficients, lowest power first.
+     *
+     * @return the real parts, of length {@code degree() + 1}
+     */
+    public double[] realParts() {
+        return re.clone();
+    }
+
+    /**
+     * Returns a copy of the imaginary parts of the coefficients, lowest power first.
+     *
+     * @return the imaginary parts, of length {@code degree() + 1}
+     */
+    public double[] imagParts() {
+        return im.clone();
+    }
+
+    /**
+     * Evaluates this polynomial at {@code x + yi} without creating objects.
+     *
+     * @param x the real part of the point
+     * @param y the imaginary part of the point
+     * @param out the destination; the real part of {@code p(z)} is written to
+     *            {@code out[0]} and the imaginary part to {@code out[1]}
+     */
+    public void evaluate(double x, double y, double[] out) {
+        double pr = re[re.length - 1], pi = im[im.length - 1];
+        for (int k = re.length - 2; k >= 0; k--) {
+            double t = pr*x - pi*y + re[k];
+            pi = pr*y + pi*x + im[k];
+            pr = t;
+        }
+        out[0] = pr;
+        out[1] = pi;
+    }
+
+    /**
+     * Evaluates this polynomial at a point.
+     *
+     * @param z the point
+     * @return {@code p(z)} as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public Rectangular evaluate(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        double[] out = new double[2];
+        evaluate(z.real(), z.imag(), out);
+        return new Rectangular(out[0], out[1]);
+    }
+
+    /**
+     * Evaluates this polynomial at every point of an array.
+     * <pre>
+     *     dst[i] = p(z[i])
+     * </pre>
+     *
+     * @param z the points
+     * @param dst the destination, may be {@code z}
+     * @throws IllegalArgumentException if either array is {@code null} or the lengths differ
+     */
+    public void evaluate(ComplexArray z, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(z, z, dst);
+
+        double[] zr = z.realParts(), zi = z.imagParts(), dr = dst.realParts(), di = dst.imagParts();
+        int n = re.length - 1;
+        for (int i = 0; i < zr.length; i++) {
+            double x = zr[i], y = zi[i];
+            double pr = re[n], pi = im[n];
+            for (int k = n - 1; k >= 0; k--) {
+                double t = pr*x - pi*y + re[k];
+                pi = pr*y + pi*x + im[k];
+                pr = t;
+            }
+            dr[i] = pr;
+            di[i] = pi;
+        }
+    }
+
+    /**
+     * Returns the derivative of this polynomial.
+     *
+     * @return a new {@link ComplexPolynomial} holding {@code p'(z)}
+     */
+    public ComplexPolynomial derivative() {
+        int n = Math.max(re.length - 1, 1);
+        double[] dr = new double[n], di = new double[n];
+        for (int k = 1; k < re.length; k++) {
+            dr[k - 1] = k * re[k];
+            di[k - 1] = k * im[k];
+        }
+        return new ComplexPolynomial(dr, di);
+    }
+
+    /**
+     * Returns the product of this polynomial and another one.
+     * <p>
+     * When both degrees exceed {@value #FFT_THRESHOLD} the coefficients are
+     * convolved with a power-of-two {@link FFT} in {@code O(n log n)}; the result
+     * then carries a rounding error relative to the largest coefficient rather
+     * than to each coefficient, as the direct {@code O(n m)} product does.
+     *
+     * @param q the other factor
+     * @return a new {@link ComplexPolynomial} holding {@code p(z) q(z)}
+     * @throws IllegalArgumentException if {@code q} is {@code null}
+     */
+    public ComplexPolynomial multiply(ComplexPolynomial q) throws IllegalArgumentException {
+        if (q == null)
+            throw new IllegalArgumentException("Input polynomial must not be null.");
+
+        int n = re.length + q.re.length - 1;
+
+        if (Math.min(degree(), q.degree()) <= FFT_THRESHOLD) {
+            double[] cr = new double[n], ci = new double[n];
+            for (int i = 0; i < re.length; i++) {
+                double xr = re[i], xi = im[i];
+                for (int j = 0; j < q.re.length; j++) {
+                    cr[i + j] += xr*q.re[j] - xi*q.im[j];
+                    ci[i + j] += xr*q.im[j] + xi*q.re[j];
+                }
+            }
+            return new ComplexPolynomial(cr, ci);
+        }
+
+        int size = Integer.highestOneBit(n - 1) << 1;
+        FFT fft = new FFT(size);
+        ComplexArray a = new ComplexArray(Arrays.copyOf(re, size), Arrays.copyOf(im, size));
+        ComplexArray b = new ComplexArray(Arrays.copyOf(q.re, size), Arrays.copyOf(q.im, size));
+
+        fft.forward(a);
+        fft.forward(b);
+        ComplexArray.multiply(a, b, a);
+        fft.inverse(a);
+
+        return new ComplexPolynomial(Arrays.copyOf(a.realParts(), n), Arrays.copyOf(a.imagParts(), n));
+    }
+
+    /**
+     * Returns the roots of this polynomial, computed on the calling thread.
+     *
+     * @return the roots, repeated according to their multiplicity
+     * @throws ArithmeticException if this is the zero polynomial or the iteration does not converge
+     * @see #roots(ParallelComplex)
+     */
+    public ComplexArray roots() throws ArithmeticException {
+        return roots(null);
+    }
+
+    /**
+     * Returns the roots of this polynomial, computed with the Aberth-Ehrlich iteration
+     * <pre>
+     *     w[k] = p(z[k]) / p'(z[k])
+     *     z[k] = z[k] - w[k] / (1 - w[k] Σ_{j≠k} 1 / (z[k] - z[j]))
+     * </pre>
+     * which converges cubically to simple roots. The starting points are the
+     * roots of unity, rotated off the real axis and scaled to the geometric mean
+     * of the moduli of the roots, {@code |a[0] / a[n]|^(1/n)}. Roots at zero are
+     * factored out first and returned exactly.
+     * <p>
+     * Every step computes all the new approximations from the old ones, so the
+     * result is the same whether or not the step is split over the cores by
+     * {@code executor}. A root stops being updated once its correction is below
+     * a few units in the last place.
+     * <p>
+     * Multiple and ill-conditioned roots may never settle that far, since near
+     * them {@code p(z)} is only rounding noise. After {@value #MAX_ITERATIONS}
+     * iterations such a root is accepted if {@code |p(z)|} is within the rounding
+     * error of Horner's rule, {@code Σ |a[j]| |z|^j} times a few units of
+     * {@code 2^-53} per degree, so that it is the exact root of a polynomial
+     * within rounding of this one. Any other root has stalled, and an exception
+     * is thrown rather than returning it as if it had converged.
+     *
+     * @param executor the executor used to split each step, or {@code null} to run on the calling thread
+     * @return the roots, repeated according to their multiplicity
+     * @throws ArithmeticException if this is the zero polynomial, or if a root has
+     *         not converged after {@value #MAX_ITERATIONS} iterations
+     */
+    public ComplexArray roots(ParallelComplex executor) throws ArithmeticException {
+        int n = degree();
+        if (n == 0 && re[0] == 0 && im[0] == 0)
+            throw new ArithmeticException("The zero polynomial has no finite set of roots.");
+
+        // roots at zero
+        int zeros = 0;
+        while (re[zeros] == 0 && im[zeros] == 0)
+            zeros++;
+
+        int m = n - zeros;
+        ComplexArray roots = new ComplexArray(n);
+        if (m == 0)
+            return roots;
+
+        double[] ar = Arrays.copyOfRange(re, zeros, re.length);
+        double[] ai = Arrays.copyOfRange(im, zeros, im.length);
+
+        double[] zr = new double[m], zi = new double[m];
+        seed(ar, ai, zr, zi);
+
+        double[] nr = zr.clone(), ni = zi.clone();
+        boolean[] done = new boolean[m];
+        int[] pending = {m};
+
+        ParallelComplex.RangeKernel step = (from, to) -> {
+            for (int k = from; k < to; k++) {
+                if (done[k])
+                    continue;
+
+                nr[k] = zr[k];
+                ni[k] = zi[k];
+                aberth(ar, ai, zr, zi, k, nr, ni, done);
+            }
+        };
+
+        // each step costs about m complex operations per root
+        int chunk = executor == null ? m : Math.max(1, executor.threshold() / m);
+
+        for (int it = 0; it < MAX_ITERATIONS && pending[0] > 0; it++) {
+            if (executor == null)
+                step.apply(0, m);
+            else
+                executor.forEach(m, chunk, step);
+
+            System.arraycopy(nr, 0, zr, 0, m);
+            System.arraycopy(ni, 0, zi, 0, m);
+
+            pending[0] = 0;
+            for (boolean d : done)
+                if (!d)
+                    pending[0]++;
+        }
+
+        // a root whose correction never settled is accepted if p(z) is rounding noise there,
+        // as at a multiple root or an ill-conditioned one, and is otherwise a failure
+        int stalled = 0;
+        for (int k = 0; k < m; k++)
+            if (!done[k] && !atRoundingLevel(ar, ai, zr[k], zi[k]))
+                stalled++;
+        if (stalled > 0)
+            throw new ArithmeticException("Root finding did not converge for " + stalled + " of " + m
+                    + " roots in " + MAX_ITERATIONS + " iterations.");
+
+        for (int k = 0; k < m; k++)
+            roots.set(zeros + k, zr[k], zi[k]);
+
+        return roots;
+    }
+
+    //HELPER METHOD
+    private static void seed(double[] ar, double[] ai, double[] zr, double[] zi) {
+        int m = zr.length;
+        double r = Math.pow(ComplexMath.hypot(ar[0], ai[0]) / ComplexMath.hypot(ar[m], ai[m]), 1.0 / m);
+
+        // an irrational-looking rotation keeps conjugate pairs apart for real coefficients
+        double cr = r * Math.cos(0.4), ci = r * Math.sin(0.4);
+
+        RootsOfUnity w = RootsOfUnity.of(m);
+        for (int k = 0; k < m; k++) {
+            zr[k] = cr*w.real(k) - ci*w.imag(k);
+            zi[k] = cr*w.imag(k) + ci*w.real(k);
+        }
+    }
+
+    /**
+     * Returns whether {@code |p(z)|} is within the rounding error of Horner's
+     * rule, so that {@code z} is a root of a polynomial within rounding of this one.
+     */
+    private static boolean atRoundingLevel(double[] ar, double[] ai, double x, double y) {
+        int m = ar.length - 1;
+        double az = ComplexMath.hypot(x, y);
+        double pr = ar[m], pi = ai[m], s = ComplexMath.hypot(ar[m], ai[m]);
+        for (int j = m - 1; j >= 0; j--) {
+            double t = pr*x - pi*y + ar[j];
+            pi = pr*y + pi*x + ai[j];
+            pr = t;
+            s = s*az + ComplexMath.hypot(ar[j], ai[j]);
+        }
+        return ComplexMath.hypot(pr, pi) <= RESIDUAL * m * s;
+    }
+
+    //HELPER METHOD
+    private static void aberth(double[] ar, double[] ai, double[] zr, double[] zi, int k,
+                               double[] nr, double[] ni, boolean[] done) {
+        int m = zr.length;
+        double x = zr[k], y = zi[k];
+
+        // p(z) and p'(z) in one Horner pass
+        double pr = ar[m], pi = ai[m], dr = 0, di = 0;
+        for (int j = m - 1; j >= 0; j--) {
+            double t = dr*x - di*y + pr;
+            di = dr*y + di*x + pi;
+            dr = t;
+
+            t = pr*x - pi*y + ar[j];
+            pi = pr*y + pi*x + ai[j];
+            pr = t;
+        }
+
+        if (pr == 0 && pi == 0) {
+            done[k] = true;
+            return;
+        }
+
+        ComplexAccumulator w = new ComplexAccumulator(pr, pi).divInPlace(dr, di);
+
+        double sr = 0, si = 0;
+        for (int j = 0; j < m; j++) {
+            if (j == k)
+                continue;
+
+            // 1 / (z[k] - z[j])
+            double ur = x - zr[j], ui = y - zi[j];
+            double d = ur*ur + ui*ui;
+            sr += ur / d;
+            si -= ui / d;
+        }
+
+        // w / (1 - w s), or Newton's step w if that is not finite
+        double er = 1 - (w.re*sr - w.im*si), ei = -(w.re*si + w.im*sr);
+        ComplexAccumulator c = new ComplexAccumulator(w.re, w.im).divInPlace(er, ei);
+        if (!Double.isFinite(c.re) || !Double.isFinite(c.im))
+            c.set(w.re, w.im);
+
+        nr[k] = x - c.re;
+        ni[k] = y - c.im;
+
+        if (Math.abs(c.re) + Math.abs(c.im) <= 4 * Math.ulp(Math.abs(x) + Math.abs(y)))
+            done[k] = true;
+    }
+
+    /**
+     * Returns a string representation of this polynomial, lowest power first,
+     * e.g. {@code (1.0+0.0i) + (0.0-2.0i)z + (3.0+0.0i)z^2}.
+     *
+     * @return a {@link String} representing this polynomial
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < re.length; k++) {
+            if (k > 0)
+                sb.append(" + ");
+            sb.append('(').append(new Rectangular(re[k], im[k])).append(')');
+            if (k > 0)
+                sb.append('z');
+            if (k > 1)
+                sb.append('^').append(k);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,444 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compiled {@link ComplexExpr}, evaluated in one pass on primitive doubles.
+ * <p>
+ * Compiling walks the expression tree once in post-order and gives every
+ * distinct subexpression one register, so a subexpression that occurs several
+ * times in the tree is computed once per evaluation. The result is a flat list
+ * of instructions, each reading the registers of its operands and writing its
+ * own. Constants are loaded into their registers when the program is built.
+ * <p>
+ * {@link #evaluate(ComplexArray, ComplexArray)} runs the instructions over
+ * blocks of {@value #BLOCK} points at a time, so each instruction is a tight loop
+ * over contiguous arrays and the registers of a block stay in cache.
+ * <p>
+ * A program owns its registers, so evaluation allocates nothing, but one program
+ * must not be evaluated by several threads at once; compile the expression once
+ * per thread instead.
+ */
+public final class ComplexProgram {
+
+    /** The number of points evaluated together by the array form of {@link #evaluate}. */
+    final static int BLOCK = 256;
+
+    final private static ComplexExpr.Op[] OPS = ComplexExpr.Op.values();
+
+    /** The register holding the variable, or {@code -1} if the expression does not use it. */
+    final private int var;
+
+    /** The register holding the result. */
+    final private int result;
+
+    /** The number of registers. */
+    final private int size;
+
+    /** For each instruction: the operation, its operand registers and its integer exponent. */
+    final private int[] ops, lhs, rhs, exps, dst;
+
+    /** The constant registers and their values. */
+    final private int[] constants;
+    final private double[] constRe, constIm;
+
+    /** The registers for scalar evaluation. */
+    final private double[] re, im;
+    final private double[] out = new double[2];
+
+    /** The registers for block evaluation, allocated on first use. */
+    private double[] blockRe, blockIm;
+
+    /**
+     * Compiles an expression.
+     *
+     * @param e the expression to compile
+     * @throws IllegalArgumentException if {@code e} is {@code null}
+     */
+    ComplexProgram(ComplexExpr e) throws IllegalArgumentException {
+        if (e == null)
+            throw new IllegalArgumentException("Input expression must not be null.");
+
+        Map<ComplexExpr, Integer> registers = new HashMap<>();
+        Builder b = new Builder();
+        this.result = b.visit(e, registers);
+        this.size = registers.size();
+
+        this.var = b.var;
+        this.ops = b.ops.toArray();
+        this.lhs = b.lhs.toArray();
+        this.rhs = b.rhs.toArray();
+        this.exps = b.exps.toArray();
+        this.dst = b.dst.toArray();
+        this.constants = b.constants.toArray();
+        this.constRe = new double[constants.length];
+        this.constIm = new double[constants.length];
+        for (int k = 0; k < constants.length; k++) {
+            constRe[k] = b.constantValues[2*k];
+            constIm[k] = b.constantValues[2*k + 1];
+        }
+
+        this.re = new double[size];
+        this.im = new double[size];
+        for (int k = 0; k < constants.length; k++) {
+            re[constants[k]] = constRe[k];
+            im[constants[k]] = constIm[k];
+        }
+    }
+
+    /**
+     * Returns the number of instructions executed per point, i.e. the number of
+     * distinct operations in the expression after simplification.
+     *
+     * @return the number of instructions
+     */
+    public int instructions() {
+        return ops.length;
+    }
+
+    // the instruction list, read by FormulaCompiler
+
+    int registers() {
+        return size;
+    }
+
+    int variableRegister() {
+        return var;
+    }
+
+    int resultRegister() {
+        return result;
+    }
+
+    ComplexExpr.Op operation(int k) {
+        return OPS[ops[k]];
+    }
+
+    int lhs(int k) {
+        return lhs[k];
+    }
+
+    int rhs(int k) {
+        return rhs[k];
+    }
+
+    int exponent(int k) {
+        return exps[k];
+    }
+
+    int destination(int k) {
+        return dst[k];
+    }
+
+    int constants() {
+        return constants.length;
+    }
+
+    int constantRegister(int k) {
+        return constants[k];
+    }
+
+    double constantReal(int k) {
+        return constRe[k];
+    }
+
+    double constantImag(int k) {
+        return constIm[k];
+    }
+
+    /**
+     * Evaluates the program at a point and stores the result in {@code out}.
+     *
+     * @param x   the real part of the variable
+     * @param y   the imaginary part of the variable
+     * @param out an array of length at least 2 receiving the real and imaginary parts
+     */
+    public void evaluate(double x, double y, double[] out) {
+        if (var >= 0) {
+            re[var] = x;
+            im[var] = y;
+        }
+
+        double[] t = this.out;
+        for (int k = 0; k < ops.length; k++) {
+            int a = lhs[k], b = rhs[k], d = dst[k];
+            ComplexExpr.Op op = OPS[ops[k]];
+            if (op == ComplexExpr.Op.ADD) {
+                re[d] = re[a] + re[b];
+                im[d] = im[a] + im[b];
+            } else if (op == ComplexExpr.Op.MUL) {
+                double ar = re[a], ai = im[a], br = re[b], bi = im[b];
+                re[d] = ar*br - ai*bi;
+                im[d] = ar*bi + ai*br;
+            } else {
+                ComplexExpr.apply(op, re[a], im[a], b < 0 ? 0 : re[b], b < 0 ? 0 : im[b], exps[k], t);
+                re[d] = t[0];
+                im[d] = t[1];
+            }
+        }
+
+        out[0] = re[result];
+        out[1] = im[result];
+    }
+
+    /**
+     * Evaluates the program at a point.
+     *
+     * @param z the value of the variable
+     * @return the value of the expression as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public Rectangular evaluate(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex number must not be null.");
+
+        double[] w = new double[2];
+        evaluate(z.real(), z.imag(), w);
+        return new Rectangular(w[0], w[1]);
+    }
+
+    /**
+     * Evaluates the program at every element of {@code z}, storing the results in
+     * {@code dst}. The arrays may be the same array.
+     *
+     * @param z   the values of the variable
+     * @param dst the destination array, of the same length as {@code z}
+     * @throws IllegalArgumentException if an array is {@code null} or the lengths differ
+     */
+    public void evaluate(ComplexArray z, ComplexArray dst) throws IllegalArgumentException {
+        if (z == null || dst == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (z.length() != dst.length())
+            throw new IllegalArgumentException("Arrays must have the same length.");
+
+        evaluateRange(z, dst, 0, z.length());
+    }
+
+    /** Evaluates the program at the elements {@code [from, to)} of {@code z}. */
+    void evaluateRange(ComplexArray z, ComplexArray dst, int from, int to) {
+        if (blockRe == null) {
+            blockRe = new double[size*BLOCK];
+            blockIm = new double[size*BLOCK];
+            for (int k = 0; k < constants.length; k++)
+                for (int i = 0, r = constants[k]*BLOCK; i < BLOCK; i++, r++) {
+                    blockRe[r] = constRe[k];
+                    blockIm[r] = constIm[k];
+                }
+        }
+
+        double[] zr = z.realParts(), zi = z.imagParts();
+        double[] dr = dst.realParts(), di = dst.imagParts();
+        for (int start = from; start < to; start += BLOCK) {
+            int len = Math.min(BLOCK, to - start);
+            if (var >= 0) {
+                System.arraycopy(zr, start, blockRe, var*BLOCK, len);
+                System.arraycopy(zi, start, blockIm, var*BLOCK, len);
+            }
+
+            for (int k = 0; k < ops.length; k++)
+                block(k, len);
+
+            System.arraycopy(blockRe, result*BLOCK, dr, start, len);
+            System.arraycopy(blockIm, result*BLOCK, di, start, len);
+        }
+    }
+
+    //HELPER METHOD
+    private void block(int k, int len) {
+        double[] xr = blockRe, xi = blockIm, t = out;
+        int a = lhs[k]*BLOCK, b = rhs[k]*BLOCK, d = dst[k]*BLOCK;
+
+        // one loop per operation, so that each loop calls one kernel the JIT can inline
+        switch (OPS[ops[k]]) {
+            case NEG:
+                for (int i = 0; i < len; i++) {
+                    xr[d + i] = -xr[a + i];
+                    xi[d + i] = -xi[a + i];
+                }
+                break;
+            case ADD:
+                for (int i = 0; i < len; i++) {
+                    xr[d + i] = xr[a + i] + xr[b + i];
+                    xi[d + i] = xi[a + i] + xi[b + i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < len; i++) {
+                    xr[d + i] = xr[a + i] - xr[b + i];
+                    xi[d + i] = xi[a + i] - xi[b + i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < len; i++) {
+                    double ar = xr[a + i], ai = xi[a + i], br = xr[b + i], bi = xi[b + i];
+                    xr[d + i] = ar*br - ai*bi;
+                    xi[d + i] = ar*bi + ai*br;
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.divide(xr[a + i], xi[a + i], xr[b + i], xi[b + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case POWI:
+                if (exps[k] == 2) {
+                    for (int i = 0; i < len; i++) {
+                        double ar = xr[a + i], ai = xi[a + i];
+                        // the squaring step of ComplexMath.pow, so both paths agree exactly
+                        t[0] = (ar - ai) * (ar + ai);
+                        t[1] = 2*ar*ai;
+                        ComplexMath.powCheck(ar, ai, 2, t);
+                        xr[d + i] = t[0];
+                        xi[d + i] = t[1];
+                    }
+                    break;
+                }
+                for (int i = 0, n = exps[k]; i < len; i++) {
+                    ComplexMath.pow(xr[a + i], xi[a + i], n, t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case POW:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.pow(xr[a + i], xi[a + i], xr[b + i], xi[b + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case EXP:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.exp(xr[a + i], xi[a + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case LOG:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.log(xr[a + i], xi[a + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case SQRT:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.sqrt(xr[a + i], xi[a + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case SIN:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.sin(xr[a + i], xi[a + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            case COS:
+                for (int i = 0; i < len; i++) {
+                    ComplexMath.cos(xr[a + i], xi[a + i], t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+            default:
+                // the remaining functions are dominated by their own cost
+                ComplexExpr.Op op = OPS[ops[k]];
+                for (int i = 0; i < len; i++) {
+                    ComplexExpr.apply(op, xr[a + i], xi[a + i], 0, 0, 0, t);
+                    xr[d + i] = t[0];
+                    xi[d + i] = t[1];
+                }
+                break;
+        }
+    }
+
+    /**
+     * Returns a listing of the instructions, one per line, e.g. {@code r2 = mul r0 r1}.
+     *
+     * @return a {@link String} representing this program
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (var >= 0)
+            sb.append('r').append(var).append(" = z\n");
+        for (int k = 0; k < constants.length; k++)
+            sb.append('r').append(constants[k]).append(" = ")
+                    .append(new Rectangular(constRe[k], constIm[k])).append('\n');
+        for (int k = 0; k < ops.length; k++) {
+            sb.append('r').append(dst[k]).append(" = ").append(OPS[ops[k]].name().toLowerCase())
+                    .append(" r").append(lhs[k]);
+            if (rhs[k] >= 0)
+                sb.append(" r").append(rhs[k]);
+            if (OPS[ops[k]] == ComplexExpr.Op.POWI)
+                sb.append(' ').append(exps[k]);
+            sb.append('\n');
+        }
+        return sb.append("return r").append(result).toString();
+    }
+
+    /** Collects the instructions of a program during compilation. */
+    final private static class Builder {
+        int var = -1;
+        final IntList ops = new IntList(), lhs = new IntList(), rhs = new IntList();
+        final IntList exps = new IntList(), dst = new IntList(), constants = new IntList();
+        double[] constantValues = new double[8];
+
+        /** Returns the register of {@code e}, emitting its instructions if it has none yet. */
+        int visit(ComplexExpr e, Map<ComplexExpr, Integer> registers) {
+            Integer known = registers.get(e);
+            if (known != null)
+                return known;
+
+            int a = e.left() == null ? -1 : visit(e.left(), registers);
+            int b = e.right() == null ? -1 : visit(e.right(), registers);
+            int r = registers.size();
+            registers.put(e, r);
+
+            switch (e.op()) {
+                case VAR:
+                    var = r;
+                    break;
+                case CONST:
+                    int k = constants.size();
+                    if (2*k + 2 > constantValues.length)
+                        constantValues = Arrays.copyOf(constantValues, 2*constantValues.length);
+                    constantValues[2*k] = e.constantReal();
+                    constantValues[2*k + 1] = e.constantImag();
+                    constants.add(r);
+                    break;
+                default:
+                    ops.add(e.op().ordinal());
+                    lhs.add(a);
+                    rhs.add(b);
+                    exps.add(e.exponent());
+                    dst.add(r);
+                    break;
+            }
+            return r;
+        }
+    }
+
+    /** A growable list of {@code int}s. */
+    final private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int v) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, 2*size);
+            values[size++] = v;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Subscriber} of {@link ComplexBlock}s at the end of a
+ * {@link ComplexPipeline}, which consumes each block and releases it to its pool.
+ * <p>
+ * A sink keeps a window of requested blocks: it requests {@code window} blocks
+ * when it subscribes and requests more in batches as it consumes them, so a
+ * source never gets more than {@code window} blocks ahead of it. This bounds
+ * the number of blocks in flight, and with it the blocks a pool allocates.
+ * <p>
+ * Subclasses implement {@link #accept(ComplexBlock)}; {@link #collect(int)}
+ * returns a sink that gathers the stream into a {@link ComplexArray}.
+ */
+public abstract class ComplexSink implements Flow.Subscriber<ComplexBlock> {
+
+    final private int window;
+    final private CountDownLatch terminated = new CountDownLatch(1);
+
+    private Flow.Subscription subscription;
+    private int consumed;
+    private volatile Throwable error;
+
+    /**
+     * Constructs a sink that requests up to {@code window} blocks ahead.
+     *
+     * @param window the number of blocks requested ahead
+     * @throws IllegalArgumentException if {@code window} is not positive
+     */
+    protected ComplexSink(int window) throws IllegalArgumentException {
+        if (window <= 0)
+            throw new IllegalArgumentException("Request window must be positive.");
+
+        this.window = window;
+    }
+
+    /**
+     * Consumes a block. The block is released when this method returns, so it
+     * must not be kept.
+     *
+     * @param block the block
+     */
+    protected abstract void accept(ComplexBlock block);
+
+    /**
+     * Returns a sink that appends the stream to a growing array.
+     *
+     * @param window the number of blocks requested ahead
+     * @return the collector
+     * @throws IllegalArgumentException if {@code window} is not positive
+     */
+    public static Collector collect(int window) throws IllegalArgumentException {
+        return new Collector(window);
+    }
+
+    /**
+     * Requests the first window of blocks.
+     *
+     * @param s the subscription
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        if (subscription != null) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        s.request(window);
+    }
+
+    /**
+     * Consumes and releases a block, and requests the next half window once
+     * half the window has been consumed.
+     *
+     * @param block the block
+     */
+    @Override
+    public void onNext(ComplexBlock block) {
+        try {
+            accept(block);
+        }
+        catch (RuntimeException e) {
+            subscription.cancel();
+            onError(e);
+            return;
+        }
+        finally {
+            block.release();
+        }
+
+        int batch = Math.max(1, window / 2);
+        if (++consumed == batch) {
+            consumed = 0;
+            subscription.request(batch);
+        }
+    }
+
+    /**
+     * Records the error of the stream, rethrown by {@link #await()}.
+     *
+     * @param throwable the error
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        terminated.countDown();
+    }
+
+    /**
+     * Records the end of the stream.
+     */
+    @Override
+    public void onComplete() {
+        terminated.countDown();
+    }
+
+    /**
+     * Stops the stream; the source produces no more blocks.
+     */
+    public void cancel() {
+        Flow.Subscription s = subscription;
+        if (s != null)
+            s.cancel();
+        terminated.countDown();
+    }
+
+    /**
+     * Waits until the stream has ended.
+     *
+     * @throws IOException if the stream failed, with the failure as its cause
+     *         unless it is itself an {@link IOException}
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void await() throws IOException, InterruptedException {
+        terminated.await();
+
+        Throwable e = error;
+        if (e instanceof IOException io)
+            throw io;
+        if (e != null)
+            throw new IOException("Complex stream failed.", e);
+    }
+
+    /**
+     * A sink that appends every block to a growing pair of arrays.
+     */
+    public static final class Collector extends ComplexSink {
+
+        private double[] re = new double[1024], im = new double[1024];
+        private int length;
+
+        //HELPER METHOD
+        private Collector(int window) {
+            super(window);
+        }
+
+        @Override
+        protected void accept(ComplexBlock b) {
+            int n = b.length();
+            if (length + n > re.length) {
+                int cap = Math.max(re.length * 2, length + n);
+                re = Arrays.copyOf(re, cap);
+                im = Arrays.copyOf(im, cap);
+            }
+            System.arraycopy(b.re, 0, re, length, n);
+            System.arraycopy(b.im, 0, im, length, n);
+            length += n;
+        }
+
+        /**
+         * Returns the number of samples collected so far.
+         *
+         * @return the number of samples
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns a copy of the samples collected, normally called after {@link #await()}.
+         *
+         * @return the samples
+         */
+        public ComplexArray toComplexArray() {
+            return new ComplexArray(Arrays.copyOf(re, length), Arrays.copyOf(im, length));
+        }
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Publisher} of {@link ComplexBlock}s read from memory, a file,
+ * a socket or any other source of samples.
+ * <p>
+ * A source fills blocks taken from its {@link ComplexBlock.Pool} only when its
+ * subscriber has requested them, so it never reads ahead of the consumer.
+ * Blocks are produced on the thread that calls
+ * {@link Flow.Subscription#request(long)}; a request made from inside
+ * {@code onNext} adds to the demand of the running loop instead of recursing.
+ * <p>
+ * Subclasses implement {@link #fill(ComplexBlock)}. The built-in sources read a
+ * {@link ComplexArray} and a channel of interleaved samples. A source has one
+ * subscriber.
+ */
+public abstract class ComplexSource implements Flow.Publisher<ComplexBlock> {
+
+    final private ComplexBlock.Pool pool;
+
+    private volatile Flow.Subscriber<? super ComplexBlock> subscriber;
+    final private AtomicLong demand = new AtomicLong();
+    final private AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private boolean done;
+
+    /**
+     * Constructs a source that fills blocks of a pool.
+     *
+     * @param pool the pool the blocks are taken from
+     * @throws IllegalArgumentException if {@code pool} is {@code null}
+     */
+    protected ComplexSource(ComplexBlock.Pool pool) throws IllegalArgumentException {
+        if (pool == null)
+            throw new IllegalArgumentException("Input pool must not be null.");
+
+        this.pool = pool;
+    }
+
+    /**
+     * Fills a block with the next samples of the stream, setting its length,
+     * and blocks until some are available. A block left empty is released.
+     *
+     * @param block an empty block from the pool
+     * @return {@code false} if the stream ended with this block, {@code true} otherwise
+     * @throws IOException if the samples cannot be read
+     */
+    protected abstract boolean fill(ComplexBlock block) throws IOException;
+
+    /**
+     * Returns a source that publishes the elements of a complex array in blocks.
+     * The array is read as the blocks are requested, not copied up front.
+     *
+     * @param data the samples
+     * @param blockSize the capacity of the blocks
+     * @return the source
+     * @throws IllegalArgumentException if {@code data} is {@code null} or {@code blockSize} is not positive
+     */
+    public static ComplexSource of(ComplexArray data, int blockSize) throws IllegalArgumentException {
+        return of(data, new ComplexBlock.Pool(blockSize, 16));
+    }
+
+    /**
+     * Returns a source that publishes the elements of a complex array in blocks of a pool.
+     *
+     * @param data the samples
+     * @param pool the pool the blocks are taken from
+     * @return the source
+     * @throws IllegalArgumentException if {@code data} or {@code pool} is {@code null}
+     */
+    public static ComplexSource of(ComplexArray data, ComplexBlock.Pool pool) throws IllegalArgumentException {
+        if (data == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+
+        return new ComplexSource(pool) {
+            private int pos;
+
+            @Override
+            protected boolean fill(ComplexBlock b) {
+                int n = Math.min(b.capacity(), data.length() - pos);
+                System.arraycopy(data.realParts(), pos, b.re, 0, n);
+                System.arraycopy(data.imagParts(), pos, b.im, 0, n);
+                b.setLength(n);
+                pos += n;
+                return pos < data.length();
+            }
+        };
+    }
+
+    /**
+     * Returns a source that reads interleaved samples, the real and the
+     * imaginary part of each as an 8-byte double, from a channel such as a
+     * {@link java.nio.channels.FileChannel} or a
+     * {@link java.nio.channels.SocketChannel} in blocking mode, until its end.
+     * The channel is closed at the end of the stream or on an error; a caller
+     * that cancels the subscription closes it.
+     *
+     * @param ch the channel
+     * @param order the byte order of the samples
+     * @param pool the pool the blocks are taken from
+     * @return the source
+     * @throws IllegalArgumentException if an argument is {@code null}
+     */
+    public static ComplexSource of(ReadableByteChannel ch, ByteOrder order, ComplexBlock.Pool pool) throws IllegalArgumentException {
+        if (ch == null || order == null)
+            throw new IllegalArgumentException("Input channel and byte order must not be null.");
+
+        return new ComplexSource(pool) {
+            final private ByteBuffer buf = ByteBuffer.allocateDirect(16 * pool.blockSize()).order(order);
+
+            @Override
+            protected boolean fill(ComplexBlock b) throws IOException {
+                boolean eof = false;
+                try {
+                    // wait for one whole sample at least, then take what has arrived
+                    while (buf.position() < 16 && !eof)
+                        eof = ch.read(buf) < 0;
+                    buf.flip();
+
+                    DoubleBuffer d = buf.asDoubleBuffer();
+                    int n = d.remaining() / 2;
+                    for (int i = 0; i < n; i++) {
+                        b.re[i] = d.get(2*i);
+                        b.im[i] = d.get(2*i + 1);
+                    }
+                    b.setLength(n);
+
+                    // keep a partial sample for the next read
+                    buf.position(16 * n);
+                    buf.compact();
+                    if (eof && buf.position() != 0)
+                        throw new IOException("Stream ends inside a sample.");
+                }
+                catch (IOException | RuntimeException e) {
+                    ch.close();
+                    throw e;
+                }
+                if (eof)
+                    ch.close();
+                return !eof;
+            }
+        };
+    }
+
+    /**
+     * Connects the subscriber. Nothing is read until it requests blocks.
+     *
+     * @param s the subscriber
+     * @throws IllegalArgumentException if {@code s} is {@code null}
+     * @throws IllegalStateException if a subscriber is already connected
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ComplexBlock> s) throws IllegalArgumentException, IllegalStateException {
+        if (s == null)
+            throw new IllegalArgumentException("Input subscriber must not be null.");
+
+        synchronized (this) {
+            if (subscriber != null)
+                throw new IllegalStateException("Source already has a subscriber.");
+            subscriber = s;
+        }
+        s.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancelled = true;
+                    s.onError(new IllegalArgumentException("Requested number of blocks must be positive."));
+                    return;
+                }
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+
+    /**
+     * Publishes blocks while there is demand. Only the thread that raises
+     * {@link #wip} from zero runs the loop; others leave their demand to it.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+
+        Flow.Subscriber<? super ComplexBlock> s = subscriber;
+        int missed = 1;
+        do {
+            while (!done && !cancelled && demand.get() > 0) {
+                ComplexBlock b = pool.acquire();
+                boolean more;
+                try {
+                    more = fill(b);
+                }
+                catch (IOException | RuntimeException e) {
+                    b.release();
+                    done = true;
+                    s.onError(e);
+                    break;
+                }
+
+                if (b.length() > 0) {
+                    demand.decrementAndGet();
+                    s.onNext(b);
+                }
+                else
+                    b.release();
+
+                if (!more) {
+                    done = true;
+                    if (!cancelled)
+                        s.onComplete();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
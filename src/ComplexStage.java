@@ -0,0 +1,391 @@
+/**
+ * A step of a {@link ComplexPipeline} that transforms a {@link ComplexBlock}
+ * in place.
+ * <p>
+ * A stage may change the length of the block, as {@link #decimate(int)} does,
+ * and may keep state from one block to the next, as the filter and the mixer
+ * do, so that a stream split into blocks gives the same result as the whole
+ * stream processed at once. Stateful stages therefore belong to one pipeline.
+ * <p>
+ * When a pipeline is built, adjacent built-in stages are fused where the
+ * result is the same up to rounding: gains are multiplied together and folded
+ * into a mixer or into the taps of a filter, mixers with the same table are
+ * combined, and a filter followed by decimation only computes the samples
+ * that are kept.
+ */
+public abstract class ComplexStage {
+
+    /**
+     * Transforms the valid samples of a block in place.
+     *
+     * @param block the block, whose length the stage may reduce
+     */
+    public abstract void process(ComplexBlock block);
+
+    /**
+     * Returns a single stage equivalent to this stage followed by {@code next},
+     * or {@code null} if the two cannot be fused.
+     */
+    ComplexStage fuse(ComplexStage next) {
+        return null;
+    }
+
+    /**
+     * Returns a stage that multiplies every sample by a real gain.
+     *
+     * @param g the gain
+     * @return the gain stage
+     */
+    public static ComplexStage gain(double g) {
+        return new Gain(g, 0);
+    }
+
+    /**
+     * Returns a stage that multiplies every sample by a complex gain, which
+     * also rotates the phase.
+     *
+     * @param g the gain
+     * @return the gain stage
+     * @throws IllegalArgumentException if {@code g} is {@code null}
+     */
+    public static ComplexStage gain(ComplexNumber g) throws IllegalArgumentException {
+        if (g == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        return new Gain(g.real(), g.imag());
+    }
+
+    /**
+     * Returns a stage that shifts the frequency of the stream by {@code k/n}
+     * cycles per sample, multiplying sample {@code t} of the stream by
+     * {@code e^(2πi kt/n)}. The factors are read from the table of
+     * {@link RootsOfUnity#of(int)}, so the oscillator is exactly periodic and
+     * does not drift however long the stream runs.
+     *
+     * @param k the number of cycles per {@code n} samples, negative to shift down
+     * @param n the period of the oscillator in samples
+     * @return the mixer stage
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    public static ComplexStage mix(int k, int n) throws IllegalArgumentException {
+        if (n <= 0)
+            throw new IllegalArgumentException("Oscillator period must be positive.");
+
+        return new Mixer(k, n, 1, 0);
+    }
+
+    /**
+     * Returns a stage that shifts the frequency of the stream by {@code θ}
+     * radians per sample, multiplying sample {@code t} of the stream by
+     * {@code e^(iθt)}, for frequencies that are not a fraction with a small
+     * period. The factors come from a {@link ComplexOscillator}, which does not
+     * drift either.
+     *
+     * @param theta the shift in radians per sample, negative to shift down
+     * @return the mixer stage
+     * @throws IllegalArgumentException if {@code theta} is not finite
+     */
+    public static ComplexStage mix(double theta) throws IllegalArgumentException {
+        ComplexOscillator osc = new ComplexOscillator(theta);
+        return new ComplexStage() {
+            @Override
+            public void process(ComplexBlock b) {
+                osc.mix(b.re, b.im, 0, b.length());
+            }
+        };
+    }
+
+    /**
+     * Returns a finite impulse response filter with real taps,
+     * <pre>
+     *     y[t] = Σ h[j] x[t - j]
+     * </pre>
+     * whose history is carried from one block to the next, starting from zeros.
+     *
+     * @param taps the impulse response {@code h}
+     * @return the filter stage
+     * @throws IllegalArgumentException if {@code taps} is {@code null} or empty
+     */
+    public static ComplexStage fir(double... taps) throws IllegalArgumentException {
+        if (taps == null || taps.length == 0)
+            throw new IllegalArgumentException("Filter taps must not be null or empty.");
+
+        return new Fir(taps, null, 1);
+    }
+
+    /**
+     * Returns a finite impulse response filter with complex taps, see {@link #fir(double...)}.
+     *
+     * @param taps the impulse response {@code h}
+     * @return the filter stage
+     * @throws IllegalArgumentException if {@code taps} is {@code null} or empty
+     */
+    public static ComplexStage fir(ComplexArray taps) throws IllegalArgumentException {
+        if (taps == null || taps.length() == 0)
+            throw new IllegalArgumentException("Filter taps must not be null or empty.");
+
+        return new Fir(taps.realParts(), taps.imagParts(), 1);
+    }
+
+    /**
+     * Returns a stage that keeps one sample in {@code m}, the samples
+     * {@code 0, m, 2m, ...} of the stream. A signal should be low-pass filtered
+     * first, e.g. with {@link #fir(double...)}, which the pipeline fuses with
+     * the decimation.
+     *
+     * @param m the decimation factor
+     * @return the decimation stage
+     * @throws IllegalArgumentException if {@code m} is not positive
+     */
+    public static ComplexStage decimate(int m) throws IllegalArgumentException {
+        if (m <= 0)
+            throw new IllegalArgumentException("Decimation factor must be positive.");
+
+        return new Decimator(m);
+    }
+
+    /**
+     * Returns a stage that applies a function to every sample, with the batched
+     * loops of {@link BatchFunction} for its constants.
+     *
+     * @param f the function
+     * @return the stage
+     * @throws IllegalArgumentException if {@code f} is {@code null}
+     */
+    public static ComplexStage map(ComplexFunction f) throws IllegalArgumentException {
+        if (f == null)
+            throw new IllegalArgumentException("Input function must not be null.");
+
+        return new ComplexStage() {
+            final private double[] w = new double[2];
+
+            @Override
+            public void process(ComplexBlock b) {
+                int n = b.length();
+                if (f instanceof BatchFunction bf) {
+                    bf.range(b.re, b.im, b.re, b.im, 0, n);
+                    return;
+                }
+                for (int i = 0; i < n; i++) {
+                    f.apply(b.re[i], b.im[i], w);
+                    b.re[i] = w[0];
+                    b.im[i] = w[1];
+                }
+            }
+        };
+    }
+
+    /** Multiplication by a constant. */
+    final static class Gain extends ComplexStage {
+
+        final double gr, gi;
+
+        Gain(double gr, double gi) {
+            this.gr = gr;
+            this.gi = gi;
+        }
+
+        @Override
+        public void process(ComplexBlock b) {
+            double[] re = b.re, im = b.im;
+            int n = b.length();
+            if (gi == 0) {
+                for (int i = 0; i < n; i++) {
+                    re[i] *= gr;
+                    im[i] *= gr;
+                }
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                double x = re[i], y = im[i];
+                re[i] = x*gr - y*gi;
+                im[i] = x*gi + y*gr;
+            }
+        }
+
+        @Override
+        ComplexStage fuse(ComplexStage next) {
+            if (next instanceof Gain g)
+                return new Gain(gr*g.gr - gi*g.gi, gr*g.gi + gi*g.gr);
+            if (next instanceof Mixer || next instanceof Fir)
+                return next.fuse(this);
+            return null;
+        }
+    }
+
+    /** Multiplication by a table of roots of unity scaled by an amplitude. */
+    final static class Mixer extends ComplexStage {
+
+        final int k, n;
+        final double ar, ai;
+        final private double[] wr, wi;
+        private int index;
+
+        Mixer(int k, int n, double ar, double ai) {
+            this.k = Math.floorMod(k, n);
+            this.n = n;
+            this.ar = ar;
+            this.ai = ai;
+            this.wr = new double[n];
+            this.wi = new double[n];
+
+            RootsOfUnity.of(n).copyTo(wr, wi);
+            if (ar != 1 || ai != 0) {
+                for (int j = 0; j < n; j++) {
+                    double c = wr[j], s = wi[j];
+                    wr[j] = c*ar - s*ai;
+                    wi[j] = c*ai + s*ar;
+                }
+            }
+        }
+
+        @Override
+        public void process(ComplexBlock b) {
+            double[] re = b.re, im = b.im;
+            int len = b.length(), j = index;
+            for (int i = 0; i < len; i++) {
+                double x = re[i], y = im[i], c = wr[j], s = wi[j];
+                re[i] = x*c - y*s;
+                im[i] = x*s + y*c;
+                j += k;
+                if (j >= n)
+                    j -= n;
+            }
+            index = j;
+        }
+
+        @Override
+        ComplexStage fuse(ComplexStage next) {
+            if (next instanceof Gain g)
+                return new Mixer(k, n, ar*g.gr - ai*g.gi, ar*g.gi + ai*g.gr);
+            if (next instanceof Mixer m && m.n == n)
+                return new Mixer((int) ((k + (long) m.k) % n), n, ar*m.ar - ai*m.ai, ar*m.ai + ai*m.ar);
+            return null;
+        }
+    }
+
+    /**
+     * A finite impulse response filter that keeps one output in {@code factor}.
+     * The taps are stored reversed, so that output {@code t} is the dot product
+     * of the taps with the samples {@code t - L + 1 ... t} of {@link #xr} and
+     * {@link #xi}, which hold the last {@code L - 1} samples of the previous
+     * blocks followed by the current block.
+     */
+    final static class Fir extends ComplexStage {
+
+        final double[] hr, hi;
+        final int factor;
+        private double[] xr, xi;
+        private int skip;
+
+        Fir(double[] hr, double[] hi, int factor) {
+            this.hr = reverse(hr);
+            this.hi = hi == null ? null : reverse(hi);
+            this.factor = factor;
+        }
+
+        //HELPER METHOD
+        private static double[] reverse(double[] a) {
+            double[] r = new double[a.length];
+            for (int j = 0; j < a.length; j++)
+                r[j] = a[a.length - 1 - j];
+            return r;
+        }
+
+        @Override
+        public void process(ComplexBlock b) {
+            int taps = hr.length, h = taps - 1, n = b.length();
+            if (xr == null || xr.length < h + n) {
+                double[] r = new double[h + b.capacity()], i = new double[h + b.capacity()];
+                if (xr != null) {
+                    System.arraycopy(xr, 0, r, 0, h);
+                    System.arraycopy(xi, 0, i, 0, h);
+                }
+                xr = r;
+                xi = i;
+            }
+            double[] re = b.re, im = b.im, xr = this.xr, xi = this.xi;
+            System.arraycopy(re, 0, xr, h, n);
+            System.arraycopy(im, 0, xi, h, n);
+
+            int out = 0, t = skip;
+            for (; t < n; t += factor) {
+                double sr = 0, si = 0;
+                if (hi == null) {
+                    for (int j = 0; j < taps; j++) {
+                        double c = hr[j];
+                        sr += c * xr[t + j];
+                        si += c * xi[t + j];
+                    }
+                }
+                else {
+                    for (int j = 0; j < taps; j++) {
+                        double c = hr[j], s = hi[j], x = xr[t + j], y = xi[t + j];
+                        sr += c*x - s*y;
+                        si += c*y + s*x;
+                    }
+                }
+                re[out] = sr;
+                im[out] = si;
+                out++;
+            }
+            skip = t - n;
+
+            System.arraycopy(xr, n, xr, 0, h);
+            System.arraycopy(xi, n, xi, 0, h);
+            b.setLength(out);
+        }
+
+        @Override
+        ComplexStage fuse(ComplexStage next) {
+            if (next instanceof Decimator d)
+                return new Fir(reverse(hr), hi == null ? null : reverse(hi), factor * d.m);
+            if (next instanceof Gain g) {
+                // a gain commutes with the filter, before or after it
+                double[] r = reverse(hr), i = hi == null ? null : reverse(hi);
+                if (g.gi == 0 && i == null) {
+                    for (int j = 0; j < r.length; j++)
+                        r[j] *= g.gr;
+                    return new Fir(r, null, factor);
+                }
+                double[] fi = new double[r.length];
+                for (int j = 0; j < r.length; j++) {
+                    double c = r[j], s = i == null ? 0 : i[j];
+                    r[j] = c*g.gr - s*g.gi;
+                    fi[j] = c*g.gi + s*g.gr;
+                }
+                return new Fir(r, fi, factor);
+            }
+            return null;
+        }
+    }
+
+    /** Keeps the samples {@code 0, m, 2m, ...} of the stream. */
+    final static class Decimator extends ComplexStage {
+
+        final int m;
+        private int skip;
+
+        Decimator(int m) {
+            this.m = m;
+        }
+
+        @Override
+        public void process(ComplexBlock b) {
+            double[] re = b.re, im = b.im;
+            int n = b.length(), out = 0, t = skip;
+            for (; t < n; t += m) {
+                re[out] = re[t];
+                im[out] = im[t];
+                out++;
+            }
+            skip = t - n;
+            b.setLength(out);
+        }
+
+        @Override
+        ComplexStage fuse(ComplexStage next) {
+            return next instanceof Decimator d ? new Decimator(m * d.m) : null;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+import java.util.Arrays;
+
+/**
+ * A fast Fourier transform plan for complex data of a fixed length.
+ * <p>
+ * The plan chooses its algorithm from the length {@code n}:
+ * <ul>
+ *   <li>a power of two uses an iterative, in-place radix-2 transform that performs
+ *       two stages per pass over the data,</li>
+ *   <li>a length whose prime factors are all at most {@value #MAX_RADIX} uses a
+ *       mixed-radix Cooley-Tukey transform with radix-4 and radix-2 butterflies
+ *       and a generic butterfly for the odd factors,</li>
+ *   <li>any other length uses Bluestein's algorithm, which rewrites the transform
+ *       as a convolution computed with a power-of-two transform.</li>
+ * </ul>
+ * The twiddle factors are copied from the cached {@link RootsOfUnity} tables
+ * behind {@link ComplexNumber#nthRootsOfUnity(int)} when the plan is created.
+ * <p>
+ * Data is passed in split form, as separate arrays of real and imaginary parts
+ * or as a {@link ComplexArray}, and transformed in place. The forward transform is
+ * <pre>
+ *     X[k] = Σ x[j] e^(-2πi jk/n)
+ * </pre>
+ * and the inverse transform includes the {@code 1/n} scaling. Plans are immutable
+ * and may be shared between threads. The radix-2 path needs no memory beyond the
+ * data; the other paths allocate scratch arrays of the data's size per call.
+ */
+public final class FFT {
+
+    /** The largest prime factor handled by the mixed-radix path; larger ones use Bluestein. */
+    final public static int MAX_RADIX = 13;
+
+    /** The length of the transform. */
+    final private int n;
+
+    /** The factors of {@code n} for the mixed-radix path, or {@code null}. */
+    final private int[] factors;
+
+    /** The real parts of the twiddle factors {@code e^(-2πik/n)}. */
+    final private double[] twRe;
+
+    /** The imaginary parts of the twiddle factors {@code e^(-2πik/n)}. */
+    final private double[] twIm;
+
+    /** The power-of-two plan used for Bluestein's convolution, or {@code null}. */
+    final private FFT conv;
+
+    /** The real parts of the Bluestein chirp {@code e^(-πi k²/n)}. */
+    final private double[] chirpRe;
+
+    /** The imaginary parts of the Bluestein chirp {@code e^(-πi k²/n)}. */
+    final private double[] chirpIm;
+
+    /** The real parts of the transformed, conjugated and padded chirp. */
+    final private double[] kernRe;
+
+    /** The imaginary parts of the transformed, conjugated and padded chirp. */
+    final private double[] kernIm;
+
+    /** The plan of length {@code n/2} used for real input, created on first use. */
+    private FFT half;
+
+    /**
+     * Constructs a plan for transforms of the given length.
+     *
+     * @param n the length of the transform
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    public FFT(int n) throws IllegalArgumentException {
+        if (n < 1)
+            throw new IllegalArgumentException("Transform length must be positive.");
+
+        this.n = n;
+        int[] f = isPowerOfTwo(n) ? null : factorize(n);
+
+        if (isPowerOfTwo(n) || f != null) {
+            RootsOfUnity roots = RootsOfUnity.of(n);
+            int len = f == null ? Math.max(1, n / 2) : n;
+
+            this.twRe = new double[len];
+            this.twIm = new double[len];
+            for (int k = 0; k < len; k++) {
+                twRe[k] = roots.real(k);
+                twIm[k] = -roots.imag(k);
+            }
+
+            this.factors = f;
+            this.conv = null;
+            this.chirpRe = this.chirpIm = this.kernRe = this.kernIm = null;
+        }
+        else {
+            // e^(-πi m/n) is the conjugate of the m-th of the 2n-th roots of unity
+            RootsOfUnity roots = RootsOfUnity.of(2*n);
+            int m = Integer.highestOneBit(2*n - 1) << 1;
+
+            this.twRe = new double[n / 2];
+            this.twIm = new double[n / 2];
+            for (int k = 0; k < n / 2; k++) {
+                twRe[k] = roots.real(2*k);
+                twIm[k] = -roots.imag(2*k);
+            }
+
+            this.chirpRe = new double[n];
+            this.chirpIm = new double[n];
+            this.kernRe = new double[m];
+            this.kernIm = new double[m];
+
+            for (int k = 0; k < n; k++) {
+                int idx = (int) ((long) k * k % (2L*n));
+                chirpRe[k] = roots.real(idx);
+                chirpIm[k] = -roots.imag(idx);
+
+                kernRe[k] = chirpRe[k];
+                kernIm[k] = -chirpIm[k];
+                if (k > 0) {
+                    kernRe[m - k] = kernRe[k];
+                    kernIm[m - k] = kernIm[k];
+                }
+            }
+
+            this.factors = null;
+            this.conv = new FFT(m);
+            conv.forward(kernRe, kernIm);
+        }
+    }
+
+    //HELPER METHOD
+    private static boolean isPowerOfTwo(int n) {
+        return (n & (n - 1)) == 0;
+    }
+
+    //HELPER METHOD
+    private static int[] factorize(int n) {
+        int[] f = new int[32];
+        int count = 0;
+
+        while (n % 4 == 0) {
+            f[count++] = 4;
+            n /= 4;
+        }
+        for (int p = 2; p <= MAX_RADIX && n > 1; p++) {
+            while (n % p == 0) {
+                f[count++] = p;
+                n /= p;
+            }
+        }
+
+        if (n > 1)
+            return null;
+
+        return Arrays.copyOf(f, count);
+    }
+
+    /**
+     * Returns the length of the transform.
+     *
+     * @return the number of complex points this plan transforms
+     */
+    public int length() {
+        return n;
+    }
+
+    //HELPER METHOD
+    private void checkLengths(double[] re, double[] im) {
+        if (re == null || im == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (re.length != n || im.length != n)
+            throw new IllegalArgumentException("Input arrays must have the length of the transform.");
+    }
+
+    /**
+     * Computes the forward transform of the given data in place.
+     *
+     * @param re the real parts, replaced by the real parts of the transform
+     * @param im the imaginary parts, replaced by the imaginary parts of the transform
+     * @throws IllegalArgumentException if either array is {@code null} or its length
+     *                                  differs from the length of the transform
+     */
+    public void forward(double[] re, double[] im) throws IllegalArgumentException {
+        checkLengths(re, im);
+
+        if (n == 1)
+            return;
+        if (conv != null)
+            bluestein(re, im);
+        else if (factors != null)
+            mixedRadix(re, im);
+        else
+            radix2(re, im);
+    }
+
+    /**
+     * Computes the inverse transform of the given data in place, including the
+     * {@code 1/n} scaling, so that {@code inverse(forward(x)) == x}.
+     *
+     * @param re the real parts, replaced by the real parts of the inverse transform
+     * @param im the imaginary parts, replaced by the imaginary parts of the inverse transform
+     * @throws IllegalArgumentException if either array is {@code null} or its length
+     *                                  differs from the length of the transform
+     */
+    public void inverse(double[] re, double[] im) throws IllegalArgumentException {
+        checkLengths(re, im);
+
+        // ifft(x) = conj(fft(conj(x))) / n
+        for (int i = 0; i < n; i++)
+            im[i] = -im[i];
+
+        forward(re, im);
+
+        double scale = 1.0 / n;
+        for (int i = 0; i < n; i++) {
+            re[i] *= scale;
+            im[i] *= -scale;
+        }
+    }
+
+    /**
+     * Computes the forward transform of a complex array in place.
+     *
+     * @param a the data, replaced by its transform
+     * @throws IllegalArgumentException if {@code a} is {@code null} or its length
+     *                                  differs from the length of the transform
+     */
+    public void forward(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        forward(a.realParts(), a.imagParts());
+    }
+
+    /**
+     * Computes the inverse transform of a complex array in place, including the
+     * {@code 1/n} scaling.
+     *
+     * @param a the data, replaced by its inverse transform
+     * @throws IllegalArgumentException if {@code a} is {@code null} or its length
+     *                                  differs from the length of the transform
+     */
+    public void inverse(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        inverse(a.realParts(), a.imagParts());
+    }
+
+    /**
+     * Computes the forward transform of real data.
+     * <p>
+     * The transform of real data is conjugate-symmetric, so only the bins
+     * {@code 0} to {@code n/2} are returned. For even {@code n} the data is packed
+     * into {@code n/2} complex points, transformed with a plan of half the length
+     * and split into the bins of the full transform, which takes about half the
+     * work of a complex transform.
+     *
+     * @param x the real data, left unchanged
+     * @param out the destination for the bins {@code 0} to {@code n/2}, of length {@code n/2 + 1}
+     * @throws IllegalArgumentException if either argument is {@code null} or has the wrong length
+     */
+    public void realForward(double[] x, ComplexArray out) throws IllegalArgumentException {
+        if (x == null || out == null)
+            throw new IllegalArgumentException("Input arrays must not be null.");
+        if (x.length != n || out.length() != n/2 + 1)
+            throw new IllegalArgumentException("Input arrays must have lengths n and n/2 + 1.");
+
+        double[] outRe = out.realParts(), outIm = out.imagParts();
+
+        if (n % 2 != 0) {
+            double[] re = x.clone();
+            double[] im = new double[n];
+            forward(re, im);
+            System.arraycopy(re, 0, outRe, 0, n/2 + 1);
+            System.arraycopy(im, 0, outIm, 0, n/2 + 1);
+            return;
+        }
+
+        int h = n / 2;
+        FFT hp = this.half;
+        if (hp == null) {
+            hp = new FFT(h);
+            this.half = hp;
+        }
+
+        double[] zr = new double[h], zi = new double[h];
+        for (int j = 0; j < h; j++) {
+            zr[j] = x[2*j];
+            zi[j] = x[2*j + 1];
+        }
+        hp.forward(zr, zi);
+
+        for (int k = 0; k <= h; k++) {
+            int a = k % h, b = (h - k) % h;
+            double ar = zr[a], ai = zi[a];
+            double br = zr[b], bi = -zi[b];
+
+            // even part (Z[k] + conj Z[h-k]) / 2, odd part (Z[k] - conj Z[h-k]) / 2i
+            double er = (ar + br) / 2, ei = (ai + bi) / 2;
+            double or = (ai - bi) / 2, oi = -(ar - br) / 2;
+
+            double wr = k < h ? twRe[k] : -1, wi = k < h ? twIm[k] : 0;
+            outRe[k] = er + or*wr - oi*wi;
+            outIm[k] = ei + or*wi + oi*wr;
+        }
+    }
+
+    //HELPER METHOD
+    private void radix2(double[] re, double[] im) {
+        // bit-reversal permutation
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1)
+                j ^= bit;
+            j ^= bit;
+
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+
+        // with an odd number of stages, start with one radix-2 stage, which needs no twiddles
+        int h = 1;
+        if (Integer.numberOfTrailingZeros(n) % 2 != 0) {
+            for (int i = 0; i < n; i += 2) {
+                double xr = re[i + 1], xi = im[i + 1];
+                re[i + 1] = re[i] - xr;
+                im[i + 1] = im[i] - xi;
+                re[i] += xr;
+                im[i] += xi;
+            }
+            h = 2;
+        }
+
+        // fuse the radix-2 stages of size 2h and 4h into one pass over the data
+        for (; 4*h <= n; h *= 4) {
+            int s1 = n / (2*h), s2 = n / (4*h);
+
+            for (int start = 0; start < n; start += 4*h) {
+                for (int k = 0; k < h; k++) {
+                    int i0 = start + k, i1 = i0 + h, i2 = i1 + h, i3 = i2 + h;
+                    double w1r = twRe[k*s1], w1i = twIm[k*s1];
+                    double w2r = twRe[k*s2], w2i = twIm[k*s2];
+
+                    // stage of size 2h: (i0, i1) and (i2, i3) with W_2h^k
+                    double tr = re[i1]*w1r - im[i1]*w1i, ti = re[i1]*w1i + im[i1]*w1r;
+                    double a0r = re[i0] + tr, a0i = im[i0] + ti;
+                    double a1r = re[i0] - tr, a1i = im[i0] - ti;
+
+                    tr = re[i3]*w1r - im[i3]*w1i;
+                    ti = re[i3]*w1i + im[i3]*w1r;
+                    double a2r = re[i2] + tr, a2i = im[i2] + ti;
+                    double a3r = re[i2] - tr, a3i = im[i2] - ti;
+
+                    // stage of size 4h: (i0, i2) with W_4h^k and (i1, i3) with W_4h^(k+h) = -i W_4h^k
+                    tr = a2r*w2r - a2i*w2i;
+                    ti = a2r*w2i + a2i*w2r;
+                    re[i0] = a0r + tr;
+                    im[i0] = a0i + ti;
+                    re[i2] = a0r - tr;
+                    im[i2] = a0i - ti;
+
+                    tr = a3r*w2i + a3i*w2r;
+                    ti = -(a3r*w2r - a3i*w2i);
+                    re[i1] = a1r + tr;
+                    im[i1] = a1i + ti;
+                    re[i3] = a1r - tr;
+                    im[i3] = a1i - ti;
+                }
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private void mixedRadix(double[] re, double[] im) {
+        double[] xr = re.clone(), xi = im.clone();
+        int maxP = 0;
+        for (int p : factors)
+            maxP = Math.max(maxP, p);
+
+        mixedRadix(xr, xi, 0, 1, re, im, 0, n, 0, new double[maxP], new double[maxP]);
+    }
+
+    /**
+     * Transforms the {@code len} points {@code x[xOff + j*stride]} into
+     * {@code y[yOff ..< yOff + len]} by decimation in time over {@code factors[f]}.
+     */
+    private void mixedRadix(double[] xr, double[] xi, int xOff, int stride,
+                            double[] yr, double[] yi, int yOff, int len, int f,
+                            double[] tr, double[] ti) {
+        if (len == 1) {
+            yr[yOff] = xr[xOff];
+            yi[yOff] = xi[xOff];
+            return;
+        }
+
+        int p = factors[f];
+        int m = len / p;
+
+        for (int r = 0; r < p; r++)
+            mixedRadix(xr, xi, xOff + r*stride, stride*p, yr, yi, yOff + r*m, m, f + 1, tr, ti);
+
+        // W_len^j is the (j * n/len)-th twiddle factor
+        int s = n / len;
+
+        for (int k = 0; k < m; k++) {
+            for (int r = 0; r < p; r++) {
+                int j = yOff + r*m + k;
+                int t = r*k*s;
+                double wr = twRe[t], wi = twIm[t];
+                tr[r] = yr[j]*wr - yi[j]*wi;
+                ti[r] = yr[j]*wi + yi[j]*wr;
+            }
+
+            int j = yOff + k;
+
+            if (p == 2) {
+                yr[j] = tr[0] + tr[1];
+                yi[j] = ti[0] + ti[1];
+                yr[j + m] = tr[0] - tr[1];
+                yi[j + m] = ti[0] - ti[1];
+            }
+            else if (p == 4) {
+                double a0r = tr[0] + tr[2], a0i = ti[0] + ti[2];
+                double a1r = tr[0] - tr[2], a1i = ti[0] - ti[2];
+                double b0r = tr[1] + tr[3], b0i = ti[1] + ti[3];
+                double b1r = tr[1] - tr[3], b1i = ti[1] - ti[3];
+
+                yr[j] = a0r + b0r;
+                yi[j] = a0i + b0i;
+                yr[j + m] = a1r + b1i;
+                yi[j + m] = a1i - b1r;
+                yr[j + 2*m] = a0r - b0r;
+                yi[j + 2*m] = a0i - b0i;
+                yr[j + 3*m] = a1r - b1i;
+                yi[j + 3*m] = a1i + b1r;
+            }
+            else {
+                int np = n / p;
+                for (int q = 0; q < p; q++) {
+                    double sr = 0, si = 0;
+                    for (int r = 0; r < p; r++) {
+                        int t = (r*q % p) * np;
+                        sr += tr[r]*twRe[t] - ti[r]*twIm[t];
+                        si += tr[r]*twIm[t] + ti[r]*twRe[t];
+                    }
+                    yr[j + q*m] = sr;
+                    yi[j + q*m] = si;
+                }
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private void bluestein(double[] re, double[] im) {
+        int m = kernRe.length;
+        double[] ar = new double[m], ai = new double[m];
+
+        for (int k = 0; k < n; k++) {
+            ar[k] = re[k]*chirpRe[k] - im[k]*chirpIm[k];
+            ai[k] = re[k]*chirpIm[k] + im[k]*chirpRe[k];
+        }
+
+        conv.forward(ar, ai);
+        for (int k = 0; k < m; k++) {
+            double r = ar[k]*kernRe[k] - ai[k]*kernIm[k];
+            ai[k] = ar[k]*kernIm[k] + ai[k]*kernRe[k];
+            ar[k] = r;
+        }
+        conv.inverse(ar, ai);
+
+        for (int k = 0; k < n; k++) {
+            re[k] = ar[k]*chirpRe[k] - ai[k]*chirpIm[k];
+            im[k] = ar[k]*chirpIm[k] + ai[k]*chirpRe[k];
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/**
+ * Approximate versions of the operations of {@link ComplexNumber} whose cost is
+ * dominated by {@code sin}, {@code cos}, {@code atan2}, {@code log} and
+ * {@code exp}, for callers such as visualization that do not need full accuracy.
+ * <p>
+ * The real functions reduce their argument exactly, as the library functions
+ * do, and then evaluate a short polynomial whose coefficients were fitted on
+ * the reduced range; {@link #exp(double)} also uses a table of 32 powers of two.
+ * The largest errors, measured against {@link Math} over millions of
+ * arguments by {@code bench/FastMathAccuracy}, are
+ * <pre>
+ *     function          error                           range
+ *     sin, cos          absolute  ≤ 1e-11               |x| ≤ 2^20, exact beyond
+ *     atan2             absolute  ≤ 1e-11 rad           all
+ *     log               relative  ≤ 1e-11               all
+ *     exp               relative  ≤ 1e-14               all
+ * </pre>
+ * Arguments for which the approximation is not valid, such as {@code NaN},
+ * infinities, zeros, subnormals and very large values, are passed to the
+ * exact function, so special values give the same results as {@link Math}.
+ * The complex operations inherit these bounds, scaled by the condition of the
+ * operation; for instance the phase of a {@link #power(ComplexNumber, ComplexNumber)}
+ * is off by about {@code |w| * 1e-11}.
+ * <p>
+ * {@code Math.exp} and {@code Math.log} are intrinsics on common JVMs, so the
+ * real versions here gain little over them; the gains are in {@code atan2},
+ * which is several times faster, and in the complex operations, which reduce
+ * an angle once for both sine and cosine and avoid {@code hypot}.
+ * <p>
+ * The operations keep the representation rules of {@link ComplexNumber}: a
+ * {@link Polar} argument gives a {@link Polar} result.
+ */
+public final class FastComplexMath {
+
+    /** The largest {@code |x|} reduced by {@link #sin(double)} and {@link #cos(double)}; {@code k π/2} is exact below it. */
+    final private static double TRIG_LIMIT = 0x1p20;
+
+    /** π/2 in two parts, the first with 33 significant bits, as in fdlibm. */
+    final private static double PIO2_HI = 1.57079632673412561417e+00;
+    final private static double PIO2_LO = 6.07710050650619224932e-11;
+    final private static double TWO_OVER_PI = 6.36619772367581382433e-01;
+
+    /** sin x = x S(x²) on [-π/4, π/4], absolute error 3.4e-12. */
+    final private static double S0 = 0.99999999999567701, S1 = -0.16666666631610674, S2 = 0.0083333287840827372,
+            S3 = -0.00019839202639075669, S4 = 2.7173491768581624e-06;
+
+    /** cos x = C(x²) on [-π/4, π/4], absolute error 1.2e-13; the constant term is 1 so that {@code cos 0 = 1}. */
+    final private static double C0 = 1, C1 = -0.49999999999349198, C2 = 0.041666666543734042,
+            C3 = -0.0013888880387597465, C4 = 2.4798927845753227e-05, C5 = -2.7173382131896641e-07;
+
+    /** atan u = u A(u²) on [0, tan(π/8)], absolute error 8.1e-12. */
+    final private static double A0 = 0.99999999997912703, A1 = -0.33333332127850984, A2 = 0.1999988589721905,
+            A3 = -0.14281639228223017, A4 = 0.11041053839221003, A5 = -0.084591075882267552,
+            A6 = 0.047129943105474512;
+
+    final private static double TAN_PI_8 = 0.41421356237309503;
+    final private static double PI_4 = Math.PI / 4, PI_2 = Math.PI / 2;
+
+    /** ln m = s L(s²) with s = (m - 1)/(m + 1), for m in [√½, √2], absolute error 1.5e-12. */
+    final private static double L0 = 2.0000000000084106, L1 = 0.66666665241750667, L2 = 0.4000038565098718,
+            L3 = 0.28534997731093853, L4 = 0.23617266005524401;
+
+    /** ln 2 in two parts, the first with trailing zero bits so that {@code k ln2_hi} is exact, as in fdlibm. */
+    final private static double LN2_HI = 6.93147180369123816490e-01;
+    final private static double LN2_LO = 1.90821492927058770002e-10;
+    final private static double LN2_HI_32 = LN2_HI / 32, LN2_LO_32 = LN2_LO / 32;
+
+    final private static double SQRT2 = 1.4142135623730951;
+    final private static double INV_LN2_32 = 32 / 6.93147180559945286227e-01;
+
+    /** Adding 1.5 2^52 rounds a double below 2^51 in magnitude to an integer held in the low bits. */
+    final private static double SHIFTER = 0x1.8p52;
+
+    /** 2^(j/32) for j = 0..31. */
+    final private static double[] EXP2 = new double[32];
+
+    static {
+        for (int j = 0; j < EXP2.length; j++)
+            EXP2[j] = Math.pow(2, j / 32.0);
+    }
+
+    /** A rectangular-form exponential for {@link ComplexFunction} users, see {@link #exp(double, double, double[])}. */
+    final public static ComplexFunction EXP = FastComplexMath::exp;
+
+    /** A principal logarithm for {@link ComplexFunction} users, see {@link #log(double, double, double[])}. */
+    final public static ComplexFunction LOG = FastComplexMath::log;
+
+    //HELPER METHOD
+    private FastComplexMath() {
+    }
+
+    /**
+     * Returns an approximation of {@code Math.sin(x)}, see the class comment for the error.
+     *
+     * @param x an angle in radians
+     * @return the approximate sine of {@code x}
+     */
+    public static double sin(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT))
+            return Math.sin(x);
+
+        int k = round(x * TWO_OVER_PI);
+        double r = (x - k*PIO2_HI) - k*PIO2_LO;
+        return quadrant(r, k);
+    }
+
+    /**
+     * Returns an approximation of {@code Math.cos(x)}, see the class comment for the error.
+     *
+     * @param x an angle in radians
+     * @return the approximate cosine of {@code x}
+     */
+    public static double cos(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT))
+            return Math.cos(x);
+
+        int k = round(x * TWO_OVER_PI);
+        double r = (x - k*PIO2_HI) - k*PIO2_LO;
+        return quadrant(r, k + 1);
+    }
+
+    /**
+     * Computes {@code r cos θ} into {@code out[0]} and {@code r sin θ} into
+     * {@code out[1]}, reducing {@code θ} once for both.
+     *
+     * @param r the modulus
+     * @param theta the phase in radians
+     * @param out the destination
+     */
+    public static void polarToRect(double r, double theta, double[] out) {
+        double c, s;
+        if (Math.abs(theta) <= TRIG_LIMIT) {
+            int k = round(theta * TWO_OVER_PI);
+            double t = (theta - k*PIO2_HI) - k*PIO2_LO;
+            s = quadrant(t, k);
+            c = quadrant(t, k + 1);
+        }
+        else {
+            c = Math.cos(theta);
+            s = Math.sin(theta);
+        }
+        // as in Polar, the zero of the other part at a multiple of π/2 is exact
+        out[0] = Math.abs(s) == 1 ? 0 : r*c;
+        out[1] = Math.abs(c) == 1 ? 0 : r*s;
+    }
+
+    /** Returns {@code Math.rint(x)} for {@code |x| < 2^31}. */
+    private static int round(double x) {
+        return (int) Double.doubleToRawLongBits(x + SHIFTER);
+    }
+
+    /** Returns {@code sin(r + kπ/2)} for a reduced {@code r}. */
+    private static double quadrant(double r, int k) {
+        double t = r*r;
+        double v = (k & 1) == 0
+                ? r * (S0 + t*(S1 + t*(S2 + t*(S3 + t*S4))))
+                : C0 + t*(C1 + t*(C2 + t*(C3 + t*(C4 + t*C5))));
+        return (k & 2) == 0 ? v : -v;
+    }
+
+    /**
+     * Returns an approximation of {@code Math.atan2(y, x)}, see the class comment
+     * for the error. Zeros, infinities and {@code NaN} give the exact result.
+     *
+     * @param y the ordinate
+     * @param x the abscissa
+     * @return the approximate angle of {@code (x, y)} in radians, in [-π, π]
+     */
+    public static double atan2(double y, double x) {
+        double ax = Math.abs(x), ay = Math.abs(y);
+        if (!(ax < Double.POSITIVE_INFINITY && ay < Double.POSITIVE_INFINITY) || (ax == 0 && ay == 0))
+            return Math.atan2(y, x);
+
+        boolean steep = ay > ax;
+        double t = steep ? ax / ay : ay / ax;
+        double a;
+        if (t > TAN_PI_8) {
+            double u = (t - 1) / (t + 1);
+            a = PI_4 + atan(u);
+        }
+        else
+            a = atan(t);
+
+        if (steep)
+            a = PI_2 - a;
+        if (x < 0)
+            a = Math.PI - a;
+        return Math.copySign(a, y);
+    }
+
+    /** Returns {@code atan u} for {@code |u| ≤ tan(π/8)}. */
+    private static double atan(double u) {
+        double t = u*u;
+        return u * (A0 + t*(A1 + t*(A2 + t*(A3 + t*(A4 + t*(A5 + t*A6))))));
+    }
+
+    /**
+     * Returns an approximation of {@code Math.log(x)}, see the class comment for
+     * the error. Zero, negative, subnormal and non-finite arguments give the exact result.
+     *
+     * @param x the argument
+     * @return the approximate natural logarithm of {@code x}
+     */
+    public static double log(double x) {
+        if (!(x >= Double.MIN_NORMAL && x < Double.POSITIVE_INFINITY))
+            return Math.log(x);
+
+        long bits = Double.doubleToRawLongBits(x);
+        int e = (int) (bits >>> 52) - 1023;
+        double m = Double.longBitsToDouble((bits & 0x000f_ffff_ffff_ffffL) | 0x3ff0_0000_0000_0000L);
+        if (m > SQRT2) {
+            m *= 0.5;
+            e++;
+        }
+
+        double s = (m - 1) / (m + 1), t = s*s;
+        double p = s * (L0 + t*(L1 + t*(L2 + t*(L3 + t*L4))));
+        return e*LN2_HI + (p + e*LN2_LO);
+    }
+
+    /**
+     * Returns an approximation of {@code Math.exp(x)}, see the class comment for
+     * the error. Arguments beyond ±708 and {@code NaN} give the exact result.
+     *
+     * @param x the exponent
+     * @return the approximate value of {@code e^x}
+     */
+    public static double exp(double x) {
+        if (!(Math.abs(x) <= 708))
+            return Math.exp(x);
+
+        // x = (32n + j) ln2/32 + r with |r| ≤ ln2/64, so e^x = 2^n 2^(j/32) e^r
+        int k = round(x * INV_LN2_32);
+        double r = (x - k*LN2_HI_32) - k*LN2_LO_32;
+        double p = 1 + r*(1 + r*(0.5 + r*(1.0/6 + r*(1.0/24 + r*(1.0/120)))));
+        double scale = Double.longBitsToDouble((long) ((k >> 5) + 1023) << 52);
+        return EXP2[k & 31] * p * scale;
+    }
+
+    /**
+     * Computes the approximate principal logarithm {@code ln|z| + i arg z} of
+     * {@code x + yi} into {@code out}.
+     *
+     * @param x the real part
+     * @param y the imaginary part
+     * @param out the destination
+     */
+    public static void log(double x, double y, double[] out) {
+        out[0] = logModulus(x, y);
+        out[1] = atan2(y + 0.0, x);
+    }
+
+    /**
+     * Computes the approximate exponential {@code e^x (cos y + i sin y)} of
+     * {@code x + yi} into {@code out}.
+     *
+     * @param x the real part
+     * @param y the imaginary part
+     * @param out the destination
+     */
+    public static void exp(double x, double y, double[] out) {
+        polarToRect(exp(x), y, out);
+        if (y == 0)
+            out[1] = y;
+    }
+
+    /**
+     * Computes the approximate principal value of {@code z^w} for {@code z = x + yi}
+     * and {@code w = u + vi} into {@code out}, with the formula of
+     * {@link ComplexNumber#power(ComplexNumber, ComplexNumber)}.
+     *
+     * @param x the real part of the base
+     * @param y the imaginary part of the base
+     * @param u the real part of the exponent
+     * @param v the imaginary part of the exponent
+     * @param out the destination
+     */
+    public static void pow(double x, double y, double u, double v, double[] out) {
+        if (!polarPower(logModulus(x, y), atan2(y + 0.0, x), u, v, out))
+            polarToRect(exp(out[0]), out[1], out);
+    }
+
+    /**
+     * Computes {@code ln|z^w|} and {@code arg z^w} from {@code ln|z|} and {@code arg z}
+     * into {@code out} and returns {@code false}, or, for the cases
+     * {@code z^0 = 1} and {@code 0^w = 0} with {@code Re(w) > 0}, stores
+     * the rectangular result and returns {@code true}.
+     */
+    private static boolean polarPower(double lr, double theta, double u, double v, double[] out) {
+        if ((u == 0 && v == 0) || (lr == Double.NEGATIVE_INFINITY && u > 0)) {
+            out[0] = u == 0 && v == 0 ? 1 : 0;
+            out[1] = 0;
+            return true;
+        }
+        out[0] = u*lr - v*theta;
+        out[1] = v*lr + u*theta;
+        return false;
+    }
+
+    /** Returns {@code ln|x + yi|}, from the squared modulus unless it overflows or underflows. */
+    private static double logModulus(double x, double y) {
+        double m2 = x*x + y*y;
+        if (m2 >= Double.MIN_NORMAL && m2 < Double.POSITIVE_INFINITY)
+            return 0.5 * log(m2);
+        return log(ComplexMath.hypot(x, y));
+    }
+
+    /**
+     * Returns the approximate phase of a complex number, with the conventions of
+     * {@link ComplexNumber#phase()}.
+     *
+     * @param z the complex number
+     * @return the phase in radians, in [-π, π]
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static double phase(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (z instanceof Polar p && p.hasPolarForm())
+            return p.phase();
+        return atan2(z.imag() + 0.0, z.real());
+    }
+
+    /**
+     * Returns a complex number in rectangular form, computing the parts of a
+     * {@link Polar} with the approximate sine and cosine instead of reading
+     * {@link Polar#real()} and {@link Polar#imag()}.
+     *
+     * @param z the complex number
+     * @return the complex number as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static Rectangular toRect(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        if (z instanceof Rectangular r)
+            return r;
+        Polar p = (Polar) z;
+        if (!p.hasPolarForm())
+            return p.toComplexRect();
+
+        double[] w = new double[2];
+        polarToRect(p.modulus(), p.phase(), w);
+        return new Rectangular(w[0], w[1]);
+    }
+
+    /**
+     * Computes the approximate complex exponential, see {@link ComplexNumber#exp(ComplexNumber)}.
+     *
+     * @param z the exponent
+     * @return {@code e^z}, as a {@link Polar} if {@code z} is one
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber exp(ComplexNumber z) throws IllegalArgumentException {
+        Rectangular r = toRect(z);
+        if (z instanceof Polar)
+            return new Polar(exp(r.real()), r.imag());
+
+        double[] w = new double[2];
+        exp(r.real(), r.imag(), w);
+        return new Rectangular(w[0], w[1]);
+    }
+
+    /**
+     * Computes the approximate principal logarithm, see {@link ComplexNumber#log(ComplexNumber)}.
+     *
+     * @param z the complex number
+     * @return {@code ln z}, as a {@link Polar} if {@code z} is one
+     * @throws IllegalArgumentException if {@code z} is {@code null}
+     */
+    public static ComplexNumber log(ComplexNumber z) throws IllegalArgumentException {
+        if (z == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        Rectangular soln;
+        if (z instanceof Polar p && p.hasPolarForm())
+            soln = new Rectangular(log(p.modulus()), p.phase());
+        else {
+            double[] w = new double[2];
+            log(z.real(), z.imag(), w);
+            soln = new Rectangular(w[0], w[1]);
+        }
+        return z instanceof Polar ? soln.toComplexPolar() : soln;
+    }
+
+    /**
+     * Computes the approximate principal value of {@code a^b}, see
+     * {@link ComplexNumber#power(ComplexNumber, ComplexNumber)}.
+     *
+     * @param a the base
+     * @param b the exponent
+     * @return {@code a^b}, as a {@link Polar} if both arguments are
+     * @throws IllegalArgumentException if {@code a} or {@code b} is {@code null}
+     */
+    public static ComplexNumber power(ComplexNumber a, ComplexNumber b) throws IllegalArgumentException {
+        if (a == null || b == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        return power(a, b.real(), b.imag(), a instanceof Polar && b instanceof Polar);
+    }
+
+    /**
+     * Computes the approximate value of {@code a^b} for a real exponent, see
+     * {@link ComplexNumber#power(ComplexNumber, double)}.
+     *
+     * @param a the base
+     * @param b the real exponent
+     * @return {@code a^b}, as a {@link Polar} if {@code a} is one
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static ComplexNumber power(ComplexNumber a, double b) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input complex numbers must not be null.");
+
+        return power(a, b, 0, a instanceof Polar);
+    }
+
+    //HELPER METHOD
+    private static ComplexNumber power(ComplexNumber a, double u, double v, boolean polar) {
+        double lr, theta;
+        if (a instanceof Polar p && p.hasPolarForm()) {
+            lr = log(p.modulus());
+            theta = p.phase();
+        }
+        else {
+            lr = logModulus(a.real(), a.imag());
+            theta = atan2(a.imag() + 0.0, a.real());
+        }
+
+        double[] w = new double[2];
+        if (!polarPower(lr, theta, u, v, w)) {
+            w[0] = exp(w[0]);
+            if (polar)
+                return new Polar(w[0], w[1]);
+            polarToRect(w[0], w[1], w);
+        }
+        else if (polar)
+            return new Rectangular(w[0], w[1]).toComplexPolar();
+        return new Rectangular(w[0], w[1]);
+    }
+}
@@ -0,0 +1,425 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles a {@link ComplexProgram} into a hidden class implementing
+ * {@link ComplexFormula.Kernel}, so that the JIT sees the formula as
+ * straight-line arithmetic on {@code double} locals.
+ * <p>
+ * Every register of the program becomes a pair of local variables. Additions,
+ * subtractions, negations and multiplications are emitted inline, and integer
+ * powers are unrolled into their squarings and products; divisions, complex
+ * powers and the elementary functions call the {@link ComplexMath} kernels,
+ * which are small enough to be inlined in turn. The array method wraps the same
+ * code in a counted loop, so the JIT compiles one loop per formula.
+ * <p>
+ * The class file is written directly, with the few constant pool entries and
+ * instructions the formulas need, and defined with
+ * {@link MethodHandles.Lookup#defineHiddenClass}; it is not strongly linked to
+ * its class loader, so it is unloaded with the last {@link ComplexFormula} using it.
+ */
+final class FormulaCompiler {
+
+    /** Programs whose code would not fit the limits of a method are interpreted instead. */
+    final private static int MAX_CODE = Short.MAX_VALUE;
+
+    final private static String KERNEL = "ComplexFormula$Kernel";
+    final private static String MATH = "ComplexMath";
+
+    // the opcodes used by the generated code
+    final private static int ILOAD = 0x15, DLOAD = 0x18, ALOAD = 0x19, DSTORE = 0x39;
+    final private static int ICONST_0 = 0x03, ICONST_1 = 0x04, ALOAD_0 = 0x2a;
+    final private static int DCONST_0 = 0x0e, DCONST_1 = 0x0f, LDC2_W = 0x14, DALOAD = 0x31, DASTORE = 0x52;
+    final private static int DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DNEG = 0x77, IINC = 0x84;
+    final private static int IF_ICMPGE = 0xa2, GOTO = 0xa7, RETURN = 0xb1;
+    final private static int INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, WIDE = 0xc4;
+
+    /** The locals of {@code evaluate(double, double, double[])}: this, x, y, out. */
+    final private static int SCALAR_OUT = 5, SCALAR_BASE = 6;
+
+    /** The locals of the array method: this, zr, zi, dr, di, i, to, t. */
+    final private static int ARRAY_I = 5, ARRAY_TO = 6, ARRAY_T = 7, ARRAY_BASE = 8;
+
+    final private ComplexProgram program;
+    final private ConstantPool pool = new ConstantPool();
+
+    //HELPER METHOD
+    private FormulaCompiler(ComplexProgram program) {
+        this.program = program;
+    }
+
+    /**
+     * Compiles a program into a new kernel.
+     *
+     * @param program the program to compile
+     * @return the kernel, or {@code null} if the program is too large for one method
+     */
+    static ComplexFormula.Kernel compile(ComplexProgram program) {
+        if (ARRAY_BASE + 4L*program.registers() + 8 > 0xffff)
+            return null;
+
+        byte[] bytes = new FormulaCompiler(program).classFile();
+        if (bytes == null)
+            return null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (ComplexFormula.Kernel) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException("Could not define the formula class.", e);
+        }
+    }
+
+    //HELPER METHOD
+    private byte[] classFile() {
+        Code init = new Code();
+        init.op(ALOAD_0);
+        init.op(INVOKESPECIAL).u2(pool.method("java/lang/Object", "<init>", "()V"));
+        init.op(RETURN);
+
+        // evaluate(double x, double y, double[] out), using out for the results of calls
+        Code scalar = new Code();
+        int var = program.variableRegister();
+        if (var >= 0) {
+            scalar.local(DLOAD, 1).local(DSTORE, SCALAR_BASE + 4*var);
+            scalar.local(DLOAD, 3).local(DSTORE, SCALAR_BASE + 4*var + 2);
+        }
+        body(scalar, SCALAR_BASE, SCALAR_OUT);
+        int result = SCALAR_BASE + 4*program.resultRegister();
+        scalar.local(ALOAD, SCALAR_OUT).op(ICONST_0).local(DLOAD, result).op(DASTORE);
+        scalar.local(ALOAD, SCALAR_OUT).op(ICONST_1).local(DLOAD, result + 2).op(DASTORE);
+        scalar.op(RETURN);
+
+        // evaluate(double[] zr, double[] zi, double[] dr, double[] di, int from, int to, double[] t),
+        // counting from up to to
+        Code array = new Code();
+        int loop = array.length();
+        array.local(ILOAD, ARRAY_I).local(ILOAD, ARRAY_TO);
+        int exitJump = array.length();
+        array.op(IF_ICMPGE).u2(0);
+        if (var >= 0) {
+            array.local(ALOAD, 1).local(ILOAD, ARRAY_I).op(DALOAD).local(DSTORE, ARRAY_BASE + 4*var);
+            array.local(ALOAD, 2).local(ILOAD, ARRAY_I).op(DALOAD).local(DSTORE, ARRAY_BASE + 4*var + 2);
+        }
+        body(array, ARRAY_BASE, ARRAY_T);
+        result = ARRAY_BASE + 4*program.resultRegister();
+        array.local(ALOAD, 3).local(ILOAD, ARRAY_I).local(DLOAD, result).op(DASTORE);
+        array.local(ALOAD, 4).local(ILOAD, ARRAY_I).local(DLOAD, result + 2).op(DASTORE);
+        array.op(IINC).u1(ARRAY_I).u1(1);
+        array.op(GOTO).u2(loop - array.length() + 1);
+        int exit = array.length();
+        array.op(RETURN);
+        array.patch(exitJump + 1, exit - exitJump);
+
+        if (scalar.length() > MAX_CODE || array.length() > MAX_CODE)
+            return null;
+
+        // the loop head and the exit both have the locals of the method entry
+        // (same_frame at the loop head, which is the first instruction, then same_frame_extended)
+        int delta = exit - loop - 1;
+        byte[] frames = {0, 2, (byte) loop, (byte) 251, (byte) (delta >> 8), (byte) delta};
+
+        // the registers, then the eight locals of power()
+        int registers = 4*program.registers() + 8;
+        return write(new Method[] {
+                new Method(0x0001, "<init>", "()V", 1, 1, init, null),
+                new Method(0x0011, "evaluate", "(DD[D)V", 10, SCALAR_BASE + registers, scalar, null),
+                new Method(0x0011, "evaluate", "([D[D[D[DII[D)V", 10, ARRAY_BASE + registers, array, frames)
+        });
+    }
+
+    /** Emits the instructions of the program, with its registers starting at local {@code base}. */
+    private void body(Code c, int base, int temp) {
+        for (int k = 0; k < program.constants(); k++) {
+            int r = base + 4*program.constantRegister(k);
+            c.op(LDC2_W).u2(pool.constant(program.constantReal(k))).local(DSTORE, r);
+            c.op(LDC2_W).u2(pool.constant(program.constantImag(k))).local(DSTORE, r + 2);
+        }
+
+        for (int k = 0; k < program.instructions(); k++) {
+            int a = base + 4*program.lhs(k), b = base + 4*program.rhs(k), d = base + 4*program.destination(k);
+
+            switch (program.operation(k)) {
+                case NEG:
+                    c.local(DLOAD, a).op(DNEG).local(DSTORE, d);
+                    c.local(DLOAD, a + 2).op(DNEG).local(DSTORE, d + 2);
+                    break;
+                case ADD:
+                case SUB:
+                    int op = program.operation(k) == ComplexExpr.Op.ADD ? DADD : DSUB;
+                    c.local(DLOAD, a).local(DLOAD, b).op(op).local(DSTORE, d);
+                    c.local(DLOAD, a + 2).local(DLOAD, b + 2).op(op).local(DSTORE, d + 2);
+                    break;
+                case MUL:
+                    c.local(DLOAD, a).local(DLOAD, b).op(DMUL);
+                    c.local(DLOAD, a + 2).local(DLOAD, b + 2).op(DMUL).op(DSUB).local(DSTORE, d);
+                    c.local(DLOAD, a).local(DLOAD, b + 2).op(DMUL);
+                    c.local(DLOAD, a + 2).local(DLOAD, b).op(DMUL).op(DADD).local(DSTORE, d + 2);
+                    break;
+                case DIV:
+                case POW:
+                    c.local(DLOAD, a).local(DLOAD, a + 2).local(DLOAD, b).local(DLOAD, b + 2).local(ALOAD, temp);
+                    call(c, program.operation(k) == ComplexExpr.Op.DIV ? "divide" : "pow", "(DDDD[D)V", temp, d);
+                    break;
+                case POWI:
+                    power(c, a, program.exponent(k), base + 4*program.registers(), temp, d);
+                    break;
+                default:
+                    c.local(DLOAD, a).local(DLOAD, a + 2).local(ALOAD, temp);
+                    call(c, program.operation(k).name().toLowerCase(), "(DD[D)V", temp, d);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Emits {@code zⁿ} unrolled, with the squarings and products of
+     * {@link ComplexMath#pow(double, double, int, double[])} in the same order, so
+     * the results are identical. Locals {@code s} to {@code s + 7} hold the
+     * running square and the product.
+     */
+    private void power(Code c, int a, int n, int s, int temp, int d) {
+        int x = s, y = s + 2, pr = s + 4, pi = s + 6;
+        long e = Math.abs((long) n);
+
+        if (n > 0) {
+            c.local(DLOAD, a).local(DSTORE, x);
+            c.local(DLOAD, a + 2).local(DSTORE, y);
+        }
+        else {
+            c.op(DCONST_1).op(DCONST_0).local(DLOAD, a).local(DLOAD, a + 2).local(ALOAD, temp);
+            call(c, "divide", "(DDDD[D)V", temp, x);
+        }
+        while ((e & 1) == 0) {
+            square(c, x, y);
+            e >>= 1;
+        }
+
+        c.local(DLOAD, x).local(DSTORE, pr);
+        c.local(DLOAD, y).local(DSTORE, pi);
+        while ((e >>= 1) > 0) {
+            square(c, x, y);
+            if ((e & 1) != 0) {
+                c.local(DLOAD, pr).local(DLOAD, x).op(DMUL).local(DLOAD, pi).local(DLOAD, y).op(DMUL).op(DSUB);
+                c.local(DLOAD, pr).local(DLOAD, y).op(DMUL).local(DLOAD, pi).local(DLOAD, x).op(DMUL).op(DADD);
+                c.local(DSTORE, pi).local(DSTORE, pr);
+            }
+        }
+
+        c.local(ALOAD, temp).op(ICONST_0).local(DLOAD, pr).op(DASTORE);
+        c.local(ALOAD, temp).op(ICONST_1).local(DLOAD, pi).op(DASTORE);
+        c.local(DLOAD, a).local(DLOAD, a + 2).op(LDC2_W).u2(pool.constant(n)).local(ALOAD, temp);
+        call(c, "powCheck", "(DDD[D)V", temp, d);
+    }
+
+    /** Emits {@code x + yi = (x + yi)²} as {@code (x - y)(x + y) + 2xy i}. */
+    private void square(Code c, int x, int y) {
+        c.local(DLOAD, x).local(DLOAD, y).op(DSUB).local(DLOAD, x).local(DLOAD, y).op(DADD).op(DMUL);
+        c.op(LDC2_W).u2(pool.constant(2)).local(DLOAD, x).op(DMUL).local(DLOAD, y).op(DMUL);
+        c.local(DSTORE, y).local(DSTORE, x);
+    }
+
+    /** Emits a call of a {@link ComplexMath} kernel and moves its result from {@code temp} to register {@code d}. */
+    private void call(Code c, String name, String descriptor, int temp, int d) {
+        c.op(INVOKESTATIC).u2(pool.method(MATH, name, descriptor));
+        c.local(ALOAD, temp).op(ICONST_0).op(DALOAD).local(DSTORE, d);
+        c.local(ALOAD, temp).op(ICONST_1).op(DALOAD).local(DSTORE, d + 2);
+    }
+
+    //HELPER METHOD
+    private byte[] write(Method[] methods) {
+        int thisClass = pool.type("ComplexFormulaKernel");
+        int superClass = pool.type("java/lang/Object");
+        int kernel = pool.type(KERNEL);
+        for (Method m : methods)
+            m.resolve(pool);
+        int codeName = pool.utf8("Code"), framesName = pool.utf8("StackMapTable");
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xcafebabe);
+            out.writeShort(0);
+            out.writeShort(61);
+            pool.write(out);
+            out.writeShort(0x0030);            // final, super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(kernel);
+            out.writeShort(0);                 // fields
+
+            out.writeShort(methods.length);
+            for (Method m : methods) {
+                out.writeShort(m.access);
+                out.writeShort(m.nameIndex);
+                out.writeShort(m.descriptorIndex);
+                out.writeShort(1);
+
+                byte[] code = m.code.toByteArray();
+                int frames = m.frames == null ? 0 : 6 + m.frames.length;
+                out.writeShort(codeName);
+                out.writeInt(12 + code.length + frames);
+                out.writeShort(m.maxStack);
+                out.writeShort(m.maxLocals);
+                out.writeInt(code.length);
+                out.write(code);
+                out.writeShort(0);             // exception table
+                out.writeShort(m.frames == null ? 0 : 1);
+                if (m.frames != null) {
+                    out.writeShort(framesName);
+                    out.writeInt(m.frames.length);
+                    out.write(m.frames);
+                }
+            }
+            out.writeShort(0);                 // class attributes
+            return bytes.toByteArray();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A method of the generated class. */
+    final private static class Method {
+        final int access, maxStack, maxLocals;
+        final String name, descriptor;
+        final Code code;
+        final byte[] frames;
+        int nameIndex, descriptorIndex;
+
+        Method(int access, String name, String descriptor, int maxStack, int maxLocals, Code code, byte[] frames) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+            this.code = code;
+            this.frames = frames;
+        }
+
+        void resolve(ConstantPool pool) {
+            nameIndex = pool.utf8(name);
+            descriptorIndex = pool.utf8(descriptor);
+        }
+    }
+
+    /** The bytecode of one method. */
+    final private static class Code extends ByteArrayOutputStream {
+
+        Code op(int opcode) {
+            write(opcode);
+            return this;
+        }
+
+        Code u1(int v) {
+            write(v);
+            return this;
+        }
+
+        Code u2(int v) {
+            write(v >> 8);
+            write(v);
+            return this;
+        }
+
+        /** Emits a load or store of a local, widened if its index needs two bytes. */
+        Code local(int opcode, int index) {
+            if (index > 0xff)
+                return op(WIDE).op(opcode).u2(index);
+
+            return op(opcode).u1(index);
+        }
+
+        int length() {
+            return count;
+        }
+
+        void patch(int at, int v) {
+            buf[at] = (byte) (v >> 8);
+            buf[at + 1] = (byte) v;
+        }
+    }
+
+    /** The constant pool of the generated class, with each entry added once. */
+    final private static class ConstantPool {
+        final private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final private DataOutputStream out = new DataOutputStream(bytes);
+        final private Map<Object, Integer> entries = new HashMap<>();
+        private int next = 1;
+
+        int utf8(String s) {
+            return add(s, 1, out -> {
+                out.writeByte(1);
+                out.writeUTF(s);
+            });
+        }
+
+        int type(String name) {
+            int n = utf8(name);
+            return add("class " + name, 1, out -> {
+                out.writeByte(7);
+                out.writeShort(n);
+            });
+        }
+
+        int method(String owner, String name, String descriptor) {
+            int c = type(owner), n = utf8(name), d = utf8(descriptor);
+            int nt = add("nameAndType " + name + descriptor, 1, out -> {
+                out.writeByte(12);
+                out.writeShort(n);
+                out.writeShort(d);
+            });
+            return add("method " + owner + "." + name + descriptor, 1, out -> {
+                out.writeByte(10);
+                out.writeShort(c);
+                out.writeShort(nt);
+            });
+        }
+
+        int constant(double v) {
+            // keyed by bits, so that 0.0 and -0.0 are different constants
+            return add(Double.doubleToRawLongBits(v), 2, out -> {
+                out.writeByte(6);
+                out.writeDouble(v);
+            });
+        }
+
+        //HELPER METHOD
+        private int add(Object key, int slots, Entry entry) {
+            Integer i = entries.get(key);
+            if (i != null)
+                return i;
+
+            try {
+                entry.write(out);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            entries.put(key, next);
+            next += slots;
+            return next - slots;
+        }
+
+        void write(DataOutputStream dst) throws IOException {
+            if (next > 0xffff)
+                throw new IllegalStateException("Too many constants.");
+            dst.writeShort(next);
+            bytes.writeTo(dst);
+        }
+
+        /** Writes one entry. */
+        @FunctionalInterface
+        interface Entry {
+            void write(DataOutputStream out) throws IOException;
+        }
+    }
+}
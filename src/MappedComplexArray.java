@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only view of a file in the format of {@link ComplexIO}, mapped into
+ * memory so that the values are read by the operating system on demand instead
+ * of being copied onto the heap; see {@link ComplexIO#map(java.nio.file.Path)}.
+ * <p>
+ * A single mapping is limited to 2 GiB, so the file is mapped in pieces of
+ * {@value #CHUNK} doubles and indices are {@code long}. Elements are read one
+ * at a time with {@link #real(long)} and {@link #imag(long)}, or a range at a
+ * time into a {@link ComplexArray} with {@link #copyTo(long, ComplexArray, int, int)},
+ * which is how large files are best processed block by block.
+ * <p>
+ * The mapping stays valid after the file is closed and is released when the view
+ * becomes unreachable. Views are immutable and safe to use from several threads.
+ */
+public final class MappedComplexArray {
+
+    /** The number of doubles per mapping, a power of two. */
+    final static int CHUNK = 1 << 27;
+
+    final private static int SHIFT = Integer.numberOfTrailingZeros(CHUNK);
+    final private static int MASK = CHUNK - 1;
+
+    final private long length;
+    final private ComplexIO.Layout layout;
+    final private boolean polar;
+
+    /** The mapped doubles: the pairs of the interleaved layout, or the first then the second parts. */
+    final private DoubleBuffer[] first, second;
+
+    /**
+     * Maps the values following the header read from a channel.
+     *
+     * @param ch the channel, positioned after the header
+     * @param h the header
+     * @throws IOException if the file is shorter than its header says or cannot be mapped
+     */
+    MappedComplexArray(FileChannel ch, ComplexIO.Header h) throws IOException {
+        this.length = h.length;
+        this.layout = h.layout;
+        this.polar = h.polar;
+
+        if (ch.size() < ComplexIO.HEADER + 16*length)
+            throw new IOException("Complex array file is shorter than its header says.");
+
+        if (layout == ComplexIO.Layout.INTERLEAVED) {
+            this.first = map(ch, ComplexIO.HEADER, 2*length);
+            this.second = null;
+        }
+        else {
+            this.first = map(ch, ComplexIO.HEADER, length);
+            this.second = map(ch, ComplexIO.HEADER + 8*length, length);
+        }
+    }
+
+    //HELPER METHOD
+    private static DoubleBuffer[] map(FileChannel ch, long offset, long count) throws IOException {
+        DoubleBuffer[] parts = new DoubleBuffer[(int) ((count + CHUNK - 1) >>> SHIFT)];
+        for (int k = 0; k < parts.length; k++) {
+            long from = (long) k << SHIFT;
+            long n = Math.min(CHUNK, count - from);
+            parts[k] = ch.map(FileChannel.MapMode.READ_ONLY, offset + 8*from, 8*n)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        return parts;
+    }
+
+    /**
+     * Returns the number of complex values in the file.
+     *
+     * @return the length of this view
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the layout of the values in the file.
+     *
+     * @return the layout
+     */
+    public ComplexIO.Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Returns whether the file stores moduli and phases rather than real and
+     * imaginary parts. The accessors convert such values to rectangular form.
+     *
+     * @return {@code true} for a polar file
+     */
+    public boolean isPolar() {
+        return polar;
+    }
+
+    //HELPER METHOD
+    private static double at(DoubleBuffer[] parts, long j) {
+        return parts[(int) (j >>> SHIFT)].get((int) (j & MASK));
+    }
+
+    //HELPER METHOD
+    private double a(long i) {
+        return layout == ComplexIO.Layout.INTERLEAVED ? at(first, 2*i) : at(first, i);
+    }
+
+    //HELPER METHOD
+    private double b(long i) {
+        return layout == ComplexIO.Layout.INTERLEAVED ? at(first, 2*i + 1) : at(second, i);
+    }
+
+    //HELPER METHOD
+    private static double[] rect(double r, double theta) {
+        double[] w = new double[2];
+        Polar.components(r, theta, w);
+        return w;
+    }
+
+    //HELPER METHOD
+    private void check(long i) {
+        if (i < 0 || i >= length)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + length + ".");
+    }
+
+    /**
+     * Returns the real part of an element.
+     *
+     * @param i the index of the element
+     * @return the real part
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public double real(long i) throws IndexOutOfBoundsException {
+        check(i);
+        return polar ? rect(a(i), b(i))[0] : a(i);
+    }
+
+    /**
+     * Returns the imaginary part of an element.
+     *
+     * @param i the index of the element
+     * @return the imaginary part
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public double imag(long i) throws IndexOutOfBoundsException {
+        check(i);
+        return polar ? rect(a(i), b(i))[1] : b(i);
+    }
+
+    /**
+     * Returns an element as a complex number: a {@link Polar} for a polar file and
+     * a {@link Rectangular} otherwise.
+     *
+     * @param i the index of the element
+     * @return the element
+     * @throws IndexOutOfBoundsException if {@code i} is out of range
+     */
+    public ComplexNumber get(long i) throws IndexOutOfBoundsException {
+        check(i);
+        return polar ? new Polar(a(i), b(i)) : new Rectangular(a(i), b(i));
+    }
+
+    /**
+     * Copies a range of elements into an array, in rectangular form.
+     *
+     * @param from the index of the first element to copy
+     * @param dst the destination array
+     * @param offset the index in {@code dst} of the first copied element
+     * @param count the number of elements to copy
+     * @throws IllegalArgumentException if {@code dst} is {@code null}
+     * @throws IndexOutOfBoundsException if a range is out of bounds
+     */
+    public void copyTo(long from, ComplexArray dst, int offset, int count)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (dst == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+        if (count < 0 || from < 0 || from > length - count || offset < 0 || offset > dst.length() - count)
+            throw new IndexOutOfBoundsException("Range out of bounds.");
+
+        double[] re = dst.realParts(), im = dst.imagParts();
+        if (layout == ComplexIO.Layout.SPLIT) {
+            copy(first, from, re, offset, count);
+            copy(second, from, im, offset, count);
+        }
+        else {
+            for (int i = 0; i < count; i++) {
+                re[offset + i] = at(first, 2*(from + i));
+                im[offset + i] = at(first, 2*(from + i) + 1);
+            }
+        }
+
+        if (polar) {
+            double[] w = new double[2];
+            for (int i = offset; i < offset + count; i++) {
+                Polar.components(re[i], im[i], w);
+                re[i] = w[0];
+                im[i] = w[1];
+            }
+        }
+    }
+
+    //HELPER METHOD
+    private static void copy(DoubleBuffer[] parts, long from, double[] dst, int offset, int count) {
+        while (count > 0) {
+            int k = (int) (from >>> SHIFT), j = (int) (from & MASK);
+            int n = Math.min(count, CHUNK - j);
+            parts[k].get(j, dst, offset, n);
+            from += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Copies the whole file into a new array, in rectangular form.
+     *
+     * @return the values of the file
+     * @throws IllegalStateException if the file holds more values than an array can
+     */
+    public ComplexArray toArray() throws IllegalStateException {
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("File holds " + length + " values, too many for an array.");
+
+        ComplexArray a = new ComplexArray((int) length);
+        copyTo(0, a, 0, (int) length);
+        return a;
+    }
+}
@@ -0,0 +1,393 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bulk operations on {@link ComplexArray}s that are split over the common
+ * {@link ForkJoinPool}.
+ * <p>
+ * An array is halved recursively until the pieces are no longer than the chunk
+ * size, and each piece is then processed sequentially with the same kernels as
+ * the sequential methods of {@link ComplexArray}. The chunk size is never smaller
+ * than the sequential threshold given to the constructor, so arrays shorter than
+ * the threshold are processed on the calling thread.
+ * <p>
+ * Element-wise results do not depend on how the array is split. Reductions do,
+ * because floating-point addition and multiplication are not associative: by
+ * default the chunk size also grows with the array length divided by the
+ * parallelism of the pool, so a sum can differ in its last bits between
+ * machines with a different number of cores. In deterministic mode the chunk size
+ * is exactly the threshold, which makes the reduction tree depend only on the
+ * array length and the results reproducible on any number of cores.
+ */
+public final class ParallelComplex {
+
+    /** The sequential threshold of {@link #DEFAULT}. */
+    final public static int DEFAULT_THRESHOLD = 1 << 13;
+
+    /** An instance with the default threshold and non-deterministic reductions. */
+    final public static ParallelComplex DEFAULT = new ParallelComplex(DEFAULT_THRESHOLD, false);
+
+    /** The length at or below which a piece is processed sequentially. */
+    final private int threshold;
+
+    /** Whether the reduction tree is independent of the parallelism of the pool. */
+    final private boolean deterministic;
+
+    /**
+     * Constructs a parallel executor of bulk operations.
+     *
+     * @param threshold the length at or below which a piece of an array is processed sequentially
+     * @param deterministic {@code true} if reductions must give the same result on any number of cores
+     * @throws IllegalArgumentException if {@code threshold} is not positive
+     */
+    public ParallelComplex(int threshold, boolean deterministic) throws IllegalArgumentException {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be positive.");
+
+        this.threshold = threshold;
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Returns the sequential threshold.
+     *
+     * @return the length at or below which a piece is processed sequentially
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns whether reductions are reproducible across core counts.
+     *
+     * @return {@code true} if this executor is in deterministic mode
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Adds two complex arrays element by element in parallel.
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     * @see ComplexArray#add(ComplexArray, ComplexArray, ComplexArray)
+     */
+    public void add(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, b, dst);
+        forEach(dst.length(), (from, to) -> ComplexArray.addRange(a, b, dst, from, to));
+    }
+
+    /**
+     * Subtracts two complex arrays element by element in parallel.
+     *
+     * @param a the minuends
+     * @param b the subtrahends
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     * @see ComplexArray#subtract(ComplexArray, ComplexArray, ComplexArray)
+     */
+    public void subtract(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, b, dst);
+        forEach(dst.length(), (from, to) -> ComplexArray.subtractRange(a, b, dst, from, to));
+    }
+
+    /**
+     * Multiplies two complex arrays element by element in parallel.
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     * @see ComplexArray#multiply(ComplexArray, ComplexArray, ComplexArray)
+     */
+    public void multiply(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, b, dst);
+        forEach(dst.length(), (from, to) -> ComplexArray.multiplyRange(a, b, dst, from, to));
+    }
+
+    /**
+     * Divides two complex arrays element by element in parallel.
+     *
+     * @param a the dividends
+     * @param b the divisors
+     * @param dst the destination, may be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any array is {@code null} or the lengths differ
+     * @see ComplexArray#divide(ComplexArray, ComplexArray, ComplexArray)
+     */
+    public void divide(ComplexArray a, ComplexArray b, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, b, dst);
+        forEach(dst.length(), (from, to) -> ComplexArray.divideRange(a, b, dst, from, to));
+    }
+
+    /**
+     * Applies a function to every element in parallel.
+     *
+     * @param a the input array
+     * @param f the function to apply, which must be safe to call from several threads
+     * @param dst the destination, may be {@code a}
+     * @throws IllegalArgumentException if any argument is {@code null} or the lengths differ
+     * @see ComplexArray#map(ComplexArray, ComplexFunction, ComplexArray)
+     */
+    public void map(ComplexArray a, ComplexFunction f, ComplexArray dst) throws IllegalArgumentException {
+        ComplexArray.checkLengths(a, a, dst);
+        if (f == null)
+            throw new IllegalArgumentException("Input function must not be null.");
+
+        forEach(dst.length(), (from, to) -> ComplexArray.mapRange(a, f, dst, from, to));
+    }
+
+    /**
+     * Returns the sum of the elements. Partial sums of the pieces are combined
+     * pairwise, which also bounds the rounding error better than a single loop.
+     *
+     * @param a the array to sum
+     * @return the sum as a {@link Rectangular}, zero if the array is empty
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public Rectangular sum(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        double[] s = reduce(a, false);
+        return new Rectangular(s[0], s[1]);
+    }
+
+    /**
+     * Returns the product of the elements.
+     *
+     * @param a the array to multiply
+     * @return the product as a {@link Rectangular}, one if the array is empty
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public Rectangular product(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+
+        double[] p = reduce(a, true);
+        return new Rectangular(p[0], p[1]);
+    }
+
+    /**
+     * Returns the index of the element with the largest modulus. Moduli are
+     * compared as computed by {@link ComplexMath#hypot(double, double)}, which
+     * does not overflow where {@code re² + im²} would beyond about {@code 1e154},
+     * and ties go to the lowest index, so the result does not depend on how the
+     * array is split.
+     *
+     * @param a the array to search
+     * @return the index of the element with the largest modulus, or -1 if the array is empty
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public int maxModulusIndex(ComplexArray a) throws IllegalArgumentException {
+        if (a == null)
+            throw new IllegalArgumentException("Input array must not be null.");
+        if (a.length() == 0)
+            return -1;
+
+        return invoke(new MaxModulusTask(a.realParts(), a.imagParts(), 0, a.length(), chunk(a.length())));
+    }
+
+    /**
+     * Multiplies two matrices in parallel, splitting the rows of the result into
+     * pieces of at least {@code threshold} multiply-adds. Every element is computed
+     * exactly as by the sequential method, so the result does not depend on the split.
+     *
+     * @param a the left-hand operand, of size {@code m x n}
+     * @param b the right-hand operand, of size {@code n x p}
+     * @param dst the destination, of size {@code m x p}; must not be {@code a} or {@code b}
+     * @throws IllegalArgumentException if any matrix is {@code null}, the sizes do not match,
+     *                                  or {@code dst} is one of the operands
+     * @see ComplexMatrix#multiply(ComplexMatrix, ComplexMatrix, ComplexMatrix)
+     */
+    public void multiply(ComplexMatrix a, ComplexMatrix b, ComplexMatrix dst) throws IllegalArgumentException {
+        ComplexMatrix.checkMultiply(a, b, dst);
+
+        int rows = a.rows();
+        long perRow = Math.max(1, (long) a.cols() * b.cols());
+        int chunk = (int) Math.max(1, Math.min(rows, threshold / perRow));
+        chunk = Math.max(chunk, rows / (4*ForkJoinPool.getCommonPoolParallelism()));
+
+        forEach(rows, chunk, (from, to) -> ComplexMatrix.multiplyRows(a, b, dst, from, to));
+    }
+
+    /** A sequential kernel over the elements {@code [from, to)}. */
+    @FunctionalInterface
+    interface RangeKernel {
+        void apply(int from, int to);
+    }
+
+    //HELPER METHOD
+    private int chunk(int n) {
+        if (deterministic)
+            return threshold;
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(threshold, n / (4*parallelism));
+    }
+
+    //HELPER METHOD
+    private void forEach(int n, RangeKernel kernel) {
+        forEach(n, chunk(n), kernel);
+    }
+
+    //HELPER METHOD
+    void forEach(int n, int chunk, RangeKernel kernel) {
+        if (n <= chunk)
+            kernel.apply(0, n);
+        else
+            invoke(new ForEachTask(kernel, 0, n, chunk));
+    }
+
+    //HELPER METHOD
+    private double[] reduce(ComplexArray a, boolean product) {
+        return invoke(new ReduceTask(a.realParts(), a.imagParts(), 0, a.length(), chunk(a.length()), product));
+    }
+
+    //HELPER METHOD
+    private static <T> T invoke(RecursiveTask<T> task) {
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    //HELPER METHOD
+    private static void invoke(RecursiveAction task) {
+        ForkJoinPool.commonPool().invoke(task);
+    }
+
+    final private static class ForEachTask extends RecursiveAction {
+
+        final private static long serialVersionUID = 1L;
+
+        final private RangeKernel kernel;
+        final private int from, to, chunk;
+
+        ForEachTask(RangeKernel kernel, int from, int to, int chunk) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                kernel.apply(from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEachTask(kernel, from, mid, chunk), new ForEachTask(kernel, mid, to, chunk));
+        }
+    }
+
+    /** Sums or multiplies the elements {@code [from, to)} into a {@code double[2]}. */
+    final private static class ReduceTask extends RecursiveTask<double[]> {
+
+        final private static long serialVersionUID = 1L;
+
+        final private double[] re, im;
+        final private int from, to, chunk;
+        final private boolean product;
+
+        ReduceTask(double[] re, double[] im, int from, int to, int chunk, boolean product) {
+            this.re = re;
+            this.im = im;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.product = product;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= chunk)
+                return product ? multiplyRange() : addRange();
+
+            int mid = (from + to) >>> 1;
+            ReduceTask left = new ReduceTask(re, im, from, mid, chunk, product);
+            ReduceTask right = new ReduceTask(re, im, mid, to, chunk, product);
+            right.fork();
+            double[] l = left.compute();
+            double[] r = right.join();
+
+            if (product) {
+                double x = l[0]*r[0] - l[1]*r[1];
+                l[1] = l[0]*r[1] + l[1]*r[0];
+                l[0] = x;
+            }
+            else {
+                l[0] += r[0];
+                l[1] += r[1];
+            }
+            return l;
+        }
+
+        //HELPER METHOD
+        private double[] addRange() {
+            double sr = 0, si = 0;
+            for (int i = from; i < to; i++) {
+                sr += re[i];
+                si += im[i];
+            }
+            return new double[] {sr, si};
+        }
+
+        //HELPER METHOD
+        private double[] multiplyRange() {
+            double pr = 1, pi = 0;
+            for (int i = from; i < to; i++) {
+                double x = pr*re[i] - pi*im[i];
+                pi = pr*im[i] + pi*re[i];
+                pr = x;
+            }
+            return new double[] {pr, pi};
+        }
+    }
+
+    /** Finds the lowest index of the largest {@link ComplexMath#hypot(double, double) modulus} in {@code [from, to)}. */
+    final private static class MaxModulusTask extends RecursiveTask<Integer> {
+
+        final private static long serialVersionUID = 1L;
+
+        final private double[] re, im;
+        final private int from, to, chunk;
+
+        MaxModulusTask(double[] re, double[] im, int from, int to, int chunk) {
+            this.re = re;
+            this.im = im;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= chunk) {
+                int best = from;
+                double max = ComplexMath.hypot(re[from], im[from]);
+                for (int i = from + 1; i < to; i++) {
+                    double m = ComplexMath.hypot(re[i], im[i]);
+                    if (m > max) {
+                        max = m;
+                        best = i;
+                    }
+                }
+                return best;
+            }
+
+            int mid = (from + to) >>> 1;
+            MaxModulusTask left = new MaxModulusTask(re, im, from, mid, chunk);
+            MaxModulusTask right = new MaxModulusTask(re, im, mid, to, chunk);
+            right.fork();
+            int l = left.compute();
+            int r = right.join();
+
+            double ml = ComplexMath.hypot(re[l], im[l]);
+            double mr = ComplexMath.hypot(re[r], im[r]);
+            return mr > ml ? r : l;
+        }
+    }
+}
@@ -1,24 +1,141 @@
 /**
+ * A complex number in polar form.
+ * <p>
+ * Instances are immutable and safe to share between threads. The radius and
+ * phase are brought into canonical form once, in the constructor, and the
+ * rectangular form is computed the first time it is needed and then reused,
+ * so repeated calls to {@link #real()} and {@link #imag()} cost no trigonometry.
+ * <p>
+ * A {@link Polar} produced from rectangular parts, such as the sum of two
+ * {@link Polar} numbers or {@link Rectangular#toComplexPolar()}, keeps those
+ * parts and computes its modulus and phase only when one of them is read. A
+ * chain of additions on {@link Polar} numbers therefore never leaves rectangular
+ * form, and the operations of {@link ComplexNumber} use whichever form of an
+ * operand is already known. Conversions actually performed are counted, see
+ * {@link ComplexNumber#polarToRectConversions()}.
+ *
  * @author Suyash Gupta
  */
-
 public class Polar extends ComplexNumber {
 
-    /** The polar radius of the complex number */
+    /** The polar radius (modulus) of the complex number, never negative; unused if {@link #origin} is set. */
     final private double r;
 
-    /** The phase angle of the polar complex number in radians*/
-    private double theta;
+    /** The phase angle of the polar complex number in radians, normalized to (-π, π]; unused if {@link #origin} is set. */
+    final private double theta;
+
+    /** The rectangular parts this number was produced from, or {@code null} if it was built from {@code r} and {@code θ}. */
+    final private Rectangular origin;
+
+    /**
+     * The rectangular form of this complex number, computed on first use.
+     * <p>
+     * {@link Rectangular} is immutable with final fields, so a thread that reads a
+     * non-null reference always sees a fully constructed value; a race at most
+     * computes the same value twice.
+     */
+    private Rectangular rect;
+
+    /** The canonical polar form of a number produced from {@link #origin}, computed on first use in the same way as {@link #rect}. */
+    private Polar canonical;
 
     /**
      * Constructs a polar complex number with the given radius and phase.
+     * <p>
+     * A negative radius is stored as its absolute value with the phase rotated by π,
+     * and the phase is normalized to the range {@code (-π, π]} in constant time,
+     * with {@code -π} mapped to {@code π} and {@code -0.0} to {@code 0}.
      *
      * @param r the polar radius of the complex number, can be negative
      * @param theta the phase (angle) of the complex number in radians
      */
     public Polar(double r, double theta) {
-        this.r = r;
-        this.theta = theta;
+        this.r = Math.abs(r);
+        this.theta = normalize(r, theta);
+        this.origin = null;
+    }
+
+    //HELPER METHOD
+    private Polar(Rectangular origin) {
+        this.r = 0;
+        this.theta = 0;
+        this.origin = origin;
+    }
+
+    /**
+     * Returns a {@link Polar} with the value of a rectangular number whose modulus
+     * and phase are computed only when first read.
+     */
+    static Polar deferred(Rectangular z) {
+        return new Polar(z);
+    }
+
+    /**
+     * Returns whether the modulus and phase of this number are known without a conversion.
+     */
+    boolean hasPolarForm() {
+        return origin == null || canonical != null;
+    }
+
+    //HELPER METHOD
+    private static double normalize(double r, double theta) {
+        if (r == 0) return 0;
+        if (r < 0) theta += Math.PI;
+
+        if (theta > Math.PI || theta < -Math.PI)
+            theta = Math.IEEEremainder(theta, 2*Math.PI);
+
+        // one phase for each point, so that equals() and hashCode() agree on the negative real axis
+        if (theta == -Math.PI)
+            return Math.PI;
+        return theta + 0.0;
+    }
+
+    /**
+     * Computes the real and imaginary parts of {@code new Polar(r, theta)} into
+     * {@code out[0]} and {@code out[1]} without creating it, for readers of polar
+     * data. The phase is normalized first, and a component is exactly zero where
+     * the sine or cosine is {@code ±1}, so that values on the axes have no
+     * rounding residue in the other part.
+     */
+    static void components(double r, double theta, double[] out) {
+        double t = normalize(r, theta), m = Math.abs(r);
+        double cos = Math.cos(t), sin = Math.sin(t);
+        out[0] = Math.abs(sin) == 1 ? 0 : m*cos;
+        out[1] = Math.abs(cos) == 1 ? 0 : m*sin;
+    }
+
+    //HELPER METHOD
+    private Rectangular rect() {
+        if (origin != null)
+            return origin;
+
+        Rectangular c = this.rect;
+
+        if (c == null) {
+            double[] w = new double[2];
+            components(this.r, this.theta, w);
+            c = new Rectangular(w[0], w[1]);
+            this.rect = c;
+            POLAR_TO_RECT.increment();
+        }
+        return c;
+    }
+
+    //HELPER METHOD
+    private Polar polar() {
+        if (origin == null)
+            return this;
+
+        Polar p = this.canonical;
+
+        if (p == null) {
+            double[] w = origin.modulusAndPhase();
+            p = new Polar(w[0], w[1]);
+            this.canonical = p;
+            RECT_TO_POLAR.increment();
+        }
+        return p;
     }
 
     /**
@@ -29,15 +146,14 @@ public class Polar extends ComplexNumber {
      *     real = r * cos(θ)
      * </pre>
      * Special handling is included: if {@code sin(θ)} is ±1, the real part is
-     * treated as exactly 0 to avoid floating-point inaccuracies.
+     * treated as exactly 0 to avoid floating-point inaccuracies. The value is
+     * computed on the first call and cached.
      *
      * @return the real part as a {@code double}
      */
     @Override
     public double real() {
-        if (Math.abs(Math.sin(this.theta)) == 1)
-            return 0;
-        return this.r*Math.cos(this.theta);
+        return rect().real();
     }
 
     /**
@@ -48,50 +164,68 @@ public class Polar extends ComplexNumber {
      *     real = r * sin(θ)
      * </pre>
      * Special handling is included: if {@code cos(θ)} is ±1, the imaginary part is
-     * treated as exactly 0 to avoid floating-point inaccuracies.
+     * treated as exactly 0 to avoid floating-point inaccuracies. The value is
+     * computed on the first call and cached.
      *
      * @return the imaginary part as a {@code double}
      */
     @Override
     public double imag() {
-        if (Math.abs(Math.cos(this.theta)) == 1)
-            return 0;
-        return this.r*Math.sin(this.theta);
+        return rect().imag();
     }
 
     /**
      * Returns the phase (angle) of this complex number in radians.
      * <p>
-     * The phase is normalized to the range {@code [-π, π]}. If the modulus {@code r}
-     * is negative, the phase {@code θ} is effectively rotated by π radians.
+     * The phase is normalized to the range {@code (-π, π]}. If the modulus {@code r}
+     * was given as negative, the phase {@code θ} is effectively rotated by π radians.
      * If the modulus is zero, the phase is defined as 0.
      *
-     * @return the phase of the complex number in radians, normalized to [-π, π]
+     * @return the phase of the complex number in radians, normalized to (-π, π]
      */
     @Override
     public double phase() {
-        if (r == 0) return 0;
-        if (r < 0) this.theta += Math.PI;
-
-        if (this.theta > Math.PI)
-            while(this.theta > Math.PI) this.theta -= 2*Math.PI;
-        if (this.theta < -Math.PI)
-            while(this.theta < -Math.PI) this.theta += 2*Math.PI;
-
-        return this.theta;
+        return polar().theta;
     }
 
     /**
      * Returns the modulus (magnitude) of this complex number.
      * <p>
-     * The modulus is the absolute value of {@code r}, ensuring a non-negative result
-     * even if the stored modulus {@code r} is negative.
+     * The modulus is the absolute value of the radius given to the constructor,
+     * ensuring a non-negative result even if that radius was negative.
      *
      * @return the modulus of the complex number as a {@code double}
      */
     @Override
     public double modulus() {
-        return Math.abs(this.r);
+        return polar().r;
+    }
+
+    /**
+     * Returns the squared modulus of this complex number, {@code r²}. A number
+     * converted from rectangular form whose polar form has not been computed
+     * returns {@code real² + imag²} instead, without computing it.
+     *
+     * @return the squared modulus of the complex number as a {@code double}
+     */
+    @Override
+    public double abs2() {
+        if (!hasPolarForm())
+            return origin.abs2();
+
+        double r = modulus();
+        return r * r;
+    }
+
+    /**
+     * Returns the modulus and the phase of this complex number.
+     *
+     * @return a new array holding the modulus and the phase
+     */
+    @Override
+    public double[] modulusAndPhase() {
+        Polar p = polar();
+        return new double[] {p.r, p.theta};
     }
 
     /**
@@ -104,7 +238,10 @@ public class Polar extends ComplexNumber {
      */
     @Override
     public Polar conjugate() {
-        return new Polar(this.r, -this.theta);
+        if (origin != null && canonical == null)
+            return new Polar(origin.conjugate());
+
+        return new Polar(modulus(), -phase());
     }
 
     /**
@@ -115,12 +252,13 @@ public class Polar extends ComplexNumber {
      *     real = r * cos(θ)
      *     imag = r * sin(θ)
      * </pre>
+     * The rectangular form is cached, so every call returns the same instance.
      *
-     * @return a new {@link Rectangular} representing this complex number
+     * @return a {@link Rectangular} representing this complex number
      */
     @Override
     public Rectangular toComplexRect() {
-        return new Rectangular(this.real(), this.imag());
+        return rect();
     }
 
     /**
@@ -149,19 +287,73 @@ public class Polar extends ComplexNumber {
      */
     @Override
     public Polar inverse() {
-        return new Polar(1/r, -theta);
+        if (origin != null && canonical == null)
+            return new Polar(origin.inverse());
+
+        return new Polar(1/modulus(), -phase());
+    }
+
+    /**
+     * Compares this complex number to another object for equality.
+     * <p>
+     * A {@link Polar} is only equal to another {@link Polar} whose modulus and
+     * normalized phase are bitwise identical, with the same rules as
+     * {@link Double#equals(Object)}. Since the phase is normalized on construction,
+     * {@code new Polar(1, 0)} equals {@code new Polar(1, 2π)} and {@code new Polar(-1, 0)}
+     * equals {@code new Polar(1, π)}. A {@link Polar} is never equal to a
+     * {@link Rectangular}; use {@link ComplexNumber#approxEquals(ComplexNumber, double)}
+     * to compare values across representations or with a tolerance.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if {@code other} is a {@link Polar} with the same modulus
+     *         and phase, {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (other instanceof Polar oth)
+            return Double.doubleToLongBits(this.modulus()) == Double.doubleToLongBits(oth.modulus())
+                    && Double.doubleToLongBits(this.phase()) == Double.doubleToLongBits(oth.phase());
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this complex number, consistent with {@link #equals(Object)}.
+     * <p>
+     * The hash code is computed from the modulus and phase, so no trigonometry is
+     * needed, although a number produced from rectangular parts computes them first.
+     *
+     * @return a hash code computed from the modulus and phase
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(this.modulus()) + Double.hashCode(this.phase());
     }
 
     /**
      * Returns a string representation of this complex number in polar form.
      * <p>
      * The format is {@code "r e^θi"}, where {@code r} is the modulus and
-     * {@code θ} is the phase in radians.
+     * {@code θ} is the phase in radians, and is read back exactly by
+     * {@link #parse(CharSequence)}.
      *
      * @return a {@link String} representing this complex number in polar form
      */
     @Override
     public String toString() {
-        return "" + this.modulus() + "e^" + this.phase() + "i";
+        return ComplexFormat.appendPolar(new StringBuilder(48), this.modulus(), this.phase()).toString();
+    }
+
+    /**
+     * Parses a complex number in polar form, or in one of the other forms of
+     * {@link ComplexFormat}, which are converted.
+     *
+     * @param text the text to parse, such as {@code "2.0e^0.5i"}
+     * @return the complex number as a {@link Polar}
+     * @throws IllegalArgumentException if {@code text} is {@code null} or not a complex number
+     */
+    public static Polar parse(CharSequence text) throws IllegalArgumentException {
+        return ComplexFormat.parse(text).toComplexPolar();
     }
 }
\ No newline at end of file
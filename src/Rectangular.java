@@ -48,23 +48,18 @@ public class Rectangular extends ComplexNumber {
      * The phase is the angle θ between the positive real axis and the line representing
      * the complex number in the complex plane, calculated using:
      * <pre>
-     *     θ = atan(imag / real)
+     *     θ = atan2(imag, real)
      * </pre>
-     * Adjustments are made to account for the correct quadrant.
+     * A zero imaginary part is treated as {@code +0}, so the negative real axis has
+     * phase π, and a zero has phase 0.
      *
      * @return the phase of the complex number in radians as a {@code double}
      */
     @Override
     public double phase() {
-        if (real < 0) {
-            if (imag >= 0)
-                return Math.atan(this.imag/this.real) + Math.PI;
-            else
-                return Math.atan(this.imag/this.real) - Math.PI;
-        }
-        else if(this.real == 0 && this.imag == 0)
+        if (this.real == 0 && this.imag == 0)
             return 0;
-        return Math.atan(this.imag/this.real);
+        return ComplexMath.arg(this.real, this.imag);
     }
 
     /**
@@ -75,12 +70,40 @@ public class Rectangular extends ComplexNumber {
      *     |z| = √(real² + imag²)
      * </pre>
      * where {@code real} and {@code imag} are the real and imaginary parts of the complex number.
+     * The parts are scaled by a power of two when their squares would overflow or
+     * underflow, so the modulus is finite for every finite complex number.
      *
      * @return the modulus of the complex number as a {@code double}
      */
     @Override
     public double modulus() {
-        return Math.sqrt(Math.pow(this.real, 2) + Math.pow(this.imag, 2));
+        return ComplexMath.hypot(this.real, this.imag);
+    }
+
+    /**
+     * Returns the squared modulus of this complex number.
+     * <pre>
+     *     |z|² = real² + imag²
+     * </pre>
+     *
+     * @return the squared modulus of the complex number as a {@code double}
+     */
+    @Override
+    public double abs2() {
+        return this.real*this.real + this.imag*this.imag;
+    }
+
+    /**
+     * Returns the modulus and the phase of this complex number, computed as by
+     * {@link #modulus()} and {@link #phase()} with the test for a zero shared.
+     *
+     * @return a new array holding the modulus and the phase
+     */
+    @Override
+    public double[] modulusAndPhase() {
+        double[] w = new double[2];
+        ComplexMath.polar(this.real, this.imag, w);
+        return w;
     }
 
     /**
@@ -117,12 +140,15 @@ public class Rectangular extends ComplexNumber {
      *     r = √(real² + imag²)
      *     θ = atan2(imag, real)
      * </pre>
+     * They are computed when first read from the returned {@link Polar}, so a
+     * conversion whose result is only used in additions or read back with
+     * {@link Polar#real()} and {@link Polar#imag()} costs no square root or arctangent.
      *
      * @return a new {@link Polar} representing this complex number
      */
     @Override
     public Polar toComplexPolar() {
-        return new Polar(this.modulus(), this.phase());
+        return Polar.deferred(this);
     }
 
     /**
@@ -137,18 +163,62 @@ public class Rectangular extends ComplexNumber {
         return (Rectangular) ComplexNumber.divide(1, this);
     }
 
+    /**
+     * Compares this complex number to another object for equality.
+     * <p>
+     * A {@link Rectangular} is only equal to another {@link Rectangular} whose real
+     * and imaginary parts are bitwise identical, with the same rules as
+     * {@link Double#equals(Object)}: {@code NaN} equals {@code NaN}, while {@code 0.0}
+     * and {@code -0.0} differ. It is never equal to a {@link Polar}; use
+     * {@link ComplexNumber#approxEquals(ComplexNumber, double)} to compare values
+     * across representations or with a tolerance.
+     *
+     * @param other the object to compare with
+     * @return {@code true} if {@code other} is a {@link Rectangular} with the same
+     *         real and imaginary parts, {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (other instanceof Rectangular oth)
+            return Double.doubleToLongBits(this.real) == Double.doubleToLongBits(oth.real)
+                    && Double.doubleToLongBits(this.imag) == Double.doubleToLongBits(oth.imag);
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this complex number, consistent with {@link #equals(Object)}.
+     *
+     * @return a hash code computed from the real and imaginary parts
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(this.real) + Double.hashCode(this.imag);
+    }
+
     /**
      * Returns a string representation of this complex number in rectangular form.
      * <p>
-     * The format is {@code a+bi} or {@code a-bi}, depending on the sign of the imaginary part.
+     * The format is {@code a+bi} or {@code a-bi}, depending on the sign of the imaginary part,
+     * and is read back exactly by {@link #parse(CharSequence)}.
      *
      * @return a {@link String} representing this complex number
      */
     @Override
     public String toString() {
-        if (this.imag < 0)
-            return "" + this.real + "-" + -this.imag + "i";
-            
-        return "" + this.real + "+" + this.imag + "i";
+        return ComplexFormat.appendRect(new StringBuilder(48), this.real, this.imag).toString();
+    }
+
+    /**
+     * Parses a complex number in rectangular form, or in one of the other forms
+     * of {@link ComplexFormat}, which are converted.
+     *
+     * @param text the text to parse, such as {@code "1.5-2.0i"}
+     * @return the complex number as a {@link Rectangular}
+     * @throws IllegalArgumentException if {@code text} is {@code null} or not a complex number
+     */
+    public static Rectangular parse(CharSequence text) throws IllegalArgumentException {
+        return ComplexFormat.parse(text).toComplexRect();
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-only table of the {@code n}-th roots of unity {@code e^(2πik/n)}, for
+ * {@code k = 0, 1, ..., n-1}, stored in primitive arrays.
+ * <p>
+ * Tables are obtained with {@link #of(int)}, which keeps recently used tables in
+ * a cache shared by all threads. The cache is bounded by the total number of
+ * roots it holds, set with the system property {@code complex.rootsCache.maxRoots}
+ * (default 4194304, about 64 MB), and evicts the least recently used tables first.
+ * <p>
+ * A table is filled using the symmetries of the unit circle, so only the first
+ * octant (or quarter, or half, depending on {@code n}) is computed with
+ * {@code cos} and {@code sin}; the other roots are exact reflections of those,
+ * and the roots on the axes are exactly {@code ±1} and {@code ±i}.
+ */
+public final class RootsOfUnity {
+
+    /** The largest total number of roots kept in the cache. */
+    final private static long MAX_CACHED_ROOTS = Long.getLong("complex.rootsCache.maxRoots", 1L << 22);
+
+    /** The cached tables in least recently used order; guarded by its own lock. */
+    final private static LinkedHashMap<Integer, RootsOfUnity> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The total number of roots in {@link #CACHE}; guarded by the lock of {@link #CACHE}. */
+    private static long cachedRoots;
+
+    final private static AtomicLong HITS = new AtomicLong();
+    final private static AtomicLong MISSES = new AtomicLong();
+    final private static AtomicLong EVICTIONS = new AtomicLong();
+
+    /** The real parts of the roots. */
+    final private double[] re;
+
+    /** The imaginary parts of the roots. */
+    final private double[] im;
+
+    //HELPER METHOD
+    private RootsOfUnity(int n) {
+        this.re = new double[n];
+        this.im = new double[n];
+
+        // roots in the first octant (n divisible by 4), quarter (n even) or half (n odd)
+        int direct = n % 4 == 0 ? n / 8 : n % 2 == 0 ? n / 4 : n / 2;
+        for (int k = 0; k <= direct; k++) {
+            double angle = 2*Math.PI*k/n;
+            re[k] = Math.cos(angle);
+            im[k] = Math.sin(angle);
+        }
+        re[0] = 1;
+        im[0] = 0;
+
+        // reflect in the line re = im: e^(i(π/2 - a)) = sin(a) + i cos(a)
+        if (n % 4 == 0) {
+            for (int k = direct + 1; k <= n / 4; k++) {
+                re[k] = im[n/4 - k];
+                im[k] = re[n/4 - k];
+            }
+            direct = n / 4;
+        }
+
+        // reflect in the imaginary axis: e^(i(π - a)) = -cos(a) + i sin(a)
+        if (n % 2 == 0) {
+            for (int k = direct + 1; k <= n / 2; k++) {
+                re[k] = -re[n/2 - k];
+                im[k] = im[n/2 - k];
+            }
+        }
+
+        // reflect in the real axis: e^(i(2π - a)) = cos(a) - i sin(a)
+        for (int k = n / 2 + 1; k < n; k++) {
+            re[k] = re[n - k];
+            im[k] = -im[n - k];
+        }
+    }
+
+    /**
+     * Returns the table of the {@code n}-th roots of unity, from the cache if possible.
+     *
+     * @param n the number of roots
+     * @return the table of the {@code n}-th roots of unity
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    public static RootsOfUnity of(int n) throws IllegalArgumentException {
+        if (n < 1)
+            throw new IllegalArgumentException("The number of roots must be positive.");
+
+        synchronized (CACHE) {
+            RootsOfUnity t = CACHE.get(n);
+            if (t != null) {
+                HITS.incrementAndGet();
+                return t;
+            }
+        }
+
+        MISSES.incrementAndGet();
+        RootsOfUnity t = new RootsOfUnity(n);
+
+        if (n > MAX_CACHED_ROOTS)
+            return t;
+
+        synchronized (CACHE) {
+            RootsOfUnity prev = CACHE.putIfAbsent(n, t);
+            if (prev != null)
+                return prev;
+
+            cachedRoots += n;
+            Iterator<Map.Entry<Integer, RootsOfUnity>> it = CACHE.entrySet().iterator();
+            while (cachedRoots > MAX_CACHED_ROOTS) {
+                RootsOfUnity old = it.next().getValue();
+                it.remove();
+                cachedRoots -= old.length();
+                EVICTIONS.incrementAndGet();
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns the number of roots in this table.
+     *
+     * @return the {@code n} of this table
+     */
+    public int length() {
+        return re.length;
+    }
+
+    /**
+     * Returns the real part of the {@code k}-th root, {@code cos(2πk/n)}.
+     *
+     * @param k the index of the root
+     * @return the real part as a {@code double}
+     */
+    public double real(int k) {
+        return re[k];
+    }
+
+    /**
+     * Returns the imaginary part of the {@code k}-th root, {@code sin(2πk/n)}.
+     *
+     * @param k the index of the root
+     * @return the imaginary part as a {@code double}
+     */
+    public double imag(int k) {
+        return im[k];
+    }
+
+    /**
+     * Returns the {@code k}-th root as a {@link Rectangular}.
+     *
+     * @param k the index of the root
+     * @return a new {@link Rectangular} with the value of the root
+     */
+    public Rectangular get(int k) {
+        return new Rectangular(re[k], im[k]);
+    }
+
+    /**
+     * Copies the roots into the given arrays.
+     *
+     * @param re the destination for the real parts, of length at least {@code n}
+     * @param im the destination for the imaginary parts, of length at least {@code n}
+     */
+    public void copyTo(double[] re, double[] im) {
+        System.arraycopy(this.re, 0, re, 0, this.re.length);
+        System.arraycopy(this.im, 0, im, 0, this.im.length);
+    }
+
+    /**
+     * Returns the number of calls to {@link #of(int)} that were served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static long hits() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #of(int)} that had to compute a table.
+     *
+     * @return the number of cache misses
+     */
+    public static long misses() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns the number of tables evicted from the cache to stay within its bound.
+     *
+     * @return the number of evictions
+     */
+    public static long evictions() {
+        return EVICTIONS.get();
+    }
+
+    /**
+     * Returns the total number of roots currently held in the cache.
+     *
+     * @return the size of the cache in roots
+     */
+    public static long cachedRoots() {
+        synchronized (CACHE) {
+            return cachedRoots;
+        }
+    }
+
+    /**
+     * Removes every table from the cache. The hit, miss and eviction counts are kept.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            cachedRoots = 0;
+        }
+    }
+}